@@ -0,0 +1,482 @@
+package com.taskreminder.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.notify.NotificationDispatcher;
+import com.taskreminder.notify.SinkMetrics;
+import com.taskreminder.util.FileHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded HTTP/JSON API on top of TaskManager, bound to the loopback interface
+ * so other processes on the same host can add, complete and query tasks.
+ *
+ * Endpoints:
+ *   GET    /api/tasks?status=all|pending|completed&limit=N
+ *   GET    /api/tasks/{id}
+ *   POST   /api/tasks                 (one task object or an array for batch insert)
+ *   POST   /api/tasks/{id}/complete
+ *   DELETE /api/tasks/{id}
+ *   GET    /api/metrics/notifications  (delivery counters and latency per notification sink)
+ *
+ * Only requests addressed to localhost are served (Host header localhost,
+ * 127.0.0.1 or [::1]; anything else is refused with 403), so a web page that
+ * rebinds its own domain to 127.0.0.1 cannot read the API. POST and DELETE
+ * must be sent as Content-Type: application/json (415 otherwise), which a page
+ * cannot do cross-origin without a CORS preflight the server never approves.
+ *
+ * Requests run on a bounded worker pool; when its queue is full a request is
+ * answered at once with 503 Service Unavailable (and Retry-After), so overload
+ * never grows memory or stalls the thread accepting connections. Request
+ * bodies larger than 4 MB are refused with 413 Payload Too Large.
+ * Demonstrates: com.sun.net.httpserver, ThreadPoolExecutor, JSON with Gson
+ */
+public class TaskApiServer {
+    private static final String BASE_PATH = "/api/tasks";
+    private static final String METRICS_PATH = "/api/metrics/notifications";
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final int MAX_BODY_BYTES = 4 * 1024 * 1024;
+    
+    /**
+     * A request body over MAX_BODY_BYTES
+     */
+    private static class BodyTooLargeException extends IOException {
+        BodyTooLargeException() {
+            super("Request body larger than " + MAX_BODY_BYTES + " bytes");
+        }
+    }
+    
+    /**
+     * A request refused before it is handled, answered with 'status'
+     */
+    private static class RefusedException extends IOException {
+        private final int status;
+        
+        RefusedException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    
+    private final int port;
+    private final int workerThreads;
+    private final int queueCapacity;
+    private HttpServer server;
+    private ThreadPoolExecutor executor;
+    
+    public TaskApiServer(int port) {
+        this(port, Math.max(2, Runtime.getRuntime().availableProcessors()), 1024);
+    }
+    
+    public TaskApiServer(int port, int workerThreads, int queueCapacity) {
+        this.port = port;
+        this.workerThreads = workerThreads;
+        this.queueCapacity = queueCapacity;
+    }
+    
+    /**
+     * Start listening on the loopback interface
+     */
+    public void start() throws IOException {
+        // Small request/response pairs stall on Nagle + delayed ACK without this
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+            workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "TaskApiWorker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        
+        // The server's own thread only hands each request to the pool (or rejects it)
+        server.createContext(BASE_PATH, exchange -> dispatch(exchange, this::handle));
+        server.createContext(METRICS_PATH, exchange -> dispatch(exchange, this::handleMetrics));
+        server.start();
+        System.out.println("Task API listening on http://localhost:" + getPort() + BASE_PATH);
+    }
+    
+    /**
+     * Stop the server and its worker pool
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    /**
+     * Actual port (useful when started with port 0)
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+    
+    private void dispatch(HttpExchange exchange, HttpHandler handler) throws IOException {
+        try {
+            executor.execute(() -> {
+                try {
+                    handler.handle(exchange);
+                } catch (IOException e) {
+                    System.err.println("Error answering API request: " + e.getMessage());
+                    exchange.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            try {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "Server busy, retry later");
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            checkOrigin(exchange);
+            String method = exchange.getRequestMethod();
+            URI uri = exchange.getRequestURI();
+            String rest = uri.getPath().substring(BASE_PATH.length());
+            if (rest.startsWith("/")) {
+                rest = rest.substring(1);
+            }
+            String[] parts = rest.isEmpty() ? new String[0] : rest.split("/");
+            
+            if (parts.length == 0 && "GET".equals(method)) {
+                listTasks(exchange, parseQuery(uri.getRawQuery()));
+            } else if (parts.length == 0 && "POST".equals(method)) {
+                createTasks(exchange);
+            } else if (parts.length == 1 && "GET".equals(method)) {
+                getTask(exchange, parts[0]);
+            } else if (parts.length == 1 && "DELETE".equals(method)) {
+                deleteTask(exchange, parts[0]);
+            } else if (parts.length == 2 && "complete".equals(parts[1]) && "POST".equals(method)) {
+                completeTask(exchange, parts[0]);
+            } else {
+                sendError(exchange, 404, "Unknown endpoint: " + method + " " + uri.getPath());
+            }
+        } catch (RefusedException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (BodyTooLargeException e) {
+            sendError(exchange, 413, e.getMessage());
+        } catch (IllegalArgumentException | JsonParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error handling API request: " + e.getMessage());
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            checkOrigin(exchange);
+            if (!"GET".equals(exchange.getRequestMethod()) || !METRICS_PATH.equals(exchange.getRequestURI().getPath())) {
+                sendError(exchange, 404, "Unknown endpoint: " + exchange.getRequestMethod() + " "
+                    + exchange.getRequestURI().getPath());
+                return;
+            }
+            // Empty unless this instance delivers notifications (see ProcessSync leadership)
+            NotificationDispatcher dispatcher = NotificationDispatcher.getActiveInstance();
+            List<SinkMetrics> metrics = dispatcher == null ? new ArrayList<>() : dispatcher.getMetrics();
+            sendJson(exchange, 200, gson().toJson(metrics));
+        } catch (RefusedException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Refuse requests for another host name (DNS rebinding) and writes that are
+     * not JSON (cross-origin form or text/plain posts)
+     */
+    private static void checkOrigin(HttpExchange exchange) throws RefusedException {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null || !isLocalHost(host.trim())) {
+            throw new RefusedException(403, "Requests must be addressed to localhost");
+        }
+        String method = exchange.getRequestMethod();
+        if ("POST".equals(method) || "DELETE".equals(method)) {
+            String type = exchange.getRequestHeaders().getFirst("Content-Type");
+            int semicolon = type == null ? -1 : type.indexOf(';');
+            String mediaType = type == null ? "" : (semicolon < 0 ? type : type.substring(0, semicolon)).trim();
+            if (!"application/json".equalsIgnoreCase(mediaType)) {
+                throw new RefusedException(415, method + " requests must have Content-Type: application/json");
+            }
+        }
+    }
+    
+    // "localhost", "127.0.0.1" or "[::1]", with or without a port
+    private static boolean isLocalHost(String host) {
+        String name = host;
+        int colon = host.lastIndexOf(':');
+        if (colon >= 0 && host.indexOf(']') < colon) {
+            name = host.substring(0, colon);
+        }
+        return name.equalsIgnoreCase("localhost") || name.equals("127.0.0.1") || name.equals("[::1]");
+    }
+    
+    private void listTasks(HttpExchange exchange, Map<String, String> query) throws IOException {
+        TaskManager manager = TaskManager.getInstance();
+        String status = query.getOrDefault("status", "all");
+        int limit = parseLimit(query.get("limit"));
+        
+        List<Task> tasks;
+        switch (status) {
+            case "pending":
+                tasks = manager.findTasks(task -> !task.isCompleted(), limit);
+                break;
+            case "completed":
+                tasks = manager.findTasks(Task::isCompleted, limit);
+                break;
+            case "all":
+                tasks = manager.findTasks(task -> true, limit);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown status: " + status);
+        }
+        sendJson(exchange, 200, gson().toJson(tasks));
+    }
+    
+    private void getTask(HttpExchange exchange, String id) throws IOException {
+        Task task = TaskManager.getInstance().getTaskById(id);
+        if (task == null) {
+            sendError(exchange, 404, "Task not found: " + id);
+        } else {
+            sendJson(exchange, 200, gson().toJson(task));
+        }
+    }
+    
+    private void createTasks(HttpExchange exchange) throws IOException {
+        JsonElement body = JsonParser.parseString(readBody(exchange));
+        
+        List<Task> created = new ArrayList<>();
+        if (body.isJsonArray()) {
+            for (JsonElement element : body.getAsJsonArray()) {
+                created.add(toTask(element));
+            }
+        } else {
+            created.add(toTask(body));
+        }
+        
+        // One batch insert regardless of how many tasks the request carried
+        TaskManager.getInstance().addTasks(created);
+        
+        List<String> ids = new ArrayList<>(created.size());
+        for (Task task : created) {
+            ids.add(task.getId());
+        }
+        JsonObject response = new JsonObject();
+        response.add("ids", gson().toJsonTree(ids));
+        sendJson(exchange, 201, response.toString());
+    }
+    
+    private void completeTask(HttpExchange exchange, String id) throws IOException {
+        if (TaskManager.getInstance().markTaskCompleted(id)) {
+            JsonObject response = new JsonObject();
+            response.addProperty("completed", id);
+            sendJson(exchange, 200, response.toString());
+        } else {
+            sendError(exchange, 404, "Task not found: " + id);
+        }
+    }
+    
+    private void deleteTask(HttpExchange exchange, String id) throws IOException {
+        TaskManager manager = TaskManager.getInstance();
+        Task task = manager.getTaskById(id);
+        if (task == null) {
+            sendError(exchange, 404, "Task not found: " + id);
+        } else {
+            manager.removeTask(task);
+            JsonObject response = new JsonObject();
+            response.addProperty("deleted", id);
+            sendJson(exchange, 200, response.toString());
+        }
+    }
+    
+    /**
+     * Build a new Task from a request object; ids are always assigned by the server
+     */
+    private Task toTask(JsonElement element) {
+        if (!element.isJsonObject()) {
+            throw new IllegalArgumentException("Task must be a JSON object");
+        }
+        JsonObject json = element.getAsJsonObject();
+        
+        String title = getString(json, "title");
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("Task title is required");
+        }
+        
+        String timeText = getString(json, "reminderTime");
+        if (timeText == null) {
+            throw new IllegalArgumentException("Task reminderTime is required");
+        }
+        LocalDateTime reminderTime;
+        try {
+            reminderTime = LocalDateTime.parse(timeText);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid reminderTime: " + timeText);
+        }
+        
+        String priority = getString(json, "priority");
+        if (priority == null) {
+            priority = "MEDIUM";
+        } else if (!priority.equals("HIGH") && !priority.equals("MEDIUM") && !priority.equals("LOW")) {
+            throw new IllegalArgumentException("Invalid priority: " + priority);
+        }
+        
+        String description = getString(json, "description");
+        Task task = new Task(title.trim(), description == null ? "" : description, reminderTime, priority);
+        
+        List<String> tags = getStrings(json, "tags");
+        if (tags != null) {
+            task = task.withTags(tags);
+        }
+        List<String> dependsOn = getStrings(json, "dependsOn");
+        if (dependsOn != null) {
+            task = task.withDependsOn(dependsOn);
+        }
+        return task;
+    }
+    
+    private static String getString(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        if (!value.isJsonPrimitive()) {
+            throw new IllegalArgumentException("Task " + name + " must be a string");
+        }
+        return value.getAsString();
+    }
+    
+    private static List<String> getStrings(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        if (!value.isJsonArray()) {
+            throw new IllegalArgumentException("Task " + name + " must be an array of strings");
+        }
+        List<String> strings = new ArrayList<>();
+        for (JsonElement element : value.getAsJsonArray()) {
+            if (!element.isJsonPrimitive()) {
+                throw new IllegalArgumentException("Task " + name + " must be an array of strings");
+            }
+            strings.add(element.getAsString());
+        }
+        return strings;
+    }
+    
+    private static int parseLimit(String value) {
+        if (value == null) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit < 0) {
+                throw new IllegalArgumentException("Invalid limit: " + value);
+            }
+            return limit;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid limit: " + value);
+        }
+    }
+    
+    private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(java.net.URLDecoder.decode(key, "UTF-8"), java.net.URLDecoder.decode(value, "UTF-8"));
+        }
+        return query;
+    }
+    
+    // Refused early when Content-Length is too big, and while reading when it was not given
+    private static String readBody(HttpExchange exchange) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        try {
+            if (length != null && Long.parseLong(length.trim()) > MAX_BODY_BYTES) {
+                throw new BodyTooLargeException();
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid Content-Length: " + length);
+        }
+        InputStream in = exchange.getRequestBody();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            if (buffer.size() + read > MAX_BODY_BYTES) {
+                throw new BodyTooLargeException();
+            }
+            buffer.write(chunk, 0, read);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        sendJson(exchange, status, error.toString());
+    }
+    
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    private static Gson gson() {
+        return FileHandler.getGson();
+    }
+}
@@ -0,0 +1,147 @@
+package com.taskreminder.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tasks sorted by reminder time, with task counts per day
+ * Kept up to date from TaskManager events, so a day, week or month is a range
+ * query on the sorted set and its counts come from the per-day totals instead
+ * of filtering every task.
+ * Demonstrates: TreeSet/TreeMap range views, Observer, Incremental aggregates
+ */
+public class AgendaIndex implements TaskListener {
+    
+    /**
+     * Number of pending and completed tasks on one day
+     */
+    public static final class DayCount {
+        private int pending;
+        private int completed;
+        
+        DayCount() {
+        }
+        
+        DayCount(DayCount other) {
+            this.pending = other.pending;
+            this.completed = other.completed;
+        }
+        
+        public int getPending() {
+            return pending;
+        }
+        
+        public int getCompleted() {
+            return completed;
+        }
+        
+        public int getTotal() {
+            return pending + completed;
+        }
+    }
+    
+    private final TreeSet<Task> byTime = new TreeSet<>(
+        Comparator.comparing(Task::getReminderTime).thenComparing(Task::getId));
+    private final Map<String, Task> byId = new HashMap<>();
+    private final TreeMap<LocalDate, DayCount> countsByDay = new TreeMap<>();
+    
+    /**
+     * Tasks with a reminder time in [from, to), in time order
+     */
+    public synchronized List<Task> getTasks(LocalDate from, LocalDate to) {
+        return new ArrayList<>(byTime.subSet(
+            probe(from.atStartOfDay()), true, probe(to.atStartOfDay()), false));
+    }
+    
+    /**
+     * Counts for every day in [from, to) that has tasks
+     */
+    public synchronized Map<LocalDate, DayCount> getDayCounts(LocalDate from, LocalDate to) {
+        Map<LocalDate, DayCount> counts = new TreeMap<>();
+        for (Map.Entry<LocalDate, DayCount> entry : countsByDay.subMap(from, true, to, false).entrySet()) {
+            counts.put(entry.getKey(), new DayCount(entry.getValue()));
+        }
+        return counts;
+    }
+    
+    /**
+     * Number of indexed tasks
+     */
+    public synchronized int size() {
+        return byId.size();
+    }
+    
+    // Sorts before every real task at the same time (ids are never empty)
+    private static Task probe(LocalDateTime time) {
+        return new Task("", null, null, time, null, false);
+    }
+    
+    private void put(Task task) {
+        remove(task.getId());
+        if (task.getReminderTime() == null) {
+            return;
+        }
+        byId.put(task.getId(), task);
+        byTime.add(task);
+        DayCount count = countsByDay.computeIfAbsent(task.getReminderTime().toLocalDate(), day -> new DayCount());
+        if (task.isCompleted()) {
+            count.completed++;
+        } else {
+            count.pending++;
+        }
+    }
+    
+    private void remove(String id) {
+        Task old = byId.remove(id);
+        if (old == null) {
+            return;
+        }
+        byTime.remove(old);
+        LocalDate day = old.getReminderTime().toLocalDate();
+        DayCount count = countsByDay.get(day);
+        if (old.isCompleted()) {
+            count.completed--;
+        } else {
+            count.pending--;
+        }
+        if (count.getTotal() == 0) {
+            countsByDay.remove(day);
+        }
+    }
+    
+    // TaskManager events
+    
+    @Override
+    public synchronized void tasksAdded(List<Task> tasks) {
+        for (Task task : tasks) {
+            put(task);
+        }
+    }
+    
+    @Override
+    public synchronized void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        tasksAdded(newVersions);
+    }
+    
+    @Override
+    public synchronized void tasksRemoved(List<Task> tasks) {
+        for (Task task : tasks) {
+            remove(task.getId());
+        }
+    }
+    
+    @Override
+    public synchronized void tasksReloaded(List<Task> tasks) {
+        byTime.clear();
+        byId.clear();
+        countsByDay.clear();
+        tasksAdded(tasks);
+    }
+}
@@ -0,0 +1,295 @@
+package com.taskreminder.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which tasks wait for which, kept free of cycles
+ * Every task counts its prerequisites that still exist and are not completed;
+ * it is ready when the count is zero. Completing, reopening, adding or removing
+ * a task only adjusts the counts of its direct dependents, so readiness never
+ * needs the whole graph to be walked again. A dependency that would close a
+ * cycle is refused (and reported), which keeps the graph a DAG.
+ * Prerequisites that are not (or no longer) present do not block anything.
+ * Not thread-safe for writing: TaskManager changes it under its own lock.
+ * Readiness can be read from any thread.
+ * Demonstrates: DAG, In-degree counting (Kahn's algorithm), Breadth-first search
+ */
+public class DependencyGraph {
+    
+    private static final class Node {
+        final String id;
+        Task task; // null while the node is only named as a prerequisite
+        final List<String> prerequisites = new ArrayList<>(2); // accepted edges only
+        final Set<String> dependents = new HashSet<>(2);
+        int blockers; // prerequisites that are present and not completed
+        int unresolved; // used while rebuilding
+        
+        Node(String id) {
+            this.id = id;
+        }
+    }
+    
+    private final Map<String, Node> nodes = new HashMap<>();
+    private int edgeCount;
+    
+    // Blocked tasks with their blocker counts, readable without TaskManager's lock
+    private final Map<String, Integer> blocked = new ConcurrentHashMap<>();
+    
+    // Readiness of every task touched since the last takeReadinessChanges(), before the change
+    private final Map<String, Boolean> readyBefore = new LinkedHashMap<>();
+    private boolean quiet; // while rebuilding or adding a new task: nothing to report
+    
+    /**
+     * Whether a task has no unfinished prerequisites
+     */
+    public boolean isReady(String id) {
+        return !blocked.containsKey(id);
+    }
+    
+    /**
+     * Number of unfinished prerequisites of a task
+     */
+    public int getBlockerCount(String id) {
+        Integer count = blocked.get(id);
+        return count == null ? 0 : count;
+    }
+    
+    /**
+     * Number of accepted dependencies
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+    
+    /**
+     * Add a task or replace it with a new version
+     */
+    public void put(Task task) {
+        Node node = nodes.computeIfAbsent(task.getId(), Node::new);
+        Task old = node.task;
+        boolean wasBlocking = isBlocking(node);
+        node.task = task;
+        
+        if (old == null) {
+            // Nothing to report for a new task: it was never ready before
+            quiet = true;
+            for (String prerequisite : task.getDependsOn()) {
+                link(node, prerequisite, true);
+            }
+            quiet = false;
+        } else if (!old.getDependsOn().equals(task.getDependsOn())) {
+            unlinkPrerequisites(node);
+            for (String prerequisite : task.getDependsOn()) {
+                link(node, prerequisite, true);
+            }
+        }
+        if (wasBlocking != isBlocking(node)) {
+            adjustDependents(node, isBlocking(node) ? 1 : -1);
+        }
+    }
+    
+    /**
+     * Remove a task; its dependents no longer wait for it
+     */
+    public void remove(String id) {
+        Node node = nodes.get(id);
+        if (node == null || node.task == null) {
+            return;
+        }
+        if (isBlocking(node)) {
+            adjustDependents(node, -1);
+        }
+        unlinkPrerequisites(node);
+        markTouched(id);
+        node.task = null;
+        blocked.remove(id);
+        dropIfUnused(node);
+    }
+    
+    /**
+     * Replace the whole graph; cycles in the input are broken by leaving out
+     * the dependencies that close them
+     */
+    public void rebuild(List<Task> tasks) {
+        nodes.clear();
+        blocked.clear();
+        readyBefore.clear();
+        edgeCount = 0;
+        quiet = true;
+        for (Task task : tasks) {
+            nodes.computeIfAbsent(task.getId(), Node::new).task = task;
+        }
+        for (Task task : tasks) {
+            Node node = nodes.get(task.getId());
+            if (node.task == task) { // the last version wins if an id repeats
+                for (String prerequisite : task.getDependsOn()) {
+                    link(node, prerequisite, false);
+                }
+            }
+        }
+        
+        // Kahn's algorithm: whatever is never freed lies on a cycle or after one
+        ArrayDeque<Node> free = new ArrayDeque<>();
+        int freed = 0;
+        for (Node node : nodes.values()) {
+            node.unresolved = node.prerequisites.size();
+            if (node.unresolved == 0) {
+                free.add(node);
+            }
+        }
+        while (!free.isEmpty()) {
+            freed++;
+            for (String dependent : free.poll().dependents) {
+                Node next = nodes.get(dependent);
+                if (--next.unresolved == 0) {
+                    free.add(next);
+                }
+            }
+        }
+        if (freed < nodes.size()) {
+            // Few tasks, normally: re-add their dependencies one by one with the cycle check
+            List<Node> stuck = new ArrayList<>();
+            for (Node node : nodes.values()) {
+                if (node.unresolved > 0) {
+                    stuck.add(node);
+                }
+            }
+            for (Node node : stuck) {
+                unlinkPrerequisites(node);
+            }
+            for (Node node : stuck) {
+                for (String prerequisite : node.task.getDependsOn()) {
+                    link(node, prerequisite, true);
+                }
+            }
+        }
+        
+        for (Node node : nodes.values()) {
+            node.blockers = 0;
+            for (String prerequisite : node.prerequisites) {
+                if (isBlocking(nodes.get(prerequisite))) {
+                    node.blockers++;
+                }
+            }
+            updateBlocked(node);
+        }
+        quiet = false;
+    }
+    
+    /**
+     * Current versions of the tasks whose readiness changed since the last call
+     */
+    public void takeReadinessChanges(List<Task> nowReady, List<Task> nowBlocked) {
+        for (Map.Entry<String, Boolean> entry : readyBefore.entrySet()) {
+            Node node = nodes.get(entry.getKey());
+            if (node == null || node.task == null) {
+                continue;
+            }
+            boolean ready = isReady(node.id);
+            if (ready != entry.getValue()) {
+                (ready ? nowReady : nowBlocked).add(node.task);
+            }
+        }
+        readyBefore.clear();
+    }
+    
+    // A present, unfinished task holds up its dependents
+    private static boolean isBlocking(Node node) {
+        return node != null && node.task != null && !node.task.isCompleted();
+    }
+    
+    private void link(Node node, String prerequisite, boolean checkCycle) {
+        if (prerequisite.equals(node.id) || node.prerequisites.contains(prerequisite)) {
+            return;
+        }
+        if (checkCycle && dependsOn(prerequisite, node)) {
+            System.err.println("Ignoring dependency of " + node.id + " on " + prerequisite
+                + ": it would create a cycle");
+            return;
+        }
+        Node target = nodes.computeIfAbsent(prerequisite, Node::new);
+        target.dependents.add(node.id);
+        node.prerequisites.add(prerequisite);
+        edgeCount++;
+        if (isBlocking(target)) {
+            markTouched(node.id);
+            node.blockers++;
+            updateBlocked(node);
+        }
+    }
+    
+    private void unlinkPrerequisites(Node node) {
+        for (String prerequisite : node.prerequisites) {
+            Node target = nodes.get(prerequisite);
+            target.dependents.remove(node.id);
+            edgeCount--;
+            if (isBlocking(target)) {
+                markTouched(node.id);
+                node.blockers--;
+            }
+            dropIfUnused(target);
+        }
+        node.prerequisites.clear();
+        updateBlocked(node);
+    }
+    
+    // Whether 'id' already (transitively) waits for 'node': only what lies after
+    // 'node' is searched, so a task nothing waits for is checked at once
+    private boolean dependsOn(String id, Node node) {
+        if (node.dependents.isEmpty()) {
+            return false;
+        }
+        Set<String> seen = new HashSet<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        queue.add(node);
+        while (!queue.isEmpty()) {
+            for (String dependent : queue.poll().dependents) {
+                if (dependent.equals(id)) {
+                    return true;
+                }
+                if (seen.add(dependent)) {
+                    queue.add(nodes.get(dependent));
+                }
+            }
+        }
+        return false;
+    }
+    
+    private void adjustDependents(Node node, int delta) {
+        for (String id : node.dependents) {
+            Node dependent = nodes.get(id);
+            markTouched(id);
+            dependent.blockers += delta;
+            updateBlocked(dependent);
+        }
+    }
+    
+    private void updateBlocked(Node node) {
+        if (node.blockers > 0 && node.task != null) {
+            blocked.put(node.id, node.blockers);
+        } else {
+            blocked.remove(node.id);
+        }
+    }
+    
+    private void markTouched(String id) {
+        if (!quiet && !readyBefore.containsKey(id)) {
+            readyBefore.put(id, isReady(id));
+        }
+    }
+    
+    private void dropIfUnused(Node node) {
+        if (node.task == null && node.dependents.isEmpty() && node.prerequisites.isEmpty()) {
+            nodes.remove(node.id);
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.taskreminder.model;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, persistent list of tasks ordered by an insertion key
+ * Backed by an AVL tree with path copying: with and without return a new list
+ * that shares all untouched nodes with the old one in O(log n), so holding on
+ * to an old list is an O(1), always-consistent snapshot.
+ * Demonstrates: Persistent Data Structures, Recursion, AbstractList, Iterator
+ */
+public final class PersistentTaskList extends AbstractList<Task> {
+    private static final PersistentTaskList EMPTY = new PersistentTaskList(null);
+    
+    private final Node root;
+    
+    private PersistentTaskList(Node root) {
+        this.root = root;
+    }
+    
+    public static PersistentTaskList empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Build a balanced list in O(n); tasks get keys firstKey, firstKey + 1, ...
+     */
+    public static PersistentTaskList of(List<Task> tasks, long firstKey) {
+        Task[] array = tasks.toArray(new Task[0]);
+        return new PersistentTaskList(build(array, 0, array.length - 1, firstKey));
+    }
+    
+    /**
+     * Insert a task under a key, or replace the task stored under it
+     */
+    public PersistentTaskList with(long key, Task task) {
+        return new PersistentTaskList(put(root, key, task));
+    }
+    
+    /**
+     * Remove the task stored under a key
+     */
+    public PersistentTaskList without(long key) {
+        Node newRoot = remove(root, key);
+        return newRoot == root ? this : new PersistentTaskList(newRoot);
+    }
+    
+    /**
+     * Task stored under a key, or null
+     */
+    public Task getByKey(long key) {
+        Node node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.task;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public Task get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.task;
+            }
+        }
+    }
+    
+    @Override
+    public int size() {
+        return size(root);
+    }
+    
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<Task>() {
+            private final Deque<Node> stack = new ArrayDeque<>();
+            
+            {
+                pushLeft(root);
+            }
+            
+            private void pushLeft(Node node) {
+                while (node != null) {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+            
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+            
+            @Override
+            public Task next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node node = stack.pop();
+                pushLeft(node.right);
+                return node.task;
+            }
+        };
+    }
+    
+    // ---- AVL tree internals ----
+    
+    private static final class Node {
+        final long key;
+        final Task task;
+        final Node left;
+        final Node right;
+        final int height;
+        final int size;
+        
+        Node(long key, Task task, Node left, Node right) {
+            this.key = key;
+            this.task = task;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+    
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+    
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+    
+    private static Node build(Task[] tasks, int from, int to, long firstKey) {
+        if (from > to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new Node(firstKey + mid, tasks[mid],
+            build(tasks, from, mid - 1, firstKey), build(tasks, mid + 1, to, firstKey));
+    }
+    
+    private static Node put(Node node, long key, Task task) {
+        if (node == null) {
+            return new Node(key, task, null, null);
+        }
+        if (key < node.key) {
+            return balance(node.key, node.task, put(node.left, key, task), node.right);
+        } else if (key > node.key) {
+            return balance(node.key, node.task, node.left, put(node.right, key, task));
+        } else {
+            return new Node(key, task, node.left, node.right);
+        }
+    }
+    
+    private static Node remove(Node node, long key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            Node left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.task, left, node.right);
+        } else if (key > node.key) {
+            Node right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.task, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node min = node.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(min.key, min.task, node.left, removeMin(node.right));
+    }
+    
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.task, removeMin(node.left), node.right);
+    }
+    
+    private static Node balance(long key, Task task, Node left, Node right) {
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) >= height(left.right)) {
+                // Single right rotation
+                return new Node(left.key, left.task, left.left, new Node(key, task, left.right, right));
+            }
+            // Left-right rotation
+            Node pivot = left.right;
+            return new Node(pivot.key, pivot.task,
+                new Node(left.key, left.task, left.left, pivot.left),
+                new Node(key, task, pivot.right, right));
+        }
+        if (diff < -1) {
+            if (height(right.right) >= height(right.left)) {
+                // Single left rotation
+                return new Node(right.key, right.task, new Node(key, task, left, right.left), right.right);
+            }
+            // Right-left rotation
+            Node pivot = right.left;
+            return new Node(pivot.key, pivot.task,
+                new Node(key, task, left, pivot.left),
+                new Node(right.key, right.task, pivot.right, right.right));
+        }
+        return new Node(key, task, left, right);
+    }
+}
@@ -0,0 +1,112 @@
+package com.taskreminder.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Reminder rules for a task
+ * A pending task reminds at each of its offsets before the reminder time, at
+ * the reminder time itself, and then again every escalation interval until it
+ * is completed. A snooze holds back any reminder that would come before it and
+ * reminds once when the snooze ends instead.
+ * Demonstrates: Utility class, java.time Duration arithmetic
+ */
+public final class ReminderSchedule {
+    
+    private ReminderSchedule() {
+    }
+    
+    /**
+     * How often an overdue task is reminded again
+     */
+    public static Duration getEscalationInterval(String priority) {
+        switch (priority) {
+            case "HIGH":
+                return Duration.ofMinutes(5);
+            case "MEDIUM":
+                return Duration.ofMinutes(15);
+            default:
+                return Duration.ofMinutes(60);
+        }
+    }
+    
+    /**
+     * First reminder strictly after 'after', or null if the task will not remind again
+     */
+    public static LocalDateTime nextTrigger(Task task, LocalDateTime after) {
+        if (task.isCompleted()) {
+            return null;
+        }
+        LocalDateTime next = nextRegularTrigger(task, after);
+        LocalDateTime snoozedUntil = task.getSnoozedUntil();
+        if (snoozedUntil != null && snoozedUntil.isAfter(after) && next.isBefore(snoozedUntil)) {
+            return snoozedUntil;
+        }
+        return next;
+    }
+    
+    /**
+     * Earliest reminder the task gives at all, or null once it is completed;
+     * every later reminder comes after it
+     */
+    public static LocalDateTime firstTrigger(Task task) {
+        return nextTrigger(task, LocalDateTime.MIN);
+    }
+    
+    private static LocalDateTime nextRegularTrigger(Task task, LocalDateTime after) {
+        LocalDateTime due = task.getReminderTime();
+        
+        // Offsets are sorted with the earliest reminder first
+        for (int offset : task.getReminderOffsets()) {
+            LocalDateTime trigger = due.minusMinutes(offset);
+            if (trigger.isAfter(after)) {
+                return trigger;
+            }
+        }
+        if (due.isAfter(after)) {
+            return due;
+        }
+        
+        // Overdue: the next multiple of the escalation interval after 'after'
+        long interval = getEscalationInterval(task.getPriority()).getSeconds();
+        long overdue = Duration.between(due, after).getSeconds();
+        return due.plusSeconds((overdue / interval + 1) * interval);
+    }
+    
+    /**
+     * How many times the task has been reminded since it became overdue (0 before that)
+     */
+    public static int getEscalationLevel(Task task, LocalDateTime trigger) {
+        if (!trigger.isAfter(task.getReminderTime())) {
+            return 0;
+        }
+        long interval = getEscalationInterval(task.getPriority()).getSeconds();
+        return (int) Math.min(Integer.MAX_VALUE,
+            Duration.between(task.getReminderTime(), trigger).getSeconds() / interval);
+    }
+    
+    /**
+     * Short description of a reminder, e.g. "Due in 1 hour" or "Overdue by 15 min"
+     */
+    public static String describe(Task task, LocalDateTime trigger) {
+        long minutes = Duration.between(trigger, task.getReminderTime()).toMinutes();
+        if (minutes > 0) {
+            return "Due in " + formatMinutes(minutes);
+        } else if (minutes == 0) {
+            return "Due now";
+        }
+        return "Overdue by " + formatMinutes(-minutes);
+    }
+    
+    private static String formatMinutes(long minutes) {
+        if (minutes % (24 * 60) == 0) {
+            long days = minutes / (24 * 60);
+            return days + (days == 1 ? " day" : " days");
+        }
+        if (minutes % 60 == 0) {
+            long hours = minutes / 60;
+            return hours + (hours == 1 ? " hour" : " hours");
+        }
+        return minutes + " min";
+    }
+}
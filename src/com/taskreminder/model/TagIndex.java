@@ -0,0 +1,331 @@
+package com.taskreminder.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tag, priority and status postings for faceted filtering
+ * Every task gets a small slot number, and each tag, priority and status keeps
+ * a bitset of the slots that carry it. A filter is then a few bitwise AND/OR
+ * operations and a facet count is the cardinality of one intersection, so
+ * counts for every tag stay cheap with hundreds of thousands of tasks. The
+ * tasks a filter shows are read off the set bits of the same evaluation, and
+ * whether one task matches is a lookup of its slot in each posting.
+ * Freed slots are reused lowest first, which keeps the bitsets dense.
+ * Demonstrates: BitSet postings, Faceted search, Observer, Incremental indexes
+ */
+public class TagIndex implements TaskListener {
+    
+    /**
+     * Which tasks to show: tags (all or any of them), a priority and a status
+     */
+    public static final class Filter {
+        public static final Filter ALL = new Filter(Collections.<String>emptySet(), true, null, null);
+        
+        private final Set<String> tags;
+        private final boolean matchAll;
+        private final String priority;
+        private final Boolean completed;
+        
+        /**
+         * @param tags      tags to look for (empty for no tag filter)
+         * @param matchAll  true if a task needs every tag, false if any one will do
+         * @param priority  required priority, or null for any
+         * @param completed required completion state, or null for both
+         */
+        public Filter(Collection<String> tags, boolean matchAll, String priority, Boolean completed) {
+            this.tags = Collections.unmodifiableSet(new TreeSet<>(tags));
+            this.matchAll = matchAll;
+            this.priority = priority;
+            this.completed = completed;
+        }
+        
+        public Set<String> getTags() {
+            return tags;
+        }
+        
+        public boolean isMatchAll() {
+            return matchAll;
+        }
+        
+        public String getPriority() {
+            return priority;
+        }
+        
+        public Boolean getCompleted() {
+            return completed;
+        }
+        
+        public boolean isEmpty() {
+            return tags.isEmpty() && priority == null && completed == null;
+        }
+    }
+    
+    /**
+     * Number of matching tasks, and how many of them each choice would leave
+     */
+    public static final class Facets {
+        private final int total;
+        private final int matching;
+        private final Map<String, Integer> tagCounts;
+        private final Map<String, Integer> priorityCounts;
+        private final int pending;
+        private final int completed;
+        
+        Facets(int total, int matching, Map<String, Integer> tagCounts,
+               Map<String, Integer> priorityCounts, int pending, int completed) {
+            this.total = total;
+            this.matching = matching;
+            this.tagCounts = Collections.unmodifiableMap(tagCounts);
+            this.priorityCounts = Collections.unmodifiableMap(priorityCounts);
+            this.pending = pending;
+            this.completed = completed;
+        }
+        
+        // All indexed tasks
+        public int getTotal() {
+            return total;
+        }
+        
+        // Tasks matching the whole filter
+        public int getMatching() {
+            return matching;
+        }
+        
+        // Every known tag, in name order, with the matching tasks that carry it
+        // (with "any" tags, the count ignores the tag part of the filter)
+        public Map<String, Integer> getTagCounts() {
+            return tagCounts;
+        }
+        
+        // Matches for each priority, ignoring the priority part of the filter
+        public int getPriorityCount(String priority) {
+            Integer count = priorityCounts.get(priority);
+            return count == null ? 0 : count;
+        }
+        
+        // Matches for each status, ignoring the status part of the filter
+        public int getPending() {
+            return pending;
+        }
+        
+        public int getCompleted() {
+            return completed;
+        }
+    }
+    
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private Task[] tasksBySlot = new Task[1024];
+    private final BitSet live = new BitSet();
+    private final BitSet freeSlots = new BitSet();
+    private int nextSlot;
+    
+    private final BitSet completedSlots = new BitSet();
+    private final Map<String, BitSet> priorityPostings = new HashMap<>();
+    private final Map<String, BitSet> tagPostings = new TreeMap<>();
+    
+    /**
+     * Counts for the filter and for each tag, priority and status next to it
+     */
+    public synchronized Facets getFacets(Filter filter) {
+        BitSet matches = evaluate(filter, true, true, true);
+        
+        BitSet tagBase = filter.isMatchAll() ? matches : evaluate(filter, false, true, true);
+        Map<String, Integer> tagCounts = new TreeMap<>();
+        for (Map.Entry<String, BitSet> entry : tagPostings.entrySet()) {
+            tagCounts.put(entry.getKey(), intersectionSize(tagBase, entry.getValue()));
+        }
+        
+        BitSet priorityBase = evaluate(filter, true, false, true);
+        Map<String, Integer> priorityCounts = new HashMap<>();
+        for (Map.Entry<String, BitSet> entry : priorityPostings.entrySet()) {
+            priorityCounts.put(entry.getKey(), intersectionSize(priorityBase, entry.getValue()));
+        }
+        
+        BitSet statusBase = evaluate(filter, true, true, false);
+        int completed = intersectionSize(statusBase, completedSlots);
+        
+        return new Facets(slotById.size(), matches.cardinality(), tagCounts, priorityCounts,
+            statusBase.cardinality() - completed, completed);
+    }
+    
+    /**
+     * Indexed tasks matching the filter, in slot order (not sorted)
+     */
+    public synchronized List<Task> getMatchingTasks(Filter filter) {
+        BitSet matches = evaluate(filter, true, true, true);
+        List<Task> tasks = new ArrayList<>(matches.cardinality());
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            tasks.add(tasksBySlot[slot]);
+        }
+        return tasks;
+    }
+    
+    /**
+     * Whether the indexed version of task 'id' matches the filter (false if it is not indexed)
+     */
+    public synchronized boolean matches(Filter filter, String id) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return false;
+        }
+        if (filter.getPriority() != null && !postings(priorityPostings, filter.getPriority()).get(slot)) {
+            return false;
+        }
+        if (filter.getCompleted() != null && filter.getCompleted() != completedSlots.get(slot)) {
+            return false;
+        }
+        if (filter.getTags().isEmpty()) {
+            return true;
+        }
+        for (String tag : filter.getTags()) {
+            if (postings(tagPostings, tag).get(slot) != filter.isMatchAll()) {
+                return !filter.isMatchAll();
+            }
+        }
+        return filter.isMatchAll();
+    }
+    
+    /**
+     * Every tag in use, in name order
+     */
+    public synchronized List<String> getTags() {
+        return new ArrayList<>(tagPostings.keySet());
+    }
+    
+    /**
+     * Number of indexed tasks
+     */
+    public synchronized int size() {
+        return slotById.size();
+    }
+    
+    // Slots matching the filter; each part can be left out to count the choices next to it
+    private BitSet evaluate(Filter filter, boolean useTags, boolean usePriority, boolean useStatus) {
+        BitSet result = (BitSet) live.clone();
+        if (usePriority && filter.getPriority() != null) {
+            result.and(postings(priorityPostings, filter.getPriority()));
+        }
+        if (useStatus && filter.getCompleted() != null) {
+            if (filter.getCompleted()) {
+                result.and(completedSlots);
+            } else {
+                result.andNot(completedSlots);
+            }
+        }
+        if (useTags && !filter.getTags().isEmpty()) {
+            if (filter.isMatchAll()) {
+                for (String tag : filter.getTags()) {
+                    result.and(postings(tagPostings, tag));
+                }
+            } else {
+                BitSet any = new BitSet();
+                for (String tag : filter.getTags()) {
+                    any.or(postings(tagPostings, tag));
+                }
+                result.and(any);
+            }
+        }
+        return result;
+    }
+    
+    private static BitSet postings(Map<String, BitSet> map, String key) {
+        BitSet bits = map.get(key);
+        return bits != null ? bits : new BitSet();
+    }
+    
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet both = (BitSet) a.clone();
+        both.and(b);
+        return both.cardinality();
+    }
+    
+    private void put(Task task) {
+        remove(task.getId());
+        int slot = freeSlots.nextSetBit(0);
+        if (slot >= 0) {
+            freeSlots.clear(slot);
+        } else {
+            slot = nextSlot++;
+            if (slot == tasksBySlot.length) {
+                Task[] larger = new Task[tasksBySlot.length * 2];
+                System.arraycopy(tasksBySlot, 0, larger, 0, tasksBySlot.length);
+                tasksBySlot = larger;
+            }
+        }
+        slotById.put(task.getId(), slot);
+        tasksBySlot[slot] = task;
+        live.set(slot);
+        completedSlots.set(slot, task.isCompleted());
+        priorityPostings.computeIfAbsent(task.getPriority(), p -> new BitSet()).set(slot);
+        for (String tag : task.getTags()) {
+            tagPostings.computeIfAbsent(tag, t -> new BitSet()).set(slot);
+        }
+    }
+    
+    private void remove(String id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        Task old = tasksBySlot[slot];
+        tasksBySlot[slot] = null;
+        live.clear(slot);
+        completedSlots.clear(slot);
+        clearPosting(priorityPostings, old.getPriority(), slot);
+        for (String tag : old.getTags()) {
+            clearPosting(tagPostings, tag, slot);
+        }
+        freeSlots.set(slot);
+    }
+    
+    private static void clearPosting(Map<String, BitSet> map, String key, int slot) {
+        BitSet bits = map.get(key);
+        bits.clear(slot);
+        if (bits.isEmpty()) {
+            map.remove(key);
+        }
+    }
+    
+    // TaskManager events
+    
+    @Override
+    public synchronized void tasksAdded(List<Task> tasks) {
+        for (Task task : tasks) {
+            put(task);
+        }
+    }
+    
+    @Override
+    public synchronized void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        tasksAdded(newVersions);
+    }
+    
+    @Override
+    public synchronized void tasksRemoved(List<Task> tasks) {
+        for (Task task : tasks) {
+            remove(task.getId());
+        }
+    }
+    
+    @Override
+    public synchronized void tasksReloaded(List<Task> tasks) {
+        slotById.clear();
+        tasksBySlot = new Task[Math.max(1024, tasks.size())];
+        live.clear();
+        freeSlots.clear();
+        nextSlot = 0;
+        completedSlots.clear();
+        priorityPostings.clear();
+        tagPostings.clear();
+        tasksAdded(tasks);
+    }
+}
@@ -1,37 +1,126 @@
 package com.taskreminder.model;
 
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.DescriptionStore;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Task Model Class
- * Demonstrates: Class, Encapsulation, POJO for JSON, toString, equals, hashCode
+ * Tasks are immutable: a change produces a new version of the task with the
+ * same id (see the with... methods), so snapshots handed out by TaskManager
+ * never change underneath their readers.
+ * Demonstrates: Class, Encapsulation, Immutability, POJO for JSON, toString, equals, hashCode
  */
 public class Task {
     
+    // Sequence keeps ids unique when many tasks are created in the same millisecond
+    private static final AtomicInteger ID_SEQUENCE = new AtomicInteger();
+    
+    // Fields are never changed after a task is handed out (no setters)
     private String id;
     private String title;
-    private String description;
+    private String description; // null when the text is in the DescriptionStore
+    private transient DescriptionStore.Entry storedDescription; // null when not stored
     private LocalDateTime reminderTime;
     private boolean completed;
     private String priority; // HIGH, MEDIUM, LOW
+    private LocalDateTime completedTime; // null while pending or when unknown
+    private List<Integer> reminderOffsets; // extra reminders, minutes before reminderTime
+    private LocalDateTime snoozedUntil; // reminders before this time are held back
+    private List<String> tags; // lower case, sorted, no duplicates; null when untagged
+    private LocalDateTime createdTime; // null when unknown
+    private List<String> dependsOn; // ids of tasks to complete first, sorted; null when none
+    private String recurrenceRule; // iCalendar RRULE value (e.g. FREQ=WEEKLY;BYDAY=MO), kept as is
     
     // Constructor
     public Task(String title, String description, LocalDateTime reminderTime, String priority) {
-        this.id = generateId();
+        long now = AppClock.get().millis();
+        this.id = generateId(now);
+        this.createdTime = toDateTime(now);
         this.title = title;
-        this.description = description;
+        setDescription(description);
         this.reminderTime = reminderTime;
         this.priority = priority;
         this.completed = false;
     }
     
+    // Constructor for restoring a stored task with its original id
+    public Task(String id, String title, String description, LocalDateTime reminderTime,
+                String priority, boolean completed) {
+        this.id = id;
+        this.createdTime = createdTimeFromId(id);
+        this.title = title;
+        setDescription(description);
+        this.reminderTime = reminderTime;
+        this.priority = priority;
+        this.completed = completed;
+    }
+    
+    // Copy constructor used by the with... methods
+    private Task(Task other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.storedDescription = other.storedDescription;
+        this.reminderTime = other.reminderTime;
+        this.completed = other.completed;
+        this.priority = other.priority;
+        this.completedTime = other.completedTime;
+        this.reminderOffsets = other.reminderOffsets;
+        this.snoozedUntil = other.snoozedUntil;
+        this.tags = other.tags;
+        this.createdTime = other.createdTime;
+        this.dependsOn = other.dependsOn;
+        this.recurrenceRule = other.recurrenceRule;
+    }
+    
+    // Long descriptions go off the heap; the task keeps where they are
+    private void setDescription(String description) {
+        DescriptionStore store = DescriptionStore.shouldStore(description) ? DescriptionStore.getInstance() : null;
+        if (store != null) {
+            this.storedDescription = store.put(description.getBytes(StandardCharsets.UTF_8));
+            if (storedDescription != null) {
+                return;
+            }
+        }
+        this.description = description;
+    }
+    
     // Generate unique ID
-    private String generateId() {
-        return "TASK_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
+    private String generateId(long millis) {
+        return "TASK_" + millis + "_" + (ID_SEQUENCE.incrementAndGet() & 0x7fffffff);
+    }
+    
+    // Generated ids start with the creation time; other ids give no creation time
+    private static LocalDateTime createdTimeFromId(String id) {
+        if (id == null || !id.startsWith("TASK_")) {
+            return null;
+        }
+        int end = id.indexOf('_', 5);
+        try {
+            return toDateTime(Long.parseLong(end < 0 ? id.substring(5) : id.substring(5, end)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
     
-    // Getters and Setters (Encapsulation)
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), AppClock.get().getZone());
+    }
+    
+    // Getters (Encapsulation)
     public String getId() {
         return id;
     }
@@ -40,54 +129,169 @@ public class Task {
         return title;
     }
     
-    public void setTitle(String title) {
-        this.title = title;
+    public String getDescription() {
+        if (storedDescription == null) {
+            return description;
+        }
+        return DescriptionStore.getInstance().get(storedDescription);
     }
     
-    public String getDescription() {
-        return description;
+    public LocalDateTime getReminderTime() {
+        return reminderTime;
     }
     
-    public void setDescription(String description) {
-        this.description = description;
+    public boolean isCompleted() {
+        return completed;
     }
     
-    public LocalDateTime getReminderTime() {
-        return reminderTime;
+    public String getPriority() {
+        return priority;
     }
     
-    public void setReminderTime(LocalDateTime reminderTime) {
-        this.reminderTime = reminderTime;
+    public LocalDateTime getCompletedTime() {
+        return completedTime;
     }
     
-    public boolean isCompleted() {
-        return completed;
+    public List<Integer> getReminderOffsets() {
+        return reminderOffsets == null
+            ? Collections.<Integer>emptyList()
+            : Collections.unmodifiableList(reminderOffsets);
     }
     
-    public void setCompleted(boolean completed) {
-        this.completed = completed;
+    public LocalDateTime getSnoozedUntil() {
+        return snoozedUntil;
     }
     
-    public String getPriority() {
-        return priority;
+    public LocalDateTime getCreatedTime() {
+        return createdTime;
     }
     
-    public void setPriority(String priority) {
-        this.priority = priority;
+    public List<String> getDependsOn() {
+        return dependsOn == null
+            ? Collections.<String>emptyList()
+            : Collections.unmodifiableList(dependsOn);
+    }
+    
+    public String getRecurrenceRule() {
+        return recurrenceRule;
+    }
+    
+    public List<String> getTags() {
+        return tags == null
+            ? Collections.<String>emptyList()
+            : Collections.unmodifiableList(tags);
+    }
+    
+    // New version of this task with a different completion state
+    public Task withCompleted(boolean completed) {
+        Task copy = new Task(this);
+        copy.completed = completed;
+        copy.completedTime = completed ? AppClock.now() : null;
+        return copy;
+    }
+    
+    // New version of this task with a known completion time
+    public Task withCompletedTime(LocalDateTime completedTime) {
+        Task copy = new Task(this);
+        copy.completedTime = completedTime;
+        return copy;
+    }
+    
+    // New version of this task with extra reminders (minutes before the reminder time)
+    public Task withReminderOffsets(List<Integer> offsets) {
+        Task copy = new Task(this);
+        List<Integer> sorted = new ArrayList<>(new TreeSet<>(offsets));
+        Collections.reverse(sorted); // earliest reminder first
+        copy.reminderOffsets = sorted.isEmpty() ? null : sorted;
+        return copy;
+    }
+    
+    // New version of this task with reminders held back until the given time
+    public Task withSnoozedUntil(LocalDateTime snoozedUntil) {
+        Task copy = new Task(this);
+        copy.snoozedUntil = snoozedUntil;
+        return copy;
+    }
+    
+    // New version of this task with a known creation time
+    public Task withCreatedTime(LocalDateTime createdTime) {
+        Task copy = new Task(this);
+        copy.createdTime = createdTime;
+        return copy;
+    }
+    
+    // New version of this task that waits for the given tasks (by id) to be completed
+    public Task withDependsOn(Collection<String> taskIds) {
+        Task copy = new Task(this);
+        TreeSet<String> ids = new TreeSet<>();
+        for (String taskId : taskIds) {
+            if (taskId != null && !taskId.trim().isEmpty() && !taskId.trim().equals(id)) {
+                ids.add(taskId.trim());
+            }
+        }
+        copy.dependsOn = ids.isEmpty() ? null : new ArrayList<>(ids);
+        return copy;
+    }
+    
+    // New version of this task with an iCalendar recurrence rule (null for none)
+    public Task withRecurrenceRule(String recurrenceRule) {
+        Task copy = new Task(this);
+        copy.recurrenceRule = recurrenceRule == null || recurrenceRule.trim().isEmpty() ? null : recurrenceRule.trim();
+        return copy;
+    }
+    
+    // New version of this task with the given tags (trimmed, lower case, duplicates removed)
+    public Task withTags(Collection<String> tags) {
+        Task copy = new Task(this);
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String tag : tags) {
+            String trimmed = tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+            if (!trimmed.isEmpty()) {
+                normalized.add(trimmed);
+            }
+        }
+        copy.tags = normalized.isEmpty() ? null : new ArrayList<>(normalized);
+        return copy;
     }
     
     // Check if task is due
     public boolean isDue() {
-        return !completed && LocalDateTime.now().isAfter(reminderTime);
+        return !completed && AppClock.now().isAfter(reminderTime);
     }
     
     // Check if task reminder should trigger (within 1 minute)
     public boolean shouldNotify() {
         if (completed) return false;
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = AppClock.now();
         return now.isAfter(reminderTime) && now.isBefore(reminderTime.plusMinutes(1));
     }
     
+    // Check if another version of a task carries exactly the same data
+    public boolean hasSameContent(Task other) {
+        return other != null
+            && Objects.equals(id, other.id)
+            && Objects.equals(title, other.title)
+            && hasSameDescription(other)
+            && Objects.equals(reminderTime, other.reminderTime)
+            && completed == other.completed
+            && Objects.equals(priority, other.priority)
+            && Objects.equals(completedTime, other.completedTime)
+            && getReminderOffsets().equals(other.getReminderOffsets())
+            && Objects.equals(snoozedUntil, other.snoozedUntil)
+            && getTags().equals(other.getTags())
+            && Objects.equals(createdTime, other.createdTime)
+            && getDependsOn().equals(other.getDependsOn())
+            && Objects.equals(recurrenceRule, other.recurrenceRule);
+    }
+    
+    // Equal stored texts share one entry, so most checks need not read them
+    private boolean hasSameDescription(Task other) {
+        if (storedDescription != null && storedDescription == other.storedDescription) {
+            return true;
+        }
+        return Objects.equals(getDescription(), other.getDescription());
+    }
+    
     // toString method
     @Override
     public String toString() {
@@ -0,0 +1,34 @@
+package com.taskreminder.model;
+
+import java.util.List;
+
+/**
+ * Listener for changes made through TaskManager
+ * Events are delivered synchronously on the thread that made the change, in
+ * the order the changes happened. Listeners must be quick and must not modify
+ * tasks themselves; UI listeners should hand off to the Event Dispatch Thread.
+ * Demonstrates: Observer pattern, Interface default methods
+ */
+public interface TaskListener {
+    
+    // New tasks were added
+    default void tasksAdded(List<Task> tasks) {
+    }
+    
+    // Tasks were replaced by new versions; both lists are in the same order
+    default void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+    }
+    
+    // Tasks were removed
+    default void tasksRemoved(List<Task> tasks) {
+    }
+    
+    // The whole task list was replaced (setTasks, clearAllTasks)
+    default void tasksReloaded(List<Task> tasks) {
+    }
+    
+    // Tasks whose last unfinished prerequisite was completed or removed, and tasks
+    // that are waiting again; sent after the change that caused it
+    default void readinessChanged(List<Task> nowReady, List<Task> nowBlocked) {
+    }
+}
@@ -1,20 +1,53 @@
 package com.taskreminder.model;
 
+import com.taskreminder.util.AppClock;
+
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Task Manager - Manages all tasks
- * Demonstrates: Collections (ArrayList), List interface, Stream API
+ * Tasks live in a persistent (structurally shared) list, so reading a consistent
+ * snapshot is O(1) and never blocks writers. The list and the map from task id
+ * to list key are published together, with one volatile write, so a lock-free
+ * lookup by id never pairs one list with another list's keys. Writers are
+ * synchronized with each other and notify TaskListeners of every change while
+ * still holding the lock, so listeners see changes in the order they were made.
+ * Dependencies between tasks live in a DependencyGraph updated by the same
+ * writers; tasks that become ready or blocked are announced after each change.
+ * Demonstrates: Collections, List interface, Stream API, Thread Synchronization, volatile, Observer
  */
 public class TaskManager {
-    private List<Task> tasks;
+    
+    // A task list and the keys of its ids. A reload publishes a new pair; other
+    // changes share the key map, adding keys before the list holding them is
+    // published and removing them after the list without them is.
+    private static final class State {
+        final PersistentTaskList tasks;
+        final Map<String, Long> keysById;
+        
+        State(PersistentTaskList tasks, Map<String, Long> keysById) {
+            this.tasks = tasks;
+            this.keysById = keysById;
+        }
+    }
+    
+    private volatile State state;
+    private long nextKey;
+    private final DependencyGraph dependencies = new DependencyGraph();
+    private final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
     private static TaskManager instance;
     
     // Singleton pattern
     private TaskManager() {
-        tasks = new ArrayList<>();
+        state = new State(PersistentTaskList.empty(), new ConcurrentHashMap<>());
     }
     
     public static synchronized TaskManager getInstance() {
@@ -24,70 +57,256 @@ public class TaskManager {
         return instance;
     }
     
+    // Register for change events
+    public void addTaskListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeTaskListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+    
+    // Register a listener that mirrors the tasks and hand it the current list as a
+    // reload. The listener's own lock is held throughout, so events that arrive
+    // meanwhile are applied after the snapshot; one the snapshot already reflects
+    // is applied again, which is harmless when every change is applied by id.
+    public void attach(TaskListener listener) {
+        synchronized (listener) {
+            addTaskListener(listener);
+            listener.tasksReloaded(getAllTasks());
+        }
+    }
+    
+    // Number of registered listeners (should not grow while the application runs)
+    public int getListenerCount() {
+        return listeners.size();
+    }
+    
     // Add task
     public void addTask(Task task) {
-        tasks.add(task);
+        addTasks(Collections.singletonList(task));
+    }
+    
+    // Add several tasks at once (batch insert, one event)
+    // A task whose id is already present replaces the stored version
+    public synchronized void addTasks(List<Task> newTasks) {
+        Map<String, Long> keysById = state.keysById;
+        PersistentTaskList updated = state.tasks;
+        List<Task> added = new ArrayList<>();
+        List<Task> oldVersions = new ArrayList<>();
+        List<Task> newVersions = new ArrayList<>();
+        for (Task task : newTasks) {
+            Long key = keysById.get(task.getId());
+            if (key == null) {
+                key = nextKey++;
+                keysById.put(task.getId(), key);
+                added.add(task);
+            } else {
+                oldVersions.add(updated.getByKey(key));
+                newVersions.add(task);
+            }
+            updated = updated.with(key, task);
+            dependencies.put(task);
+        }
+        state = new State(updated, keysById);
+        
+        if (!added.isEmpty()) {
+            for (TaskListener listener : listeners) {
+                listener.tasksAdded(added);
+            }
+        }
+        fireUpdated(oldVersions, newVersions);
+        fireReadinessChanged();
+    }
+    
+    // Replace a task with a new version of it (same id)
+    public boolean updateTask(Task task) {
+        return updateTasks(Collections.singletonList(task)) == 1;
+    }
+    
+    // Replace several tasks with new versions; unknown ids are ignored
+    public synchronized int updateTasks(List<Task> newTasks) {
+        Map<String, Long> keysById = state.keysById;
+        PersistentTaskList updated = state.tasks;
+        List<Task> oldVersions = new ArrayList<>();
+        List<Task> newVersions = new ArrayList<>();
+        for (Task task : newTasks) {
+            Long key = keysById.get(task.getId());
+            if (key != null) {
+                oldVersions.add(updated.getByKey(key));
+                newVersions.add(task);
+                updated = updated.with(key, task);
+                dependencies.put(task);
+            }
+        }
+        state = new State(updated, keysById);
+        fireUpdated(oldVersions, newVersions);
+        fireReadinessChanged();
+        return newVersions.size();
     }
     
     // Remove task
     public void removeTask(Task task) {
-        tasks.remove(task);
+        removeTasks(Collections.singletonList(task));
     }
     
-    // Get all tasks
+    // Remove several tasks at once
+    public synchronized void removeTasks(List<Task> oldTasks) {
+        Map<String, Long> keysById = state.keysById;
+        PersistentTaskList updated = state.tasks;
+        List<Task> removed = new ArrayList<>();
+        for (Task task : oldTasks) {
+            Long key = keysById.get(task.getId());
+            if (key != null && updated.getByKey(key) != null) {
+                removed.add(updated.getByKey(key));
+                updated = updated.without(key);
+                dependencies.remove(task.getId());
+            }
+        }
+        state = new State(updated, keysById);
+        for (Task task : removed) {
+            keysById.remove(task.getId());
+        }
+        
+        if (!removed.isEmpty()) {
+            for (TaskListener listener : listeners) {
+                listener.tasksRemoved(removed);
+            }
+        }
+        fireReadinessChanged();
+    }
+    
+    // Get all tasks: an immutable O(1) snapshot that later changes do not affect
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks);
+        return state.tasks;
     }
     
     // Get pending tasks
     public List<Task> getPendingTasks() {
-        return tasks.stream()
+        return state.tasks.stream()
                    .filter(task -> !task.isCompleted())
                    .collect(Collectors.toList());
     }
     
     // Get completed tasks
     public List<Task> getCompletedTasks() {
-        return tasks.stream()
+        return state.tasks.stream()
                    .filter(Task::isCompleted)
                    .collect(Collectors.toList());
     }
     
+    // Get at most 'limit' tasks matching a filter, in insertion order
+    public List<Task> findTasks(Predicate<Task> filter, int limit) {
+        return state.tasks.stream()
+                   .filter(filter)
+                   .limit(limit)
+                   .collect(Collectors.toList());
+    }
+    
     // Get tasks due for notification
     public List<Task> getTasksDueForNotification() {
-        return tasks.stream()
+        return state.tasks.stream()
                    .filter(Task::shouldNotify)
                    .collect(Collectors.toList());
     }
     
-    // Mark task as completed
-    public void markTaskCompleted(String taskId) {
-        tasks.stream()
-             .filter(task -> task.getId().equals(taskId))
-             .findFirst()
-             .ifPresent(task -> task.setCompleted(true));
+    // Mark task as completed (stores a completed version of the task);
+    // dependents whose last prerequisite this was become ready
+    public synchronized boolean markTaskCompleted(String taskId) {
+        Long key = state.keysById.get(taskId);
+        if (key == null) {
+            return false;
+        }
+        Task task = state.tasks.getByKey(key);
+        if (!task.isCompleted()) {
+            Task completed = task.withCompleted(true);
+            state = new State(state.tasks.with(key, completed), state.keysById);
+            dependencies.put(completed);
+            fireUpdated(Collections.singletonList(task), Collections.singletonList(completed));
+            fireReadinessChanged();
+        }
+        return true;
+    }
+    
+    // Hold back reminders of a task for the given number of minutes
+    public synchronized boolean snoozeTask(String taskId, int minutes) {
+        Task task = getTaskById(taskId);
+        if (task == null || task.isCompleted()) {
+            return false;
+        }
+        return updateTask(task.withSnoozedUntil(AppClock.now().plusMinutes(minutes)));
+    }
+    
+    // Whether every task this one depends on is completed (safe from any thread)
+    public boolean isTaskReady(String id) {
+        return dependencies.isReady(id);
+    }
+    
+    // Number of unfinished tasks this one is waiting for (safe from any thread)
+    public int getBlockerCount(String id) {
+        return dependencies.getBlockerCount(id);
     }
     
     // Get task by ID
     public Task getTaskById(String id) {
-        return tasks.stream()
-                   .filter(task -> task.getId().equals(id))
-                   .findFirst()
-                   .orElse(null);
+        State snapshot = state;
+        Long key = snapshot.keysById.get(id);
+        return key == null ? null : snapshot.tasks.getByKey(key);
     }
     
     // Clear all tasks
-    public void clearAllTasks() {
-        tasks.clear();
+    public synchronized void clearAllTasks() {
+        state = new State(PersistentTaskList.empty(), new ConcurrentHashMap<>());
+        dependencies.rebuild(state.tasks);
+        fireReloaded();
     }
     
     // Set tasks (for loading from file)
-    public void setTasks(List<Task> tasks) {
-        this.tasks = new ArrayList<>(tasks);
+    public synchronized void setTasks(List<Task> tasks) {
+        // Later entries with the same id replace earlier ones, keeping the first position
+        Map<String, Task> unique = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            unique.put(task.getId(), task);
+        }
+        
+        Map<String, Long> keysById = new ConcurrentHashMap<>();
+        long firstKey = nextKey;
+        for (String id : unique.keySet()) {
+            keysById.put(id, nextKey++);
+        }
+        state = new State(PersistentTaskList.of(new ArrayList<>(unique.values()), firstKey), keysById);
+        dependencies.rebuild(state.tasks);
+        fireReloaded();
+    }
+    
+    private void fireUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        if (!newVersions.isEmpty()) {
+            for (TaskListener listener : listeners) {
+                listener.tasksUpdated(oldVersions, newVersions);
+            }
+        }
+    }
+    
+    private void fireReadinessChanged() {
+        List<Task> nowReady = new ArrayList<>();
+        List<Task> nowBlocked = new ArrayList<>();
+        dependencies.takeReadinessChanges(nowReady, nowBlocked);
+        if (!nowReady.isEmpty() || !nowBlocked.isEmpty()) {
+            for (TaskListener listener : listeners) {
+                listener.readinessChanged(nowReady, nowBlocked);
+            }
+        }
+    }
+    
+    private void fireReloaded() {
+        PersistentTaskList snapshot = state.tasks;
+        for (TaskListener listener : listeners) {
+            listener.tasksReloaded(snapshot);
+        }
     }
     
     // Get task count
     public int getTaskCount() {
-        return tasks.size();
+        return state.tasks.size();
     }
-}
\ No newline at end of file
+}
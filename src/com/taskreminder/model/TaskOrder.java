@@ -0,0 +1,50 @@
+package com.taskreminder.model;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Orders in which the task list can be shown
+ * Every order ends with the task id, so no two tasks compare equal and a
+ * task's place in a sorted list can be found again by binary search.
+ * Demonstrates: Enum with fields, Comparator composition
+ */
+public enum TaskOrder {
+    DUE_TIME("Due time",
+        Comparator.comparing(Task::getReminderTime, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))),
+    PRIORITY("Priority",
+        Comparator.comparingInt((Task task) -> priorityRank(task.getPriority()))
+            .thenComparing(Task::getReminderTime, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))),
+    TITLE("Title",
+        Comparator.comparing(Task::getTitle, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))),
+    CREATED("Newest first",
+        Comparator.comparing(Task::getCreatedTime, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder())));
+    
+    private final String label;
+    private final Comparator<Task> comparator;
+    
+    TaskOrder(String label, Comparator<Task> comparator) {
+        this.label = label;
+        this.comparator = comparator.thenComparing(Task::getId);
+    }
+    
+    public Comparator<Task> getComparator() {
+        return comparator;
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+    
+    // HIGH first; unknown priorities last
+    private static int priorityRank(String priority) {
+        if ("HIGH".equals(priority)) {
+            return 0;
+        }
+        if ("MEDIUM".equals(priority)) {
+            return 1;
+        }
+        return "LOW".equals(priority) ? 2 : 3;
+    }
+}
@@ -0,0 +1,292 @@
+package com.taskreminder.model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running counts behind the statistics dashboard
+ * Every task adds its share to a few counters and histograms when it arrives
+ * and takes it back when it is replaced or removed, so a change costs a
+ * handful of map updates and reading the statistics never scans the tasks.
+ * Pending due times are kept in a sorted multiset; the overdue count follows
+ * the clock by adding (or, if the clock goes back, removing) only the tasks
+ * whose due time was passed since the previous reading.
+ * Demonstrates: Incremental aggregation, Histograms, TreeMap range views, Observer
+ */
+public class TaskStatistics implements TaskListener {
+    public static final int HISTORY_DAYS = 14;
+    public static final String[] LATENESS_LABELS = {"On time", "< 1 hour", "1-24 hours", "> 1 day"};
+    
+    private static final String[] PRIORITIES = {"HIGH", "MEDIUM", "LOW"};
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    
+    /**
+     * The statistics at one moment; never changes
+     */
+    public static final class Snapshot {
+        private final int total;
+        private final int completed;
+        private final int overdue;
+        private final Map<String, int[]> byPriority;
+        private final List<LocalDate> days;
+        private final int[] createdPerDay;
+        private final int[] completedPerDay;
+        private final int[] latenessCounts;
+        private final long latenessMinutes;
+        private final int latenessSamples;
+        
+        Snapshot(int total, int completed, int overdue, Map<String, int[]> byPriority, List<LocalDate> days,
+                 int[] createdPerDay, int[] completedPerDay, int[] latenessCounts,
+                 long latenessMinutes, int latenessSamples) {
+            this.total = total;
+            this.completed = completed;
+            this.overdue = overdue;
+            this.byPriority = byPriority;
+            this.days = days;
+            this.createdPerDay = createdPerDay;
+            this.completedPerDay = completedPerDay;
+            this.latenessCounts = latenessCounts;
+            this.latenessMinutes = latenessMinutes;
+            this.latenessSamples = latenessSamples;
+        }
+        
+        public int getTotal() {
+            return total;
+        }
+        
+        public int getPending() {
+            return total - completed;
+        }
+        
+        public int getCompleted() {
+            return completed;
+        }
+        
+        // Pending tasks whose reminder time has passed
+        public int getOverdue() {
+            return overdue;
+        }
+        
+        // Share of all tasks that are completed, 0 to 1
+        public double getCompletionRate() {
+            return total == 0 ? 0 : (double) completed / total;
+        }
+        
+        // HIGH, MEDIUM, LOW, then any other priority in use
+        public List<String> getPriorities() {
+            return new ArrayList<>(byPriority.keySet());
+        }
+        
+        public int getPendingCount(String priority) {
+            int[] counts = byPriority.get(priority);
+            return counts == null ? 0 : counts[0];
+        }
+        
+        public int getCompletedCount(String priority) {
+            int[] counts = byPriority.get(priority);
+            return counts == null ? 0 : counts[1];
+        }
+        
+        // The last HISTORY_DAYS days, oldest first, ending today
+        public List<LocalDate> getDays() {
+            return days;
+        }
+        
+        // Tasks created on each of getDays()
+        public int getCreatedOn(int day) {
+            return createdPerDay[day];
+        }
+        
+        // Tasks completed on each of getDays()
+        public int getCompletedOn(int day) {
+            return completedPerDay[day];
+        }
+        
+        // Completed tasks per LATENESS_LABELS bucket
+        public int getLatenessCount(int bucket) {
+            return latenessCounts[bucket];
+        }
+        
+        // Average minutes from reminder to completion (negative if early); NaN if unknown
+        public double getAverageLatenessMinutes() {
+            return latenessSamples == 0 ? Double.NaN : (double) latenessMinutes / latenessSamples;
+        }
+    }
+    
+    // What each task was counted as, so exactly that can be taken back
+    private final Map<String, Task> counted = new HashMap<>();
+    private int completed;
+    private final Map<String, int[]> byPriority = new HashMap<>(); // pending, completed
+    
+    private final TreeMap<LocalDateTime, Integer> pendingDue = new TreeMap<>();
+    private LocalDateTime overdueBefore; // pending tasks due before this are counted in 'overdue'
+    private int overdue;
+    
+    private final Map<LocalDate, Integer> createdByDay = new HashMap<>();
+    private final Map<LocalDate, Integer> completedByDay = new HashMap<>();
+    private final int[] latenessCounts = new int[LATENESS_LABELS.length];
+    private long latenessMinutes;
+    private int latenessSamples;
+    
+    /**
+     * Current statistics, with overdue counted against 'now'
+     */
+    public synchronized Snapshot getSnapshot(LocalDateTime now) {
+        moveOverdueBoundary(now);
+        
+        Map<String, int[]> priorities = new LinkedHashMap<>();
+        for (String priority : PRIORITIES) {
+            priorities.put(priority, new int[2]);
+        }
+        for (Map.Entry<String, int[]> entry : byPriority.entrySet()) {
+            priorities.put(entry.getKey(), entry.getValue().clone());
+        }
+        
+        List<LocalDate> days = new ArrayList<>(HISTORY_DAYS);
+        int[] created = new int[HISTORY_DAYS];
+        int[] done = new int[HISTORY_DAYS];
+        LocalDate first = now.toLocalDate().minusDays(HISTORY_DAYS - 1);
+        for (int i = 0; i < HISTORY_DAYS; i++) {
+            LocalDate day = first.plusDays(i);
+            days.add(day);
+            created[i] = createdByDay.getOrDefault(day, 0);
+            done[i] = completedByDay.getOrDefault(day, 0);
+        }
+        return new Snapshot(counted.size(), completed, overdue, priorities, Collections.unmodifiableList(days),
+            created, done, latenessCounts.clone(), latenessMinutes, latenessSamples);
+    }
+    
+    // Count (or uncount) the tasks that became overdue, or stopped being, since the last reading
+    private void moveOverdueBoundary(LocalDateTime now) {
+        if (overdueBefore == null) {
+            overdueBefore = now;
+            overdue = sum(pendingDue.headMap(now, false));
+        } else if (now.isAfter(overdueBefore)) {
+            overdue += sum(pendingDue.subMap(overdueBefore, true, now, false));
+        } else if (now.isBefore(overdueBefore)) {
+            overdue -= sum(pendingDue.subMap(now, true, overdueBefore, false));
+        }
+        overdueBefore = now;
+    }
+    
+    private static int sum(Map<LocalDateTime, Integer> counts) {
+        int sum = 0;
+        for (int count : counts.values()) {
+            sum += count;
+        }
+        return sum;
+    }
+    
+    private void put(Task task) {
+        Task old = counted.put(task.getId(), task);
+        if (old != null) {
+            count(old, -1);
+        }
+        count(task, 1);
+    }
+    
+    private void remove(String id) {
+        Task old = counted.remove(id);
+        if (old != null) {
+            count(old, -1);
+        }
+    }
+    
+    // Add (sign 1) or take back (sign -1) one task's share of every statistic
+    private void count(Task task, int sign) {
+        String priority = task.getPriority() == null ? "NONE" : task.getPriority();
+        int[] priorityCounts = byPriority.computeIfAbsent(priority, p -> new int[2]);
+        priorityCounts[task.isCompleted() ? 1 : 0] += sign;
+        if (priorityCounts[0] == 0 && priorityCounts[1] == 0) {
+            byPriority.remove(priority);
+        }
+        
+        if (task.getCreatedTime() != null) {
+            addTo(createdByDay, task.getCreatedTime().toLocalDate(), sign);
+        }
+        
+        LocalDateTime due = task.getReminderTime();
+        if (!task.isCompleted()) {
+            if (due != null) {
+                addTo(pendingDue, due, sign);
+                if (overdueBefore != null && due.isBefore(overdueBefore)) {
+                    overdue += sign;
+                }
+            }
+            return;
+        }
+        
+        completed += sign;
+        LocalDateTime completedTime = task.getCompletedTime();
+        if (completedTime != null) {
+            addTo(completedByDay, completedTime.toLocalDate(), sign);
+            if (due != null) {
+                long minutes = Duration.between(due, completedTime).toMinutes();
+                latenessMinutes += sign * minutes;
+                latenessSamples += sign;
+                latenessCounts[latenessBucket(minutes)] += sign;
+            }
+        }
+    }
+    
+    private static int latenessBucket(long minutes) {
+        if (minutes <= 0) {
+            return 0;
+        }
+        if (minutes < 60) {
+            return 1;
+        }
+        return minutes < MINUTES_PER_DAY ? 2 : 3;
+    }
+    
+    // Counts that drop to zero are removed, so the maps only hold what is in use
+    private static <K> void addTo(Map<K, Integer> counts, K key, int delta) {
+        counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+    
+    // TaskManager events
+    
+    @Override
+    public synchronized void tasksAdded(List<Task> tasks) {
+        for (Task task : tasks) {
+            put(task);
+        }
+    }
+    
+    @Override
+    public synchronized void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        tasksAdded(newVersions);
+    }
+    
+    @Override
+    public synchronized void tasksRemoved(List<Task> tasks) {
+        for (Task task : tasks) {
+            remove(task.getId());
+        }
+    }
+    
+    @Override
+    public synchronized void tasksReloaded(List<Task> tasks) {
+        counted.clear();
+        completed = 0;
+        byPriority.clear();
+        pendingDue.clear();
+        overdueBefore = null;
+        overdue = 0;
+        createdByDay.clear();
+        completedByDay.clear();
+        Arrays.fill(latenessCounts, 0);
+        latenessMinutes = 0;
+        latenessSamples = 0;
+        tasksAdded(tasks);
+    }
+}
@@ -0,0 +1,63 @@
+package com.taskreminder.notify;
+
+import com.taskreminder.model.Task;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Runs a shell command for every notification
+ * The task is passed in environment variables (TASK_ID, TASK_TITLE,
+ * TASK_DESCRIPTION, TASK_PRIORITY, REMINDER_HEADING, REMINDER_LEVEL,
+ * REMINDER_TIME), never spliced into the command line. A non-zero exit
+ * status counts as a failure; the process is killed when the attempt times out.
+ * Demonstrates: ProcessBuilder, Environment variables
+ */
+public class CommandSink implements NotificationSink {
+    private final String command;
+    
+    public CommandSink(String command) {
+        this.command = command;
+    }
+    
+    @Override
+    public String getName() {
+        return "command";
+    }
+    
+    @Override
+    public void deliver(Notification notification) throws IOException, InterruptedException {
+        boolean windows = System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+        ProcessBuilder builder = windows
+            ? new ProcessBuilder("cmd", "/c", command)
+            : new ProcessBuilder("sh", "-c", command);
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        
+        Task task = notification.getTask();
+        Map<String, String> env = builder.environment();
+        env.put("TASK_ID", task.getId());
+        env.put("TASK_TITLE", orEmpty(task.getTitle()));
+        env.put("TASK_DESCRIPTION", orEmpty(task.getDescription()));
+        env.put("TASK_PRIORITY", orEmpty(task.getPriority()));
+        env.put("REMINDER_HEADING", notification.getHeading());
+        env.put("REMINDER_LEVEL", Integer.toString(notification.getEscalationLevel()));
+        env.put("REMINDER_TIME", notification.getTriggerTime().toString());
+        
+        Process process = builder.start();
+        try {
+            int status = process.waitFor();
+            if (status != 0) {
+                throw new IOException("Command exited with status " + status);
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+    
+    private static String orEmpty(String text) {
+        return text == null ? "" : text;
+    }
+}
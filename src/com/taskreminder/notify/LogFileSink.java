@@ -0,0 +1,59 @@
+package com.taskreminder.notify;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.util.AppClock;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Appends one tab-separated line per notification to a log file
+ * ("time, trigger time, level, task id, heading, title")
+ * Demonstrates: File I/O, BufferedWriter
+ */
+public class LogFileSink implements NotificationSink {
+    private final File file;
+    private Writer writer;
+    
+    public LogFileSink(File file) {
+        this.file = file;
+    }
+    
+    @Override
+    public String getName() {
+        return "log";
+    }
+    
+    @Override
+    public synchronized void deliver(Notification notification) throws IOException {
+        if (writer == null) {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (!parent.exists()) {
+                parent.mkdirs();
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        }
+        Task task = notification.getTask();
+        writer.write(AppClock.now() + "\t" + notification.getTriggerTime() + "\t"
+            + notification.getEscalationLevel() + "\t" + task.getId() + "\t"
+            + notification.getHeading() + "\t" + clean(task.getTitle()) + "\n");
+        writer.flush();
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing notification log: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+    
+    private static String clean(String text) {
+        return text == null ? "" : text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
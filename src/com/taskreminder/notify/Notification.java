@@ -0,0 +1,47 @@
+package com.taskreminder.notify;
+
+import com.taskreminder.model.Task;
+
+import java.time.LocalDateTime;
+
+/**
+ * One reminder to deliver: the task, when it fired and how urgent it is
+ * Demonstrates: Immutable value object
+ */
+public final class Notification {
+    private final Task task;
+    private final LocalDateTime triggerTime;
+    private final String heading;
+    private final int escalationLevel;
+    private final long createdNanos = System.nanoTime();
+    
+    public Notification(Task task, LocalDateTime triggerTime, String heading, int escalationLevel) {
+        this.task = task;
+        this.triggerTime = triggerTime;
+        this.heading = heading;
+        this.escalationLevel = escalationLevel;
+    }
+    
+    public Task getTask() {
+        return task;
+    }
+    
+    public LocalDateTime getTriggerTime() {
+        return triggerTime;
+    }
+    
+    // e.g. "Due in 1 hour" or "Overdue by 15 min"
+    public String getHeading() {
+        return heading;
+    }
+    
+    // 0 for an ordinary reminder, higher for each repeat of an overdue one
+    public int getEscalationLevel() {
+        return escalationLevel;
+    }
+    
+    // When the reminder was detected (System.nanoTime), for delivery latency
+    long getCreatedNanos() {
+        return createdNanos;
+    }
+}
@@ -0,0 +1,135 @@
+package com.taskreminder.notify;
+
+import com.taskreminder.util.FileHandler;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fans notifications out to every configured sink
+ * dispatch() only queues: each sink has its own worker thread, bounded queue,
+ * timeout and retries, so a slow or hung sink delays neither reminder
+ * detection nor the other sinks.
+ * Sinks are chosen with -Dtaskreminder.notify.sinks=tray,log,command,webhook
+ * (default: tray), and configured with -Dtaskreminder.notify.log=FILE,
+ * -Dtaskreminder.notify.command=CMD, -Dtaskreminder.notify.webhook=URL and
+ * -Dtaskreminder.notify.timeout=MILLIS.
+ * Demonstrates: Singleton, Fan-out, Producer-consumer with bounded queues
+ */
+public class NotificationDispatcher {
+    private static final int QUEUE_CAPACITY = 100;
+    private static final int MAX_RETRIES = 2;
+    private static final int DEFAULT_TIMEOUT = 5000;
+    
+    private static NotificationDispatcher instance;
+    
+    private final List<SinkWorker> workers = new ArrayList<>();
+    
+    public NotificationDispatcher(List<NotificationSink> sinks, long timeoutMillis) {
+        for (NotificationSink sink : sinks) {
+            SinkWorker worker = new SinkWorker(sink, QUEUE_CAPACITY, timeoutMillis, MAX_RETRIES);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+    
+    /**
+     * The dispatcher for the configured sinks, created on first use
+     */
+    public static synchronized NotificationDispatcher getInstance() {
+        if (instance == null) {
+            int timeout = Integer.getInteger("taskreminder.notify.timeout", DEFAULT_TIMEOUT);
+            instance = new NotificationDispatcher(createConfiguredSinks(timeout), timeout);
+        }
+        return instance;
+    }
+    
+    /**
+     * The running dispatcher, or null if notifications are not delivered by this process
+     */
+    public static synchronized NotificationDispatcher getActiveInstance() {
+        return instance;
+    }
+    
+    /**
+     * Stop the running dispatcher, if any
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+    
+    private static List<NotificationSink> createConfiguredSinks(int timeout) {
+        List<NotificationSink> sinks = new ArrayList<>();
+        for (String name : System.getProperty("taskreminder.notify.sinks", "tray").split(",")) {
+            switch (name.trim()) {
+                case "":
+                    break;
+                case "tray":
+                    sinks.add(new TraySink());
+                    break;
+                case "log":
+                    sinks.add(new LogFileSink(new File(System.getProperty("taskreminder.notify.log",
+                        FileHandler.getDataDir() + File.separator + "notifications.log"))));
+                    break;
+                case "command":
+                    String command = System.getProperty("taskreminder.notify.command");
+                    if (command == null) {
+                        System.err.println("Notification sink 'command' needs -Dtaskreminder.notify.command");
+                    } else {
+                        sinks.add(new CommandSink(command));
+                    }
+                    break;
+                case "webhook":
+                    String url = System.getProperty("taskreminder.notify.webhook");
+                    try {
+                        if (url == null) {
+                            System.err.println("Notification sink 'webhook' needs -Dtaskreminder.notify.webhook");
+                        } else {
+                            sinks.add(new WebhookSink(new URL(url), timeout));
+                        }
+                    } catch (MalformedURLException e) {
+                        System.err.println("Invalid webhook URL: " + url);
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown notification sink: " + name.trim());
+            }
+        }
+        return sinks;
+    }
+    
+    /**
+     * Queue a notification for every sink; never blocks
+     */
+    public void dispatch(Notification notification) {
+        for (SinkWorker worker : workers) {
+            worker.offer(notification);
+        }
+    }
+    
+    /**
+     * Delivery counters and latency of every sink
+     */
+    public List<SinkMetrics> getMetrics() {
+        List<SinkMetrics> metrics = new ArrayList<>(workers.size());
+        for (SinkWorker worker : workers) {
+            metrics.add(worker.getMetrics());
+        }
+        return metrics;
+    }
+    
+    /**
+     * Stop every sink worker
+     */
+    public void shutdown() {
+        for (SinkWorker worker : workers) {
+            worker.stopWorker();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.taskreminder.notify;
+
+/**
+ * A target notifications are delivered to (tray, log file, command, webhook...)
+ * Each sink gets its own worker thread, so deliver() may block; it should give
+ * up when interrupted, which is how timeouts are enforced.
+ * Demonstrates: Service Provider Interface, Interface default methods
+ */
+public interface NotificationSink {
+    
+    // Short name used in thread names and metrics
+    String getName();
+    
+    // Deliver one notification; throw to have it retried
+    void deliver(Notification notification) throws Exception;
+    
+    // Release resources when notifications stop
+    default void close() {
+    }
+}
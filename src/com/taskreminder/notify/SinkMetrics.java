@@ -0,0 +1,85 @@
+package com.taskreminder.notify;
+
+/**
+ * Snapshot of one sink's delivery counters and latency
+ * Latency runs from detection of the reminder to its successful delivery;
+ * the percentile covers the most recent deliveries.
+ * Demonstrates: Immutable value object
+ */
+public final class SinkMetrics {
+    private final String sink;
+    private final int queued;
+    private final long delivered;
+    private final long failed;
+    private final long dropped;
+    private final long retries;
+    private final long timeouts;
+    private final double averageLatencyMillis;
+    private final double p95LatencyMillis;
+    private final double maxLatencyMillis;
+    
+    SinkMetrics(String sink, int queued, long delivered, long failed, long dropped, long retries,
+                long timeouts, double averageLatencyMillis, double p95LatencyMillis, double maxLatencyMillis) {
+        this.sink = sink;
+        this.queued = queued;
+        this.delivered = delivered;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.retries = retries;
+        this.timeouts = timeouts;
+        this.averageLatencyMillis = averageLatencyMillis;
+        this.p95LatencyMillis = p95LatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+    
+    public String getSink() {
+        return sink;
+    }
+    
+    // Waiting in the sink's queue right now
+    public int getQueued() {
+        return queued;
+    }
+    
+    public long getDelivered() {
+        return delivered;
+    }
+    
+    // Given up on after every retry failed
+    public long getFailed() {
+        return failed;
+    }
+    
+    // Pushed out of a full queue before they were attempted
+    public long getDropped() {
+        return dropped;
+    }
+    
+    public long getRetries() {
+        return retries;
+    }
+    
+    public long getTimeouts() {
+        return timeouts;
+    }
+    
+    public double getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+    
+    public double getP95LatencyMillis() {
+        return p95LatencyMillis;
+    }
+    
+    public double getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: delivered=%d failed=%d dropped=%d retries=%d timeouts=%d queued=%d "
+                + "latency avg=%.1fms p95=%.1fms max=%.1fms",
+            sink, delivered, failed, dropped, retries, timeouts, queued,
+            averageLatencyMillis, p95LatencyMillis, maxLatencyMillis);
+    }
+}
@@ -0,0 +1,199 @@
+package com.taskreminder.notify;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers notifications to one sink from a bounded queue
+ * Every attempt runs on a separate thread and is abandoned (interrupted)
+ * after the timeout; failed attempts are retried with a growing delay. When
+ * the queue is full the oldest notification is dropped, so a slow sink never
+ * makes the checker wait. A sink that ignores interrupts can hold at most
+ * MAX_HUNG_ATTEMPTS threads; after that its notifications fail at once.
+ * Demonstrates: ArrayBlockingQueue, Future with timeout, Retry with backoff
+ */
+class SinkWorker extends Thread {
+    private static final int MAX_HUNG_ATTEMPTS = 4;
+    private static final long RETRY_DELAY = 500;
+    private static final int LATENCY_SAMPLES = 1024;
+    
+    private volatile boolean running = true;
+    private final NotificationSink sink;
+    private final BlockingQueue<Notification> queue;
+    private final long timeoutMillis;
+    private final int maxRetries;
+    private final long retryDelayMillis;
+    private final AtomicInteger attemptsInFlight = new AtomicInteger();
+    private final ExecutorService attempts;
+    
+    // Counters, guarded by this
+    private long delivered;
+    private long failed;
+    private long dropped;
+    private long retries;
+    private long timeouts;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private final long[] recentLatencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    
+    SinkWorker(NotificationSink sink, int capacity, long timeoutMillis, int maxRetries) {
+        this(sink, capacity, timeoutMillis, maxRetries, RETRY_DELAY);
+    }
+    
+    SinkWorker(NotificationSink sink, int capacity, long timeoutMillis, int maxRetries, long retryDelayMillis) {
+        super("NotificationSink-" + sink.getName());
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.timeoutMillis = timeoutMillis;
+        this.maxRetries = maxRetries;
+        this.retryDelayMillis = retryDelayMillis;
+        this.attempts = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "NotificationSink-" + sink.getName() + "-attempt");
+            thread.setDaemon(true);
+            return thread;
+        });
+        setDaemon(true);
+    }
+    
+    /**
+     * Queue a notification without blocking; a full queue drops its oldest entry
+     */
+    void offer(Notification notification) {
+        while (!queue.offer(notification)) {
+            if (queue.poll() != null) {
+                synchronized (this) {
+                    dropped++;
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                deliverWithRetry(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+    
+    private void deliverWithRetry(Notification notification) throws InterruptedException {
+        String error = null;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attemptsInFlight.get() >= MAX_HUNG_ATTEMPTS) {
+                error = "sink is not responding";
+                break; // Retrying would only wait
+            }
+            if (attempt > 0) {
+                synchronized (this) {
+                    retries++;
+                }
+                Thread.sleep(retryDelayMillis << (attempt - 1));
+            }
+            error = attempt(notification);
+            if (error == null) {
+                recordDelivered(System.nanoTime() - notification.getCreatedNanos());
+                return;
+            }
+        }
+        synchronized (this) {
+            failed++;
+        }
+        System.err.println("Notification sink '" + sink.getName() + "' gave up on "
+            + notification.getTask().getId() + ": " + error);
+    }
+    
+    // Returns null on success, otherwise what went wrong.
+    // The attempt counts as in flight from before it is submitted until its thread lets go of the
+    // sink; 'claimed' settles whether the task runs (and releases the count) or a cancel that got
+    // there first does.
+    private String attempt(Notification notification) throws InterruptedException {
+        AtomicBoolean claimed = new AtomicBoolean();
+        attemptsInFlight.incrementAndGet();
+        Future<?> future;
+        try {
+            future = attempts.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    sink.deliver(notification);
+                } finally {
+                    attemptsInFlight.decrementAndGet();
+                }
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            attemptsInFlight.decrementAndGet();
+            return "sink is stopped";
+        }
+        try {
+            future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return null;
+        } catch (TimeoutException e) {
+            cancel(future, claimed);
+            synchronized (this) {
+                timeouts++;
+            }
+            return "timed out after " + timeoutMillis + " ms";
+        } catch (ExecutionException e) {
+            return String.valueOf(e.getCause());
+        } catch (InterruptedException e) {
+            cancel(future, claimed);
+            throw e;
+        }
+    }
+    
+    private void cancel(Future<?> future, AtomicBoolean claimed) {
+        future.cancel(true);
+        if (claimed.compareAndSet(false, true)) {
+            attemptsInFlight.decrementAndGet(); // Never started, and now never will
+        }
+    }
+    
+    /**
+     * Attempts whose thread is still inside the sink (or about to enter it)
+     */
+    int getAttemptsInFlight() {
+        return attemptsInFlight.get();
+    }
+    
+    private synchronized void recordDelivered(long latencyNanos) {
+        delivered++;
+        totalLatencyNanos += latencyNanos;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        recentLatencies[latencyCount++ % LATENCY_SAMPLES] = latencyNanos;
+    }
+    
+    synchronized SinkMetrics getMetrics() {
+        long[] samples = Arrays.copyOf(recentLatencies, Math.min(latencyCount, LATENCY_SAMPLES));
+        Arrays.sort(samples);
+        double p95 = samples.length == 0 ? 0 : samples[(int) Math.ceil(samples.length * 0.95) - 1] / 1e6;
+        double average = delivered == 0 ? 0 : totalLatencyNanos / 1e6 / delivered;
+        return new SinkMetrics(sink.getName(), queue.size(), delivered, failed, dropped, retries,
+            timeouts, average, p95, maxLatencyNanos / 1e6);
+    }
+    
+    /**
+     * Stop delivering; queued notifications are discarded
+     */
+    void stopWorker() {
+        running = false;
+        this.interrupt();
+        attempts.shutdownNow();
+        sink.close();
+    }
+}
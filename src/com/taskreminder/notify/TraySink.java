@@ -0,0 +1,72 @@
+package com.taskreminder.notify;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskListener;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.NotificationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tray balloon, escalating to a dialog (the original notification behaviour)
+ * The sink follows TaskManager, so a task's reminder dialog closes as soon
+ * as the task is completed or removed.
+ * Demonstrates: Adapter pattern, Observer
+ */
+public class TraySink implements NotificationSink, TaskListener {
+    private final TaskManager manager = TaskManager.getInstance();
+    
+    public TraySink() {
+        manager.addTaskListener(this);
+    }
+    
+    @Override
+    public String getName() {
+        return "tray";
+    }
+    
+    @Override
+    public void deliver(Notification notification) {
+        NotificationManager.showReminder(notification.getTask(),
+            notification.getHeading(), notification.getEscalationLevel());
+    }
+    
+    @Override
+    public void close() {
+        manager.removeTaskListener(this);
+    }
+    
+    @Override
+    public void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        List<String> completed = new ArrayList<>();
+        for (int i = 0; i < newVersions.size(); i++) {
+            if (newVersions.get(i).isCompleted() && !oldVersions.get(i).isCompleted()) {
+                completed.add(newVersions.get(i).getId());
+            }
+        }
+        NotificationManager.closeReminders(completed);
+    }
+    
+    @Override
+    public void tasksRemoved(List<Task> tasks) {
+        List<String> removed = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            removed.add(task.getId());
+        }
+        NotificationManager.closeReminders(removed);
+    }
+    
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        Set<String> pending = new HashSet<>();
+        for (Task task : tasks) {
+            if (!task.isCompleted()) {
+                pending.add(task.getId());
+            }
+        }
+        NotificationManager.retainReminders(pending);
+    }
+}
@@ -0,0 +1,78 @@
+package com.taskreminder.notify;
+
+import com.google.gson.JsonObject;
+import com.taskreminder.model.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * POSTs every notification as a JSON object to a URL
+ * Anything but a 2xx response counts as a failure and is retried. Responses
+ * are read to the end and the connection is left open, so HTTP keep-alive
+ * reuses it for the next notification.
+ * Demonstrates: HttpURLConnection, JSON with Gson
+ */
+public class WebhookSink implements NotificationSink {
+    private final URL url;
+    private final int timeoutMillis;
+    
+    public WebhookSink(URL url, int timeoutMillis) {
+        this.url = url;
+        this.timeoutMillis = timeoutMillis;
+    }
+    
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+    
+    @Override
+    public void deliver(Notification notification) throws IOException {
+        Task task = notification.getTask();
+        JsonObject json = new JsonObject();
+        json.addProperty("id", task.getId());
+        json.addProperty("title", task.getTitle());
+        json.addProperty("description", task.getDescription());
+        json.addProperty("priority", task.getPriority());
+        json.addProperty("reminderTime", String.valueOf(task.getReminderTime()));
+        json.addProperty("triggerTime", notification.getTriggerTime().toString());
+        json.addProperty("heading", notification.getHeading());
+        json.addProperty("escalationLevel", notification.getEscalationLevel());
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        int status;
+        try {
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            status = connection.getResponseCode();
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    byte[] buffer = new byte[1024];
+                    while (in.read(buffer) != -1) {
+                        // Drain so the connection can be reused
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // A half-finished exchange leaves nothing worth keeping alive
+            connection.disconnect();
+            throw e;
+        }
+        if (status / 100 != 2) {
+            throw new IOException("Webhook answered HTTP " + status);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.taskreminder.sync;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.taskreminder.model.Task;
+import com.taskreminder.util.TaskCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Append-only log of task changes shared by every process using a data directory
+ * One JSON entry per line after a header line "TASKLOG <epoch>". Appends take
+ * an exclusive file lock and reads a shared one, so readers only ever see whole
+ * lines. Compaction folds the whole log into tasks.json, truncates it and
+ * writes a new epoch, which tells the readers to start over from tasks.json.
+ * Demonstrates: FileChannel, FileLock, Append-only log
+ */
+public class ChangeLog {
+    private static final String HEADER_PREFIX = "TASKLOG ";
+    private static final int HEADER_LENGTH = HEADER_PREFIX.length() + 16 + 1;
+    
+    /**
+     * One change made by one process
+     */
+    public static class Entry {
+        static final String PUT = "put";
+        static final String REMOVE = "remove";
+        
+        String origin;
+        String op;
+        Task task; // for PUT
+        String id; // for REMOVE
+        transient long offset; // position in the log, set when read
+        
+        Entry() {
+        }
+        
+        Entry(String origin, String op, Task task, String id) {
+            this.origin = origin;
+            this.op = op;
+            this.task = task;
+            this.id = id;
+        }
+        
+        String getTaskId() {
+            return task != null ? task.getId() : id;
+        }
+    }
+    
+    /**
+     * Entries read from the log and where to continue next time
+     */
+    public static class Batch {
+        final long epoch;
+        final long nextOffset;
+        final List<Entry> entries;
+        
+        Batch(long epoch, long nextOffset, List<Entry> entries) {
+            this.epoch = epoch;
+            this.nextOffset = nextOffset;
+            this.entries = entries;
+        }
+    }
+    
+    /**
+     * Where appended entries went; 'newEpoch' is set when the log was empty and
+     * the append started it, so the appending process already knows everything in it
+     */
+    public static class Appended {
+        final long epoch;
+        final long offset;
+        final boolean newEpoch;
+        
+        Appended(long epoch, long offset, boolean newEpoch) {
+            this.epoch = epoch;
+            this.offset = offset;
+            this.newEpoch = newEpoch;
+        }
+    }
+    
+    /**
+     * Work done while compaction holds the log locked
+     */
+    public interface Compaction {
+        void run(Batch remaining) throws IOException;
+    }
+    
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Task.class, new TaskCodec())
+            .create();
+    private final FileChannel channel;
+    
+    public ChangeLog(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    /**
+     * Append entries; returns the epoch and the offset of the first one
+     */
+    public synchronized Appended append(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Entry entry : entries) {
+            bytes.write(gson.toJson(entry).getBytes(StandardCharsets.UTF_8));
+            bytes.write('\n');
+        }
+        FileLock lock = channel.lock();
+        try {
+            boolean newEpoch = channel.size() < HEADER_LENGTH;
+            long epoch;
+            if (newEpoch) {
+                epoch = ThreadLocalRandom.current().nextLong();
+                writeHeader(epoch);
+            } else {
+                epoch = readEpoch();
+            }
+            long offset = channel.size();
+            writeFully(ByteBuffer.wrap(bytes.toByteArray()), offset);
+            return new Appended(epoch, offset, newEpoch);
+        } finally {
+            lock.release();
+        }
+    }
+    
+    /**
+     * Entries after 'offset'; if the log has a different epoch than 'epoch',
+     * everything after the header is returned instead
+     */
+    public synchronized Batch read(long epoch, long offset) throws IOException {
+        FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+        try {
+            return readLocked(epoch, offset);
+        } finally {
+            lock.release();
+        }
+    }
+    
+    /**
+     * Under an exclusive lock: read every entry of the current epoch, let the
+     * caller fold them into tasks.json, then truncate the log and start a new epoch
+     */
+    public synchronized long compact(long epoch, Compaction compaction) throws IOException {
+        FileLock lock = channel.lock();
+        try {
+            compaction.run(readLocked(epoch, HEADER_LENGTH));
+            long newEpoch = ThreadLocalRandom.current().nextLong();
+            channel.truncate(0);
+            writeHeader(newEpoch);
+            return newEpoch;
+        } finally {
+            lock.release();
+        }
+    }
+    
+    /**
+     * Current size of the log in bytes
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+    
+    /**
+     * Offset of the first entry
+     */
+    public static long getStartOffset() {
+        return HEADER_LENGTH;
+    }
+    
+    /**
+     * Tasks with entries applied in log order: a put replaces the task with its
+     * id (or adds it at the end) and a remove drops it
+     */
+    static List<Task> applyTo(List<Task> tasks, List<Entry> entries) {
+        Map<String, Task> byId = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            byId.put(task.getId(), task);
+        }
+        for (Entry entry : entries) {
+            if (Entry.PUT.equals(entry.op) && entry.task != null) {
+                byId.put(entry.task.getId(), entry.task);
+            } else if (Entry.REMOVE.equals(entry.op) && entry.id != null) {
+                byId.remove(entry.id);
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+    
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing change log: " + e.getMessage());
+        }
+    }
+    
+    private Batch readLocked(long epoch, long offset) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_LENGTH) {
+            return new Batch(epoch, offset, new ArrayList<>());
+        }
+        long currentEpoch = readEpoch();
+        if (currentEpoch != epoch) {
+            offset = HEADER_LENGTH;
+        }
+        if (offset >= size) {
+            return new Batch(currentEpoch, offset, new ArrayList<>());
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate((int) (size - offset));
+        readFully(buffer, offset);
+        byte[] bytes = buffer.array();
+        
+        List<Entry> entries = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            try {
+                Entry entry = gson.fromJson(line, Entry.class);
+                if (entry != null && entry.op != null) {
+                    entry.offset = offset + lineStart;
+                    entries.add(entry);
+                }
+            } catch (JsonParseException e) {
+                System.err.println("Skipping unreadable change log entry: " + e.getMessage());
+            }
+            lineStart = i + 1;
+        }
+        return new Batch(currentEpoch, offset + lineStart, entries);
+    }
+    
+    private long readEpoch() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+        readFully(buffer, 0);
+        String header = new String(buffer.array(), StandardCharsets.US_ASCII);
+        if (!header.startsWith(HEADER_PREFIX)) {
+            throw new IOException("Not a task change log: " + header.trim());
+        }
+        return Long.parseUnsignedLong(header.substring(HEADER_PREFIX.length(), HEADER_LENGTH - 1), 16);
+    }
+    
+    private void writeHeader(long epoch) throws IOException {
+        String hex = Long.toHexString(epoch);
+        String header = HEADER_PREFIX + "0000000000000000".substring(hex.length()) + hex + "\n";
+        writeFully(ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)), 0);
+    }
+    
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Change log ended unexpectedly");
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.taskreminder.sync;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskListener;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.FileHandler;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps several processes that share one data directory in step
+ * Every local change is appended to the shared ChangeLog; catchUp() applies the
+ * entries other processes appended since the last call. The log order decides
+ * conflicts: a remote change that precedes one of our own for the same task is
+ * skipped, so every process ends up with the last change in the log.
+ * One process at a time holds leader.lock; only the leader delivers notifications,
+ * archives, and compacts the log once it grows past COMPACT_BYTES. Compaction
+ * writes tasks.json plus the log into tasks.json, never the tasks in memory,
+ * which may hold changes that were not logged.
+ * Demonstrates: Inter-process coordination with file locks, Observer, ThreadLocal
+ */
+public class ProcessSync implements TaskListener {
+    private static final long COMPACT_BYTES = 1024 * 1024;
+    
+    // Set while this thread applies remote changes, so they are not logged again
+    private static final ThreadLocal<Boolean> APPLYING = ThreadLocal.withInitial(() -> false);
+    
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+    private final TaskManager manager;
+    private final ChangeLog log;
+    private final File leaderFile;
+    
+    // Guarded by manager's lock: the log is read and applied atomically
+    // with respect to local changes, which are logged under the same lock
+    private long epoch;
+    private long offset;
+    private final Map<String, Long> ownOffsets = new HashMap<>();
+    
+    private FileChannel leaderChannel;
+    private volatile FileLock leaderLock;
+    
+    public ProcessSync() throws IOException {
+        this.manager = TaskManager.getInstance();
+        this.log = new ChangeLog(new File(FileHandler.getDataDir(), "changes.log"));
+        this.leaderFile = new File(FileHandler.getDataDir(), "leader.lock");
+        this.offset = ChangeLog.getStartOffset();
+    }
+    
+    /**
+     * Apply every change logged since tasks.json was saved, then start logging ours
+     */
+    public void start() throws IOException {
+        synchronized (manager) {
+            ChangeLog.Batch batch = log.read(epoch, offset);
+            epoch = batch.epoch;
+            offset = batch.nextOffset;
+            apply(batch.entries);
+            manager.addTaskListener(this);
+        }
+    }
+    
+    /**
+     * Stop logging local changes and release leadership
+     */
+    public void stop() {
+        manager.removeTaskListener(this);
+        try {
+            if (leaderLock != null) {
+                leaderLock.release();
+            }
+            if (leaderChannel != null) {
+                leaderChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error releasing leader lock: " + e.getMessage());
+        }
+        log.close();
+    }
+    
+    /**
+     * Apply changes other processes logged since the last call
+     * Returns the number of entries applied.
+     */
+    public int catchUp() throws IOException {
+        synchronized (manager) {
+            ChangeLog.Batch batch = log.read(epoch, offset);
+            int applied;
+            if (batch.epoch != epoch) {
+                // Another process compacted the log: its state is in tasks.json
+                reloadFromFile();
+                applied = applyAll(batch.entries);
+            } else {
+                applied = apply(batch.entries);
+            }
+            epoch = batch.epoch;
+            offset = batch.nextOffset;
+            forgetOwnOffsetsBefore(offset);
+            return applied;
+        }
+    }
+    
+    /**
+     * Leader only: when the log is large, fold it into tasks.json and start a new, empty log
+     */
+    public boolean compactIfNeeded() throws IOException {
+        if (!isLeader() || log.size() < COMPACT_BYTES) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+    
+    // Catch up with the whole log, write it into tasks.json and start a new epoch
+    void compact() throws IOException {
+        synchronized (manager) {
+            epoch = log.compact(epoch, logged -> {
+                if (logged.epoch != epoch) {
+                    reloadFromFile();
+                    applyAll(logged.entries);
+                } else {
+                    List<ChangeLog.Entry> unread = new ArrayList<>();
+                    for (ChangeLog.Entry entry : logged.entries) {
+                        if (entry.offset >= offset) {
+                            unread.add(entry);
+                        }
+                    }
+                    apply(unread);
+                }
+                FileHandler.rewriteSavedTasks(saved -> ChangeLog.applyTo(saved, logged.entries));
+            });
+            offset = ChangeLog.getStartOffset();
+            ownOffsets.clear();
+        }
+    }
+    
+    /**
+     * Try to become the leader; returns true if this process is (now) the leader
+     */
+    public synchronized boolean tryAcquireLeadership() {
+        if (leaderLock != null) {
+            return true;
+        }
+        try {
+            if (leaderChannel == null) {
+                leaderChannel = FileChannel.open(leaderFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            leaderLock = leaderChannel.tryLock();
+        } catch (IOException | OverlappingFileLockException e) {
+            leaderLock = null;
+        }
+        return leaderLock != null;
+    }
+    
+    public boolean isLeader() {
+        return leaderLock != null;
+    }
+    
+    /**
+     * Short id of this process in the change log
+     */
+    public String getOrigin() {
+        return origin;
+    }
+    
+    private void reloadFromFile() throws IOException {
+        ownOffsets.clear();
+        APPLYING.set(true);
+        try {
+            FileHandler.loadTasks();
+        } catch (FileNotFoundException e) {
+            manager.clearAllTasks();
+        } finally {
+            APPLYING.set(false);
+        }
+    }
+    
+    // Apply remote entries, skipping those overtaken by one of our own
+    private int apply(List<ChangeLog.Entry> entries) {
+        List<ChangeLog.Entry> remote = new ArrayList<>();
+        for (ChangeLog.Entry entry : entries) {
+            if (origin.equals(entry.origin)) {
+                continue;
+            }
+            Long own = ownOffsets.get(entry.getTaskId());
+            if (own == null || own < entry.offset) {
+                remote.add(entry);
+            }
+        }
+        return applyAll(remote);
+    }
+    
+    // Apply entries in order, batching runs of the same operation
+    private int applyAll(List<ChangeLog.Entry> entries) {
+        APPLYING.set(true);
+        try {
+            List<Task> puts = new ArrayList<>();
+            List<Task> removes = new ArrayList<>();
+            for (ChangeLog.Entry entry : entries) {
+                if (ChangeLog.Entry.PUT.equals(entry.op) && entry.task != null) {
+                    flush(null, removes);
+                    puts.add(entry.task);
+                } else if (ChangeLog.Entry.REMOVE.equals(entry.op) && entry.id != null) {
+                    flush(puts, null);
+                    removes.add(new Task(entry.id, null, null, null, null, false));
+                }
+            }
+            flush(puts, removes);
+            return entries.size();
+        } finally {
+            APPLYING.set(false);
+        }
+    }
+    
+    private void flush(List<Task> puts, List<Task> removes) {
+        if (puts != null && !puts.isEmpty()) {
+            manager.addTasks(new ArrayList<>(puts));
+            puts.clear();
+        }
+        if (removes != null && !removes.isEmpty()) {
+            manager.removeTasks(new ArrayList<>(removes));
+            removes.clear();
+        }
+    }
+    
+    private void forgetOwnOffsetsBefore(long readOffset) {
+        Iterator<Long> it = ownOffsets.values().iterator();
+        while (it.hasNext()) {
+            if (it.next() < readOffset) {
+                it.remove();
+            }
+        }
+    }
+    
+    private void logChanges(List<Task> tasks, String op) {
+        if (APPLYING.get()) {
+            return;
+        }
+        List<ChangeLog.Entry> entries = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            entries.add(ChangeLog.Entry.PUT.equals(op)
+                ? new ChangeLog.Entry(origin, op, task, null)
+                : new ChangeLog.Entry(origin, op, null, task.getId()));
+        }
+        try {
+            ChangeLog.Appended appended = log.append(entries);
+            if (appended.newEpoch) {
+                // This process started the log: nothing in it is new to us
+                epoch = appended.epoch;
+                offset = ChangeLog.getStartOffset();
+                ownOffsets.clear();
+            }
+            // All entries of the batch come at or after the returned offset
+            for (Task task : tasks) {
+                ownOffsets.put(task.getId(), appended.offset);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write change log: " + e.getMessage());
+        }
+    }
+    
+    // Local changes arrive here under the TaskManager lock, in the order they were made
+    
+    @Override
+    public void tasksAdded(List<Task> tasks) {
+        logChanges(tasks, ChangeLog.Entry.PUT);
+    }
+    
+    @Override
+    public void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        logChanges(newVersions, ChangeLog.Entry.PUT);
+    }
+    
+    @Override
+    public void tasksRemoved(List<Task> tasks) {
+        logChanges(tasks, ChangeLog.Entry.REMOVE);
+    }
+}
@@ -0,0 +1,578 @@
+package com.taskreminder.sync;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskListener;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.ArchiveHandler;
+import com.taskreminder.util.FileHandler;
+import com.taskreminder.util.TaskCodec;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Numbered record of task changes, shipped to replication peers
+ * Every change gets the next sequence number and a version (a millisecond
+ * timestamp that never goes backwards) stamped with the node that made it. Only
+ * the latest record per task id is kept, deletions included (tombstones), so
+ * a peer that resumes after sequence N is sent at most one record per task
+ * changed since then. Records are appended to data/replication.journal and the
+ * file is compacted when it holds too many superseded lines.
+ * Each peer acknowledges the records it has applied. A tombstone that every
+ * peer seen so far has acknowledged is dropped at the next compaction (a peer
+ * that first connects after that, with an old copy of the task, brings it back).
+ * Tasks moved to the archive are not deletions: their record is only marked
+ * archived, so peers keep their copy and a restart does not delete it either.
+ * Conflicts: the record with the higher (version, node id) wins on every node.
+ * Each save of tasks.json stores the last sequence number it contains, so a
+ * restart knows exactly which records never reached the file.
+ * Demonstrates: TreeMap tail views, Log compaction, Last-writer-wins, Observer
+ */
+public class ReplicationJournal implements TaskListener {
+    private static final int MIN_COMPACT_LINES = 1000;
+    private static final String NODE_ID = "node.id";
+    private static final String PEER_PREFIX = "peer.";
+    private static final String ACKED_PREFIX = "acked.";
+    private static final String SAVED_SEQ = "saved.seq";
+    
+    // Set while this thread applies records from a peer, so they are not recorded twice
+    private static final ThreadLocal<Boolean> APPLYING = ThreadLocal.withInitial(() -> false);
+    
+    /**
+     * One change: the new version of a task, or its removal
+     */
+    public static class Change {
+        long seq;
+        long version;
+        String origin;
+        Task task; // null for a removal
+        String id;
+        Boolean archived; // set here when the task went to the archive; peers ignore it
+        
+        Change() {
+        }
+        
+        Change(long seq, long version, String origin, Task task, String id) {
+            this.seq = seq;
+            this.version = version;
+            this.origin = origin;
+            this.task = task;
+            this.id = id;
+        }
+        
+        boolean isRemoval() {
+            return task == null;
+        }
+        
+        boolean isArchived() {
+            return Boolean.TRUE.equals(archived);
+        }
+        
+        // Removals and archived tasks need no record once every peer has them
+        boolean isExpirable() {
+            return isRemoval() || isArchived();
+        }
+        
+        // Deterministic order of two versions of the same task
+        boolean isNewerThan(Change other) {
+            if (version != other.version) {
+                return version > other.version;
+            }
+            return origin.compareTo(other.origin) > 0;
+        }
+    }
+    
+    /**
+     * Records after some sequence number, and the sequence number they run through
+     */
+    public static class Batch {
+        final List<Change> changes;
+        final long throughSeq;
+        
+        Batch(List<Change> changes, long throughSeq) {
+            this.changes = changes;
+            this.throughSeq = throughSeq;
+        }
+    }
+    
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Task.class, new TaskCodec())
+            .create();
+    private final TaskManager manager = TaskManager.getInstance();
+    private final File file;
+    private final File stateFile;
+    private final Properties state = new Properties();
+    private final String nodeId;
+    
+    // Latest record per task, by id and by sequence number
+    private final Map<String, Change> byId = new HashMap<>();
+    private final TreeMap<Long, Change> bySeq = new TreeMap<>();
+    private long lastSeq;
+    private long lastVersion;
+    private Writer writer;
+    private int linesInFile;
+    private FileChannel lockChannel;
+    private final FileHandler.SaveListener saveListener = this::savingTasks;
+    
+    private ReplicationJournal(File file, File stateFile) throws IOException {
+        this.file = file;
+        this.stateFile = stateFile;
+        if (stateFile.exists()) {
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+            }
+        }
+        if (state.getProperty(NODE_ID) == null) {
+            state.setProperty(NODE_ID, UUID.randomUUID().toString().substring(0, 8));
+            saveState();
+        }
+        this.nodeId = state.getProperty(NODE_ID);
+    }
+    
+    /**
+     * Open the journal in the data directory; only one process may have it open
+     */
+    public static ReplicationJournal open() throws IOException {
+        File dir = new File(FileHandler.getDataDir());
+        dir.mkdirs();
+        FileChannel lockChannel = FileChannel.open(new File(dir, "replication.lock").toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (lockChannel.tryLock() == null) {
+                throw new IOException("Replication is already running for " + dir);
+            }
+            ReplicationJournal journal = new ReplicationJournal(
+                new File(dir, "replication.journal"), new File(dir, "replication.properties"));
+            journal.load();
+            journal.lockChannel = lockChannel;
+            return journal;
+        } catch (IOException | OverlappingFileLockException e) {
+            lockChannel.close();
+            throw e instanceof IOException ? (IOException) e
+                : new IOException("Replication is already running for " + dir);
+        }
+    }
+    
+    /**
+     * Bring the journal and the loaded tasks in line, then record every change
+     * Records after the last one saved in tasks.json (changes received or made
+     * before a crash) are applied to the tasks; tasks that differ from their
+     * record after that were changed while replication was off and are recorded.
+     * A journal from before saved sequence numbers were kept falls back to
+     * comparing versions with the time tasks.json was last written.
+     */
+    public void attach() {
+        long savedAt = new File(FileHandler.getTasksFile()).lastModified();
+        synchronized (manager) {
+            synchronized (this) {
+                String savedSeq = state.getProperty(SAVED_SEQ);
+                List<Change> unsaved = new ArrayList<>();
+                for (Change change : bySeq.values()) {
+                    if (change.isArchived()) {
+                        continue; // Left tasks.json for the archive
+                    }
+                    if (savedSeq != null ? change.seq > Long.parseLong(savedSeq) : change.version > savedAt) {
+                        unsaved.add(change);
+                    }
+                }
+                applyToTasks(unsaved);
+                recordDifferences(manager.getAllTasks());
+            }
+            manager.addTaskListener(this);
+        }
+        FileHandler.addSaveListener(saveListener);
+    }
+    
+    /**
+     * Stop recording changes, close the journal file and let another process open it
+     */
+    public void detach() {
+        FileHandler.removeSaveListener(saveListener);
+        manager.removeTaskListener(this);
+        synchronized (this) {
+            closeWriter();
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                System.err.println("Error releasing replication lock: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Id of this node, the tie-breaker between equal versions
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * Sequence number of the newest record
+     */
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+    
+    /**
+     * Number of tasks with a record (tombstones included)
+     */
+    public synchronized int size() {
+        return byId.size();
+    }
+    
+    /**
+     * Last sequence number of a peer's journal applied here
+     */
+    public synchronized long getPeerCursor(String peerId) {
+        return Long.parseLong(state.getProperty(PEER_PREFIX + peerId, "0"));
+    }
+    
+    /**
+     * Last sequence number of this journal that a peer has applied
+     */
+    public synchronized long getAcknowledged(String peerId) {
+        return Long.parseLong(state.getProperty(ACKED_PREFIX + peerId, "0"));
+    }
+    
+    /**
+     * Remember that a peer has applied this journal through 'seq'
+     */
+    public synchronized void peerAcknowledged(String peerId, long seq) throws IOException {
+        if (seq > getAcknowledged(peerId)) {
+            state.setProperty(ACKED_PREFIX + peerId, Long.toString(seq));
+            saveState();
+        }
+    }
+    
+    /**
+     * Up to 'max' records after 'afterSeq', leaving out those that came from
+     * 'excludeOrigin'; waits up to 'timeoutMillis' for one to arrive.
+     * Returns null if nothing new was recorded in that time.
+     */
+    public synchronized Batch awaitChanges(long afterSeq, String excludeOrigin, int max, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (lastSeq <= afterSeq) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            wait(remaining);
+        }
+        List<Change> changes = new ArrayList<>();
+        long throughSeq = afterSeq;
+        for (Change change : bySeq.tailMap(afterSeq, false).values()) {
+            if (changes.size() >= max) {
+                break;
+            }
+            if (!change.origin.equals(excludeOrigin)) {
+                changes.add(change);
+            }
+            throughSeq = change.seq;
+        }
+        if (changes.size() < max) {
+            throughSeq = lastSeq; // Nothing else to send up to here
+        }
+        return new Batch(changes, throughSeq);
+    }
+    
+    /**
+     * Apply records received from a peer, keeping those newer than ours, and
+     * remember that the peer's journal has been applied through 'throughSeq'
+     * Returns the number of records applied.
+     */
+    public int applyFromPeer(String peerId, List<Change> changes, long throughSeq) throws IOException {
+        int applied;
+        synchronized (manager) {
+            synchronized (this) {
+                List<Change> winners = new ArrayList<>();
+                for (Change change : changes) {
+                    Change current = byId.get(change.id);
+                    if (current == null || change.isNewerThan(current)) {
+                        record(new Change(0, change.version, change.origin, change.task, change.id));
+                        winners.add(change);
+                    }
+                    lastVersion = Math.max(lastVersion, change.version);
+                }
+                applyToTasks(winners);
+                applied = winners.size();
+            }
+        }
+        synchronized (this) {
+            state.setProperty(PEER_PREFIX + peerId, Long.toString(throughSeq));
+            saveState();
+        }
+        return applied;
+    }
+    
+    // Every record so far is in the tasks being saved (both change under the TaskManager lock)
+    private synchronized Runnable savingTasks() {
+        long seq = lastSeq;
+        return () -> recordSaved(seq);
+    }
+    
+    private synchronized void recordSaved(long seq) {
+        if (seq <= Long.parseLong(state.getProperty(SAVED_SEQ, "0"))) {
+            return;
+        }
+        state.setProperty(SAVED_SEQ, Long.toString(seq));
+        try {
+            saveState();
+        } catch (IOException e) {
+            System.err.println("Could not save replication state: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Encode a record for the wire (one JSON line)
+     */
+    String encode(Change change) {
+        return gson.toJson(change);
+    }
+    
+    /**
+     * Decode a record encoded with encode()
+     */
+    Change decode(String line) {
+        return gson.fromJson(line, Change.class);
+    }
+    
+    private void applyToTasks(List<Change> changes) {
+        List<Task> puts = new ArrayList<>();
+        List<Task> removes = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.isRemoval()) {
+                removes.add(new Task(change.id, null, null, null, null, false));
+            } else {
+                puts.add(change.task);
+            }
+        }
+        APPLYING.set(true);
+        try {
+            if (!puts.isEmpty()) {
+                manager.addTasks(puts);
+            }
+            if (!removes.isEmpty()) {
+                manager.removeTasks(removes);
+            }
+        } finally {
+            APPLYING.set(false);
+        }
+    }
+    
+    // Record local tasks that differ from their record, and removals of the rest
+    private void recordDifferences(List<Task> tasks) {
+        Set<String> present = new HashSet<>();
+        for (Task task : tasks) {
+            present.add(task.getId());
+            Change current = byId.get(task.getId());
+            if (current == null || current.isRemoval() || !current.task.hasSameContent(task)) {
+                recordLocal(task, task.getId());
+            }
+        }
+        for (Change change : new ArrayList<>(byId.values())) {
+            if (!change.isExpirable() && !present.contains(change.id)) {
+                recordLocal(null, change.id);
+            }
+        }
+    }
+    
+    private void recordLocal(Task task, String id) {
+        long version = Math.max(AppClock.get().millis(), lastVersion + 1);
+        lastVersion = version;
+        record(new Change(0, version, nodeId, task, id));
+    }
+    
+    // Keep the record of archived tasks, marked so they are not taken for deletions
+    private void recordArchived(List<Task> tasks) {
+        for (Task task : tasks) {
+            Change current = byId.get(task.getId());
+            if (current == null || current.isExpirable()) {
+                continue;
+            }
+            Change archived = new Change(current.seq, current.version, current.origin, current.task, current.id);
+            archived.archived = true;
+            byId.put(archived.id, archived);
+            bySeq.put(archived.seq, archived);
+            try {
+                append(archived); // Same sequence number: replaces the earlier line on load
+            } catch (IOException e) {
+                System.err.println("Could not write replication journal: " + e.getMessage());
+            }
+        }
+    }
+    
+    // Records up to here are applied by every peer seen so far (0 if none was)
+    private long acknowledgedByAll() {
+        long through = -1;
+        for (String key : state.stringPropertyNames()) {
+            if (key.startsWith(ACKED_PREFIX)) {
+                long acked = Long.parseLong(state.getProperty(key));
+                through = through < 0 ? acked : Math.min(through, acked);
+            }
+        }
+        return Math.max(through, 0);
+    }
+    
+    // Give a record the next sequence number and make it the latest for its task
+    private void record(Change change) {
+        change.seq = ++lastSeq;
+        Change old = byId.put(change.id, change);
+        if (old != null) {
+            bySeq.remove(old.seq);
+        }
+        bySeq.put(change.seq, change);
+        notifyAll();
+        
+        try {
+            if (linesInFile >= Math.max(MIN_COMPACT_LINES, byId.size() * 2)) {
+                compact();
+            } else {
+                append(change);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write replication journal: " + e.getMessage());
+        }
+    }
+    
+    private void load() throws IOException {
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        Change change = decode(line);
+                        if (change == null || change.id == null || change.origin == null) {
+                            continue;
+                        }
+                        Change old = byId.put(change.id, change);
+                        if (old != null) {
+                            bySeq.remove(old.seq);
+                        }
+                        bySeq.put(change.seq, change);
+                        lastSeq = Math.max(lastSeq, change.seq);
+                        lastVersion = Math.max(lastVersion, change.version);
+                    } catch (JsonParseException e) {
+                        // Torn last line after a crash
+                    }
+                }
+            }
+        }
+        compact();
+    }
+    
+    private void append(Change change) throws IOException {
+        if (writer == null) {
+            writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        }
+        writer.write(encode(change));
+        writer.write('\n');
+        writer.flush();
+        linesInFile++;
+    }
+    
+    /**
+     * Rewrite the file with the latest record per task, in sequence order,
+     * leaving out tombstones and archived tasks that every peer has
+     */
+    private void compact() throws IOException {
+        closeWriter();
+        long expireThrough = acknowledgedByAll();
+        Iterator<Change> it = bySeq.headMap(expireThrough, true).values().iterator();
+        while (it.hasNext()) {
+            Change change = it.next();
+            if (change.isExpirable()) {
+                it.remove();
+                byId.remove(change.id);
+            }
+        }
+
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            for (Change change : bySeq.values()) {
+                out.write(encode(change));
+                out.write('\n');
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        linesInFile = bySeq.size();
+    }
+    
+    private void saveState() throws IOException {
+        File temp = new File(stateFile.getAbsoluteFile().getParentFile(), stateFile.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            state.store(out, "Task replication state");
+        }
+        Files.move(temp.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing replication journal: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+    
+    // Local changes arrive here under the TaskManager lock, in the order they were made
+    
+    private synchronized void recordLocalChanges(List<Task> tasks, boolean removed) {
+        if (APPLYING.get()) {
+            return;
+        }
+        if (removed && ArchiveHandler.isRemovingArchived()) {
+            recordArchived(tasks);
+            return;
+        }
+        for (Task task : tasks) {
+            recordLocal(removed ? null : task, task.getId());
+        }
+    }
+    
+    @Override
+    public void tasksAdded(List<Task> tasks) {
+        recordLocalChanges(tasks, false);
+    }
+    
+    @Override
+    public void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        recordLocalChanges(newVersions, false);
+    }
+    
+    @Override
+    public void tasksRemoved(List<Task> tasks) {
+        recordLocalChanges(tasks, true);
+    }
+    
+    @Override
+    public synchronized void tasksReloaded(List<Task> tasks) {
+        if (!APPLYING.get()) {
+            recordDifferences(tasks);
+        }
+    }
+}
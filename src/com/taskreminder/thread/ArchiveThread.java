@@ -0,0 +1,107 @@
+package com.taskreminder.thread;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.ArchiveHandler;
+import com.taskreminder.util.FileHandler;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Background thread that moves old completed tasks out of TaskManager into
+ * compressed archive segments, keeping the live task list small.
+ * Each run writes a segment, rewrites tasks.json without its tasks, then
+ * commits the segment; tasks of an uncommitted segment (a run that did not
+ * finish) are only dropped from the list, never archived twice. Only the
+ * archived tasks are taken out of the file: other changes in memory stay
+ * unsaved until the user saves them.
+ * Age is configurable with -Dtaskreminder.archive.days (default 7).
+ * Demonstrates: Thread, Daemon Threads, Thread Sleep
+ */
+public class ArchiveThread extends Thread {
+    private static final long ARCHIVE_INTERVAL = 10 * 60 * 1000; // Every 10 minutes
+    private static final int ARCHIVE_AFTER_DAYS = Integer.getInteger("taskreminder.archive.days", 7);
+    
+    private volatile boolean running = true;
+    
+    public ArchiveThread() {
+        super("ArchiveThread");
+        setDaemon(true);
+    }
+    
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                archiveOldTasks();
+                Thread.sleep(ARCHIVE_INTERVAL);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                System.err.println("Error in archive thread: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Archive completed tasks older than the configured age
+     */
+    public int archiveOldTasks() throws Exception {
+        LocalDateTime cutoff = AppClock.now().minusDays(ARCHIVE_AFTER_DAYS);
+        TaskManager manager = TaskManager.getInstance();
+        
+        // Tasks archived by a run that did not get to save tasks.json (unless reopened since)
+        Set<String> archived = ArchiveHandler.getUncommittedIds();
+        List<Task> leftOver = archived.isEmpty() ? Collections.<Task>emptyList()
+            : manager.findTasks(task -> task.isCompleted() && archived.contains(task.getId()), Integer.MAX_VALUE);
+        List<Task> oldTasks = manager.findTasks(task -> task.isCompleted() && completedBefore(task, cutoff)
+                                                && !archived.contains(task.getId()), Integer.MAX_VALUE);
+        if (oldTasks.isEmpty() && leftOver.isEmpty()) {
+            return 0; // Uncommitted segments stay so until a run saves tasks.json
+        }
+        
+        // Segment first, then drop from the live list and the file, and commit
+        ArchiveHandler.archiveTasks(oldTasks);
+        ArchiveHandler.removeArchived(manager, leftOver);
+        ArchiveHandler.removeArchived(manager, oldTasks);
+        Set<String> ids = new HashSet<>();
+        for (Task task : leftOver) {
+            ids.add(task.getId());
+        }
+        for (Task task : oldTasks) {
+            ids.add(task.getId());
+        }
+        if (FileHandler.tasksFileExists()) {
+            FileHandler.rewriteSavedTasks(saved -> {
+                saved.removeIf(task -> ids.contains(task.getId()));
+                return saved;
+            });
+        }
+        ArchiveHandler.commit();
+        
+        if (!leftOver.isEmpty()) {
+            System.out.println("Removed " + leftOver.size() + " task(s) archived by an earlier run.");
+        }
+        System.out.println("Archived " + oldTasks.size() + " completed task(s).");
+        return oldTasks.size();
+    }
+    
+    // Tasks completed before completion times were recorded fall back to their reminder time
+    private static boolean completedBefore(Task task, LocalDateTime cutoff) {
+        LocalDateTime completed = task.getCompletedTime() != null ? task.getCompletedTime() : task.getReminderTime();
+        return completed.isBefore(cutoff);
+    }
+    
+    /**
+     * Stop the archive thread
+     */
+    public void stopArchiving() {
+        running = false;
+        this.interrupt();
+    }
+}
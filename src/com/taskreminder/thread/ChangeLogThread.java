@@ -0,0 +1,59 @@
+package com.taskreminder.thread;
+
+import com.taskreminder.sync.ProcessSync;
+
+/**
+ * Background thread that follows the shared change log
+ * Applies changes made by other processes sharing the data directory, tries to
+ * take over leadership when no process holds it, and (as leader) compacts the log.
+ * Demonstrates: Thread, Daemon Threads, Polling
+ */
+public class ChangeLogThread extends Thread {
+    private static final long POLL_INTERVAL = 500;
+    
+    private volatile boolean running = true;
+    private final ProcessSync sync;
+    private final Runnable onLeadership;
+    
+    /**
+     * 'onLeadership' runs once, on this thread, when this process becomes the leader
+     */
+    public ChangeLogThread(ProcessSync sync, Runnable onLeadership) {
+        super("ChangeLogThread");
+        this.sync = sync;
+        this.onLeadership = onLeadership;
+        setDaemon(true);
+    }
+    
+    @Override
+    public void run() {
+        boolean leader = false;
+        while (running) {
+            try {
+                int applied = sync.catchUp();
+                if (applied > 0) {
+                    System.out.println("Applied " + applied + " change(s) from other instances");
+                }
+                if (!leader && sync.tryAcquireLeadership()) {
+                    leader = true;
+                    System.out.println("This instance is now the leader (" + sync.getOrigin() + ")");
+                    onLeadership.run();
+                }
+                sync.compactIfNeeded();
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                System.err.println("Error following change log: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Stop following the change log
+     */
+    public void stopSync() {
+        running = false;
+        this.interrupt();
+    }
+}
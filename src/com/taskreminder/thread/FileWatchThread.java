@@ -0,0 +1,113 @@
+package com.taskreminder.thread;
+
+import com.google.gson.JsonParseException;
+import com.taskreminder.util.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background thread that watches the data directory and applies external
+ * changes to tasks.json incrementally (only the tasks the file changed;
+ * unsaved local changes are kept, and conflicts are reported).
+ * Bursts of file events are debounced into a single reload.
+ * Demonstrates: Thread, WatchService, Debouncing
+ */
+public class FileWatchThread extends Thread {
+    private static final long DEBOUNCE_MILLIS = 500;
+    
+    private volatile boolean running = true;
+    private WatchService watchService;
+    
+    public FileWatchThread() {
+        super("FileWatchThread");
+        setDaemon(true);
+    }
+    
+    @Override
+    public void run() {
+        Path tasksFile = Paths.get(FileHandler.getTasksFile()).toAbsolutePath();
+        Path dataDir = tasksFile.getParent();
+        Path fileName = tasksFile.getFileName();
+        
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dataDir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            
+            while (running) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key, fileName);
+                
+                // Wait until the file has been quiet for the debounce period
+                while (running) {
+                    WatchKey next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    changed |= drain(next, fileName);
+                }
+                
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopping
+        } catch (IOException e) {
+            System.err.println("Could not watch data directory: " + e.getMessage());
+        }
+    }
+    
+    private static boolean drain(WatchKey key, Path fileName) {
+        boolean matched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (fileName.equals(event.context()) || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                matched = true;
+            }
+        }
+        key.reset();
+        return matched;
+    }
+    
+    private void reload() {
+        try {
+            FileHandler.ReloadResult result = FileHandler.reloadChangedTasks();
+            if (result.getApplied() > 0) {
+                System.out.println("Applied " + result.getApplied() + " external change(s) from tasks.json");
+            }
+            if (!result.getConflicts().isEmpty()) {
+                System.err.println("Kept unsaved local version of " + result.getConflicts().size()
+                    + " task(s) also changed in tasks.json: " + result.getConflicts());
+            }
+        } catch (JsonParseException e) {
+            // Probably caught mid-write; the writer's next event triggers another attempt
+            System.err.println("Skipping incomplete tasks.json: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error reloading tasks.json: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stop watching
+     */
+    public void stopWatching() {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing watch service: " + e.getMessage());
+        }
+        this.interrupt();
+    }
+}
@@ -1,26 +1,45 @@
 package com.taskreminder.thread;
 
+import com.taskreminder.model.ReminderSchedule;
 import com.taskreminder.model.Task;
 import com.taskreminder.model.TaskManager;
-import com.taskreminder.util.NotificationManager;
+import com.taskreminder.notify.Notification;
+import com.taskreminder.notify.NotificationDispatcher;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.DatabaseHandler;
+import com.taskreminder.util.NotificationLedger;
 
-import java.util.HashSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Background thread for checking and triggering notifications
- * Demonstrates: Thread, Runnable, Thread Synchronization, Thread Sleep
+ * Sleeps until the earliest scheduled reminder (or at most CHECK_INTERVAL)
+ * instead of scanning all tasks on every check. Delivered reminders are kept
+ * in a persisted ledger, so restarting does not repeat them. Delivery is
+ * handed to the NotificationDispatcher, so slow sinks never delay checking.
+ * With database storage, tasks whose reminders come into range are loaded
+ * from the database as time moves on.
+ * Demonstrates: Thread, Runnable, Thread Synchronization, wait/notify
  */
 public class NotificationThread extends Thread {
     private volatile boolean running = true;
-    private Set<String> notifiedTasks;
-    private static final long CHECK_INTERVAL = 30000; // Check every 30 seconds
+    private final ReminderScheduler scheduler;
+    private final NotificationLedger ledger;
+    private final NotificationDispatcher dispatcher;
+    private static final long CHECK_INTERVAL = 30000; // Check at least every 30 seconds
     
     public NotificationThread() {
         super("NotificationThread");
-        this.notifiedTasks = new HashSet<>();
+        TaskManager manager = TaskManager.getInstance();
+        this.ledger = NotificationLedger.open();
+        // Tasks still waiting for others are not reminded of
+        this.scheduler = new ReminderScheduler(ledger, task -> manager.isTaskReady(task.getId()));
+        this.dispatcher = NotificationDispatcher.getInstance();
         setDaemon(true); // Daemon thread
+        
+        manager.attach(scheduler);
     }
     
     @Override
@@ -29,8 +48,9 @@ public class NotificationThread extends Thread {
         
         while (running) {
             try {
+                loadUpcomingTasks();
                 checkAndNotify();
-                Thread.sleep(CHECK_INTERVAL);
+                scheduler.awaitNextTrigger(CHECK_INTERVAL);
             } catch (InterruptedException e) {
                 System.err.println("Notification thread interrupted: " + e.getMessage());
                 break;
@@ -43,34 +63,36 @@ public class NotificationThread extends Thread {
     }
     
     /**
-     * Check tasks and send notifications
+     * Bring tasks with reminders in the next few days in from the database
      */
-    private void checkAndNotify() {
-        TaskManager manager = TaskManager.getInstance();
-        List<Task> tasks = manager.getTasksDueForNotification();
-        
-        for (Task task : tasks) {
-            // Check if already notified
-            if (!notifiedTasks.contains(task.getId())) {
-                NotificationManager.showNotification(task);
-                notifiedTasks.add(task.getId());
-                System.out.println("Notification sent for task: " + task.getTitle());
+    private void loadUpcomingTasks() {
+        if (!DatabaseHandler.isEnabled()) {
+            return;
+        }
+        try {
+            int loaded = DatabaseHandler.advanceWindow();
+            if (loaded > 0) {
+                System.out.println(loaded + " upcoming task(s) loaded from the database");
             }
+        } catch (SQLException e) {
+            System.err.println("Error loading upcoming tasks: " + e.getMessage());
         }
-        
-        // Clean up notified tasks that are completed
-        cleanupNotifiedTasks();
     }
     
     /**
-     * Remove completed tasks from notified set
+     * Send notifications for every reminder that is due
      */
-    private void cleanupNotifiedTasks() {
-        TaskManager manager = TaskManager.getInstance();
-        notifiedTasks.removeIf(taskId -> {
-            Task task = manager.getTaskById(taskId);
-            return task == null || task.isCompleted();
-        });
+    private void checkAndNotify() {
+        List<ReminderScheduler.Reminder> due = scheduler.pollDue(AppClock.now());
+        
+        for (ReminderScheduler.Reminder reminder : due) {
+            Task task = reminder.getTask();
+            LocalDateTime trigger = reminder.getTriggerTime();
+            dispatcher.dispatch(new Notification(task, trigger,
+                ReminderSchedule.describe(task, trigger),
+                ReminderSchedule.getEscalationLevel(task, trigger)));
+            System.out.println("Notification queued for task: " + task.getTitle());
+        }
     }
     
     /**
@@ -78,13 +100,16 @@ public class NotificationThread extends Thread {
      */
     public void stopNotifications() {
         running = false;
+        TaskManager.getInstance().removeTaskListener(scheduler);
         this.interrupt();
+        ledger.close();
+        NotificationDispatcher.shutdownInstance();
     }
     
     /**
-     * Reset notified tasks (useful after loading new tasks)
+     * Rebuild the reminder schedule (useful after loading new tasks)
      */
     public void resetNotifications() {
-        notifiedTasks.clear();
+        scheduler.rescheduleAll(TaskManager.getInstance());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,257 @@
+package com.taskreminder.thread;
+
+import com.taskreminder.model.ReminderSchedule;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskListener;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.NotificationLedger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the next pending reminder of every task, ordered by time
+ * Each task has at most one entry, whatever its number of offsets; when an
+ * entry fires, the task's following reminder replaces it. Work is therefore
+ * proportional to the reminders that actually fire, not to tasks times offsets.
+ * Fired reminders are recorded in a NotificationLedger, which may be persisted
+ * so that a restart picks up after the last delivered reminder.
+ * Tasks that are not ready (still waiting for other tasks) get no reminders
+ * until a readinessChanged event says they are.
+ * Demonstrates: TreeSet as a priority queue, Observer, wait/notify
+ */
+public class ReminderScheduler implements TaskListener {
+    // Reminders missed by less than this (e.g. while starting up) still fire
+    private static final Duration GRACE_PERIOD = Duration.ofMinutes(1);
+    
+    /**
+     * A reminder that is due
+     */
+    public static class Reminder {
+        private final Task task;
+        private final LocalDateTime triggerTime;
+        
+        Reminder(Task task, LocalDateTime triggerTime) {
+            this.task = task;
+            this.triggerTime = triggerTime;
+        }
+        
+        public Task getTask() {
+            return task;
+        }
+        
+        public LocalDateTime getTriggerTime() {
+            return triggerTime;
+        }
+    }
+    
+    private static class Trigger {
+        final Task task;
+        final LocalDateTime time;
+        final long sequence;
+        
+        Trigger(Task task, LocalDateTime time, long sequence) {
+            this.task = task;
+            this.time = time;
+            this.sequence = sequence;
+        }
+    }
+    
+    private final TreeSet<Trigger> queue = new TreeSet<>(
+        Comparator.<Trigger, LocalDateTime>comparing(trigger -> trigger.time)
+                  .thenComparingLong(trigger -> trigger.sequence));
+    private final Map<String, Trigger> triggersById = new HashMap<>();
+    private final NotificationLedger ledger;
+    private final Predicate<Task> ready;
+    private long nextSequence;
+    
+    public ReminderScheduler() {
+        this(new NotificationLedger());
+    }
+    
+    public ReminderScheduler(NotificationLedger ledger) {
+        this(ledger, task -> true);
+    }
+    
+    /**
+     * @param ready whether a task may have reminders; must not lock anything
+     *              a TaskManager listener could be holding
+     */
+    public ReminderScheduler(NotificationLedger ledger, Predicate<Task> ready) {
+        this.ledger = ledger;
+        this.ready = ready;
+    }
+    
+    /**
+     * Schedule (or reschedule) the next reminder of a task
+     */
+    public synchronized void schedule(Task task) {
+        if (!ready.test(task)) {
+            put(task, null);
+            return;
+        }
+        LocalDateTime previous = ledger.getLastDelivered(task.getId());
+        LocalDateTime after = AppClock.now().minus(GRACE_PERIOD);
+        if (previous != null && previous.isAfter(after)) {
+            after = previous;
+        }
+        put(task, ReminderSchedule.nextTrigger(task, after));
+    }
+    
+    /**
+     * Drop the pending reminder of a task
+     */
+    public synchronized void cancel(String taskId) {
+        Trigger old = triggersById.remove(taskId);
+        if (old != null) {
+            queue.remove(old);
+        }
+        ledger.forget(taskId);
+    }
+    
+    /**
+     * Rebuild the schedule from the current tasks of a TaskManager, under this object's lock
+     */
+    public synchronized void rescheduleAll(TaskManager manager) {
+        scheduleAll(manager.getAllTasks());
+    }
+    
+    /**
+     * Rebuild the schedule from scratch
+     */
+    public synchronized void scheduleAll(List<Task> tasks) {
+        queue.clear();
+        triggersById.clear();
+        ledger.retainAll(ids(tasks));
+        for (Task task : tasks) {
+            schedule(task);
+        }
+        notifyAll();
+    }
+    
+    /**
+     * Take every reminder due at 'now' and schedule each task's following one
+     */
+    public synchronized List<Reminder> pollDue(LocalDateTime now) {
+        List<Reminder> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.first().time.isAfter(now)) {
+            Trigger trigger = queue.pollFirst();
+            Task task = trigger.task;
+            triggersById.remove(task.getId());
+            due.add(new Reminder(task, trigger.time));
+            ledger.recordDelivered(task.getId(), trigger.time);
+            
+            // Never fire a backlog of reminders for one task after a long pause
+            LocalDateTime after = trigger.time.isAfter(now) ? trigger.time : now;
+            put(task, ReminderSchedule.nextTrigger(task, after));
+        }
+        return due;
+    }
+    
+    /**
+     * Time of the earliest pending reminder, or null
+     */
+    public synchronized LocalDateTime getNextTriggerTime() {
+        return queue.isEmpty() ? null : queue.first().time;
+    }
+    
+    /**
+     * Wait until the earliest reminder is due, the schedule changes, or maxWait passes
+     */
+    public synchronized void awaitNextTrigger(long maxWaitMillis) throws InterruptedException {
+        long wait = maxWaitMillis;
+        if (!queue.isEmpty()) {
+            long untilNext = Duration.between(AppClock.now(), queue.first().time).toMillis();
+            wait = Math.min(wait, untilNext);
+        }
+        if (wait > 0) {
+            wait(wait);
+        }
+    }
+    
+    /**
+     * Number of tasks with a pending reminder
+     */
+    public synchronized int size() {
+        return triggersById.size();
+    }
+    
+    private void put(Task task, LocalDateTime time) {
+        Trigger old = triggersById.remove(task.getId());
+        if (old != null) {
+            queue.remove(old);
+        }
+        if (time == null) {
+            ledger.forget(task.getId());
+            return;
+        }
+        Trigger trigger = new Trigger(task, time, nextSequence++);
+        triggersById.put(task.getId(), trigger);
+        queue.add(trigger);
+        
+        // Wake the waiting thread if this is now the earliest reminder
+        if (queue.first() == trigger) {
+            notifyAll();
+        }
+    }
+    
+    private static Set<String> ids(List<Task> tasks) {
+        Set<String> ids = new HashSet<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+    
+    // TaskManager events keep the schedule in step with the tasks
+    
+    @Override
+    public void tasksAdded(List<Task> tasks) {
+        synchronized (this) {
+            for (Task task : tasks) {
+                schedule(task);
+            }
+        }
+    }
+    
+    @Override
+    public void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        tasksAdded(newVersions);
+    }
+    
+    @Override
+    public void tasksRemoved(List<Task> tasks) {
+        synchronized (this) {
+            for (Task task : tasks) {
+                cancel(task.getId());
+            }
+        }
+    }
+    
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        scheduleAll(tasks);
+    }
+    
+    @Override
+    public void readinessChanged(List<Task> nowReady, List<Task> nowBlocked) {
+        synchronized (this) {
+            for (Task task : nowReady) {
+                schedule(task);
+            }
+            for (Task task : nowBlocked) {
+                cancel(task.getId());
+            }
+        }
+    }
+}
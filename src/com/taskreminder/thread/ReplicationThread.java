@@ -0,0 +1,189 @@
+package com.taskreminder.thread;
+
+import com.taskreminder.sync.PeerConnection;
+import com.taskreminder.sync.ReplicationJournal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Background thread that keeps replication links open
+ * Either listens for peers (one link per connected peer) or connects to one
+ * peer and reconnects with a growing delay after the link breaks.
+ * Listening is on the loopback interface unless a host is given, and every
+ * link must prove the shared secret (-Dtaskreminder.replication.secret or the
+ * TASKREMINDER_REPLICATION_SECRET environment variable) before any task moves.
+ * Demonstrates: Thread, Daemon Threads, ServerSocket, Exponential backoff
+ */
+public class ReplicationThread extends Thread {
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final long MIN_RETRY_DELAY = 1000;
+    private static final long MAX_RETRY_DELAY = 30000;
+    private static final int MIN_SECRET_LENGTH = 16;
+    
+    private volatile boolean running = true;
+    private final ReplicationJournal journal;
+    private final byte[] secret;
+    private final InetSocketAddress address;
+    private final boolean listen;
+    private final Set<PeerConnection> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    
+    private ReplicationThread(ReplicationJournal journal, byte[] secret, InetSocketAddress address, boolean listen) {
+        super(listen ? "ReplicationListener" : "ReplicationClient");
+        this.journal = journal;
+        this.secret = secret.clone();
+        this.address = address;
+        this.listen = listen;
+        setDaemon(true);
+    }
+    
+    /**
+     * Accept peers on "port" (loopback only) or "host:port"
+     */
+    public static ReplicationThread listen(ReplicationJournal journal, byte[] secret, String address)
+            throws IOException {
+        ReplicationThread thread = new ReplicationThread(journal, secret, parseAddress(address), true);
+        thread.serverSocket = new ServerSocket();
+        thread.serverSocket.setReuseAddress(true);
+        thread.serverSocket.bind(thread.address);
+        return thread;
+    }
+    
+    /**
+     * Keep a link open to the peer at "host:port"
+     */
+    public static ReplicationThread connect(ReplicationJournal journal, byte[] secret, String address) {
+        return new ReplicationThread(journal, secret, parseAddress(address), false);
+    }
+    
+    /**
+     * The shared secret every peer must know, from the system property or else
+     * the environment; fails if neither gives one of at least 16 characters
+     */
+    public static byte[] getConfiguredSecret() throws IOException {
+        String secret = System.getProperty("taskreminder.replication.secret");
+        if (secret == null) {
+            secret = System.getenv("TASKREMINDER_REPLICATION_SECRET");
+        }
+        if (secret == null || secret.length() < MIN_SECRET_LENGTH) {
+            throw new IOException("Replication needs a shared secret of at least " + MIN_SECRET_LENGTH
+                + " characters in TASKREMINDER_REPLICATION_SECRET or -Dtaskreminder.replication.secret");
+        }
+        return secret.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static InetSocketAddress parseAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address.trim()));
+        }
+        return new InetSocketAddress(address.substring(0, colon).trim(),
+            Integer.parseInt(address.substring(colon + 1).trim()));
+    }
+    
+    /**
+     * Local port accepting peers (listening threads only)
+     */
+    public int getLocalPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+    
+    @Override
+    public void run() {
+        if (listen) {
+            acceptPeers();
+        } else {
+            connectToPeer();
+        }
+    }
+    
+    private void acceptPeers() {
+        System.out.println("Accepting replication peers on " + address);
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread link = new Thread(() -> runConnection(socket), "ReplicationLink");
+                link.setDaemon(true);
+                link.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Error accepting replication peer: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private void connectToPeer() {
+        long delay = MIN_RETRY_DELAY;
+        while (running) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(address, CONNECT_TIMEOUT);
+                delay = MIN_RETRY_DELAY;
+                runConnection(socket);
+            } catch (IOException e) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Not connected
+                }
+                if (running) {
+                    System.err.println("Cannot reach replication peer " + address + ": " + e.getMessage());
+                }
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                break;
+            }
+            delay = Math.min(delay * 2, MAX_RETRY_DELAY);
+        }
+    }
+    
+    private void runConnection(Socket socket) {
+        PeerConnection connection = null;
+        try {
+            connection = new PeerConnection(journal, secret, socket);
+            connections.add(connection);
+            connection.run();
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Replication link closed: " + e.getMessage());
+            }
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+            if (connection != null) {
+                connections.remove(connection);
+            }
+        }
+    }
+    
+    /**
+     * Close every link and stop accepting or reconnecting
+     */
+    public void stopReplication() {
+        running = false;
+        this.interrupt();
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                System.err.println("Error closing replication socket: " + e.getMessage());
+            }
+        }
+        for (PeerConnection connection : connections) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.taskreminder.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load-test client for the embedded Task API
+ * Reports requests per second and latency percentiles. A failed request
+ * (connection error or error status) is counted and the run goes on;
+ * latencies are taken over successful requests only.
+ *
+ * Usage: java -cp "build:lib/*" com.taskreminder.tools.ApiLoadTest
+ *            [baseUrl] [threads] [requests] [batchSize] [insert|query|mixed]
+ *
+ * Defaults: http://localhost:8085/api/tasks 8 10000 1 mixed
+ */
+public class ApiLoadTest {
+    
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8085/api/tasks";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        String mode = args.length > 4 ? args[4] : "mixed";
+        
+        String batchBody = buildBatch(batchSize);
+        long[] latencies = new long[requests];
+        boolean[] succeeded = new boolean[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        
+        System.out.printf("Running %d %s requests on %d threads against %s (batch size %d)%n",
+            requests, mode, threads, baseUrl, batchSize);
+        
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        boolean insert = "insert".equals(mode) || ("mixed".equals(mode) && i % 2 == 0);
+                        long begin = System.nanoTime();
+                        try {
+                            int status = insert
+                                ? send("POST", baseUrl, batchBody)
+                                : send("GET", baseUrl + "?status=pending&limit=50", null);
+                            latencies[i] = System.nanoTime() - begin;
+                            if (status == 503) {
+                                rejected.incrementAndGet(); // Server busy: shed, not broken
+                            } else if (status >= 400) {
+                                errors.incrementAndGet();
+                            } else {
+                                succeeded[i] = true;
+                            }
+                        } catch (IOException e) {
+                            if (errors.incrementAndGet() <= 10) {
+                                System.err.println("Request failed: " + e.getMessage());
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "LoadTest-" + t);
+            worker.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        
+        long[] measured = new long[requests];
+        int successes = 0;
+        int inserted = 0;
+        for (int i = 0; i < requests; i++) {
+            if (succeeded[i]) {
+                measured[successes++] = latencies[i];
+                if ("insert".equals(mode) || ("mixed".equals(mode) && i % 2 == 0)) {
+                    inserted++;
+                }
+            }
+        }
+        measured = Arrays.copyOf(measured, successes);
+        Arrays.sort(measured);
+        
+        double seconds = elapsed / 1_000_000_000.0;
+        System.out.printf("Requests:    %d (%d succeeded, %d rejected with 503, %d errors)%n",
+            requests, successes, rejected.get(), errors.get());
+        System.out.printf("Elapsed:     %.2f s%n", seconds);
+        System.out.printf("Throughput:  %.0f req/s succeeded (%.0f tasks/s inserted)%n",
+            successes / seconds, inserted * (double) batchSize / seconds);
+        System.out.printf("Latency p50: %.2f ms%n", percentile(measured, 0.50));
+        System.out.printf("Latency p99: %.2f ms%n", percentile(measured, 0.99));
+        System.out.printf("Latency max: %.2f ms%n", measured.length == 0 ? 0.0 : measured[measured.length - 1] / 1e6);
+    }
+    
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+    
+    private static String buildBatch(int batchSize) {
+        String reminderTime = LocalDateTime.now().plusDays(1).withNano(0).toString();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < batchSize; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"title\":\"Load test task ").append(i)
+                .append("\",\"description\":\"Generated by ApiLoadTest\",\"reminderTime\":\"")
+                .append(reminderTime).append("\",\"priority\":\"LOW\"}");
+        }
+        return json.append(']').toString();
+    }
+    
+    private static int send(String method, String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        // Drain the body so the keep-alive connection can be reused
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                ByteArrayOutputStream sink = new ByteArrayOutputStream();
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = stream.read(chunk)) != -1) {
+                    sink.write(chunk, 0, read);
+                }
+            }
+        }
+        return status;
+    }
+}
@@ -0,0 +1,171 @@
+package com.taskreminder.tools;
+
+import com.taskreminder.model.ReminderSchedule;
+import com.taskreminder.model.Task;
+import com.taskreminder.thread.ReminderScheduler;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.SimulatedClock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays a synthetic year of reminders through ReminderScheduler in simulated time
+ * Every task gets a random reminder time within the year, random extra offsets
+ * and a time at which the user completes it. The clock jumps straight from one
+ * event to the next, so a year takes seconds. Each task's expected reminders are
+ * worked out independently and compared with what the scheduler delivered.
+ *
+ * Usage: java -Xmx2g -cp "build:lib/*" com.taskreminder.tools.ReplaySimulation
+ *            [tasks] [checkSeconds] [seed]
+ *
+ * checkSeconds = 0 wakes exactly at the next reminder, like NotificationThread;
+ * a positive value only polls on that fixed cadence, to compare polling loops.
+ *
+ * Defaults: 1000000 0 42
+ */
+public class ReplaySimulation {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int YEAR_MINUTES = 365 * 24 * 60;
+    private static final int[] OFFSETS = {1440, 60, 5};
+    private static final String[] PRIORITIES = {"HIGH", "MEDIUM", "LOW"};
+    private static final int INDEX_BITS = 24;
+    
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int checkSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        if (taskCount >= 1 << INDEX_BITS) {
+            throw new IllegalArgumentException("At most " + ((1 << INDEX_BITS) - 1) + " tasks");
+        }
+        
+        SimulatedClock clock = new SimulatedClock(START.minusDays(2));
+        AppClock.set(clock);
+        
+        System.out.printf("Generating %d tasks over one simulated year (seed %d)%n", taskCount, seed);
+        Random random = new Random(seed);
+        Task[] tasks = new Task[taskCount];
+        int[] expected = new int[taskCount];
+        long[] completions = new long[taskCount]; // completion second << INDEX_BITS | index
+        long expectedTotal = 0;
+        
+        for (int i = 0; i < taskCount; i++) {
+            LocalDateTime due = START.plusMinutes(random.nextInt(YEAR_MINUTES));
+            String priority = PRIORITIES[random.nextInt(PRIORITIES.length)];
+            List<Integer> offsets = new ArrayList<>();
+            for (int offset : OFFSETS) {
+                if (random.nextInt(10) < 3) {
+                    offsets.add(offset);
+                }
+            }
+            tasks[i] = new Task("SIM_" + i, "Simulated task " + i, "", due, priority, false)
+                .withReminderOffsets(offsets);
+            
+            // Completed a little early, within a couple of hours, or within a day.
+            // The extra 30 seconds keep completions off the minute-aligned reminders.
+            int roll = random.nextInt(100);
+            long delayMinutes = roll < 5 ? -random.nextInt(2 * 24 * 60)
+                : roll < 75 ? random.nextInt(120)
+                : random.nextInt(24 * 60);
+            LocalDateTime completion = due.plusMinutes(delayMinutes).plusSeconds(30);
+            completions[i] = (Duration.between(START.minusDays(2), completion).getSeconds() << INDEX_BITS) | i;
+            expected[i] = expectedReminders(tasks[i], completion);
+            expectedTotal += expected[i];
+        }
+        Arrays.sort(completions);
+        
+        ReminderScheduler scheduler = new ReminderScheduler();
+        long begin = System.nanoTime();
+        scheduler.scheduleAll(Arrays.asList(tasks));
+        double scheduleSeconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("Scheduled:   %d tasks in %.2f s (%.0f tasks/s)%n",
+            scheduler.size(), scheduleSeconds, taskCount / scheduleSeconds);
+        
+        int[] delivered = new int[taskCount];
+        long reminders = 0;
+        long latenessSum = 0;
+        long latenessMax = 0;
+        long polls = 0;
+        int next = 0;
+        
+        begin = System.nanoTime();
+        while (true) {
+            LocalDateTime wake = scheduler.getNextTriggerTime();
+            if (wake != null && checkSeconds > 0) {
+                wake = roundUp(wake, checkSeconds);
+            }
+            LocalDateTime completion = next < taskCount
+                ? START.minusDays(2).plusSeconds(completions[next] >>> INDEX_BITS) : null;
+            if (wake == null && completion == null) {
+                break;
+            }
+            
+            if (completion != null && (wake == null || completion.isBefore(wake))) {
+                clock.setTime(completion);
+                int index = (int) (completions[next++] & ((1 << INDEX_BITS) - 1));
+                scheduler.schedule(tasks[index].withCompleted(true));
+                continue;
+            }
+            
+            clock.setTime(wake);
+            polls++;
+            for (ReminderScheduler.Reminder reminder : scheduler.pollDue(wake)) {
+                delivered[Integer.parseInt(reminder.getTask().getId().substring(4))]++;
+                long lateness = Duration.between(reminder.getTriggerTime(), wake).getSeconds();
+                latenessSum += lateness;
+                latenessMax = Math.max(latenessMax, lateness);
+                reminders++;
+            }
+        }
+        double replaySeconds = (System.nanoTime() - begin) / 1e9;
+        
+        long missed = 0;
+        long duplicates = 0;
+        for (int i = 0; i < taskCount; i++) {
+            missed += Math.max(0, expected[i] - delivered[i]);
+            duplicates += Math.max(0, delivered[i] - expected[i]);
+        }
+        long simulatedSeconds = Duration.between(START.minusDays(2), AppClock.now()).getSeconds();
+        Runtime runtime = Runtime.getRuntime();
+        
+        System.out.printf("Replayed:    %d simulated days in %.2f s (%.0fx real time, %d polls)%n",
+            simulatedSeconds / 86400, replaySeconds, simulatedSeconds / replaySeconds, polls);
+        System.out.printf("Reminders:   %d delivered, %d expected (%.0f reminders/s)%n",
+            reminders, expectedTotal, reminders / replaySeconds);
+        System.out.printf("Missed:      %d%n", missed);
+        System.out.printf("Duplicates:  %d%n", duplicates);
+        System.out.printf("Lateness:    avg %.1f s, max %d s%n",
+            reminders == 0 ? 0.0 : latenessSum / (double) reminders, latenessMax);
+        System.out.printf("Heap used:   %d MB%n", (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        
+        AppClock.reset();
+    }
+    
+    /**
+     * Reminders a task should get before it is completed, worked out without the scheduler
+     */
+    private static int expectedReminders(Task task, LocalDateTime completion) {
+        LocalDateTime due = task.getReminderTime();
+        int count = 0;
+        for (int offset : task.getReminderOffsets()) {
+            if (due.minusMinutes(offset).isBefore(completion)) {
+                count++;
+            }
+        }
+        if (due.isBefore(completion)) {
+            long interval = ReminderSchedule.getEscalationInterval(task.getPriority()).getSeconds();
+            count += 1 + Duration.between(due, completion).getSeconds() / interval;
+        }
+        return count;
+    }
+    
+    private static LocalDateTime roundUp(LocalDateTime time, int stepSeconds) {
+        long seconds = Duration.between(START.minusDays(2), time).getSeconds();
+        long rounded = (seconds + stepSeconds - 1) / stepSeconds * stepSeconds;
+        return START.minusDays(2).plusSeconds(rounded);
+    }
+}
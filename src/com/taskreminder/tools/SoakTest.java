@@ -0,0 +1,308 @@
+package com.taskreminder.tools;
+
+import com.taskreminder.model.ReminderSchedule;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.notify.Notification;
+import com.taskreminder.notify.NotificationDispatcher;
+import com.taskreminder.notify.NotificationSink;
+import com.taskreminder.notify.SinkMetrics;
+import com.taskreminder.thread.ReminderScheduler;
+import com.taskreminder.ui.AgendaPanel;
+import com.taskreminder.ui.DashboardPanel;
+import com.taskreminder.ui.StatusBar;
+import com.taskreminder.ui.TagFilterPanel;
+import com.taskreminder.ui.TaskPanel;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.DescriptionStore;
+import com.taskreminder.util.NotificationLedger;
+import com.taskreminder.util.NotificationManager;
+import com.taskreminder.util.SimulatedClock;
+
+import javax.swing.SwingUtilities;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Soak test: weeks of simulated use, watching for leaks
+ * Runs headless against the real TaskManager, reminder scheduler, notification
+ * dispatcher, task list, agenda, filter and dashboard panels and the main
+ * window's status bar, in simulated time. Every simulated day adds tasks
+ * (reported on the status bar), delivers their reminders, completes most
+ * tasks when reminded (some by clicking the balloon, a few get snoozed), and
+ * removes completed tasks after a day the way archiving does, so the task
+ * list settles at a steady size. Once per simulated day the heap (after GC),
+ * live threads, TaskManager listeners, balloon actions (tray icon listeners
+ * plus the armed click action, which works without a tray), running Swing
+ * timers, reminder ledger entries and the off-heap description store are sampled. Some tasks get long
+ * descriptions, so the store sees texts come and go. After a warm-up quarter,
+ * the second half of the run is compared with the first; anything that keeps
+ * growing fails the run (exit 1).
+ *
+ * Usage: java -Djava.awt.headless=true --add-opens java.desktop/javax.swing=ALL-UNNAMED
+ *            -cp "build:lib/*" com.taskreminder.tools.SoakTest [days] [tasksPerDay] [seed]
+ *
+ * --add-opens (Java 9+) lets the test count Swing timers; without it the run fails at once.
+ *
+ * Defaults: 28 2000 42
+ */
+public class SoakTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 0, 0);
+    private static final Duration STEP = Duration.ofMinutes(5);
+    private static final int STEPS_PER_DAY = (int) (Duration.ofDays(1).getSeconds() / STEP.getSeconds());
+    private static final String[] PRIORITIES = {"HIGH", "MEDIUM", "LOW"};
+    private static final String[] TAGS = {"work", "home", "errand", "call", "review"};
+    private static final String[] METRICS = {
+        "Heap MB", "Threads", "Listeners", "Balloon actions", "Swing timers", "Ledger entries", "Descriptions KB",
+        "Tasks"};
+    private static final int HEAP = 0;
+    private static final int THREADS = 1;
+    private static final int LISTENERS = 2;
+    private static final int BALLOON_ACTIONS = 3;
+    private static final int TIMERS = 4;
+    private static final int LEDGER = 5;
+    private static final int DESCRIPTIONS = 6;
+    private static final int TASKS = 7;
+    
+    public static void main(String[] args) throws Exception {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 28;
+        int tasksPerDay = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        if (days < 4) {
+            throw new IllegalArgumentException("Run at least 4 simulated days");
+        }
+        System.setProperty("java.awt.headless", "true");
+        if (countSwingTimers() < 0) {
+            System.out.println("FAIL: cannot count Swing timers; run with "
+                + "--add-opens java.desktop/javax.swing=ALL-UNNAMED");
+            System.exit(1);
+        }
+        
+        SimulatedClock clock = new SimulatedClock(START);
+        AppClock.set(clock);
+        Random random = new Random(seed);
+        
+        TaskManager manager = TaskManager.getInstance();
+        manager.clearAllTasks();
+        NotificationLedger ledger = new NotificationLedger();
+        ReminderScheduler scheduler = new ReminderScheduler(ledger, task -> manager.isTaskReady(task.getId()));
+        manager.attach(scheduler);
+        
+        NotificationDispatcher dispatcher = new NotificationDispatcher(
+            Collections.<NotificationSink>singletonList(new NotificationSink() {
+                @Override
+                public String getName() {
+                    return "soak";
+                }
+                
+                @Override
+                public void deliver(Notification notification) {
+                }
+            }), 1000);
+        
+        // The panels stay registered with TaskManager for the whole run, like in the application
+        Object[] panels = new Object[5];
+        SwingUtilities.invokeAndWait(() -> {
+            TaskPanel taskPanel = new TaskPanel();
+            panels[0] = taskPanel;
+            panels[1] = new TagFilterPanel(taskPanel);
+            panels[2] = new AgendaPanel();
+            panels[3] = new DashboardPanel();
+            panels[4] = new StatusBar();
+        });
+        StatusBar statusBar = (StatusBar) panels[4];
+        
+        System.out.printf("Soak test: %d simulated days, %d tasks/day, seed %d, %d panels%n",
+            days, tasksPerDay, seed, panels.length);
+        System.out.printf("%4s %9s %8s %10s %9s %16s %13s %15s %16s %7s%n", "Day", "Reminders",
+            METRICS[0], METRICS[1], METRICS[2], METRICS[3], METRICS[4], METRICS[5], METRICS[6], METRICS[7]);
+        
+        long[][] samples = new long[days][METRICS.length];
+        long reminders = 0;
+        long begin = System.nanoTime();
+        List<String> recentIds = new ArrayList<>();
+        
+        for (int day = 0; day < days; day++) {
+            long dayReminders = 0;
+            for (int step = 0; step < STEPS_PER_DAY; step++) {
+                clock.advance(STEP);
+                LocalDateTime now = AppClock.now();
+                
+                int toAdd = (step + 1) * tasksPerDay / STEPS_PER_DAY - step * tasksPerDay / STEPS_PER_DAY;
+                if (toAdd > 0) {
+                    manager.addTasks(newTasks(toAdd, now, random, recentIds));
+                    String message = toAdd + " task(s) added.";
+                    SwingUtilities.invokeLater(() -> statusBar.updateStatus(message));
+                }
+                
+                for (ReminderScheduler.Reminder reminder : scheduler.pollDue(now)) {
+                    Task task = reminder.getTask();
+                    dispatcher.dispatch(new Notification(task, reminder.getTriggerTime(),
+                        ReminderSchedule.describe(task, reminder.getTriggerTime()),
+                        ReminderSchedule.getEscalationLevel(task, reminder.getTriggerTime())));
+                    NotificationManager.showNotificationWithAction(task,
+                        () -> manager.markTaskCompleted(task.getId()));
+                    dayReminders++;
+                    
+                    int roll = random.nextInt(100);
+                    if (roll < 10) {
+                        NotificationManager.getPendingAction().run();
+                    } else if (roll < 60) {
+                        manager.markTaskCompleted(task.getId());
+                    } else if (roll < 70) {
+                        manager.snoozeTask(task.getId(), 30);
+                    }
+                }
+            }
+            
+            // Archiving: completed tasks leave the list a day after completion
+            LocalDateTime cutoff = AppClock.now().minusDays(1);
+            List<Task> old = manager.findTasks(task -> task.isCompleted()
+                && task.getCompletedTime() != null && task.getCompletedTime().isBefore(cutoff), Integer.MAX_VALUE);
+            manager.removeTasks(old);
+            
+            // Let the UI catch up, so queued refreshes are not mistaken for growth
+            SwingUtilities.invokeAndWait(() -> { });
+            reminders += dayReminders;
+            samples[day] = sample(manager, ledger);
+            long[] s = samples[day];
+            System.out.printf("%4d %9d %8d %10d %9d %16d %13d %15d %16s %7d%n", day + 1, dayReminders,
+                s[HEAP], s[THREADS], s[LISTENERS], s[BALLOON_ACTIONS],
+                s[TIMERS], s[LEDGER],
+                s[DESCRIPTIONS] < 0 ? "n/a" : String.valueOf(s[DESCRIPTIONS]), s[TASKS]);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        SinkMetrics sink = dispatcher.getMetrics().get(0);
+        
+        dispatcher.shutdown();
+        manager.removeTaskListener(scheduler);
+        AppClock.reset();
+        
+        // Drops are expected: reminders arrive far faster than in real time and the queue is bounded
+        System.out.printf("%nSimulated %d days in %.1f s: %d reminders, %d delivered, %d dropped by the full queue%n",
+            days, seconds, reminders, sink.getDelivered(), sink.getDropped());
+        List<String> failures = findGrowth(samples);
+        if (failures.isEmpty()) {
+            System.out.println("PASS: nothing grew without bound");
+        } else {
+            for (String failure : failures) {
+                System.out.println("FAIL: " + failure);
+            }
+            System.exit(1);
+        }
+    }
+    
+    private static List<Task> newTasks(int count, LocalDateTime now, Random random, List<String> recentIds) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime due = now.plusMinutes(10 + random.nextInt(3 * 24 * 60));
+            // One task in four has a description long enough for the off-heap store
+            String description = random.nextInt(4) == 0
+                ? "Generated by the soak test at " + now + ", due " + due + ", with a longer description"
+                : "Generated by the soak test";
+            Task task = new Task("Soak task", description, due, PRIORITIES[random.nextInt(PRIORITIES.length)])
+                .withTags(Collections.singletonList(TAGS[random.nextInt(TAGS.length)]));
+            if (random.nextInt(4) == 0) {
+                task = task.withReminderOffsets(Arrays.asList(60));
+            }
+            if (random.nextInt(10) == 0 && !recentIds.isEmpty()) {
+                task = task.withDependsOn(Collections.singletonList(recentIds.get(random.nextInt(recentIds.size()))));
+            }
+            tasks.add(task);
+            
+            // A short window of recent ids to depend on; older ones may be gone already
+            recentIds.add(task.getId());
+            if (recentIds.size() > 100) {
+                recentIds.remove(0);
+            }
+        }
+        return tasks;
+    }
+    
+    private static long[] sample(TaskManager manager, NotificationLedger ledger) {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long[] sample = new long[METRICS.length];
+        sample[HEAP] = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+        sample[THREADS] = ManagementFactory.getThreadMXBean().getThreadCount();
+        sample[LISTENERS] = manager.getListenerCount();
+        sample[BALLOON_ACTIONS] = NotificationManager.getBalloonActionCount();
+        sample[TIMERS] = countSwingTimers();
+        sample[LEDGER] = ledger.size();
+        DescriptionStore store = DescriptionStore.getInstance();
+        sample[DESCRIPTIONS] = store == null ? -1 : store.getSize() >> 10;
+        sample[TASKS] = manager.getTaskCount();
+        return sample;
+    }
+    
+    /**
+     * Running javax.swing.Timers, read from the shared TimerQueue; -1 if it cannot be read
+     */
+    private static int countSwingTimers() {
+        try {
+            Class<?> queueClass = Class.forName("javax.swing.TimerQueue");
+            Method sharedInstance = queueClass.getDeclaredMethod("sharedInstance");
+            sharedInstance.setAccessible(true);
+            Field queue = queueClass.getDeclaredField("queue");
+            queue.setAccessible(true);
+            return ((Collection<?>) queue.get(sharedInstance.invoke(null))).size();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Compare the peak of the last half (after warm-up) with the peak of the first half
+     */
+    private static List<String> findGrowth(long[][] samples) {
+        int warmUp = samples.length / 4;
+        int middle = warmUp + (samples.length - warmUp) / 2;
+        List<String> failures = new ArrayList<>();
+        for (int metric = 0; metric < METRICS.length; metric++) {
+            if (metric == TASKS || (metric == DESCRIPTIONS && samples[0][DESCRIPTIONS] < 0)) {
+                continue;
+            }
+            long before = 0;
+            long after = 0;
+            for (int day = warmUp; day < samples.length; day++) {
+                if (day < middle) {
+                    before = Math.max(before, samples[day][metric]);
+                } else {
+                    after = Math.max(after, samples[day][metric]);
+                }
+            }
+            if (after > allowed(metric, before)) {
+                failures.add(METRICS[metric] + " grew from " + before + " to " + after);
+            }
+        }
+        return failures;
+    }
+    
+    // Heap, ledger and description store may wander with the workload (the store also
+    // holds dead texts until it is compacted); counts of threads and timers a little;
+    // listeners not at all
+    private static long allowed(int metric, long before) {
+        switch (metric) {
+            case HEAP:
+                return before + before / 4 + 8;
+            case LEDGER:
+                return before + before / 4 + 100;
+            case DESCRIPTIONS:
+                return before + before / 4 + 64;
+            case THREADS:
+            case TIMERS:
+                return before + 2;
+            default:
+                return before;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.taskreminder.tools;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import com.taskreminder.model.Task;
+import com.taskreminder.util.TaskCodec;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares save/load throughput of TaskCodec with Gson's reflective mapping
+ * The reflective setup is the one FileHandler used before TaskCodec: lambda
+ * JsonSerializer/JsonDeserializer for LocalDateTime and pretty printing.
+ *
+ * Usage: java -cp "build:lib/*" com.taskreminder.tools.TaskCodecBenchmark [tasks] [rounds]
+ *
+ * Defaults: 100000 5
+ */
+public class TaskCodecBenchmark {
+    private static final Type TASK_LIST_TYPE = new TypeToken<ArrayList<Task>>(){}.getType();
+    
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        
+        List<Task> tasks = generate(taskCount);
+        
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        Gson reflective = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class,
+                    (JsonSerializer<LocalDateTime>) (src, typeOfSrc, context) ->
+                        context.serialize(src.format(formatter)))
+                .registerTypeAdapter(LocalDateTime.class,
+                    (JsonDeserializer<LocalDateTime>) (json, typeOfT, context) ->
+                        LocalDateTime.parse(json.getAsString(), formatter))
+                .setPrettyPrinting()
+                .create();
+        Gson codecPretty = new GsonBuilder()
+                .registerTypeAdapter(Task.class, new TaskCodec())
+                .registerTypeAdapter(LocalDateTime.class, new TaskCodec.DateTimeAdapter())
+                .setPrettyPrinting()
+                .create();
+        Gson codecCompact = new GsonBuilder()
+                .registerTypeAdapter(Task.class, new TaskCodec())
+                .registerTypeAdapter(LocalDateTime.class, new TaskCodec.DateTimeAdapter())
+                .create();
+        
+        checkCompatible(reflective, codecCompact, tasks);
+        
+        System.out.printf("%d tasks, best of %d rounds%n", taskCount, rounds);
+        System.out.printf("%-24s %10s %14s %10s %14s %10s%n",
+            "", "save ms", "save tasks/s", "load ms", "load tasks/s", "size MB");
+        run("Gson reflective, pretty", reflective, tasks, rounds);
+        run("TaskCodec, pretty", codecPretty, tasks, rounds);
+        run("TaskCodec, compact", codecCompact, tasks, rounds);
+    }
+    
+    private static void run(String label, Gson gson, List<Task> tasks, int rounds) {
+        long bestSave = Long.MAX_VALUE;
+        long bestLoad = Long.MAX_VALUE;
+        String json = null;
+        for (int round = 0; round < rounds; round++) {
+            long begin = System.nanoTime();
+            json = gson.toJson(tasks);
+            bestSave = Math.min(bestSave, System.nanoTime() - begin);
+            
+            begin = System.nanoTime();
+            List<Task> loaded = gson.fromJson(json, TASK_LIST_TYPE);
+            bestLoad = Math.min(bestLoad, System.nanoTime() - begin);
+            if (loaded.size() != tasks.size()) {
+                throw new IllegalStateException(label + " lost tasks");
+            }
+        }
+        double size = json.getBytes(StandardCharsets.UTF_8).length / (1024.0 * 1024.0);
+        System.out.printf("%-24s %10.1f %14.0f %10.1f %14.0f %10.2f%n", label,
+            bestSave / 1e6, tasks.size() / (bestSave / 1e9),
+            bestLoad / 1e6, tasks.size() / (bestLoad / 1e9), size);
+    }
+    
+    // Both mappings must read each other's output back to the same tasks
+    private static void checkCompatible(Gson reflective, Gson codec, List<Task> tasks) {
+        List<Task> viaCodec = codec.fromJson(reflective.toJson(tasks), TASK_LIST_TYPE);
+        List<Task> viaReflection = reflective.fromJson(codec.toJson(tasks), TASK_LIST_TYPE);
+        for (int i = 0; i < tasks.size(); i++) {
+            if (!tasks.get(i).hasSameContent(viaCodec.get(i))
+                    || !tasks.get(i).hasSameContent(viaReflection.get(i))) {
+                throw new IllegalStateException("Mismatch at task " + tasks.get(i).getId());
+            }
+        }
+    }
+    
+    private static List<Task> generate(int count) {
+        Random random = new Random(42);
+        String[] priorities = {"HIGH", "MEDIUM", "LOW"};
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime due = base.plusMinutes(random.nextInt(365 * 24 * 60));
+            Task task = new Task("Task " + i, "Description of task " + i + " with a few more words",
+                due, priorities[random.nextInt(priorities.length)]);
+            if (random.nextInt(4) == 0) {
+                task = task.withReminderOffsets(Arrays.asList(60, 5));
+            }
+            if (random.nextInt(3) == 0) {
+                LocalDateTime completed = due.plusSeconds(random.nextInt(7200))
+                    .withNano(random.nextInt(1000) * 1_000_000);
+                task = task.withCompleted(true).withCompletedTime(completed);
+            } else if (random.nextInt(10) == 0) {
+                task = task.withSnoozedUntil(due.plusMinutes(10));
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
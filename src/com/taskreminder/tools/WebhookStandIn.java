@@ -0,0 +1,61 @@
+package com.taskreminder.tools;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for a webhook service, for trying the webhook notification sink
+ * Prints every notification it receives. It can answer slowly or fail every
+ * Nth request, to watch the sink's timeouts and retries at work.
+ *
+ * Usage: java -cp "build:lib/*" com.taskreminder.tools.WebhookStandIn
+ *            [port] [delayMillis] [failEvery]
+ *
+ * Defaults: 9090 0 0 (then start the application with
+ *   -Dtaskreminder.notify.sinks=tray,webhook -Dtaskreminder.notify.webhook=http://localhost:9090/hook)
+ */
+public class WebhookStandIn {
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        long delay = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int failEvery = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        AtomicInteger count = new AtomicInteger();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", exchange -> {
+            try {
+                int n = count.incrementAndGet();
+                String body = readBody(exchange.getRequestBody());
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+                int status = failEvery > 0 && n % failEvery == 0 ? 503 : 204;
+                System.out.println("#" + n + " " + exchange.getRequestURI() + " -> " + status + "  " + body);
+                exchange.sendResponseHeaders(status, -1);
+            } catch (InterruptedException e) {
+                exchange.sendResponseHeaders(503, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        System.out.println("Webhook stand-in listening on http://localhost:" + port + "/");
+    }
+
+    private static String readBody(InputStream in) throws java.io.IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -2,26 +2,36 @@ package com.taskreminder.ui;
 
 import com.taskreminder.model.Task;
 import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
 
 import javax.swing.*;
 import java.awt.*;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Vector;
 
 /**
  * Dialog for adding new tasks
  * Demonstrates: JDialog, GridBagLayout, Input Validation
  */
 public class AddTaskDialog extends JDialog {
+    private static final DateTimeFormatter LIST_FORMATTER = DateTimeFormatter.ofPattern("MMM dd HH:mm");
+    
     private JTextField titleField;
     private JTextArea descriptionArea;
     private JSpinner dateSpinner;
     private JSpinner timeSpinner;
     private JComboBox<String> priorityCombo;
+    private JTextField tagsField;
+    private JList<Task> dependsOnList;
+    private JCheckBox dayBeforeCheck;
+    private JCheckBox hourBeforeCheck;
+    private JCheckBox minutesBeforeCheck;
     private boolean taskAdded = false;
     
     public AddTaskDialog(JFrame parent) {
         super(parent, "Add New Task", true);
-        setSize(500, 450);
+        setSize(520, 610);
         setLocationRelativeTo(parent);
         setResizable(false);
         
@@ -74,7 +84,9 @@ public class AddTaskDialog extends JDialog {
         
         gbc.gridx = 1;
         gbc.weightx = 0.7;
-        SpinnerDateModel dateModel = new SpinnerDateModel();
+        // Both spinners start at the current time of the application clock
+        java.util.Date now = java.util.Date.from(AppClock.get().instant());
+        SpinnerDateModel dateModel = new SpinnerDateModel(now, null, null, java.util.Calendar.DAY_OF_MONTH);
         dateSpinner = new JSpinner(dateModel);
         JSpinner.DateEditor dateEditor = new JSpinner.DateEditor(dateSpinner, "yyyy-MM-dd");
         dateSpinner.setEditor(dateEditor);
@@ -88,7 +100,7 @@ public class AddTaskDialog extends JDialog {
         
         gbc.gridx = 1;
         gbc.weightx = 0.7;
-        SpinnerDateModel timeModel = new SpinnerDateModel();
+        SpinnerDateModel timeModel = new SpinnerDateModel(now, null, null, java.util.Calendar.MINUTE);
         timeSpinner = new JSpinner(timeModel);
         JSpinner.DateEditor timeEditor = new JSpinner.DateEditor(timeSpinner, "HH:mm");
         timeSpinner.setEditor(timeEditor);
@@ -107,9 +119,60 @@ public class AddTaskDialog extends JDialog {
         priorityCombo.setSelectedIndex(1);
         mainPanel.add(priorityCombo, gbc);
         
-        // Buttons
+        // Tags
         gbc.gridx = 0;
         gbc.gridy = 5;
+        gbc.weightx = 0.3;
+        mainPanel.add(new JLabel("Tags:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.weightx = 0.7;
+        tagsField = new JTextField(20);
+        tagsField.setToolTipText("Comma-separated, e.g. work, errands");
+        mainPanel.add(tagsField, gbc);
+        
+        // Tasks to complete first; reminders start once they are done
+        gbc.gridx = 0;
+        gbc.gridy = 6;
+        gbc.weightx = 0.3;
+        mainPanel.add(new JLabel("Waits for:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.weightx = 0.7;
+        dependsOnList = new JList<>(new Vector<>(TaskManager.getInstance().getPendingTasks()));
+        dependsOnList.setVisibleRowCount(4);
+        dependsOnList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean selected, boolean focused) {
+                Task task = (Task) value;
+                String text = task.getTitle() + "  (" + task.getReminderTime().format(LIST_FORMATTER) + ")";
+                return super.getListCellRendererComponent(list, text, index, selected, focused);
+            }
+        });
+        dependsOnList.setToolTipText("Optional: Ctrl-click to pick the tasks that must be completed first");
+        mainPanel.add(new JScrollPane(dependsOnList), gbc);
+        
+        // Extra reminders before the reminder time
+        gbc.gridx = 0;
+        gbc.gridy = 7;
+        gbc.weightx = 0.3;
+        mainPanel.add(new JLabel("Also remind:"), gbc);
+        
+        gbc.gridx = 1;
+        gbc.weightx = 0.7;
+        JPanel offsetsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        dayBeforeCheck = new JCheckBox("1 day before");
+        hourBeforeCheck = new JCheckBox("1 hour before");
+        minutesBeforeCheck = new JCheckBox("5 min before");
+        offsetsPanel.add(dayBeforeCheck);
+        offsetsPanel.add(hourBeforeCheck);
+        offsetsPanel.add(minutesBeforeCheck);
+        mainPanel.add(offsetsPanel, gbc);
+        
+        // Buttons
+        gbc.gridx = 0;
+        gbc.gridy = 8;
         gbc.gridwidth = 2;
         gbc.weightx = 1.0;
         gbc.insets = new Insets(20, 5, 5, 5);
@@ -167,11 +230,11 @@ public class AddTaskDialog extends JDialog {
             
             LocalDateTime reminderTime = LocalDateTime.ofInstant(
                 dateCal.toInstant(),
-                java.time.ZoneId.systemDefault()
+                AppClock.get().getZone()
             );
             
             // Check if time is in the past
-            if (reminderTime.isBefore(LocalDateTime.now())) {
+            if (reminderTime.isBefore(AppClock.now())) {
                 int choice = JOptionPane.showConfirmDialog(this,
                     "The reminder time is in the past. Continue?",
                     "Warning",
@@ -184,8 +247,24 @@ public class AddTaskDialog extends JDialog {
             
             String priority = (String) priorityCombo.getSelectedItem();
             
+            java.util.List<Integer> offsets = new java.util.ArrayList<>();
+            if (dayBeforeCheck.isSelected()) {
+                offsets.add(24 * 60);
+            }
+            if (hourBeforeCheck.isSelected()) {
+                offsets.add(60);
+            }
+            if (minutesBeforeCheck.isSelected()) {
+                offsets.add(5);
+            }
+            
             // Create and add task
-            Task task = new Task(title, description, reminderTime, priority);
+            Task task = new Task(title, description, reminderTime, priority)
+                .withReminderOffsets(offsets)
+                .withTags(java.util.Arrays.asList(tagsField.getText().split(",")))
+                .withDependsOn(dependsOnList.getSelectedValuesList().stream()
+                    .map(Task::getId)
+                    .collect(java.util.stream.Collectors.toList()));
             TaskManager.getInstance().addTask(task);
             
             taskAdded = true;
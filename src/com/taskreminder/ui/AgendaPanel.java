@@ -0,0 +1,316 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.AgendaIndex;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskListener;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.DatabaseHandler;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Day, week and month agenda
+ * Shows the task count of every day in the range and the tasks themselves,
+ * read from an AgendaIndex range query, so moving between months costs the
+ * size of the range rather than the size of the task list.
+ * With a database, TaskManager holds only a working set: the stored tasks of
+ * the range are read in the background with a range query and shown together
+ * with the loaded ones.
+ * Demonstrates: JTable with AbstractTableModel, GridLayout, java.time calendars
+ */
+public class AgendaPanel extends JPanel implements TaskListener {
+    private static final String DAY = "Day";
+    private static final String WEEK = "Week";
+    private static final String MONTH = "Month";
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("EEE MMM dd  HH:mm");
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("EEEE, MMM dd, yyyy");
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMMM yyyy");
+    private static final DateTimeFormatter SHORT_FORMATTER = DateTimeFormatter.ofPattern("MMM dd");
+    
+    private final AgendaIndex index = new AgendaIndex();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    // Bumped by every refresh, so a range read for an earlier one is dropped
+    private int generation;
+    private final DayOfWeek firstDayOfWeek = WeekFields.of(Locale.getDefault()).getFirstDayOfWeek();
+    
+    private JComboBox<String> viewCombo;
+    private JLabel rangeLabel;
+    private JPanel daysPanel;
+    private TaskTableModel tableModel;
+    private LocalDate selected;
+    
+    public AgendaPanel() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        selected = AppClock.now().toLocalDate();
+        
+        initComponents();
+        
+        // The index registers first, so it is up to date when this panel hears of a change
+        TaskManager manager = TaskManager.getInstance();
+        manager.attach(index);
+        manager.addTaskListener(this);
+        refresh();
+    }
+    
+    private void initComponents() {
+        JPanel navigation = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        JButton previousButton = new JButton("◀");
+        JButton todayButton = new JButton("Today");
+        JButton nextButton = new JButton("▶");
+        viewCombo = new JComboBox<>(new String[] {DAY, WEEK, MONTH});
+        viewCombo.setSelectedItem(WEEK);
+        rangeLabel = new JLabel();
+        rangeLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        
+        previousButton.addActionListener(e -> move(-1));
+        nextButton.addActionListener(e -> move(1));
+        todayButton.addActionListener(e -> {
+            selected = AppClock.now().toLocalDate();
+            refresh();
+        });
+        viewCombo.addActionListener(e -> refresh());
+        
+        navigation.add(previousButton);
+        navigation.add(todayButton);
+        navigation.add(nextButton);
+        navigation.add(viewCombo);
+        navigation.add(rangeLabel);
+        
+        daysPanel = new JPanel();
+        tableModel = new TaskTableModel();
+        JTable table = new JTable(tableModel);
+        table.getColumnModel().getColumn(0).setPreferredWidth(140);
+        table.getColumnModel().getColumn(1).setPreferredWidth(320);
+        
+        JPanel top = new JPanel(new BorderLayout(0, 10));
+        top.add(navigation, BorderLayout.NORTH);
+        top.add(daysPanel, BorderLayout.CENTER);
+        add(top, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+    
+    private String getView() {
+        return (String) viewCombo.getSelectedItem();
+    }
+    
+    private void move(int steps) {
+        switch (getView()) {
+            case DAY:
+                selected = selected.plusDays(steps);
+                break;
+            case WEEK:
+                selected = selected.plusWeeks(steps);
+                break;
+            default:
+                selected = selected.plusMonths(steps);
+        }
+        refresh();
+    }
+    
+    // First day shown (inclusive)
+    private LocalDate getRangeStart() {
+        switch (getView()) {
+            case DAY:
+                return selected;
+            case WEEK:
+                return selected.with(TemporalAdjusters.previousOrSame(firstDayOfWeek));
+            default:
+                return selected.withDayOfMonth(1);
+        }
+    }
+    
+    // Day after the last day shown (exclusive)
+    private LocalDate getRangeEnd(LocalDate start) {
+        switch (getView()) {
+            case DAY:
+                return start.plusDays(1);
+            case WEEK:
+                return start.plusWeeks(1);
+            default:
+                return start.plusMonths(1);
+        }
+    }
+    
+    /**
+     * Re-read the visible range from the index (and the database, if there is one)
+     */
+    public void refresh() {
+        refreshPending.set(false);
+        LocalDate start = getRangeStart();
+        LocalDate end = getRangeEnd(start);
+        
+        switch (getView()) {
+            case DAY:
+                rangeLabel.setText(start.format(DAY_FORMATTER));
+                break;
+            case WEEK:
+                rangeLabel.setText(start.format(SHORT_FORMATTER) + " - " + end.minusDays(1).format(SHORT_FORMATTER));
+                break;
+            default:
+                rangeLabel.setText(start.format(MONTH_FORMATTER));
+        }
+        
+        // Months are laid out as whole weeks
+        LocalDate first = start;
+        LocalDate last = end;
+        if (MONTH.equals(getView())) {
+            first = start.with(TemporalAdjusters.previousOrSame(firstDayOfWeek));
+            last = end.with(TemporalAdjusters.nextOrSame(firstDayOfWeek));
+        }
+        int current = ++generation;
+        show(index, start, end, first, last);
+        if (DatabaseHandler.isEnabled()) {
+            readStored(current, start, end, first, last);
+        }
+    }
+    
+    private void show(AgendaIndex source, LocalDate start, LocalDate end, LocalDate first, LocalDate last) {
+        updateDays(source.getDayCounts(first, last), start, end, first, last);
+        tableModel.setTasks(source.getTasks(start, end));
+    }
+    
+    // Stored tasks of the range that are not loaded, added to the loaded ones in a copy of the range
+    private void readStored(int current, LocalDate start, LocalDate end, LocalDate first, LocalDate last) {
+        new SwingWorker<List<Task>, Void>() {
+            @Override
+            protected List<Task> doInBackground() throws Exception {
+                return DatabaseHandler.findUnloadedInRange(first.atStartOfDay(), last.atStartOfDay());
+            }
+            
+            @Override
+            protected void done() {
+                if (current != generation) {
+                    return;
+                }
+                try {
+                    List<Task> stored = get();
+                    if (stored.isEmpty()) {
+                        return;
+                    }
+                    AgendaIndex range = new AgendaIndex();
+                    range.tasksAdded(index.getTasks(first, last));
+                    range.tasksAdded(stored);
+                    show(range, start, end, first, last);
+                } catch (Exception e) {
+                    System.err.println("Error reading the agenda from the database: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+    
+    private void updateDays(Map<LocalDate, AgendaIndex.DayCount> counts,
+                            LocalDate start, LocalDate end, LocalDate first, LocalDate last) {
+        daysPanel.removeAll();
+        LocalDate today = AppClock.now().toLocalDate();
+        
+        int columns = DAY.equals(getView()) ? 1 : 7;
+        daysPanel.setLayout(new GridLayout(0, columns, 4, 4));
+        for (LocalDate day = first; day.isBefore(last); day = day.plusDays(1)) {
+            daysPanel.add(createDayCell(day, counts.get(day), day.equals(today),
+                !day.isBefore(start) && day.isBefore(end)));
+        }
+        daysPanel.revalidate();
+        daysPanel.repaint();
+    }
+    
+    private JButton createDayCell(LocalDate day, AgendaIndex.DayCount count, boolean today, boolean inRange) {
+        String heading = day.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.getDefault()) + " " + day.getDayOfMonth();
+        String tasks = count == null ? "&nbsp;"
+            : count.getPending() + " pending" + (count.getCompleted() > 0 ? ", " + count.getCompleted() + " done" : "");
+        JButton cell = new JButton("<html><center><b>" + heading + "</b><br>" + tasks + "</center></html>");
+        cell.setFocusPainted(false);
+        cell.setBackground(today ? new Color(214, 234, 248) : Color.WHITE);
+        cell.setForeground(inRange ? Color.BLACK : Color.LIGHT_GRAY);
+        cell.addActionListener(e -> {
+            selected = day;
+            viewCombo.setSelectedItem(DAY); // triggers refresh
+        });
+        return cell;
+    }
+    
+    // TaskListener: a burst of changes results in a single refresh on the EDT
+    
+    private void refreshLater() {
+        if (refreshPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
+    }
+    
+    @Override
+    public void tasksAdded(List<Task> tasks) {
+        refreshLater();
+    }
+    
+    @Override
+    public void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        refreshLater();
+    }
+    
+    @Override
+    public void tasksRemoved(List<Task> tasks) {
+        refreshLater();
+    }
+    
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        refreshLater();
+    }
+    
+    /**
+     * Table rows straight from the range query result
+     */
+    private static class TaskTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"When", "Title", "Priority", "Status"};
+        private List<Task> tasks = new ArrayList<>();
+        
+        void setTasks(List<Task> tasks) {
+            this.tasks = tasks;
+            fireTableDataChanged();
+        }
+        
+        @Override
+        public int getRowCount() {
+            return tasks.size();
+        }
+        
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+        
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+        
+        @Override
+        public Object getValueAt(int row, int column) {
+            Task task = tasks.get(row);
+            switch (column) {
+                case 0:
+                    return task.getReminderTime().format(TIME_FORMATTER);
+                case 1:
+                    return task.getTitle();
+                case 2:
+                    return task.getPriority();
+                default:
+                    return task.isCompleted() ? "Completed" : task.isDue() ? "Overdue" : "Pending";
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.util.ArchiveHandler;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Dialog that shows archived tasks on demand
+ * Tasks are streamed from the archive segments in chunks; nothing is read
+ * until the user asks for it.
+ * Demonstrates: JTable, SwingWorker, lazy Streams
+ */
+public class ArchivedTasksDialog extends JDialog {
+    private static final int CHUNK_SIZE = 100;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+    
+    private DefaultTableModel tableModel;
+    private JButton moreButton;
+    private JLabel countLabel;
+    
+    private final Stream<Task> archived;
+    private final Iterator<Task> iterator;
+    
+    public ArchivedTasksDialog(JFrame parent) {
+        super(parent, "Archived Tasks", true);
+        setSize(700, 450);
+        setLocationRelativeTo(parent);
+        
+        archived = ArchiveHandler.streamArchivedTasks();
+        iterator = archived.iterator();
+        
+        initComponents();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                archived.close();
+            }
+        });
+        loadMore();
+    }
+    
+    private void initComponents() {
+        setLayout(new BorderLayout(10, 10));
+        
+        tableModel = new DefaultTableModel(new String[] {"Title", "Reminder", "Completed", "Priority"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        add(new JScrollPane(new JTable(tableModel)), BorderLayout.CENTER);
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        countLabel = new JLabel();
+        moreButton = new JButton("Load More");
+        JButton closeButton = new JButton("Close");
+        moreButton.addActionListener(e -> loadMore());
+        closeButton.addActionListener(e -> dispose());
+        
+        buttonPanel.add(countLabel);
+        buttonPanel.add(moreButton);
+        buttonPanel.add(closeButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+    
+    /**
+     * Read the next chunk of archived tasks on a background thread
+     */
+    private void loadMore() {
+        moreButton.setEnabled(false);
+        
+        new SwingWorker<List<Task>, Void>() {
+            private boolean hasMore;
+            
+            @Override
+            protected List<Task> doInBackground() {
+                List<Task> chunk = new ArrayList<>(CHUNK_SIZE);
+                while (chunk.size() < CHUNK_SIZE && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                hasMore = iterator.hasNext();
+                return chunk;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    for (Task task : get()) {
+                        tableModel.addRow(new Object[] {
+                            task.getTitle(),
+                            task.getReminderTime().format(FORMATTER),
+                            task.getCompletedTime() == null ? "" : task.getCompletedTime().format(FORMATTER),
+                            task.getPriority()
+                        });
+                    }
+                    countLabel.setText(tableModel.getRowCount() + (hasMore ? "+" : "") + " archived task(s)");
+                    moreButton.setEnabled(hasMore);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(ArchivedTasksDialog.this,
+                        "Error reading archive: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,527 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Dialog for adding many tasks at once from pasted text or a CSV file
+ * One task per line: title, time, priority and description, separated by
+ * commas (CSV quoting allowed) or tabs (as pasted from a spreadsheet); only
+ * the title and time are required. A quoted description may span several
+ * lines. Rows are checked on a background thread and shown in a preview,
+ * which keeps only the parsed fields; tasks are created when they are added,
+ * with one TaskManager call, so the task list is updated once for the whole batch.
+ * Demonstrates: SwingWorker, JTable with AbstractTableModel, CSV parsing
+ */
+public class BulkAddDialog extends JDialog {
+    private static final String[] PRIORITIES = {"HIGH", "MEDIUM", "LOW"};
+    private static final LocalTime DEFAULT_TIME = LocalTime.of(9, 0); // for rows with a date only
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd[' ']['T']HH:mm[:ss]");
+    private static final DateTimeFormatter PREVIEW_FORMATTER = DateTimeFormatter.ofPattern("EEE MMM dd, yyyy HH:mm");
+    
+    /**
+     * One row of input: its parsed fields, or why it cannot be added
+     */
+    static final class Row {
+        final int line; // where the row starts
+        final String title;
+        final LocalDateTime time;
+        final String priority;
+        final String description;
+        final String error;
+        
+        Row(int line, String title, LocalDateTime time, String priority, String description) {
+            this.line = line;
+            this.title = title;
+            this.time = time;
+            this.priority = priority;
+            this.description = description;
+            this.error = null;
+        }
+        
+        Row(int line, String title, String error) {
+            this.line = line;
+            this.title = title;
+            this.time = null;
+            this.priority = null;
+            this.description = null;
+            this.error = error;
+        }
+        
+        boolean isValid() {
+            return error == null;
+        }
+        
+        Task toTask() {
+            return new Task(title, description, time, priority);
+        }
+    }
+    
+    /**
+     * The fields of one CSV record, which may span several lines inside quotes
+     */
+    private static final class Record {
+        final List<String> fields = new ArrayList<>();
+        int end; // index just past the record's line break
+        int lineBreaks;
+        boolean unclosedQuote;
+    }
+    
+    private JTextArea inputArea;
+    private JComboBox<String> priorityCombo;
+    private JLabel summaryLabel;
+    private JButton addButton;
+    private final RowTableModel tableModel = new RowTableModel();
+    private SwingWorker<List<Row>, Void> worker;
+    private int addedCount;
+    
+    public BulkAddDialog(JFrame parent) {
+        super(parent, "Bulk Add Tasks", true);
+        setSize(760, 620);
+        setLocationRelativeTo(parent);
+        
+        initComponents();
+    }
+    
+    private void initComponents() {
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        
+        JLabel helpLabel = new JLabel("<html>One task per line: <b>title, time, priority, description</b> "
+            + "(commas or tabs; only title and time are required; a quoted description may span lines).<br>"
+            + "Time: 2025-03-14 15:30, 2025-03-14 (9:00), 15:30 (today), or +30m / +2h / +3d from now.</html>");
+        
+        inputArea = new JTextArea(10, 60);
+        inputArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        inputArea.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                previewOutdated();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                previewOutdated();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                previewOutdated();
+            }
+        });
+        
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        JButton loadButton = new JButton("Load CSV...");
+        loadButton.addActionListener(e -> loadCsv());
+        priorityCombo = new JComboBox<>(PRIORITIES);
+        priorityCombo.setSelectedItem("MEDIUM");
+        priorityCombo.addActionListener(e -> previewOutdated());
+        JButton previewButton = new JButton("Preview");
+        previewButton.addActionListener(e -> startPreview());
+        optionsPanel.add(loadButton);
+        optionsPanel.add(new JLabel("Default priority:"));
+        optionsPanel.add(priorityCombo);
+        optionsPanel.add(previewButton);
+        
+        JPanel inputPanel = new JPanel(new BorderLayout(0, 8));
+        inputPanel.add(helpLabel, BorderLayout.NORTH);
+        inputPanel.add(new JScrollPane(inputArea), BorderLayout.CENTER);
+        inputPanel.add(optionsPanel, BorderLayout.SOUTH);
+        
+        JTable table = new JTable(tableModel);
+        table.getColumnModel().getColumn(0).setPreferredWidth(40);
+        table.getColumnModel().getColumn(1).setPreferredWidth(220);
+        table.getColumnModel().getColumn(2).setPreferredWidth(160);
+        table.getColumnModel().getColumn(3).setPreferredWidth(70);
+        table.getColumnModel().getColumn(4).setPreferredWidth(220);
+        
+        JPanel previewPanel = new JPanel(new BorderLayout(0, 5));
+        summaryLabel = new JLabel("Paste or load tasks, then press Preview.");
+        previewPanel.add(summaryLabel, BorderLayout.NORTH);
+        previewPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+        
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, inputPanel, previewPanel);
+        split.setResizeWeight(0.45);
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        addButton = new JButton("Add Tasks");
+        addButton.setBackground(new Color(46, 204, 113));
+        addButton.setForeground(Color.WHITE);
+        addButton.setFont(new Font("Arial", Font.BOLD, 12));
+        addButton.setEnabled(false);
+        addButton.addActionListener(e -> addTasks());
+        
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setBackground(new Color(149, 165, 166));
+        cancelButton.setForeground(Color.WHITE);
+        cancelButton.setFont(new Font("Arial", Font.BOLD, 12));
+        cancelButton.addActionListener(e -> dispose());
+        
+        buttonPanel.add(addButton);
+        buttonPanel.add(cancelButton);
+        
+        mainPanel.add(split, BorderLayout.CENTER);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+        add(mainPanel);
+    }
+    
+    private void loadCsv() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV or text files", "csv", "txt", "tsv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(chooser.getSelectedFile().toPath());
+            inputArea.setText(new String(bytes, StandardCharsets.UTF_8));
+            inputArea.setCaretPosition(0);
+            startPreview();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                "Error reading file: " + e.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    // Editing the input makes the preview stale; it has to be checked again before adding
+    private void previewOutdated() {
+        if (worker != null) {
+            worker.cancel(true);
+            worker = null;
+        }
+        addButton.setEnabled(false);
+        addButton.setText("Add Tasks");
+        if (tableModel.getRowCount() > 0) {
+            summaryLabel.setText("Input changed: press Preview to check it again.");
+        }
+    }
+    
+    // Parse on a background thread; only the latest preview is shown
+    private void startPreview() {
+        previewOutdated();
+        String text = inputArea.getText();
+        String defaultPriority = (String) priorityCombo.getSelectedItem();
+        LocalDateTime now = AppClock.now();
+        summaryLabel.setText("Checking...");
+        
+        SwingWorker<List<Row>, Void> preview = new SwingWorker<List<Row>, Void>() {
+            @Override
+            protected List<Row> doInBackground() {
+                return parse(text, defaultPriority, now);
+            }
+            
+            @Override
+            protected void done() {
+                if (isCancelled() || worker != this) {
+                    return;
+                }
+                worker = null;
+                try {
+                    showPreview(get());
+                } catch (Exception e) {
+                    summaryLabel.setText("Could not check the input: " + e.getMessage());
+                }
+            }
+        };
+        worker = preview;
+        preview.execute();
+    }
+    
+    private void showPreview(List<Row> rows) {
+        tableModel.setRows(rows);
+        int valid = countValid(rows);
+        int past = 0;
+        LocalDateTime now = AppClock.now();
+        for (Row row : rows) {
+            if (row.isValid() && row.time.isBefore(now)) {
+                past++;
+            }
+        }
+        summaryLabel.setText(valid + " of " + rows.size() + " row(s) ready"
+            + (rows.size() > valid ? ", " + (rows.size() - valid) + " with errors (skipped)" : "")
+            + (past > 0 ? ", " + past + " in the past" : "") + ".");
+        addButton.setText("Add " + valid + " Task(s)");
+        addButton.setEnabled(valid > 0);
+    }
+    
+    private void addTasks() {
+        int past = 0;
+        LocalDateTime now = AppClock.now();
+        for (Row row : tableModel.rows) {
+            if (row.isValid() && row.time.isBefore(now)) {
+                past++;
+            }
+        }
+        if (past > 0) {
+            int choice = JOptionPane.showConfirmDialog(this,
+                past + " reminder time(s) are in the past. Continue?",
+                "Warning",
+                JOptionPane.YES_NO_OPTION);
+            if (choice != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+        
+        List<Task> tasks = new ArrayList<>();
+        for (Row row : tableModel.rows) {
+            if (row.isValid()) {
+                tasks.add(row.toTask());
+            }
+        }
+        // One insert, one event: the task list updates once for the whole batch
+        TaskManager.getInstance().addTasks(tasks);
+        addedCount = tasks.size();
+        dispose();
+    }
+    
+    /**
+     * Number of tasks added (0 if the dialog was cancelled)
+     */
+    public int getAddedCount() {
+        return addedCount;
+    }
+    
+    private static int countValid(List<Row> rows) {
+        int valid = 0;
+        for (Row row : rows) {
+            if (row.isValid()) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+    
+    /**
+     * Parse every non-blank record; lines starting with '#' and a leading
+     * "title" header line are ignored
+     */
+    static List<Row> parse(String text, String defaultPriority, LocalDateTime now) {
+        List<Row> rows = new ArrayList<>();
+        int position = 0;
+        int line = 1;
+        boolean first = true;
+        while (position < text.length()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return Collections.emptyList(); // A newer preview replaced this one
+            }
+            int lineEnd = lineEnd(text, position);
+            String firstLine = text.substring(position, lineEnd);
+            if (firstLine.trim().isEmpty() || firstLine.trim().startsWith("#")) {
+                position = skipLineBreak(text, lineEnd);
+                line++;
+                continue;
+            }
+            Record record = readRecord(text, position, firstLine.indexOf('\t') >= 0 ? '\t' : ',');
+            int start = line;
+            position = record.end;
+            line += record.lineBreaks + 1;
+            if (first && record.fields.get(0).equalsIgnoreCase("title")) {
+                first = false;
+                continue;
+            }
+            first = false;
+            if (record.unclosedQuote) {
+                rows.add(new Row(start, record.fields.get(0), "Quote opened here is never closed"));
+                break; // It took in the rest of the input
+            }
+            rows.add(parseRow(start, record.fields, defaultPriority, now));
+        }
+        return rows;
+    }
+    
+    private static Row parseRow(int line, List<String> fields, String defaultPriority, LocalDateTime now) {
+        String title = fields.get(0);
+        if (title.isEmpty()) {
+            return new Row(line, title, "Title is missing");
+        }
+        if (title.indexOf('\n') >= 0) {
+            return new Row(line, title, "Title has a line break");
+        }
+        if (fields.size() > 4) {
+            return new Row(line, title, "Too many columns (" + fields.size() + ")");
+        }
+        if (fields.size() < 2 || fields.get(1).isEmpty()) {
+            return new Row(line, title, "Time is missing");
+        }
+        LocalDateTime time = parseTime(fields.get(1), now);
+        if (time == null) {
+            return new Row(line, title, "Unknown time: " + fields.get(1));
+        }
+        String priority = defaultPriority;
+        if (fields.size() > 2 && !fields.get(2).isEmpty()) {
+            priority = parsePriority(fields.get(2));
+            if (priority == null) {
+                return new Row(line, title, "Unknown priority: " + fields.get(2));
+            }
+        }
+        String description = fields.size() > 3 ? fields.get(3) : "";
+        return new Row(line, title, time, priority, description);
+    }
+    
+    // 2025-03-14 15:30, 2025-03-14T15:30:00, 2025-03-14, 15:30, +30m, +2h, +3d
+    private static LocalDateTime parseTime(String value, LocalDateTime now) {
+        try {
+            if (value.startsWith("+") && value.length() > 2) {
+                long amount = Long.parseLong(value.substring(1, value.length() - 1));
+                switch (Character.toLowerCase(value.charAt(value.length() - 1))) {
+                    case 'm':
+                        return now.plusMinutes(amount).withSecond(0).withNano(0);
+                    case 'h':
+                        return now.plusHours(amount).withSecond(0).withNano(0);
+                    case 'd':
+                        return now.plusDays(amount).withSecond(0).withNano(0);
+                    default:
+                        return null;
+                }
+            }
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atTime(DEFAULT_TIME);
+            }
+            if (value.length() <= 5) {
+                return now.toLocalDate().atTime(LocalTime.parse(value.length() == 4 ? "0" + value : value));
+            }
+            return LocalDateTime.parse(value, DATE_TIME_FORMATTER);
+        } catch (DateTimeException | NumberFormatException | ArithmeticException e) {
+            // Unparsable, or (like +99999999999999d) beyond the years LocalDateTime can hold
+            return null;
+        }
+    }
+    
+    // HIGH, MEDIUM or LOW in any case, or just the first letter
+    private static String parsePriority(String value) {
+        String upper = value.toUpperCase(Locale.ROOT);
+        for (String priority : PRIORITIES) {
+            if (priority.equals(upper) || (upper.length() == 1 && priority.charAt(0) == upper.charAt(0))) {
+                return priority;
+            }
+        }
+        return null;
+    }
+    
+    // Read one record from 'start'; fields may be quoted, with "" for a quote inside
+    // and line breaks (kept as \n) until the closing quote
+    private static Record readRecord(String text, int start, char separator) {
+        Record record = new Record();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = start;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else if (c == '\r' || c == '\n') {
+                    field.append('\n');
+                    record.lineBreaks++;
+                    i = skipLineBreak(text, i) - 1;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '\r' || c == '\n') {
+                break;
+            } else if (c == '"' && field.toString().trim().isEmpty()) {
+                field.setLength(0);
+                quoted = true;
+            } else if (c == separator) {
+                record.fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+            i++;
+        }
+        record.fields.add(field.toString().trim());
+        record.unclosedQuote = quoted;
+        record.end = skipLineBreak(text, i);
+        return record;
+    }
+    
+    // Index of the first line break at or after 'from', or the end of the text
+    private static int lineEnd(String text, int from) {
+        int i = from;
+        while (i < text.length() && text.charAt(i) != '\n' && text.charAt(i) != '\r') {
+            i++;
+        }
+        return i;
+    }
+    
+    // Index just past the line break (\n, \r or \r\n) at 'at', if there is one
+    private static int skipLineBreak(String text, int at) {
+        if (at < text.length() && text.charAt(at) == '\r') {
+            at++;
+        }
+        if (at < text.length() && text.charAt(at) == '\n') {
+            at++;
+        }
+        return at;
+    }
+    
+    /**
+     * Preview rows: line number, title, time, priority and status
+     */
+    private static class RowTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Line", "Title", "Reminder", "Priority", "Status"};
+        private List<Row> rows = Collections.emptyList();
+        
+        void setRows(List<Row> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+        
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+        
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+        
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+        
+        @Override
+        public Object getValueAt(int rowIndex, int column) {
+            Row row = rows.get(rowIndex);
+            switch (column) {
+                case 0:
+                    return row.line;
+                case 1:
+                    return row.title;
+                case 2:
+                    return row.isValid() ? row.time.format(PREVIEW_FORMATTER) : "";
+                case 3:
+                    return row.isValid() ? row.priority : "";
+                default:
+                    return row.error == null ? "OK" : "✗ " + row.error;
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.model.TaskStatistics;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.DatabaseHandler;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Statistics dashboard
+ * Redraws once a second from a TaskStatistics snapshot, which is kept up to
+ * date by TaskManager events, so refreshing costs the same with ten tasks or
+ * a million. Nothing is redrawn while the dashboard tab is hidden.
+ * With a database, TaskManager holds only a working set, so the totals also
+ * show how many tasks are stored, counted in the background every few seconds.
+ * Demonstrates: javax.swing.Timer, Custom painting with Graphics2D, GridLayout
+ */
+public class DashboardPanel extends JPanel {
+    private static final int REFRESH_MILLIS = 1000;
+    private static final long STORED_COUNT_MILLIS = 10_000;
+    private static final Color CREATED_COLOR = new Color(52, 152, 219);
+    private static final Color COMPLETED_COLOR = new Color(46, 204, 113);
+    private static final Color OVERDUE_COLOR = new Color(231, 76, 60);
+    
+    private final TaskStatistics statistics = new TaskStatistics();
+    private final Timer timer = new Timer(REFRESH_MILLIS, e -> {
+        if (isShowing()) {
+            refresh();
+        }
+    });
+    
+    private JLabel totalLabel;
+    private JLabel pendingLabel;
+    private JLabel completedLabel;
+    private JLabel overdueLabel;
+    private JLabel rateLabel;
+    private JLabel latenessLabel;
+    private JPanel priorityGrid;
+    private JLabel[] latenessLabels;
+    private ActivityChart chart;
+    
+    // Database only: stored-task lines under the totals, and when they were last counted
+    private JLabel storedTotalLabel;
+    private JLabel storedPendingLabel;
+    private JLabel storedCompletedLabel;
+    private long storedCountedAt;
+    private boolean counting;
+    
+    public DashboardPanel() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        initComponents();
+        TaskManager.getInstance().attach(statistics);
+        refresh();
+    }
+    
+    private void initComponents() {
+        JPanel cards = new JPanel(new GridLayout(1, 6, 8, 0));
+        totalLabel = addCard(cards, "Total");
+        pendingLabel = addCard(cards, "Pending");
+        completedLabel = addCard(cards, "Completed");
+        overdueLabel = addCard(cards, "Overdue");
+        overdueLabel.setForeground(OVERDUE_COLOR);
+        rateLabel = addCard(cards, "Completion rate");
+        latenessLabel = addCard(cards, "Avg. lateness");
+        if (DatabaseHandler.isEnabled()) {
+            storedTotalLabel = addFootnote(totalLabel);
+            storedPendingLabel = addFootnote(pendingLabel);
+            storedCompletedLabel = addFootnote(completedLabel);
+        }
+        
+        priorityGrid = new JPanel(new GridLayout(0, 3, 10, 4));
+        priorityGrid.setBorder(BorderFactory.createTitledBorder("By priority"));
+        
+        JPanel latenessGrid = new JPanel(new GridLayout(0, 2, 10, 4));
+        latenessGrid.setBorder(BorderFactory.createTitledBorder("Completed after the reminder"));
+        latenessLabels = new JLabel[TaskStatistics.LATENESS_LABELS.length];
+        for (int i = 0; i < latenessLabels.length; i++) {
+            latenessGrid.add(new JLabel(TaskStatistics.LATENESS_LABELS[i]));
+            latenessLabels[i] = new JLabel("0", SwingConstants.RIGHT);
+            latenessGrid.add(latenessLabels[i]);
+        }
+        
+        JPanel tables = new JPanel(new GridLayout(1, 2, 10, 0));
+        tables.add(priorityGrid);
+        tables.add(latenessGrid);
+        
+        chart = new ActivityChart();
+        chart.setBorder(BorderFactory.createTitledBorder(
+            "Last " + TaskStatistics.HISTORY_DAYS + " days: created (blue) and completed (green)"));
+        
+        JPanel center = new JPanel(new BorderLayout(0, 10));
+        center.add(tables, BorderLayout.NORTH);
+        center.add(chart, BorderLayout.CENTER);
+        
+        add(cards, BorderLayout.NORTH);
+        add(center, BorderLayout.CENTER);
+    }
+    
+    private static JLabel addCard(JPanel cards, String title) {
+        JPanel card = new JPanel(new BorderLayout());
+        card.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200)),
+            BorderFactory.createEmptyBorder(6, 8, 6, 8)));
+        JLabel titleLabel = new JLabel(title);
+        titleLabel.setFont(new Font("Arial", Font.PLAIN, 11));
+        JLabel valueLabel = new JLabel("0");
+        valueLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        card.add(titleLabel, BorderLayout.NORTH);
+        card.add(valueLabel, BorderLayout.CENTER);
+        cards.add(card);
+        return valueLabel;
+    }
+    
+    private static JLabel addFootnote(JLabel valueLabel) {
+        JLabel footnote = new JLabel(" ");
+        footnote.setFont(new Font("Arial", Font.PLAIN, 11));
+        footnote.setForeground(Color.GRAY);
+        valueLabel.getParent().add(footnote, BorderLayout.SOUTH);
+        return footnote;
+    }
+    
+    // The timer only runs while the panel is part of a window
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        timer.start();
+    }
+    
+    @Override
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
+    }
+    
+    /**
+     * Show the current statistics (call on the EDT)
+     */
+    public void refresh() {
+        TaskStatistics.Snapshot snapshot = statistics.getSnapshot(AppClock.now());
+        totalLabel.setText(String.valueOf(snapshot.getTotal()));
+        pendingLabel.setText(String.valueOf(snapshot.getPending()));
+        completedLabel.setText(String.valueOf(snapshot.getCompleted()));
+        overdueLabel.setText(String.valueOf(snapshot.getOverdue()));
+        rateLabel.setText(String.format("%.0f%%", snapshot.getCompletionRate() * 100));
+        latenessLabel.setText(formatMinutes(snapshot.getAverageLatenessMinutes()));
+        
+        priorityGrid.removeAll();
+        priorityGrid.add(new JLabel("Priority"));
+        priorityGrid.add(new JLabel("Pending", SwingConstants.RIGHT));
+        priorityGrid.add(new JLabel("Completed", SwingConstants.RIGHT));
+        for (String priority : snapshot.getPriorities()) {
+            priorityGrid.add(new JLabel(priority));
+            priorityGrid.add(new JLabel(String.valueOf(snapshot.getPendingCount(priority)), SwingConstants.RIGHT));
+            priorityGrid.add(new JLabel(String.valueOf(snapshot.getCompletedCount(priority)), SwingConstants.RIGHT));
+        }
+        priorityGrid.revalidate();
+        
+        for (int i = 0; i < latenessLabels.length; i++) {
+            latenessLabels[i].setText(String.valueOf(snapshot.getLatenessCount(i)));
+        }
+        chart.setSnapshot(snapshot);
+        
+        if (storedTotalLabel != null && !counting
+                && System.currentTimeMillis() - storedCountedAt >= STORED_COUNT_MILLIS) {
+            countStored();
+        }
+    }
+    
+    // Count the stored tasks off the EDT; the footnotes show them as of the last save
+    private void countStored() {
+        counting = true;
+        new SwingWorker<int[], Void>() {
+            @Override
+            protected int[] doInBackground() throws Exception {
+                return new int[] {DatabaseHandler.countTasks(false), DatabaseHandler.countTasks(true)};
+            }
+            
+            @Override
+            protected void done() {
+                counting = false;
+                storedCountedAt = System.currentTimeMillis();
+                try {
+                    int[] counts = get();
+                    storedTotalLabel.setText((counts[0] + counts[1]) + " saved");
+                    storedPendingLabel.setText(counts[0] + " saved");
+                    storedCompletedLabel.setText(counts[1] + " saved");
+                } catch (Exception e) {
+                    storedTotalLabel.setText("database unavailable");
+                }
+            }
+        }.execute();
+    }
+    
+    // e.g. "45 min", "3.5 h", "2.1 days", "-10 min" when done early
+    private static String formatMinutes(double minutes) {
+        if (Double.isNaN(minutes)) {
+            return "-";
+        }
+        double magnitude = Math.abs(minutes);
+        if (magnitude < 60) {
+            return String.format("%.0f min", minutes);
+        }
+        if (magnitude < 24 * 60) {
+            return String.format("%.1f h", minutes / 60);
+        }
+        return String.format("%.1f days", minutes / (24 * 60));
+    }
+    
+    /**
+     * Bars of tasks created and completed per day
+     */
+    private static class ActivityChart extends JComponent {
+        private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("dd");
+        private TaskStatistics.Snapshot snapshot;
+        
+        ActivityChart() {
+            setPreferredSize(new Dimension(600, 180));
+        }
+        
+        void setSnapshot(TaskStatistics.Snapshot snapshot) {
+            this.snapshot = snapshot;
+            repaint();
+        }
+        
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (snapshot == null) {
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Insets insets = getInsets();
+            int left = insets.left + 10;
+            int top = insets.top + 15;
+            int width = getWidth() - insets.left - insets.right - 20;
+            int height = getHeight() - insets.top - insets.bottom - 35;
+            int days = snapshot.getDays().size();
+            if (width <= 0 || height <= 0 || days == 0) {
+                g2.dispose();
+                return;
+            }
+            
+            int max = 1;
+            for (int i = 0; i < days; i++) {
+                max = Math.max(max, Math.max(snapshot.getCreatedOn(i), snapshot.getCompletedOn(i)));
+            }
+            int slot = width / days;
+            int bar = Math.max(1, (slot - 6) / 2);
+            int baseline = top + height;
+            FontMetrics metrics = g2.getFontMetrics();
+            for (int i = 0; i < days; i++) {
+                int x = left + i * slot + 3;
+                int createdHeight = (int) ((long) snapshot.getCreatedOn(i) * height / max);
+                int completedHeight = (int) ((long) snapshot.getCompletedOn(i) * height / max);
+                g2.setColor(CREATED_COLOR);
+                g2.fillRect(x, baseline - createdHeight, bar, createdHeight);
+                g2.setColor(COMPLETED_COLOR);
+                g2.fillRect(x + bar, baseline - completedHeight, bar, completedHeight);
+                
+                g2.setColor(Color.DARK_GRAY);
+                String label = snapshot.getDays().get(i).format(DAY_FORMATTER);
+                g2.drawString(label, x + bar - metrics.stringWidth(label) / 2, baseline + metrics.getAscent() + 3);
+            }
+            g2.drawLine(left, baseline, left + slot * days, baseline);
+            g2.drawString(String.valueOf(max), left, top - 3);
+            g2.dispose();
+        }
+    }
+}
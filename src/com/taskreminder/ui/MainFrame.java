@@ -1,10 +1,21 @@
 package com.taskreminder.ui;
 
+import com.taskreminder.api.TaskApiServer;
 import com.taskreminder.model.TaskManager;
+import com.taskreminder.model.TaskOrder;
+import com.taskreminder.sync.ProcessSync;
+import com.taskreminder.sync.ReplicationJournal;
+import com.taskreminder.thread.ArchiveThread;
+import com.taskreminder.thread.ChangeLogThread;
+import com.taskreminder.thread.FileWatchThread;
 import com.taskreminder.thread.NotificationThread;
+import com.taskreminder.thread.ReplicationThread;
+import com.taskreminder.util.DatabaseHandler;
 import com.taskreminder.util.FileHandler;
+import com.taskreminder.util.ICalendarHandler;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.*;
 
@@ -14,8 +25,17 @@ import java.awt.event.*;
  */
 public class MainFrame extends JFrame {
     private TaskPanel taskPanel;
+    private AgendaPanel agendaPanel;
     private NotificationThread notificationThread;
-    private JLabel statusLabel;
+    private ArchiveThread archiveThread;
+    private FileWatchThread fileWatchThread;
+    private ProcessSync processSync;
+    private ChangeLogThread changeLogThread;
+    private ReplicationJournal replicationJournal;
+    private ReplicationThread replicationListener;
+    private ReplicationThread replicationClient;
+    private TaskApiServer apiServer;
+    private StatusBar statusBar;
     
     public MainFrame() {
         setTitle("Task Reminder Application");
@@ -30,8 +50,23 @@ public class MainFrame extends JFrame {
         // Load tasks from file
         loadTasks();
         
-        // Start notification thread
-        startNotificationThread();
+        // Share changes with other instances using the same data directory
+        startProcessSync();
+        
+        // Exchange changes with another computer if configured
+        // (-Dtaskreminder.replication.listen=9095 and/or -Dtaskreminder.replication.peer=host:9095)
+        startReplication();
+        
+        // Notifications and archiving run in one instance only: the leader
+        if (processSync == null) {
+            startLeaderThreads();
+        }
+        
+        // Pick up changes other programs make to tasks.json
+        startFileWatchThread();
+        
+        // Start local HTTP API if a port was configured (-Dtaskreminder.api.port=8085)
+        startApiServer();
         
         // Add window listener for saving on close
         addWindowListener(new WindowAdapter() {
@@ -54,40 +89,72 @@ public class MainFrame extends JFrame {
         titlePanel.add(titleLabel);
         
         // Task Panel (Center)
+        // (scrolls by itself, painting only the visible rows)
         taskPanel = new TaskPanel();
-        JScrollPane scrollPane = new JScrollPane(taskPanel);
-        scrollPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        taskPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        // Tag, priority and status filter with counts above the list, then the order
+        JPanel sortPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        sortPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 0, 10));
+        JComboBox<TaskOrder> sortCombo = new JComboBox<>(TaskOrder.values());
+        sortCombo.setSelectedItem(taskPanel.getOrder());
+        sortCombo.addActionListener(e -> taskPanel.setOrder((TaskOrder) sortCombo.getSelectedItem()));
+        sortPanel.add(new JLabel("Sort by:"));
+        sortPanel.add(sortCombo);
+        if (DatabaseHandler.isEnabled()) {
+            // The database working set holds the first page of pending tasks; this fetches the next
+            JButton moreButton = new JButton("Load more tasks");
+            moreButton.addActionListener(e -> loadNextPage(moreButton));
+            sortPanel.add(moreButton);
+        }
+        
+        JPanel listHeader = new JPanel(new BorderLayout());
+        listHeader.add(new TagFilterPanel(taskPanel), BorderLayout.CENTER);
+        listHeader.add(sortPanel, BorderLayout.SOUTH);
+        
+        JPanel tasksTab = new JPanel(new BorderLayout());
+        tasksTab.add(listHeader, BorderLayout.NORTH);
+        tasksTab.add(taskPanel, BorderLayout.CENTER);
+        
+        // Agenda (day/week/month) next to the task list
+        agendaPanel = new AgendaPanel();
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Tasks", tasksTab);
+        tabs.addTab("Agenda", agendaPanel);
+        tabs.addTab("Dashboard", new DashboardPanel());
         
         // Button Panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
         
         JButton addButton = createStyledButton("➕ Add Task", new Color(46, 204, 113));
+        JButton bulkAddButton = createStyledButton("📋 Bulk Add", new Color(39, 174, 96));
         JButton refreshButton = createStyledButton("🔄 Refresh", new Color(52, 152, 219));
         JButton deleteButton = createStyledButton("🗑️ Delete Completed", new Color(231, 76, 60));
         
         addButton.addActionListener(e -> showAddTaskDialog());
-        refreshButton.addActionListener(e -> taskPanel.refreshTasks());
+        bulkAddButton.addActionListener(e -> showBulkAddDialog());
+        refreshButton.addActionListener(e -> {
+            taskPanel.refreshTasks();
+            agendaPanel.refresh();
+        });
         deleteButton.addActionListener(e -> deleteCompletedTasks());
         
         buttonPanel.add(addButton);
+        buttonPanel.add(bulkAddButton);
         buttonPanel.add(refreshButton);
         buttonPanel.add(deleteButton);
         
         // Status Panel
-        JPanel statusPanel = new JPanel(new BorderLayout());
-        statusPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
-        statusLabel = new JLabel("Ready");
-        statusLabel.setFont(new Font("Arial", Font.PLAIN, 12));
-        statusPanel.add(statusLabel, BorderLayout.WEST);
+        statusBar = new StatusBar();
         
         // Add to frame
         add(titlePanel, BorderLayout.NORTH);
-        add(scrollPane, BorderLayout.CENTER);
+        add(tabs, BorderLayout.CENTER);
         JPanel bottomPanel = new JPanel(new BorderLayout());
         bottomPanel.add(buttonPanel, BorderLayout.CENTER);
-        bottomPanel.add(statusPanel, BorderLayout.SOUTH);
+        bottomPanel.add(statusBar, BorderLayout.SOUTH);
         add(bottomPanel, BorderLayout.SOUTH);
-
+        
     }
     
     private JButton createStyledButton(String text, Color bgColor) {
@@ -129,6 +196,23 @@ public class MainFrame extends JFrame {
         fileMenu.add(saveItem);
         fileMenu.add(loadItem);
         fileMenu.addSeparator();
+        JMenuItem importIcsItem = new JMenuItem("Import iCalendar...");
+        JMenuItem exportIcsItem = new JMenuItem("Export iCalendar...");
+        importIcsItem.addActionListener(e -> importICalendar());
+        exportIcsItem.addActionListener(e -> exportICalendar());
+        fileMenu.add(importIcsItem);
+        fileMenu.add(exportIcsItem);
+        fileMenu.addSeparator();
+        if (DatabaseHandler.isEnabled()) {
+            JMenuItem historyItem = new JMenuItem("Completed History...");
+            historyItem.addActionListener(e -> new TaskHistoryDialog(this).setVisible(true));
+            fileMenu.add(historyItem);
+        } else {
+            JMenuItem archivedItem = new JMenuItem("Show Archived...");
+            archivedItem.addActionListener(e -> new ArchivedTasksDialog(this).setVisible(true));
+            fileMenu.add(archivedItem);
+        }
+        fileMenu.addSeparator();
         fileMenu.add(exitItem);
         
         // Help Menu
@@ -148,11 +232,19 @@ public class MainFrame extends JFrame {
         dialog.setVisible(true);
         
         if (dialog.isTaskAdded()) {
-            taskPanel.refreshTasks();
             updateStatus("Task added successfully!");
         }
     }
     
+    private void showBulkAddDialog() {
+        BulkAddDialog dialog = new BulkAddDialog(this);
+        dialog.setVisible(true);
+        
+        if (dialog.getAddedCount() > 0) {
+            updateStatus(dialog.getAddedCount() + " task(s) added.");
+        }
+    }
+    
     private void deleteCompletedTasks() {
         TaskManager manager = TaskManager.getInstance();
         int completedCount = manager.getCompletedTasks().size();
@@ -171,15 +263,18 @@ public class MainFrame extends JFrame {
             JOptionPane.YES_NO_OPTION);
         
         if (choice == JOptionPane.YES_OPTION) {
-            manager.getCompletedTasks().forEach(manager::removeTask);
-            taskPanel.refreshTasks();
+            manager.removeTasks(manager.getCompletedTasks());
             updateStatus(completedCount + " completed task(s) deleted.");
         }
     }
     
     private void saveTasks() {
         try {
-            FileHandler.saveTasks();
+            if (DatabaseHandler.isEnabled()) {
+                DatabaseHandler.saveTasks();
+            } else {
+                FileHandler.saveTasks();
+            }
             updateStatus("Tasks saved successfully!");
             JOptionPane.showMessageDialog(this,
                 "Tasks saved successfully!",
@@ -195,19 +290,184 @@ public class MainFrame extends JFrame {
     
     private void loadTasks() {
         try {
-            FileHandler.loadTasks();
-            taskPanel.refreshTasks();
+            if (DatabaseHandler.isEnabled()) {
+                DatabaseHandler.loadTasks();
+            } else {
+                FileHandler.loadTasks();
+            }
             updateStatus("Tasks loaded successfully!");
         } catch (Exception e) {
             updateStatus("No previous tasks found.");
         }
     }
     
+    private void loadNextPage(JButton moreButton) {
+        moreButton.setEnabled(false);
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return DatabaseHandler.loadNextPage();
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    int loaded = get();
+                    boolean more = DatabaseHandler.hasMorePending();
+                    updateStatus(loaded + " more task(s) loaded" + (more ? "." : "; all pending tasks are loaded."));
+                    moreButton.setEnabled(more);
+                } catch (Exception e) {
+                    moreButton.setEnabled(true);
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error loading tasks: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    // Large calendars take a while: read them off the EDT
+    private void importICalendar() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("iCalendar files", "ics"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String path = chooser.getSelectedFile().getPath();
+        updateStatus("Importing " + chooser.getSelectedFile().getName() + "...");
+        new SwingWorker<ICalendarHandler.ImportResult, Void>() {
+            @Override
+            protected ICalendarHandler.ImportResult doInBackground() throws Exception {
+                return ICalendarHandler.importTasks(path);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    ICalendarHandler.ImportResult result = get();
+                    String message = result.getImported() + " task(s) imported"
+                        + (result.getSkipped() > 0 ? ", " + result.getSkipped() + " without a due date skipped." : ".");
+                    updateStatus(message);
+                    JOptionPane.showMessageDialog(MainFrame.this, message, "Import", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error importing calendar: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    private void exportICalendar() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("iCalendar files", "ics"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String chosen = chooser.getSelectedFile().getPath();
+        String path = chosen.toLowerCase().endsWith(".ics") ? chosen : chosen + ".ics";
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return ICalendarHandler.exportTasks(path);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    updateStatus(get() + " task(s) exported to " + path);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error exporting calendar: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    private void startProcessSync() {
+        if (DatabaseHandler.isEnabled()) {
+            return;
+        }
+        try {
+            processSync = new ProcessSync();
+            processSync.start();
+            changeLogThread = new ChangeLogThread(processSync,
+                () -> SwingUtilities.invokeLater(this::startLeaderThreads));
+            changeLogThread.start();
+        } catch (Exception e) {
+            processSync = null;
+            updateStatus("Could not open change log: " + e.getMessage());
+        }
+    }
+    
+    private void startReplication() {
+        String listenAddress = System.getProperty("taskreminder.replication.listen");
+        String peerAddress = System.getProperty("taskreminder.replication.peer");
+        if ((listenAddress == null && peerAddress == null) || DatabaseHandler.isEnabled()) {
+            return;
+        }
+        try {
+            byte[] secret = ReplicationThread.getConfiguredSecret();
+            replicationJournal = ReplicationJournal.open();
+            replicationJournal.attach();
+            if (listenAddress != null) {
+                replicationListener = ReplicationThread.listen(replicationJournal, secret, listenAddress);
+                replicationListener.start();
+            }
+            if (peerAddress != null) {
+                replicationClient = ReplicationThread.connect(replicationJournal, secret, peerAddress);
+                replicationClient.start();
+            }
+        } catch (Exception e) {
+            updateStatus("Could not start replication: " + e.getMessage());
+        }
+    }
+    
+    private void startLeaderThreads() {
+        startNotificationThread();
+        startArchiveThread();
+    }
+    
     private void startNotificationThread() {
         notificationThread = new NotificationThread();
         notificationThread.start();
     }
     
+    private void startArchiveThread() {
+        // The database keeps completed history on disk already
+        if (DatabaseHandler.isEnabled()) {
+            return;
+        }
+        archiveThread = new ArchiveThread();
+        archiveThread.start();
+    }
+    
+    private void startFileWatchThread() {
+        if (DatabaseHandler.isEnabled()) {
+            return;
+        }
+        fileWatchThread = new FileWatchThread();
+        fileWatchThread.start();
+    }
+    
+    private void startApiServer() {
+        Integer port = Integer.getInteger("taskreminder.api.port");
+        if (port == null) {
+            return;
+        }
+        try {
+            apiServer = new TaskApiServer(port);
+            apiServer.start();
+        } catch (Exception e) {
+            apiServer = null;
+            updateStatus("Could not start API server: " + e.getMessage());
+        }
+    }
+    
     private void showAboutDialog() {
         String message = "Task Reminder Application\n\n" +
                         "Version: 1.0\n" +
@@ -225,24 +485,49 @@ public class MainFrame extends JFrame {
             JOptionPane.INFORMATION_MESSAGE);
     }
     
+    // With ProcessSync every change is in changes.log as soon as it is made, and the
+    // next start (or the leader's compaction) puts it into tasks.json, so "No" cannot
+    // discard anything; the prompt says so instead of offering to throw changes away
     private void exitApplication() {
+        String question = processSync == null
+            ? "Do you want to save tasks before exiting?"
+            : "Your changes are already kept in the shared change log, saved or not.\n"
+                + "Do you also want to write them to tasks.json before exiting?";
         int choice = JOptionPane.showConfirmDialog(this,
-            "Do you want to save tasks before exiting?",
+            question,
             "Exit Application",
             JOptionPane.YES_NO_CANCEL_OPTION);
         
         if (choice == JOptionPane.YES_OPTION) {
             saveTasks();
-            System.exit(0);
+            shutdown();
         } else if (choice == JOptionPane.NO_OPTION) {
-            System.exit(0);
+            shutdown();
+        }
+    }
+    
+    private void shutdown() {
+        if (apiServer != null) {
+            apiServer.stop();
+        }
+        if (replicationListener != null) {
+            replicationListener.stopReplication();
+        }
+        if (replicationClient != null) {
+            replicationClient.stopReplication();
+        }
+        if (replicationJournal != null) {
+            replicationJournal.detach();
+        }
+        if (changeLogThread != null) {
+            changeLogThread.stopSync();
+            processSync.stop();
         }
+        DatabaseHandler.close();
+        System.exit(0);
     }
     
     private void updateStatus(String message) {
-        statusLabel.setText(message);
-        Timer timer = new Timer(3000, e -> statusLabel.setText("Ready"));
-        timer.setRepeats(false);
-        timer.start();
+        statusBar.updateStatus(message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.taskreminder.ui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Status line at the bottom of the main window
+ * A message stays for a few seconds, then "Ready" comes back. One timer puts
+ * it back; a new message restarts that timer instead of adding another.
+ * Use on the Event Dispatch Thread.
+ * Demonstrates: javax.swing.Timer, BorderLayout
+ */
+public class StatusBar extends JPanel {
+    private static final String READY = "Ready";
+    private static final int MESSAGE_MILLIS = 3000;
+    
+    private final JLabel statusLabel = new JLabel(READY);
+    private final Timer statusTimer = new Timer(MESSAGE_MILLIS, e -> statusLabel.setText(READY));
+    
+    public StatusBar() {
+        super(new BorderLayout());
+        setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        statusTimer.setRepeats(false);
+        statusLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        add(statusLabel, BorderLayout.WEST);
+    }
+    
+    /**
+     * Show a message until the timer puts "Ready" back
+     */
+    public void updateStatus(String message) {
+        statusLabel.setText(message);
+        statusTimer.restart();
+    }
+}
@@ -0,0 +1,210 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.TagIndex;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskListener;
+import com.taskreminder.model.TaskManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Filter bar above the task list
+ * Tag buttons, a priority and a status choice, each labelled with how many
+ * tasks it would show. The counts come from TaskPanel's TagIndex, so they
+ * follow every change without scanning the task list; the chosen filter goes
+ * to TaskPanel.
+ * Demonstrates: JToggleButton, JComboBox, Faceted navigation, Observer
+ */
+public class TagFilterPanel extends JPanel implements TaskListener {
+    private static final String[] PRIORITIES = {"HIGH", "MEDIUM", "LOW"};
+    
+    private final TagIndex index;
+    private final TaskPanel taskPanel;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Map<String, JToggleButton> tagButtons = new LinkedHashMap<>();
+    private final TreeSet<String> selectedTags = new TreeSet<>();
+    
+    private JPanel tagsPanel;
+    private JComboBox<String> matchCombo;
+    private JComboBox<String> priorityCombo;
+    private JComboBox<String> statusCombo;
+    private JLabel countLabel;
+    private boolean updating;
+    
+    public TagFilterPanel(TaskPanel taskPanel) {
+        this.taskPanel = taskPanel;
+        this.index = taskPanel.getTagIndex();
+        setLayout(new BorderLayout(0, 4));
+        setBorder(BorderFactory.createEmptyBorder(5, 10, 0, 10));
+        
+        initComponents();
+        
+        // TaskPanel attached the index already, so it is up to date when this panel hears of a change
+        TaskManager.getInstance().addTaskListener(this);
+        refresh();
+    }
+    
+    private void initComponents() {
+        JPanel choices = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        matchCombo = new JComboBox<>(new String[] {"All tags", "Any tag"});
+        priorityCombo = new JComboBox<>(new String[] {"", "", "", ""});
+        statusCombo = new JComboBox<>(new String[] {"", "", ""});
+        JButton clearButton = new JButton("Clear");
+        countLabel = new JLabel();
+        
+        matchCombo.addActionListener(e -> filterChanged());
+        priorityCombo.addActionListener(e -> filterChanged());
+        statusCombo.addActionListener(e -> filterChanged());
+        clearButton.addActionListener(e -> {
+            updating = true;
+            selectedTags.clear();
+            matchCombo.setSelectedIndex(0);
+            priorityCombo.setSelectedIndex(0);
+            statusCombo.setSelectedIndex(0);
+            updating = false;
+            filterChanged();
+        });
+        
+        choices.add(new JLabel("Match:"));
+        choices.add(matchCombo);
+        choices.add(new JLabel("Priority:"));
+        choices.add(priorityCombo);
+        choices.add(new JLabel("Status:"));
+        choices.add(statusCombo);
+        choices.add(clearButton);
+        choices.add(countLabel);
+        
+        tagsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        JScrollPane tagsScroll = new JScrollPane(tagsPanel,
+            JScrollPane.VERTICAL_SCROLLBAR_NEVER, JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        tagsScroll.setBorder(BorderFactory.createEmptyBorder());
+        
+        add(choices, BorderLayout.NORTH);
+        add(tagsScroll, BorderLayout.CENTER);
+    }
+    
+    /**
+     * The filter chosen in the bar
+     */
+    public TagIndex.Filter getFilter() {
+        String priority = priorityCombo.getSelectedIndex() > 0 ? PRIORITIES[priorityCombo.getSelectedIndex() - 1] : null;
+        Boolean completed = statusCombo.getSelectedIndex() == 0 ? null : statusCombo.getSelectedIndex() == 2;
+        return new TagIndex.Filter(selectedTags, matchCombo.getSelectedIndex() == 0, priority, completed);
+    }
+    
+    private void filterChanged() {
+        if (updating) {
+            return;
+        }
+        taskPanel.setFilter(getFilter());
+        refresh();
+    }
+    
+    /**
+     * Re-read the counts from the index
+     */
+    public void refresh() {
+        refreshPending.set(false);
+        TagIndex.Facets facets = index.getFacets(getFilter());
+        Map<String, Integer> tagCounts = facets.getTagCounts();
+        
+        // Tags that disappeared cannot stay selected
+        if (selectedTags.retainAll(tagCounts.keySet())) {
+            taskPanel.setFilter(getFilter());
+            facets = index.getFacets(getFilter());
+            tagCounts = facets.getTagCounts();
+        }
+        
+        if (!new ArrayList<>(tagButtons.keySet()).equals(new ArrayList<>(tagCounts.keySet()))) {
+            rebuildTagButtons(tagCounts.keySet());
+        }
+        for (Map.Entry<String, Integer> entry : tagCounts.entrySet()) {
+            JToggleButton button = tagButtons.get(entry.getKey());
+            button.setText("#" + entry.getKey() + " (" + entry.getValue() + ")");
+            button.setSelected(selectedTags.contains(entry.getKey()));
+        }
+        
+        updating = true;
+        String[] priorityLabels = new String[PRIORITIES.length + 1];
+        int anyPriority = 0;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            int count = facets.getPriorityCount(PRIORITIES[i]);
+            priorityLabels[i + 1] = PRIORITIES[i] + " (" + count + ")";
+            anyPriority += count;
+        }
+        priorityLabels[0] = "Any priority (" + anyPriority + ")";
+        setItems(priorityCombo, priorityLabels);
+        setItems(statusCombo, "All (" + (facets.getPending() + facets.getCompleted()) + ")",
+            "Pending (" + facets.getPending() + ")",
+            "Completed (" + facets.getCompleted() + ")");
+        updating = false;
+        
+        countLabel.setText("Showing " + facets.getMatching() + " of " + facets.getTotal());
+        tagsPanel.revalidate();
+        tagsPanel.repaint();
+    }
+    
+    private void rebuildTagButtons(Collection<String> tags) {
+        tagsPanel.removeAll();
+        tagButtons.clear();
+        tagsPanel.add(new JLabel(tags.isEmpty() ? "No tags yet" : "Tags:"));
+        for (String tag : tags) {
+            JToggleButton button = new JToggleButton();
+            button.setFocusPainted(false);
+            button.addActionListener(e -> {
+                if (button.isSelected()) {
+                    selectedTags.add(tag);
+                } else {
+                    selectedTags.remove(tag);
+                }
+                filterChanged();
+            });
+            tagButtons.put(tag, button);
+            tagsPanel.add(button);
+        }
+    }
+    
+    // Relabel the items in place, keeping the selection
+    private static void setItems(JComboBox<String> combo, String... labels) {
+        int selected = combo.getSelectedIndex();
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>(labels);
+        model.setSelectedItem(labels[Math.max(0, selected)]);
+        combo.setModel(model);
+    }
+    
+    // TaskListener: a burst of changes results in a single refresh on the EDT
+    
+    private void refreshLater() {
+        if (refreshPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
+    }
+    
+    @Override
+    public void tasksAdded(List<Task> tasks) {
+        refreshLater();
+    }
+    
+    @Override
+    public void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        refreshLater();
+    }
+    
+    @Override
+    public void tasksRemoved(List<Task> tasks) {
+        refreshLater();
+    }
+    
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        refreshLater();
+    }
+}
@@ -0,0 +1,127 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.util.DatabaseHandler;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Dialog that pages through completed tasks stored in the database
+ * Only one page is held in memory at a time.
+ * Demonstrates: JTable, SwingWorker, keyset pagination
+ */
+public class TaskHistoryDialog extends JDialog {
+    private static final int PAGE_SIZE = 50;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+    
+    private DefaultTableModel tableModel;
+    private JButton previousButton;
+    private JButton nextButton;
+    private JLabel pageLabel;
+    
+    // Last task of each page shown so far; the top is where the current page started
+    private final Deque<Task> pageStarts = new ArrayDeque<>();
+    private Task pageStart;
+    private Task lastOnPage;
+    private int pageNumber = 1;
+    
+    public TaskHistoryDialog(JFrame parent) {
+        super(parent, "Completed Task History", true);
+        setSize(700, 450);
+        setLocationRelativeTo(parent);
+        
+        initComponents();
+        loadPage(null);
+    }
+    
+    private void initComponents() {
+        setLayout(new BorderLayout(10, 10));
+        
+        tableModel = new DefaultTableModel(new String[] {"Title", "Reminder", "Priority"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(tableModel);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        previousButton = new JButton("< Previous");
+        nextButton = new JButton("Next >");
+        pageLabel = new JLabel();
+        JButton closeButton = new JButton("Close");
+        
+        previousButton.addActionListener(e -> {
+            pageNumber--;
+            loadPage(pageStarts.pop());
+        });
+        nextButton.addActionListener(e -> {
+            pageStarts.push(pageStart);
+            pageNumber++;
+            loadPage(lastOnPage);
+        });
+        closeButton.addActionListener(e -> dispose());
+        
+        buttonPanel.add(previousButton);
+        buttonPanel.add(pageLabel);
+        buttonPanel.add(nextButton);
+        buttonPanel.add(closeButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+    
+    /**
+     * Load the page that starts after 'after' on a background thread
+     */
+    private void loadPage(Task after) {
+        previousButton.setEnabled(false);
+        nextButton.setEnabled(false);
+        pageLabel.setText("Loading...");
+        
+        new SwingWorker<List<Task>, Void>() {
+            @Override
+            protected List<Task> doInBackground() throws Exception {
+                // Fetch one extra row to know whether a next page exists
+                return DatabaseHandler.findTasks(true, after, PAGE_SIZE + 1);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    List<Task> page = get();
+                    boolean hasNext = page.size() > PAGE_SIZE;
+                    if (hasNext) {
+                        page = page.subList(0, PAGE_SIZE);
+                    }
+                    
+                    tableModel.setRowCount(0);
+                    for (Task task : page) {
+                        tableModel.addRow(new Object[] {
+                            task.getTitle(),
+                            task.getReminderTime().format(FORMATTER),
+                            task.getPriority()
+                        });
+                    }
+                    
+                    pageStart = after;
+                    lastOnPage = page.isEmpty() ? after : page.get(page.size() - 1);
+                    pageLabel.setText("Page " + pageNumber);
+                    previousButton.setEnabled(!pageStarts.isEmpty());
+                    nextButton.setEnabled(hasNext);
+                } catch (Exception e) {
+                    pageLabel.setText("Error");
+                    JOptionPane.showMessageDialog(TaskHistoryDialog.this,
+                        "Error loading history: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,135 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskOrder;
+
+import javax.swing.AbstractListModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shown tasks in display order, for the task list
+ * Row i shows getElementAt(i); a map by id finds the shown version of a task,
+ * and binary search (every TaskOrder ends with the id) finds its row. A
+ * changed task is repainted where it is when it still sorts between its
+ * neighbours, and otherwise moved by binary insertion, so every change
+ * reports just the rows it touches.
+ * Demonstrates: AbstractListModel, Binary insertion
+ */
+class TaskListModel extends AbstractListModel<Task> {
+    private final List<Task> tasks = new ArrayList<>();
+    private final Map<String, Task> shownById = new HashMap<>();
+    private TaskOrder order = TaskOrder.DUE_TIME;
+    
+    @Override
+    public int getSize() {
+        return tasks.size();
+    }
+    
+    @Override
+    public Task getElementAt(int index) {
+        return tasks.get(index);
+    }
+    
+    List<Task> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+    
+    TaskOrder getOrder() {
+        return order;
+    }
+    
+    /**
+     * Show 'order' from the next setAll() on
+     */
+    void setOrder(TaskOrder order) {
+        this.order = order;
+    }
+    
+    /**
+     * Shown version of a task, or null if it is not shown
+     */
+    Task getShown(String id) {
+        return shownById.get(id);
+    }
+    
+    /**
+     * Show exactly 'matching' (in any order), replacing every row
+     */
+    void setAll(List<Task> matching) {
+        List<Task> sorted = new ArrayList<>(matching);
+        sorted.sort(order.getComparator());
+        
+        int oldSize = tasks.size();
+        tasks.clear();
+        shownById.clear();
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        tasks.addAll(sorted);
+        for (Task task : sorted) {
+            shownById.put(task.getId(), task);
+        }
+        if (!tasks.isEmpty()) {
+            fireIntervalAdded(this, 0, tasks.size() - 1);
+        }
+    }
+    
+    /**
+     * Add, move, repaint or remove the row of one task; 'current' is its
+     * current version, or null if it is gone or does not match the filter
+     */
+    void sync(String id, Task current) {
+        Task old = shownById.remove(id);
+        int oldIndex = old == null ? -1 : indexOf(old);
+        if (current == null) {
+            if (oldIndex >= 0) {
+                remove(oldIndex);
+            }
+            return;
+        }
+        
+        shownById.put(id, current);
+        if (oldIndex >= 0) {
+            // Still in place (or the blocker count changed): just repaint the row
+            if (order.getComparator().compare(old, current) == 0 || isInPlace(oldIndex, current)) {
+                tasks.set(oldIndex, current);
+                fireContentsChanged(this, oldIndex, oldIndex);
+                return;
+            }
+            remove(oldIndex);
+        }
+        int index = -Collections.binarySearch(tasks, current, order.getComparator()) - 1;
+        tasks.add(index, current);
+        fireIntervalAdded(this, index, index);
+    }
+    
+    /**
+     * Repaint the row of a shown task
+     */
+    void changed(String id) {
+        Task task = shownById.get(id);
+        if (task != null) {
+            int index = indexOf(task);
+            fireContentsChanged(this, index, index);
+        }
+    }
+    
+    private int indexOf(Task shownVersion) {
+        return Collections.binarySearch(tasks, shownVersion, order.getComparator());
+    }
+    
+    // Whether 'task' sorts between the neighbours of row 'index'
+    private boolean isInPlace(int index, Task task) {
+        return (index == 0 || order.getComparator().compare(tasks.get(index - 1), task) < 0)
+            && (index == tasks.size() - 1 || order.getComparator().compare(task, tasks.get(index + 1)) < 0);
+    }
+    
+    private void remove(int index) {
+        tasks.remove(index);
+        fireIntervalRemoved(this, index, index);
+    }
+}
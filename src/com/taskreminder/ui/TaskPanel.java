@@ -1,112 +1,302 @@
 package com.taskreminder.ui;
 
+import com.taskreminder.model.TagIndex;
 import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskListener;
 import com.taskreminder.model.TaskManager;
+import com.taskreminder.model.TaskOrder;
+import com.taskreminder.util.AppClock;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Panel to display all tasks
- * Demonstrates: JPanel, BoxLayout, Custom Components
+ * Tasks are shown in a JList backed by a TaskListModel; one card component
+ * renders every visible row, so only the rows on screen are ever painted, no
+ * matter how many tasks there are. Rows all have the same height, so the list
+ * never measures them either. Clicks on a row's buttons are found by laying the
+ * card out over that row.
+ * Listens to TaskManager and inserts, removes or repaints only the affected
+ * rows; refreshTasks() rebuilds everything. Only tasks matching the filter
+ * chosen in the TagFilterPanel are shown: they are read from a TagIndex, which
+ * evaluates the filter on its bitsets, and each changed task is checked
+ * against its postings, so the task list is never scanned.
+ * Rows are kept in the chosen TaskOrder by the model, which places a new or
+ * changed task by binary search and reports just that index, so one change
+ * never re-sorts or re-renders the whole list.
+ * Pending tasks are indexed by reminder time, and a single timer set for the
+ * earliest one repaints just those rows when they become overdue.
+ * Demonstrates: JList, ListCellRenderer, Observer, Swing Timer
  */
-public class TaskPanel extends JPanel {
-    private JPanel tasksContainer;
+public class TaskPanel extends JPanel implements TaskListener {
+    private static final int SNOOZE_MINUTES = 10;
+    private static final String LIST_CARD = "list";
+    private static final String EMPTY_CARD = "empty";
+    // Larger batches (imports, bulk adds) rebuild the list in one go instead
+    private static final int MAX_ROW_SYNC = 500;
+    
+    private TaskListModel model;
+    private JList<Task> list;
+    private TaskCardRenderer renderer;
+    private CardLayout cards;
+    private JLabel emptyLabel;
+    private TagIndex.Filter filter = TagIndex.Filter.ALL;
+    private final TagIndex tagIndex = new TagIndex();
+    
+    // Pending tasks that are not overdue yet, by reminder time
+    private TreeMap<LocalDateTime, Set<String>> deadlines;
+    private Map<String, LocalDateTime> deadlineById;
+    private Timer overdueTimer;
     
     public TaskPanel() {
-        setLayout(new BorderLayout());
+        cards = new CardLayout();
+        setLayout(cards);
         
-        tasksContainer = new JPanel();
-        tasksContainer.setLayout(new BoxLayout(tasksContainer, BoxLayout.Y_AXIS));
-        tasksContainer.setBackground(Color.WHITE);
+        model = new TaskListModel();
+        renderer = new TaskCardRenderer();
+        list = new JList<>(model);
+        list.setCellRenderer(renderer);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Fixed sizes: the list never asks the renderer to measure every row
+        list.setFixedCellHeight(renderer.getPreferredSize().height);
+        list.setFixedCellWidth(300);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                clickButtonAt(e.getPoint());
+            }
+        });
+        deadlines = new TreeMap<>();
+        deadlineById = new HashMap<>();
         
-        add(tasksContainer, BorderLayout.NORTH);
+        overdueTimer = new Timer(0, e -> markOverdue());
+        overdueTimer.setRepeats(false);
+        
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        add(scrollPane, LIST_CARD);
+        add(createEmptyPanel(), EMPTY_CARD);
+        
+        // The index registers first, so it is up to date when this panel hears of a change
+        TaskManager manager = TaskManager.getInstance();
+        manager.attach(tagIndex);
+        refreshTasks();
+        manager.addTaskListener(this);
+    }
+    
+    /**
+     * Index the filter is evaluated on (shared with the TagFilterPanel for its counts)
+     */
+    public TagIndex getTagIndex() {
+        return tagIndex;
+    }
+    
+    // Rows and the overdue timer, for tests
+    TaskListModel getListModel() {
+        return model;
+    }
+    
+    Timer getOverdueTimer() {
+        return overdueTimer;
+    }
+    
+    /**
+     * Show only the tasks matching 'filter'
+     */
+    public void setFilter(TagIndex.Filter filter) {
+        this.filter = filter;
         refreshTasks();
     }
     
+    /**
+     * Show the tasks in 'order'
+     */
+    public void setOrder(TaskOrder order) {
+        model.setOrder(order);
+        refreshTasks();
+    }
+    
+    public TaskOrder getOrder() {
+        return model.getOrder();
+    }
+    
     public void refreshTasks() {
-        tasksContainer.removeAll();
-        
-        TaskManager manager = TaskManager.getInstance();
-        java.util.List<Task> tasks = manager.getAllTasks();
+        deadlines.clear();
+        deadlineById.clear();
         
-        if (tasks.isEmpty()) {
-            JLabel emptyLabel = new JLabel("No tasks yet. Click 'Add Task' to create one!");
-            emptyLabel.setFont(new Font("Arial", Font.ITALIC, 16));
-            emptyLabel.setForeground(Color.GRAY);
-            emptyLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            tasksContainer.add(Box.createVerticalStrut(50));
-            tasksContainer.add(emptyLabel);
-        } else {
+        List<Task> shown = tagIndex.getMatchingTasks(filter);
+        for (Task task : shown) {
+            trackDeadline(task);
+        }
+        model.setAll(shown);
+        updateEmptyState();
+        scheduleOverdueTimer();
+    }
+    
+    // TaskListener callbacks arrive on the changing thread; the EDT then syncs
+    // each affected row with the task's current version, so a late event
+    // never brings back stale data
+    
+    @Override
+    public void tasksAdded(List<Task> tasks) {
+        syncLater(tasks);
+    }
+    
+    @Override
+    public void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+        syncLater(newVersions);
+    }
+    
+    @Override
+    public void tasksRemoved(List<Task> tasks) {
+        syncLater(tasks);
+    }
+    
+    @Override
+    public void tasksReloaded(List<Task> tasks) {
+        SwingUtilities.invokeLater(this::refreshTasks);
+    }
+    
+    @Override
+    public void readinessChanged(List<Task> nowReady, List<Task> nowBlocked) {
+        List<Task> changed = new ArrayList<>(nowReady);
+        changed.addAll(nowBlocked);
+        syncLater(changed);
+    }
+    
+    private void syncLater(List<Task> tasks) {
+        SwingUtilities.invokeLater(() -> {
+            if (tasks.size() > MAX_ROW_SYNC) {
+                refreshTasks();
+                return;
+            }
+            TaskManager manager = TaskManager.getInstance();
             for (Task task : tasks) {
-                tasksContainer.add(createTaskCard(task));
-                tasksContainer.add(Box.createVerticalStrut(10));
+                syncRow(task.getId(), manager.getTaskById(task.getId()));
             }
+            updateEmptyState();
+            scheduleOverdueTimer();
+        });
+    }
+    
+    // Add, move, repaint or remove the row of one task, and track its deadline if it is shown
+    private void syncRow(String id, Task current) {
+        untrackDeadline(id);
+        Task shown = current != null && tagIndex.matches(filter, id) ? current : null;
+        model.sync(id, shown);
+        if (shown != null) {
+            trackDeadline(shown);
         }
-        
-        tasksContainer.revalidate();
-        tasksContainer.repaint();
-    }
-    
-    private JPanel createTaskCard(Task task) {
-        JPanel card = new JPanel(new BorderLayout(10, 10));
-        card.setBorder(BorderFactory.createCompoundBorder(
-            BorderFactory.createLineBorder(task.isCompleted() ? Color.GREEN : getPriorityColor(task.getPriority()), 2),
-            BorderFactory.createEmptyBorder(10, 15, 10, 15)
-        ));
-        card.setBackground(Color.WHITE);
-        card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 120));
-        
-        // Left side - Task info
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setBackground(Color.WHITE);
-        
-        JLabel titleLabel = new JLabel(task.getTitle());
-        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
-        if (task.isCompleted()) {
-            titleLabel.setText("\u2713 " + task.getTitle());
-            titleLabel.setForeground(Color.GRAY);
+    }
+    
+    // Overdue highlighting: only rows whose deadline has just passed are repainted
+    
+    private void trackDeadline(Task task) {
+        if (task.isCompleted() || task.isDue()) {
+            return;
         }
+        LocalDateTime time = task.getReminderTime();
+        deadlines.computeIfAbsent(time, t -> new HashSet<>()).add(task.getId());
+        deadlineById.put(task.getId(), time);
+    }
+    
+    private void untrackDeadline(String id) {
+        LocalDateTime time = deadlineById.remove(id);
+        if (time != null) {
+            Set<String> ids = deadlines.get(time);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                deadlines.remove(time);
+            }
+        }
+    }
+    
+    private void scheduleOverdueTimer() {
+        overdueTimer.stop();
+        if (deadlines.isEmpty()) {
+            return;
+        }
+        // isDue() is strictly after the reminder time, hence the extra millisecond
+        long delay = Duration.between(AppClock.now(), deadlines.firstKey()).toMillis() + 1;
+        overdueTimer.setInitialDelay((int) Math.max(0, Math.min(Integer.MAX_VALUE, delay)));
+        overdueTimer.start();
+    }
+    
+    // Runs when the overdue timer fires
+    void markOverdue() {
+        LocalDateTime now = AppClock.now();
+        Iterator<Map.Entry<LocalDateTime, Set<String>>> it = deadlines.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<LocalDateTime, Set<String>> entry = it.next();
+            if (!now.isAfter(entry.getKey())) {
+                break;
+            }
+            for (String id : entry.getValue()) {
+                deadlineById.remove(id);
+                model.changed(id);
+            }
+            it.remove();
+        }
+        scheduleOverdueTimer();
+    }
+    
+    private void updateEmptyState() {
+        if (model.getSize() == 0) {
+            emptyLabel.setText(filter.isEmpty()
+                ? "No tasks yet. Click 'Add Task' to create one!"
+                : "No tasks match the filter.");
+            cards.show(this, EMPTY_CARD);
+        } else {
+            cards.show(this, LIST_CARD);
+        }
+    }
+    
+    private JPanel createEmptyPanel() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBackground(Color.WHITE);
         
-        JLabel descLabel = new JLabel(task.getDescription());
-        descLabel.setFont(new Font("Arial", Font.PLAIN, 12));
-        descLabel.setForeground(Color.DARK_GRAY);
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
-        JLabel timeLabel = new JLabel("\u23f0 " + task.getReminderTime().format(formatter));
-        timeLabel.setFont(new Font("Arial", Font.PLAIN, 12));
-        timeLabel.setForeground(task.isDue() && !task.isCompleted() ? Color.RED : Color.BLUE);
-        
-        JLabel priorityLabel = new JLabel("Priority: " + task.getPriority());
-        priorityLabel.setFont(new Font("Arial", Font.BOLD, 11));
-        priorityLabel.setForeground(getPriorityColor(task.getPriority()));
-        
-        infoPanel.add(titleLabel);
-        infoPanel.add(Box.createVerticalStrut(5));
-        infoPanel.add(descLabel);
-        infoPanel.add(Box.createVerticalStrut(5));
-        infoPanel.add(timeLabel);
-        infoPanel.add(Box.createVerticalStrut(3));
-        infoPanel.add(priorityLabel);
-        
-        // Right side - Buttons
-        JPanel buttonPanel = new JPanel();
-        buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.Y_AXIS));
-        buttonPanel.setBackground(Color.WHITE);
-        
-        JButton completeButton = new JButton(task.isCompleted() ? "Completed" : "Complete");
-        completeButton.setEnabled(!task.isCompleted());
-        completeButton.addActionListener(e -> {
+        emptyLabel = new JLabel();
+        emptyLabel.setFont(new Font("Arial", Font.ITALIC, 16));
+        emptyLabel.setForeground(Color.GRAY);
+        emptyLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        panel.add(Box.createVerticalStrut(50));
+        panel.add(emptyLabel);
+        return panel;
+    }
+    
+    // Lay the card out over the clicked row and press the button under the pointer
+    private void clickButtonAt(Point point) {
+        int index = list.locationToIndex(point);
+        Rectangle bounds = index < 0 ? null : list.getCellBounds(index, index);
+        if (bounds == null || !bounds.contains(point)) {
+            return;
+        }
+        Task task = model.getElementAt(index);
+        Component card = renderer.getListCellRendererComponent(list, task, index, false, false);
+        card.setBounds(0, 0, bounds.width, bounds.height);
+        layoutTree(card);
+        Component hit = SwingUtilities.getDeepestComponentAt(card, point.x - bounds.x, point.y - bounds.y);
+        if (hit == renderer.completeButton && hit.isEnabled()) {
             TaskManager.getInstance().markTaskCompleted(task.getId());
-            refreshTasks();
-        });
-        
-        JButton deleteButton = new JButton("Delete");
-        deleteButton.setBackground(new Color(231, 76, 60));
-        deleteButton.setForeground(Color.WHITE);
-        deleteButton.addActionListener(e -> {
+        } else if (hit == renderer.snoozeButton && hit.isVisible()) {
+            TaskManager.getInstance().snoozeTask(task.getId(), SNOOZE_MINUTES);
+        } else if (hit == renderer.deleteButton) {
             int choice = JOptionPane.showConfirmDialog(this,
                 "Delete this task?",
                 "Confirm Delete",
@@ -114,21 +304,21 @@ public class TaskPanel extends JPanel {
             
             if (choice == JOptionPane.YES_OPTION) {
                 TaskManager.getInstance().removeTask(task);
-                refreshTasks();
             }
-        });
-        
-        buttonPanel.add(completeButton);
-        buttonPanel.add(Box.createVerticalStrut(5));
-        buttonPanel.add(deleteButton);
-        
-        card.add(infoPanel, BorderLayout.CENTER);
-        card.add(buttonPanel, BorderLayout.EAST);
-        
-        return card;
+        }
     }
     
-    private Color getPriorityColor(String priority) {
+    private static void layoutTree(Component component) {
+        if (component instanceof Container) {
+            Container container = (Container) component;
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layoutTree(child);
+            }
+        }
+    }
+    
+    private static Color getPriorityColor(String priority) {
         switch (priority) {
             case "HIGH":
                 return new Color(231, 76, 60);
@@ -140,4 +330,105 @@ public class TaskPanel extends JPanel {
                 return Color.GRAY;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * One task card, filled in anew for every row that is painted
+     */
+    private static class TaskCardRenderer extends JPanel implements ListCellRenderer<Task> {
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+        
+        private final JLabel titleLabel = new JLabel(" ");
+        private final JLabel descLabel = new JLabel(" ");
+        private final JLabel timeLabel = new JLabel(" ");
+        private final JLabel priorityLabel = new JLabel(" ");
+        private final JLabel waitingLabel = new JLabel(" ");
+        private final JLabel tagsLabel = new JLabel(" ");
+        private final JPanel infoPanel = new JPanel();
+        private final JPanel buttonPanel = new JPanel();
+        final JButton completeButton = new JButton("Complete");
+        final JButton snoozeButton = new JButton("Snooze " + SNOOZE_MINUTES + "m");
+        final JButton deleteButton = new JButton("Delete");
+        
+        TaskCardRenderer() {
+            super(new BorderLayout(10, 10));
+            setBackground(Color.WHITE);
+            
+            // Left side - Task info; the optional lines are always there so every card has the same height
+            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+            infoPanel.setOpaque(false);
+            titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+            descLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+            descLabel.setForeground(Color.DARK_GRAY);
+            timeLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+            priorityLabel.setFont(new Font("Arial", Font.BOLD, 11));
+            waitingLabel.setFont(new Font("Arial", Font.ITALIC, 11));
+            waitingLabel.setForeground(Color.GRAY);
+            tagsLabel.setFont(new Font("Arial", Font.PLAIN, 11));
+            tagsLabel.setForeground(new Color(142, 68, 173));
+            infoPanel.add(titleLabel);
+            infoPanel.add(Box.createVerticalStrut(5));
+            infoPanel.add(descLabel);
+            infoPanel.add(Box.createVerticalStrut(5));
+            infoPanel.add(timeLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(priorityLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(waitingLabel);
+            infoPanel.add(Box.createVerticalStrut(3));
+            infoPanel.add(tagsLabel);
+            
+            // Right side - Buttons
+            buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.Y_AXIS));
+            buttonPanel.setOpaque(false);
+            deleteButton.setBackground(new Color(231, 76, 60));
+            deleteButton.setForeground(Color.WHITE);
+            buttonPanel.add(completeButton);
+            buttonPanel.add(Box.createVerticalStrut(5));
+            buttonPanel.add(snoozeButton);
+            buttonPanel.add(Box.createVerticalStrut(5));
+            buttonPanel.add(deleteButton);
+            
+            add(infoPanel, BorderLayout.CENTER);
+            add(buttonPanel, BorderLayout.EAST);
+            setCardBorder(Color.GRAY);
+        }
+        
+        // The outer empty border leaves the gap between cards
+        private void setCardBorder(Color color) {
+            setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createEmptyBorder(0, 0, 10, 0),
+                BorderFactory.createCompoundBorder(
+                    BorderFactory.createLineBorder(color, 2),
+                    BorderFactory.createEmptyBorder(10, 15, 10, 15)
+                )
+            ));
+        }
+        
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Task> list, Task task, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            setCardBorder(task.isCompleted() ? Color.GREEN : getPriorityColor(task.getPriority()));
+            setBackground(isSelected ? new Color(236, 240, 241) : Color.WHITE);
+            
+            titleLabel.setText(task.isCompleted() ? "\u2713 " + task.getTitle() : task.getTitle());
+            titleLabel.setForeground(task.isCompleted() ? Color.GRAY : Color.BLACK);
+            String description = task.getDescription();
+            descLabel.setText(description == null || description.isEmpty() ? " " : description);
+            timeLabel.setText("\u23f0 " + task.getReminderTime().format(FORMATTER));
+            timeLabel.setForeground(task.isDue() && !task.isCompleted() ? Color.RED : Color.BLUE);
+            priorityLabel.setText("Priority: " + task.getPriority());
+            priorityLabel.setForeground(getPriorityColor(task.getPriority()));
+            
+            int blockers = TaskManager.getInstance().getBlockerCount(task.getId());
+            waitingLabel.setText(blockers > 0 && !task.isCompleted()
+                ? "\u26d3 Waiting for " + blockers + (blockers == 1 ? " task" : " tasks") + " (no reminders yet)"
+                : " ");
+            tagsLabel.setText(task.getTags().isEmpty() ? " " : "#" + String.join("  #", task.getTags()));
+            
+            completeButton.setText(task.isCompleted() ? "Completed" : "Complete");
+            completeButton.setEnabled(!task.isCompleted());
+            snoozeButton.setVisible(!task.isCompleted());
+            return this;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.taskreminder.util;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * Source of the current time for the whole application
+ * Everything that asks "what time is it?" goes through here instead of
+ * LocalDateTime.now(), so tests and simulations can substitute their own Clock.
+ * Demonstrates: java.time.Clock, Dependency Injection through a static holder
+ */
+public final class AppClock {
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    
+    private AppClock() {
+    }
+    
+    /**
+     * Current clock
+     */
+    public static Clock get() {
+        return clock;
+    }
+    
+    /**
+     * Replace the clock (e.g. with a SimulatedClock)
+     */
+    public static void set(Clock newClock) {
+        if (newClock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        clock = newClock;
+    }
+    
+    /**
+     * Go back to the system clock
+     */
+    public static void reset() {
+        clock = Clock.systemDefaultZone();
+    }
+    
+    /**
+     * Current date and time according to the clock
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+}
@@ -0,0 +1,247 @@
+package com.taskreminder.util;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive Handler for completed tasks
+ * Archived tasks are written to compressed, append-only segment files in
+ * data/archive (one new segment per archive run, never rewritten) and are
+ * streamed back lazily, one task at a time.
+ * Archiving and trimming tasks.json are one logical step: a marker file
+ * records the last segment whose tasks are known to be gone from tasks.json.
+ * Segments after it are uncommitted, and their task ids tell the next run
+ * which tasks were archived already but never trimmed (after a crash or a
+ * failed save), so they are dropped instead of archived again.
+ * Archived tasks leave TaskManager through removeArchived(), so listeners can
+ * tell them from tasks the user deleted.
+ * Demonstrates: GZIP streams, Gson streaming API, lazy Streams, atomic file moves
+ */
+public class ArchiveHandler {
+    private static final String ARCHIVE_DIR = FileHandler.getDataDir() + File.separator + "archive";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".json.gz";
+    private static final String COMMITTED_FILE = "committed";
+    
+    // Set while this thread takes archived tasks out of TaskManager
+    private static final ThreadLocal<Boolean> REMOVING = ThreadLocal.withInitial(() -> false);
+    
+    /**
+     * Write tasks into a new archive segment
+     */
+    public static synchronized void archiveTasks(List<Task> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        File dir = new File(ARCHIVE_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create archive directory: " + ARCHIVE_DIR);
+        }
+        
+        File[] segments = listSegments();
+        int nextNumber = segments.length == 0 ? 1 : segmentNumber(segments[segments.length - 1]) + 1;
+        File segment = new File(dir, String.format("%s%06d%s", SEGMENT_PREFIX, nextNumber, SEGMENT_SUFFIX));
+        File temp = new File(dir, segment.getName() + ".tmp");
+        
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+             JsonWriter writer = new JsonWriter(new OutputStreamWriter(
+                 new GZIPOutputStream(new BufferedOutputStream(fileOut)), StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (Task task : tasks) {
+                FileHandler.getGson().toJson(task, Task.class, writer);
+            }
+            writer.endArray();
+            writer.flush();
+        }
+        
+        // Readers only ever see complete segments
+        Files.move(temp.toPath(), segment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Take archived tasks out of TaskManager; its listeners are told about an
+     * ordinary removal, during which isRemovingArchived() is true
+     */
+    public static void removeArchived(TaskManager manager, List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        REMOVING.set(true);
+        try {
+            manager.removeTasks(tasks);
+        } finally {
+            REMOVING.set(false);
+        }
+    }
+    
+    /**
+     * Whether the removal being reported on this thread moves tasks to the archive
+     */
+    public static boolean isRemovingArchived() {
+        return REMOVING.get();
+    }
+    
+    /**
+     * Ids of tasks in segments written since the last commit(): archived, but
+     * maybe still in tasks.json
+     */
+    public static synchronized Set<String> getUncommittedIds() throws IOException {
+        Set<String> ids = new HashSet<>();
+        int committed = readCommitted();
+        List<File> uncommitted = new ArrayList<>();
+        for (File segment : listSegments()) {
+            if (segmentNumber(segment) > committed) {
+                uncommitted.add(segment);
+            }
+        }
+        if (uncommitted.isEmpty()) {
+            return ids;
+        }
+        try (Stream<Task> tasks = stream(uncommitted.toArray(new File[0]))) {
+            tasks.forEach(task -> ids.add(task.getId()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return ids;
+    }
+    
+    /**
+     * Record that tasks.json was saved without the tasks of every segment written so far
+     */
+    public static synchronized void commit() throws IOException {
+        File[] segments = listSegments();
+        if (segments.length > 0) {
+            writeCommitted(segmentNumber(segments[segments.length - 1]));
+        }
+    }
+    
+    /**
+     * Lazily stream all archived tasks, oldest segment first
+     * Only one segment is open at a time; close the stream when done.
+     */
+    public static Stream<Task> streamArchivedTasks() {
+        return stream(listSegments());
+    }
+    
+    private static Stream<Task> stream(File[] segments) {
+        SegmentIterator iterator = new SegmentIterator(segments);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(iterator::close);
+    }
+    
+    /**
+     * Number of archive segments on disk
+     */
+    public static int getSegmentCount() {
+        return listSegments().length;
+    }
+    
+    private static File[] listSegments() {
+        File[] segments = new File(ARCHIVE_DIR).listFiles(
+            (dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+    
+    // Number of the last committed segment; 0 if none (or the marker is missing)
+    private static int readCommitted() throws IOException {
+        File file = new File(ARCHIVE_DIR, COMMITTED_FILE);
+        if (!file.exists()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    private static void writeCommitted(int number) throws IOException {
+        File file = new File(ARCHIVE_DIR, COMMITTED_FILE);
+        File temp = new File(ARCHIVE_DIR, COMMITTED_FILE + ".tmp");
+        Files.write(temp.toPath(), Integer.toString(number).getBytes(StandardCharsets.US_ASCII));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private static int segmentNumber(File segment) {
+        String name = segment.getName();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+    
+    /**
+     * Reads tasks from one segment after another
+     */
+    private static class SegmentIterator implements Iterator<Task> {
+        private final File[] segments;
+        private int nextSegment;
+        private JsonReader reader;
+        
+        SegmentIterator(File[] segments) {
+            this.segments = segments;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            try {
+                while (true) {
+                    if (reader != null && reader.hasNext()) {
+                        return true;
+                    }
+                    close();
+                    if (nextSegment >= segments.length) {
+                        return false;
+                    }
+                    reader = new JsonReader(new InputStreamReader(
+                        new GZIPInputStream(new BufferedInputStream(new FileInputStream(segments[nextSegment++]))),
+                        StandardCharsets.UTF_8));
+                    reader.beginArray();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return FileHandler.getGson().fromJson(reader, Task.class);
+        }
+        
+        void close() {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing archive segment: " + e.getMessage());
+                }
+                reader = null;
+            }
+        }
+    }
+}
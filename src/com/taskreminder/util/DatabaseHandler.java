@@ -0,0 +1,611 @@
+package com.taskreminder.util;
+
+import com.taskreminder.model.ReminderSchedule;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskListener;
+import com.taskreminder.model.TaskManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Database Handler for an embedded, file-based SQL store (H2 or SQLite)
+ * Only a working set is loaded into TaskManager: pending tasks whose first
+ * reminder falls within the next few days (-Dtaskreminder.db.window.days,
+ * default 7), plus the first page of pending tasks for the task list. Each row
+ * stores that first reminder time, indexed, and advanceWindow() loads tasks as
+ * their reminders come into range; loadNextPage() brings in the next page of
+ * pending tasks when the task list asks for more. Completed history stays on
+ * disk and is read page by page through indexed queries: the agenda reads the
+ * stored tasks of the range it shows, the dashboard counts the stored tasks.
+ * Saving writes only what changed: a TaskListener collects the ids of tasks
+ * added, changed or removed since the last load or save.
+ *
+ * Enable with -Dtaskreminder.db.url, e.g. jdbc:h2:./data/tasks or jdbc:sqlite:data/tasks.db,
+ * and put the matching JDBC driver jar in lib/.
+ * Demonstrates: JDBC, PreparedStatement batching, keyset pagination, Observer
+ */
+public class DatabaseHandler {
+    private static final String DB_URL = System.getProperty("taskreminder.db.url");
+    private static final int PAGE_SIZE = 500;
+    private static final String COLUMNS = "id, title, description, reminder_time, priority, completed, task_json";
+    private static final Duration WINDOW = Duration.ofDays(Long.getLong("taskreminder.db.window.days", 7));
+    // The window moves on once it would take in at least this much more
+    private static final Duration WINDOW_STEP = Duration.ofHours(1);
+    private static Connection connection;
+    
+    // Tasks whose first reminder comes before this are loaded; null until loadTasks()
+    private static LocalDateTime loadedUntil;
+    
+    // Last pending task of the pages loaded for the task list, and whether more follow
+    private static Task pageCursor;
+    private static boolean morePending;
+    
+    // Set while this thread puts tasks read from the database into TaskManager
+    private static final ThreadLocal<Boolean> LOADING = ThreadLocal.withInitial(() -> false);
+    
+    // Changes since the last load or save; a task id is in at most one of the sets.
+    // memoryIds are the ids in TaskManager, to tell removals when the whole list is replaced.
+    private static final Object DIRTY_LOCK = new Object();
+    private static final Set<String> dirtyIds = new HashSet<>();
+    private static final Set<String> removedIds = new HashSet<>();
+    private static final Set<String> memoryIds = new HashSet<>();
+    private static boolean tracking;
+    
+    private static final TaskListener CHANGE_TRACKER = new TaskListener() {
+        @Override
+        public void tasksAdded(List<Task> tasks) {
+            changed(tasks, false);
+        }
+        
+        @Override
+        public void tasksUpdated(List<Task> oldVersions, List<Task> newVersions) {
+            changed(newVersions, false);
+        }
+        
+        @Override
+        public void tasksRemoved(List<Task> tasks) {
+            changed(tasks, true);
+        }
+        
+        @Override
+        public void tasksReloaded(List<Task> tasks) {
+            synchronized (DIRTY_LOCK) {
+                Set<String> current = new HashSet<>();
+                for (Task task : tasks) {
+                    current.add(task.getId());
+                }
+                if (!LOADING.get()) {
+                    // Replaced wholesale (e.g. cleared): the tasks that went away are removals
+                    for (String id : memoryIds) {
+                        if (!current.contains(id)) {
+                            dirtyIds.remove(id);
+                            removedIds.add(id);
+                        }
+                    }
+                }
+                memoryIds.clear();
+            }
+            changed(tasks, false);
+        }
+        
+        private void changed(List<Task> tasks, boolean removed) {
+            synchronized (DIRTY_LOCK) {
+                for (Task task : tasks) {
+                    String id = task.getId();
+                    if (removed) {
+                        memoryIds.remove(id);
+                    } else {
+                        memoryIds.add(id);
+                    }
+                    if (!LOADING.get()) {
+                        (removed ? dirtyIds : removedIds).remove(id);
+                        (removed ? removedIds : dirtyIds).add(id);
+                    }
+                }
+            }
+        }
+    };
+    
+    /**
+     * Check if a database URL was configured
+     */
+    public static boolean isEnabled() {
+        return DB_URL != null && !DB_URL.isEmpty();
+    }
+    
+    /**
+     * Open the connection and create schema and indexes on first use
+     */
+    private static synchronized Connection getConnection() throws SQLException {
+        if (connection == null) {
+            if (!isEnabled()) {
+                throw new SQLException("No database configured (set -Dtaskreminder.db.url)");
+            }
+            connection = DriverManager.getConnection(DB_URL);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS tasks ("
+                    + "id VARCHAR(64) PRIMARY KEY, "
+                    + "title VARCHAR(1000) NOT NULL, "
+                    + "description TEXT, "
+                    + "reminder_time BIGINT NOT NULL, "
+                    + "priority VARCHAR(10) NOT NULL, "
+                    + "completed INT NOT NULL, "
+                    + "task_json TEXT, "
+                    + "next_trigger BIGINT)");
+                addColumnIfMissing(statement, "task_json", "TEXT");
+                boolean newTriggers = addColumnIfMissing(statement, "next_trigger", "BIGINT");
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_tasks_reminder "
+                    + "ON tasks (reminder_time, id)");
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_tasks_completed "
+                    + "ON tasks (completed, reminder_time, id)");
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_tasks_priority "
+                    + "ON tasks (priority, completed, reminder_time)");
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_tasks_trigger "
+                    + "ON tasks (completed, next_trigger, id)");
+                if (newTriggers) {
+                    fillTriggers(connection);
+                }
+            }
+        }
+        return connection;
+    }
+    
+    /**
+     * Databases created before a column existed get it added; returns whether it was
+     * (task_json holds the full task as JSON, including fields that are not indexed;
+     * next_trigger the first reminder time of pending tasks, null for completed ones)
+     */
+    private static boolean addColumnIfMissing(Statement statement, String column, String type) throws SQLException {
+        try {
+            statement.executeQuery("SELECT " + column + " FROM tasks WHERE 1 = 0").close();
+            return false;
+        } catch (SQLException e) {
+            statement.executeUpdate("ALTER TABLE tasks ADD COLUMN " + column + " " + type);
+            return true;
+        }
+    }
+    
+    // Work out the first reminder of every pending task stored before next_trigger existed
+    private static void fillTriggers(Connection conn) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM tasks WHERE completed = 0 AND next_trigger IS NULL LIMIT ?";
+        List<Task> page;
+        do {
+            try (PreparedStatement query = conn.prepareStatement(sql)) {
+                query.setInt(1, PAGE_SIZE);
+                page = readTasks(query);
+            }
+            try (PreparedStatement update = conn.prepareStatement(
+                    "UPDATE tasks SET next_trigger = ? WHERE id = ?")) {
+                for (Task task : page) {
+                    setTrigger(update, 1, task);
+                    update.setString(2, task.getId());
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+        } while (page.size() == PAGE_SIZE);
+    }
+    
+    /**
+     * Load the working set into TaskManager: pending tasks whose first reminder
+     * is due within the window, plus the first page of pending tasks
+     */
+    public static synchronized void loadTasks() throws SQLException {
+        LocalDateTime until = AppClock.now().plus(WINDOW);
+        Map<String, Task> working = new LinkedHashMap<>();
+        for (Task task : findByTrigger(null, until)) {
+            working.put(task.getId(), task);
+        }
+        List<Task> firstPage = findTasks(false, null, PAGE_SIZE);
+        for (Task task : firstPage) {
+            working.putIfAbsent(task.getId(), task);
+        }
+        
+        TaskManager manager = TaskManager.getInstance();
+        synchronized (manager) {
+            synchronized (DIRTY_LOCK) {
+                if (!tracking) {
+                    manager.addTaskListener(CHANGE_TRACKER);
+                    tracking = true;
+                }
+                dirtyIds.clear();
+                removedIds.clear();
+            }
+            LOADING.set(true);
+            try {
+                manager.setTasks(new ArrayList<>(working.values()));
+            } finally {
+                LOADING.set(false);
+            }
+        }
+        loadedUntil = until;
+        pageCursor = firstPage.isEmpty() ? null : firstPage.get(firstPage.size() - 1);
+        morePending = firstPage.size() == PAGE_SIZE;
+    }
+    
+    /**
+     * Load the next page of pending tasks (in reminder time order) into TaskManager,
+     * for a task list that has been scrolled to its end. Tasks already in TaskManager,
+     * or removed there and not yet saved, are left alone. Returns the number loaded.
+     */
+    public static synchronized int loadNextPage() throws SQLException {
+        if (!morePending) {
+            return 0;
+        }
+        List<Task> page = findTasks(false, pageCursor, PAGE_SIZE);
+        morePending = page.size() == PAGE_SIZE;
+        if (page.isEmpty()) {
+            return 0;
+        }
+        pageCursor = page.get(page.size() - 1);
+        return addMissing(page);
+    }
+    
+    /**
+     * Whether loadNextPage() may find more pending tasks
+     */
+    public static synchronized boolean hasMorePending() {
+        return morePending;
+    }
+    
+    /**
+     * Load pending tasks whose first reminder has come into the window since the
+     * last load; call regularly (the notification thread does). Tasks already in
+     * TaskManager, or removed there and not yet saved, are left alone.
+     * Returns the number of tasks loaded.
+     */
+    public static synchronized int advanceWindow() throws SQLException {
+        LocalDateTime until = AppClock.now().plus(WINDOW);
+        if (loadedUntil == null || until.isBefore(loadedUntil.plus(WINDOW_STEP))) {
+            return 0;
+        }
+        List<Task> entering = findByTrigger(loadedUntil, until);
+        loadedUntil = until;
+        return addMissing(entering);
+    }
+    
+    // Put the stored tasks that TaskManager neither has nor has removed into it
+    private static int addMissing(List<Task> stored) {
+        TaskManager manager = TaskManager.getInstance();
+        List<Task> missing = new ArrayList<>();
+        synchronized (manager) {
+            synchronized (DIRTY_LOCK) {
+                for (Task task : stored) {
+                    if (manager.getTaskById(task.getId()) == null && !removedIds.contains(task.getId())) {
+                        missing.add(task);
+                    }
+                }
+            }
+            if (!missing.isEmpty()) {
+                LOADING.set(true);
+                try {
+                    manager.addTasks(missing);
+                } finally {
+                    LOADING.set(false);
+                }
+            }
+        }
+        return missing.size();
+    }
+    
+    /**
+     * Write back the tasks added, changed or removed since the last load or save
+     * (every task in TaskManager if nothing was loaded from the database first)
+     */
+    public static synchronized void saveTasks() throws SQLException {
+        TaskManager manager = TaskManager.getInstance();
+        Set<String> dirty;
+        Set<String> removed;
+        List<Task> tasks = new ArrayList<>();
+        // Ids and tasks are read together, under the lock that changes both
+        synchronized (manager) {
+            synchronized (DIRTY_LOCK) {
+                if (!tracking) {
+                    manager.addTaskListener(CHANGE_TRACKER);
+                    tracking = true;
+                    for (Task task : manager.getAllTasks()) {
+                        dirtyIds.add(task.getId());
+                        memoryIds.add(task.getId());
+                    }
+                }
+                dirty = new HashSet<>(dirtyIds);
+                removed = new HashSet<>(removedIds);
+                dirtyIds.clear();
+                removedIds.clear();
+            }
+            for (String id : dirty) {
+                tasks.add(manager.getTaskById(id));
+            }
+        }
+        
+        Connection conn = getConnection();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            if (!removed.isEmpty()) {
+                try (PreparedStatement delete = conn.prepareStatement("DELETE FROM tasks WHERE id = ?")) {
+                    for (String id : removed) {
+                        delete.setString(1, id);
+                        delete.addBatch();
+                    }
+                    delete.executeBatch();
+                }
+            }
+            
+            upsert(conn, tasks);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            // Not written: keep the changes for the next save, unless they were changed again meanwhile
+            synchronized (DIRTY_LOCK) {
+                for (String id : dirty) {
+                    if (!removedIds.contains(id)) {
+                        dirtyIds.add(id);
+                    }
+                }
+                for (String id : removed) {
+                    if (!dirtyIds.contains(id)) {
+                        removedIds.add(id);
+                    }
+                }
+            }
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+    
+    /**
+     * Tasks added, changed or removed since the last load or save
+     */
+    public static int getUnsavedCount() {
+        synchronized (DIRTY_LOCK) {
+            return dirtyIds.size() + removedIds.size();
+        }
+    }
+    
+    /**
+     * Update existing rows in one batch, then insert the ones that did not exist
+     * (portable across H2 and SQLite, which spell "upsert" differently)
+     */
+    private static void upsert(Connection conn, List<Task> tasks) throws SQLException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        int[] updated;
+        try (PreparedStatement update = conn.prepareStatement(
+                "UPDATE tasks SET title = ?, description = ?, reminder_time = ?, priority = ?, completed = ?, "
+                + "task_json = ?, next_trigger = ? WHERE id = ?")) {
+            for (Task task : tasks) {
+                update.setString(1, task.getTitle());
+                update.setString(2, task.getDescription());
+                update.setLong(3, toKey(task.getReminderTime()));
+                update.setString(4, task.getPriority());
+                update.setInt(5, task.isCompleted() ? 1 : 0);
+                update.setString(6, FileHandler.getGson().toJson(task));
+                setTrigger(update, 7, task);
+                update.setString(8, task.getId());
+                update.addBatch();
+            }
+            updated = update.executeBatch();
+        }
+        
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO tasks (" + COLUMNS + ", next_trigger) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            boolean any = false;
+            for (int i = 0; i < tasks.size(); i++) {
+                if (updated[i] != 0) {
+                    continue;
+                }
+                Task task = tasks.get(i);
+                insert.setString(1, task.getId());
+                insert.setString(2, task.getTitle());
+                insert.setString(3, task.getDescription());
+                insert.setLong(4, toKey(task.getReminderTime()));
+                insert.setString(5, task.getPriority());
+                insert.setInt(6, task.isCompleted() ? 1 : 0);
+                insert.setString(7, FileHandler.getGson().toJson(task));
+                setTrigger(insert, 8, task);
+                insert.addBatch();
+                any = true;
+            }
+            if (any) {
+                insert.executeBatch();
+            }
+        }
+    }
+    
+    /**
+     * Read one page of tasks ordered by reminder time, starting after 'after'
+     * (keyset pagination on the (completed, reminder_time, id) index; pass null for the first page)
+     */
+    public static synchronized List<Task> findTasks(boolean completed, Task after, int limit) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM tasks WHERE completed = ?"
+            + (after == null ? "" : " AND (reminder_time > ? OR (reminder_time = ? AND id > ?))")
+            + " ORDER BY reminder_time, id LIMIT ?";
+        
+        try (PreparedStatement query = getConnection().prepareStatement(sql)) {
+            int index = 1;
+            query.setInt(index++, completed ? 1 : 0);
+            if (after != null) {
+                long key = toKey(after.getReminderTime());
+                query.setLong(index++, key);
+                query.setLong(index++, key);
+                query.setString(index++, after.getId());
+            }
+            query.setInt(index, limit);
+            return readTasks(query);
+        }
+    }
+    
+    /**
+     * All pending tasks whose first reminder falls in [from, to) (from null: any time
+     * before 'to', overdue tasks included), read page by page on the next_trigger index
+     */
+    private static List<Task> findByTrigger(LocalDateTime from, LocalDateTime to) throws SQLException {
+        List<Task> tasks = new ArrayList<>();
+        Task last = null;
+        List<Task> page;
+        do {
+            String sql = "SELECT " + COLUMNS + " FROM tasks WHERE completed = 0 AND next_trigger < ?"
+                + (from == null ? "" : " AND next_trigger >= ?")
+                + (last == null ? "" : " AND (next_trigger > ? OR (next_trigger = ? AND id > ?))")
+                + " ORDER BY next_trigger, id LIMIT ?";
+            try (PreparedStatement query = getConnection().prepareStatement(sql)) {
+                int index = 1;
+                query.setLong(index++, toKey(to));
+                if (from != null) {
+                    query.setLong(index++, toKey(from));
+                }
+                if (last != null) {
+                    long key = toKey(ReminderSchedule.firstTrigger(last));
+                    query.setLong(index++, key);
+                    query.setLong(index++, key);
+                    query.setString(index++, last.getId());
+                }
+                query.setInt(index, PAGE_SIZE);
+                page = readTasks(query);
+            }
+            tasks.addAll(page);
+            if (!page.isEmpty()) {
+                last = page.get(page.size() - 1);
+            }
+        } while (page.size() == PAGE_SIZE);
+        return tasks;
+    }
+    
+    /**
+     * Stored tasks whose reminder time falls in [from, to) that are not in TaskManager
+     * (nor removed there and not yet saved), read page by page; together with the
+     * tasks TaskManager has in the range they make up the whole range
+     */
+    public static List<Task> findUnloadedInRange(LocalDateTime from, LocalDateTime to) throws SQLException {
+        TaskManager manager = TaskManager.getInstance();
+        List<Task> unloaded = new ArrayList<>();
+        Task last = null;
+        List<Task> page;
+        do {
+            page = findTasksInRange(from, to, last, PAGE_SIZE);
+            synchronized (DIRTY_LOCK) {
+                for (Task task : page) {
+                    if (manager.getTaskById(task.getId()) == null && !removedIds.contains(task.getId())) {
+                        unloaded.add(task);
+                    }
+                }
+            }
+            if (!page.isEmpty()) {
+                last = page.get(page.size() - 1);
+            }
+        } while (page.size() == PAGE_SIZE);
+        return unloaded;
+    }
+    
+    /**
+     * Read one page of tasks whose reminder time falls in [from, to)
+     */
+    public static synchronized List<Task> findTasksInRange(LocalDateTime from, LocalDateTime to,
+                                                           Task after, int limit) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM tasks WHERE reminder_time >= ? AND reminder_time < ?"
+            + (after == null ? "" : " AND (reminder_time > ? OR (reminder_time = ? AND id > ?))")
+            + " ORDER BY reminder_time, id LIMIT ?";
+        
+        try (PreparedStatement query = getConnection().prepareStatement(sql)) {
+            int index = 1;
+            query.setLong(index++, toKey(from));
+            query.setLong(index++, toKey(to));
+            if (after != null) {
+                long key = toKey(after.getReminderTime());
+                query.setLong(index++, key);
+                query.setLong(index++, key);
+                query.setString(index++, after.getId());
+            }
+            query.setInt(index, limit);
+            return readTasks(query);
+        }
+    }
+    
+    /**
+     * Count stored tasks by completion status (as of the last save)
+     */
+    public static synchronized int countTasks(boolean completed) throws SQLException {
+        try (PreparedStatement query = getConnection().prepareStatement(
+                "SELECT COUNT(*) FROM tasks WHERE completed = ?")) {
+            query.setInt(1, completed ? 1 : 0);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Close the connection
+     */
+    public static synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing database: " + e.getMessage());
+            }
+            connection = null;
+        }
+        loadedUntil = null;
+        pageCursor = null;
+        morePending = false;
+    }
+    
+    private static List<Task> readTasks(PreparedStatement query) throws SQLException {
+        List<Task> tasks = new ArrayList<>();
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                String json = rs.getString(7);
+                if (json != null) {
+                    tasks.add(FileHandler.getGson().fromJson(json, Task.class));
+                    continue;
+                }
+                tasks.add(new Task(
+                    rs.getString(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    fromKey(rs.getLong(4)),
+                    rs.getString(5),
+                    rs.getInt(6) != 0));
+            }
+        }
+        return tasks;
+    }
+    
+    // First reminder of a pending task; null once it is completed
+    private static void setTrigger(PreparedStatement statement, int index, Task task) throws SQLException {
+        LocalDateTime trigger = ReminderSchedule.firstTrigger(task);
+        if (trigger == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, toKey(trigger));
+        }
+    }
+    
+    // Reminder times are stored as sortable epoch seconds of the local date-time
+    private static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    private static LocalDateTime fromKey(long key) {
+        return LocalDateTime.ofEpochSecond(key, 0, ZoneOffset.UTC);
+    }
+}
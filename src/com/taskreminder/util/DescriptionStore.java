@@ -0,0 +1,309 @@
+package com.taskreminder.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Off-heap storage for long task descriptions
+ * Descriptions are kept in a scratch file mapped into memory in fixed-size
+ * segments; a task keeps only an Entry (where its text is), and reads go
+ * through a small LRU cache of decoded strings. The file lives only as long
+ * as the process (tasks.json stays the durable copy).
+ * Equal texts are stored once: a content hash finds the existing Entry, so
+ * parsing the same tasks again (reloads, imports, previews) adds nothing.
+ * Entries are only weakly held by the store; once no task refers to one, its
+ * bytes are dead, and when dead bytes outweigh live ones the live texts are
+ * moved down over them and the space is reused.
+ * Disable with -Dtaskreminder.descriptions.offheap=false.
+ * Demonstrates: Memory-mapped files, MappedByteBuffer, LRU cache with LinkedHashMap, Weak references
+ */
+public class DescriptionStore {
+    // Shorter descriptions stay on the heap: an offset would save next to nothing
+    public static final int INLINE_LIMIT = 64;
+    
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int CACHE_SIZE = 256;
+    private static final long COMPACT_MIN_BYTES = 64 * 1024;
+    private static final boolean ENABLED =
+        Boolean.parseBoolean(System.getProperty("taskreminder.descriptions.offheap", "true"));
+    
+    private static DescriptionStore instance;
+    private static boolean unavailable;
+    
+    /**
+     * Where one stored text is; shared by every task with that text.
+     * The offset moves when the store is compacted, always under the store's lock.
+     */
+    public static final class Entry {
+        private long offset;
+        private final int length;
+        
+        private Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+    
+    // Tracks one Entry without keeping it alive
+    private static final class Slot extends WeakReference<Entry> {
+        private final long hash;
+        private final int length;
+        // Dropped by a compaction before the collector queued it; its bytes are already reclaimed
+        private boolean reclaimed;
+        
+        Slot(Entry entry, long hash, ReferenceQueue<Entry> queue) {
+            super(entry, queue);
+            this.hash = hash;
+            this.length = entry.length;
+        }
+    }
+    
+    private final FileChannel channel;
+    private final int segmentSize;
+    private final long compactMinBytes;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private long size;
+    private long deadBytes;
+    
+    private final List<Slot> slots = new ArrayList<>();
+    private final Map<Long, Slot> byHash = new HashMap<>();
+    private final ReferenceQueue<Entry> released = new ReferenceQueue<>();
+    private long compactions;
+    
+    // Most recently read descriptions, by offset
+    private final Map<Long, String> cache = new LinkedHashMap<Long, String>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private long hits;
+    private long misses;
+    
+    private DescriptionStore(File file) throws IOException {
+        this(file, SEGMENT_SIZE, COMPACT_MIN_BYTES);
+    }
+    
+    // Smaller segments and thresholds let tests cross segments and compact without megabytes of text
+    DescriptionStore(File file, int segmentSize, long compactMinBytes) throws IOException {
+        this.segmentSize = segmentSize;
+        this.compactMinBytes = compactMinBytes;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        file.deleteOnExit();
+    }
+    
+    /**
+     * The process-wide store, or null if off-heap storage is disabled or unavailable
+     */
+    public static synchronized DescriptionStore getInstance() {
+        if (instance == null && ENABLED && !unavailable) {
+            try {
+                instance = new DescriptionStore(File.createTempFile("taskreminder-descriptions", ".blob"));
+            } catch (IOException e) {
+                unavailable = true;
+                System.err.println("Keeping descriptions on the heap: " + e.getMessage());
+            }
+        }
+        return instance;
+    }
+    
+    /**
+     * Whether a description is long enough to be stored off the heap
+     */
+    public static boolean shouldStore(String description) {
+        return description != null && description.length() >= INLINE_LIMIT;
+    }
+    
+    /**
+     * Store encoded text, or find it if it is already stored;
+     * returns null if it does not fit in a segment
+     */
+    public synchronized Entry put(byte[] bytes) {
+        if (bytes.length > segmentSize) {
+            return null;
+        }
+        expungeReleased();
+        
+        long hash = hash(bytes);
+        Slot slot = byHash.get(hash);
+        Entry existing = slot == null ? null : slot.get();
+        if (existing != null && existing.length == bytes.length && Arrays.equals(read(existing), bytes)) {
+            return existing;
+        }
+        
+        if (deadBytes >= compactMinBytes && deadBytes >= size - deadBytes) {
+            compact();
+        }
+        long offset = place(size, bytes.length);
+        try {
+            write(offset, bytes);
+        } catch (IOException e) {
+            System.err.println("Could not store description: " + e.getMessage());
+            return null;
+        }
+        size = offset + bytes.length;
+        
+        Entry entry = new Entry(offset, bytes.length);
+        Slot added = new Slot(entry, hash, released);
+        slots.add(added);
+        if (existing == null) {
+            byHash.put(hash, added); // On a hash collision the first text keeps the slot
+        }
+        return entry;
+    }
+    
+    /**
+     * Text of a stored entry
+     */
+    public synchronized String get(Entry entry) {
+        String text = cache.get(entry.offset);
+        if (text != null) {
+            hits++;
+            return text;
+        }
+        misses++;
+        text = new String(read(entry), StandardCharsets.UTF_8);
+        cache.put(entry.offset, text);
+        return text;
+    }
+    
+    /**
+     * Bytes of the scratch file in use, live and not yet reclaimed
+     */
+    public synchronized long getSize() {
+        expungeReleased();
+        return size;
+    }
+    
+    /**
+     * Bytes of text still referred to by some task (as far as the garbage collector has told)
+     */
+    public synchronized long getLiveSize() {
+        expungeReleased();
+        return size - deadBytes;
+    }
+    
+    /**
+     * Times dead space has been reclaimed
+     */
+    public synchronized long getCompactions() {
+        return compactions;
+    }
+    
+    /**
+     * Cache hits and misses so far, as {hits, misses}
+     */
+    public synchronized long[] getCacheStats() {
+        return new long[] {hits, misses};
+    }
+    
+    // Count the texts of entries no task refers to any more
+    private void expungeReleased() {
+        Slot slot;
+        while ((slot = (Slot) released.poll()) != null) {
+            if (slot.reclaimed) {
+                continue;
+            }
+            deadBytes += slot.length;
+            if (byHash.get(slot.hash) == slot) {
+                byHash.remove(slot.hash);
+            }
+        }
+    }
+    
+    // Move live texts down over dead ones, in offset order, so nothing is overwritten before it is read.
+    // Entries cleared but not yet queued are dropped too; their slots are marked so that
+    // expungeReleased does not count their bytes as dead again once they arrive.
+    private void compact() {
+        expungeReleased();
+        List<Entry> live = new ArrayList<>();
+        List<Slot> kept = new ArrayList<>();
+        for (Slot slot : slots) {
+            Entry entry = slot.get();
+            if (entry != null) {
+                live.add(entry);
+                kept.add(slot);
+            } else {
+                slot.reclaimed = true;
+                if (byHash.get(slot.hash) == slot) {
+                    byHash.remove(slot.hash);
+                }
+            }
+        }
+        live.sort(Comparator.comparingLong(entry -> entry.offset));
+        
+        long end = 0;
+        try {
+            for (Entry entry : live) {
+                long offset = place(end, entry.length);
+                if (offset != entry.offset) {
+                    write(offset, read(entry));
+                    entry.offset = offset;
+                }
+                end = offset + entry.length;
+            }
+        } catch (IOException e) {
+            // Cannot happen: every target lies in a segment that is already mapped
+            throw new IllegalStateException(e);
+        }
+        slots.clear();
+        slots.addAll(kept);
+        cache.clear();
+        size = end;
+        deadBytes = 0;
+        compactions++;
+    }
+    
+    // Where 'length' bytes go when appended at 'end'; never split a description across segments
+    private long place(long end, int length) {
+        long position = end % segmentSize;
+        return position + length > segmentSize ? end - position + segmentSize : end;
+    }
+    
+    private byte[] read(Entry entry) {
+        ByteBuffer segment = segments.get((int) (entry.offset / segmentSize)).duplicate();
+        segment.position((int) (entry.offset % segmentSize));
+        byte[] bytes = new byte[entry.length];
+        segment.get(bytes);
+        return bytes;
+    }
+    
+    private void write(long offset, byte[] bytes) throws IOException {
+        ByteBuffer segment = getSegment((int) (offset / segmentSize)).duplicate();
+        segment.position((int) (offset % segmentSize));
+        segment.put(bytes);
+    }
+    
+    // 64-bit FNV-1a
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    private MappedByteBuffer getSegment(int index) throws IOException {
+        while (segments.size() <= index) {
+            long start = (long) segments.size() * segmentSize;
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, segmentSize));
+        }
+        return segments.get(index);
+    }
+}
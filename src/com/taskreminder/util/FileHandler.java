@@ -2,47 +2,140 @@ package com.taskreminder.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonSerializer;
 import com.google.gson.reflect.TypeToken;
 import com.taskreminder.model.Task;
 import com.taskreminder.model.TaskManager;
 
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
 
 /**
  * File Handler for JSON persistence
+ * Tasks are written compactly by TaskCodec; start with -Dtaskreminder.json.pretty=true
+ * for indented, human-readable files. The data directory defaults to "data" and
+ * can be changed with -Dtaskreminder.data.dir.
+ * tasks.json is read and written under a file lock (tasks.lock), so several
+ * processes sharing the data directory never see a half-written file. Next to it,
+ * tasks.checksum records the checksum of the last version written by this
+ * application, which tells external edits apart from saves by another instance.
+ * The task list of the last read or write is kept as a baseline: an external
+ * change is applied by comparing the file and the tasks in memory with that
+ * baseline, so only what the file itself changed is applied and unsaved local
+ * changes survive.
+ * Files are always read and written as UTF-8.
+ * A SaveListener can note its own state together with the tasks being saved
+ * and act once they are safely on disk.
+ * Only saveTasks() writes the tasks in memory. Background jobs change the file
+ * through rewriteSavedTasks(), so unsaved edits stay unsaved.
  * Demonstrates: File I/O, JSON serialization with Gson, Exception Handling
  */
 public class FileHandler {
-    private static final String DATA_DIR = "data";
+    private static final String DATA_DIR = System.getProperty("taskreminder.data.dir", "data");
     private static final String TASKS_FILE = DATA_DIR + File.separator + "tasks.json";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String CHECKSUM_FILE = DATA_DIR + File.separator + "tasks.checksum";
+    private static final String LOCK_FILE = DATA_DIR + File.separator + "tasks.lock";
+    
+    // File locks are per process; threads of this process take turns on this monitor
+    private static final Object LOCK_MONITOR = new Object();
+    private static final boolean PRETTY_JSON = Boolean.getBoolean("taskreminder.json.pretty");
     private static Gson gson;
     
+    // Checksum of tasks.json as last written or read by this application
+    private static volatile long lastKnownChecksum = -1;
+    
+    // Tasks as last written to or read from tasks.json (an immutable snapshot);
+    // set under LOCK_MONITOR, where baselineVersion counts the changes
+    private static volatile List<Task> baseline = Collections.emptyList();
+    private static long baselineVersion;
+    
+    /**
+     * What reloadChangedTasks() did: tasks changed from the file, and tasks changed
+     * both in the file and locally (the local version is kept)
+     */
+    public static class ReloadResult {
+        private final int applied;
+        private final List<String> conflicts;
+        
+        ReloadResult(int applied, List<String> conflicts) {
+            this.applied = applied;
+            this.conflicts = conflicts;
+        }
+        
+        public int getApplied() {
+            return applied;
+        }
+        
+        // Ids of tasks whose local change was kept over a different change in the file
+        public List<String> getConflicts() {
+            return conflicts;
+        }
+    }
+    
+    /**
+     * Told about every save of tasks.json
+     */
+    public interface SaveListener {
+        /**
+         * Called under the TaskManager lock while the tasks to save are read;
+         * the returned action (or null) runs once they are written
+         */
+        Runnable savingTasks();
+    }
+    
+    private static final List<SaveListener> saveListeners = new CopyOnWriteArrayList<>();
+    
     static {
-        // Initialize Gson with custom serializers for LocalDateTime
-        gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, 
-                    (JsonSerializer<LocalDateTime>) (src, typeOfSrc, context) -> 
-                        context.serialize(src.format(DATE_FORMATTER)))
-                .registerTypeAdapter(LocalDateTime.class,
-                    (JsonDeserializer<LocalDateTime>) (json, typeOfT, context) ->
-                        LocalDateTime.parse(json.getAsString(), DATE_FORMATTER))
-                .setPrettyPrinting()
-                .create();
+        // Initialize Gson with the streaming codecs for Task and LocalDateTime
+        GsonBuilder builder = new GsonBuilder()
+                .registerTypeAdapter(Task.class, new TaskCodec())
+                .registerTypeAdapter(LocalDateTime.class, new TaskCodec.DateTimeAdapter());
+        if (PRETTY_JSON) {
+            builder.setPrettyPrinting();
+        }
+        gson = builder.create();
         
         // Create data directory if it doesn't exist
         createDataDirectory();
     }
     
+    /**
+     * Directory holding tasks.json and other data files
+     */
+    public static String getDataDir() {
+        return DATA_DIR;
+    }
+    
+    /**
+     * Path of the tasks file
+     */
+    public static String getTasksFile() {
+        return TASKS_FILE;
+    }
+    
+    /**
+     * Shared Gson instance (handles Task and LocalDateTime through TaskCodec)
+     */
+    public static Gson getGson() {
+        return gson;
+    }
+    
     /**
      * Create data directory
      */
@@ -53,17 +146,89 @@ public class FileHandler {
         }
     }
     
+    public static void addSaveListener(SaveListener listener) {
+        saveListeners.add(listener);
+    }
+    
+    public static void removeSaveListener(SaveListener listener) {
+        saveListeners.remove(listener);
+    }
+    
     /**
      * Save tasks to JSON file
      */
     public static void saveTasks() throws IOException {
         TaskManager manager = TaskManager.getInstance();
-        List<Task> tasks = manager.getAllTasks();
+        List<Task> tasks;
+        List<Runnable> afterSave = new ArrayList<>();
+        synchronized (manager) {
+            tasks = manager.getAllTasks();
+            for (SaveListener listener : saveListeners) {
+                Runnable action = listener.savingTasks();
+                if (action != null) {
+                    afterSave.add(action);
+                }
+            }
+        }
         
         String json = gson.toJson(tasks);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        long checksum = checksum(bytes);
         
-        try (FileWriter writer = new FileWriter(TASKS_FILE)) {
-            writer.write(json);
+        synchronized (LOCK_MONITOR) {
+            try (FileChannel channel = openLockFile()) {
+                FileLock lock = channel.lock();
+                try {
+                    Files.write(Paths.get(TASKS_FILE), bytes);
+                    Files.write(Paths.get(CHECKSUM_FILE), Long.toString(checksum).getBytes(StandardCharsets.US_ASCII));
+                } finally {
+                    lock.release();
+                }
+            }
+            lastKnownChecksum = checksum;
+            setBaseline(tasks);
+        }
+        for (Runnable action : afterSave) {
+            action.run();
+        }
+    }
+    
+    /**
+     * Change tasks.json by rewriting what it holds, under the exclusive file lock
+     * The tasks in memory are not written, so changes the user has not saved stay
+     * unsaved; the baseline gets the same change. A missing file counts as empty.
+     */
+    public static void rewriteSavedTasks(UnaryOperator<List<Task>> change) throws IOException {
+        Type taskListType = new TypeToken<ArrayList<Task>>(){}.getType();
+        synchronized (LOCK_MONITOR) {
+            try (FileChannel channel = openLockFile()) {
+                FileLock lock = channel.lock();
+                try {
+                    File file = new File(TASKS_FILE);
+                    byte[] old = file.exists() ? Files.readAllBytes(file.toPath()) : null;
+                    List<Task> saved = old == null ? null : gson.<List<Task>>fromJson(
+                        new String(old, StandardCharsets.UTF_8), taskListType);
+                    List<Task> tasks = change.apply(saved == null ? new ArrayList<>() : saved);
+                    
+                    byte[] bytes = gson.toJson(tasks).getBytes(StandardCharsets.UTF_8);
+                    long checksum = checksum(bytes);
+                    long oldChecksum = old == null ? -1 : checksum(old);
+                    boolean current = old == null || oldChecksum == lastKnownChecksum;
+                    Files.write(file.toPath(), bytes);
+                    // An external edit not reloaded yet must still look external afterwards
+                    if (current || oldChecksum == readSavedChecksum()) {
+                        Files.write(Paths.get(CHECKSUM_FILE), Long.toString(checksum).getBytes(StandardCharsets.US_ASCII));
+                    }
+                    if (current) {
+                        lastKnownChecksum = checksum;
+                        setBaseline(Collections.unmodifiableList(new ArrayList<>(tasks)));
+                    } else {
+                        setBaseline(Collections.unmodifiableList(change.apply(new ArrayList<>(baseline))));
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
         }
     }
     
@@ -77,16 +242,185 @@ public class FileHandler {
             throw new FileNotFoundException("Tasks file not found");
         }
         
-        String json = new String(Files.readAllBytes(Paths.get(TASKS_FILE)));
+        byte[] bytes = readTasksFile();
+        String json = new String(bytes, StandardCharsets.UTF_8);
         
         Type taskListType = new TypeToken<ArrayList<Task>>(){}.getType();
         List<Task> tasks = gson.fromJson(json, taskListType);
         
-        if (tasks != null) {
-            TaskManager.getInstance().setTasks(tasks);
+        // Locks in the order reloadChangedTasks() takes them: TaskManager, then LOCK_MONITOR
+        TaskManager manager = TaskManager.getInstance();
+        synchronized (manager) {
+            if (tasks != null) {
+                manager.setTasks(tasks);
+            }
+            synchronized (LOCK_MONITOR) {
+                if (tasks != null) {
+                    setBaseline(manager.getAllTasks());
+                }
+                lastKnownChecksum = checksum(bytes);
+            }
         }
     }
     
+    /**
+     * Re-read tasks.json after an external change and apply the file's own changes
+     * (by task id) through the normal TaskManager add/update/remove path.
+     * Three-way: a task is only taken from the file if the file changed it since the
+     * baseline and memory did not. Tasks added, edited or deleted locally and not yet
+     * saved are left alone; when both sides changed a task differently, the local
+     * version is kept and the task is reported as a conflict.
+     * Nothing is applied if the file holds what we last wrote or read, or what another
+     * instance of the application saved (that instance shares its changes through the
+     * change log instead).
+     */
+    public static ReloadResult reloadChangedTasks() throws IOException {
+        byte[] bytes;
+        long savedChecksum;
+        List<Task> readBaseline;
+        long readVersion;
+        synchronized (LOCK_MONITOR) {
+            try (FileChannel channel = openLockFile()) {
+                FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+                try {
+                    bytes = Files.readAllBytes(Paths.get(TASKS_FILE));
+                    savedChecksum = readSavedChecksum();
+                } finally {
+                    lock.release();
+                }
+            }
+            readBaseline = baseline;
+            readVersion = baselineVersion;
+        }
+        long checksum = checksum(bytes);
+        if (checksum == lastKnownChecksum || checksum == savedChecksum) {
+            adoptFile(readVersion, checksum, readBaseline);
+            return new ReloadResult(0, Collections.<String>emptyList());
+        }
+        
+        Type taskListType = new TypeToken<ArrayList<Task>>(){}.getType();
+        List<Task> fileTasks = gson.fromJson(new String(bytes, StandardCharsets.UTF_8), taskListType);
+        if (fileTasks == null) {
+            fileTasks = new ArrayList<>();
+        }
+        
+        TaskManager manager = TaskManager.getInstance();
+        Map<String, Task> base = byId(readBaseline);
+        Map<String, Task> file = byId(fileTasks);
+        List<Task> added = new ArrayList<>();
+        List<Task> changed = new ArrayList<>();
+        List<Task> removed = new ArrayList<>();
+        List<String> conflicts = new ArrayList<>();
+        
+        // Compared and applied under the TaskManager lock, so no edit can slip in between
+        synchronized (manager) {
+            Map<String, Task> memory = byId(manager.getAllTasks());
+            Set<String> ids = new LinkedHashSet<>(file.keySet());
+            ids.addAll(base.keySet());
+            for (String id : ids) {
+                Task original = base.get(id);
+                Task fromFile = file.get(id);
+                Task local = memory.get(id);
+                if (sameContent(original, fromFile)) {
+                    continue; // The file did not change this task
+                }
+                if (!sameContent(original, local)) {
+                    if (!sameContent(fromFile, local)) {
+                        conflicts.add(id); // Changed on both sides: keep the local version
+                    }
+                    continue;
+                }
+                if (fromFile == null) {
+                    removed.add(local);
+                } else if (local == null) {
+                    added.add(fromFile);
+                } else {
+                    changed.add(fromFile);
+                }
+            }
+            
+            if (!added.isEmpty()) {
+                manager.addTasks(added);
+            }
+            if (!changed.isEmpty()) {
+                manager.updateTasks(changed);
+            }
+            if (!removed.isEmpty()) {
+                manager.removeTasks(removed);
+            }
+            adoptFile(readVersion, checksum, fileTasks);
+        }
+        return new ReloadResult(added.size() + changed.size() + removed.size(), conflicts);
+    }
+    
+    // Record the file just read as the baseline, unless a save or rewrite has
+    // replaced the file (and set its own baseline) since it was read
+    private static void adoptFile(long readVersion, long checksum, List<Task> fileTasks) {
+        synchronized (LOCK_MONITOR) {
+            if (baselineVersion == readVersion) {
+                lastKnownChecksum = checksum;
+                setBaseline(fileTasks);
+            }
+        }
+    }
+    
+    // Call with LOCK_MONITOR held
+    private static void setBaseline(List<Task> tasks) {
+        baseline = tasks;
+        baselineVersion++;
+    }
+    
+    private static Map<String, Task> byId(List<Task> tasks) {
+        Map<String, Task> map = new HashMap<>();
+        for (Task task : tasks) {
+            map.put(task.getId(), task);
+        }
+        return map;
+    }
+    
+    // Both absent, or both present with the same data
+    private static boolean sameContent(Task a, Task b) {
+        return a == null ? b == null : b != null && a.hasSameContent(b);
+    }
+    
+    // Read tasks.json under a shared lock (it may be being saved by another process)
+    private static byte[] readTasksFile() throws IOException {
+        synchronized (LOCK_MONITOR) {
+            try (FileChannel channel = openLockFile()) {
+                FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+                try {
+                    return Files.readAllBytes(Paths.get(TASKS_FILE));
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+    
+    private static FileChannel openLockFile() throws IOException {
+        return FileChannel.open(Paths.get(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+    
+    // Checksum of the last tasks.json saved by any instance, or -1
+    private static long readSavedChecksum() throws IOException {
+        File file = new File(CHECKSUM_FILE);
+        if (!file.exists()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+    
     /**
      * Export tasks to a specific file
      */
@@ -96,16 +430,14 @@ public class FileHandler {
         
         String json = gson.toJson(tasks);
         
-        try (FileWriter writer = new FileWriter(filePath)) {
-            writer.write(json);
-        }
+        Files.write(Paths.get(filePath), json.getBytes(StandardCharsets.UTF_8));
     }
     
     /**
      * Import tasks from a specific file
      */
     public static void importTasks(String filePath) throws IOException {
-        String json = new String(Files.readAllBytes(Paths.get(filePath)));
+        String json = new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
         
         Type taskListType = new TypeToken<ArrayList<Task>>(){}.getType();
         List<Task> tasks = gson.fromJson(json, taskListType);
@@ -0,0 +1,599 @@
+package com.taskreminder.util;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * iCalendar (.ics) import and export of tasks as VTODO components
+ * Import reads one unfolded content line at a time and keeps only the VTODO
+ * being parsed, so the size of the file does not matter; tasks go to
+ * TaskManager in batches. UIDs become task ids, so importing the same file
+ * again updates the tasks instead of duplicating them.
+ * Mapping: SUMMARY/DESCRIPTION, DUE (or DTSTART) as the reminder time,
+ * PRIORITY 1-4/5/6-9 as HIGH/MEDIUM/LOW, STATUS:COMPLETED and COMPLETED,
+ * CATEGORIES as tags, RELATED-TO;RELTYPE=DEPENDS-ON as dependencies, CREATED,
+ * VALARM triggers before the due time as extra reminders (relative triggers
+ * count from DTSTART, or from DUE with RELATED=END), and RRULE kept as
+ * text (occurrences are never expanded). Other sub-components are skipped
+ * with everything nested in them.
+ * Demonstrates: Streaming parser, RFC 5545 line folding and escaping, Batching
+ */
+public class ICalendarHandler {
+    public static final int BATCH_SIZE = 1000;
+    
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final String CRLF = "\r\n";
+    private static final String PRODUCT_ID = "-//Task Reminder//Task Reminder App//EN";
+    private static final DateTimeFormatter UTC_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter LOCAL_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    /**
+     * Number of tasks imported and of VTODOs left out (no due date, unreadable dates)
+     */
+    public static class ImportResult {
+        private final int imported;
+        private final int skipped;
+        
+        ImportResult(int imported, int skipped) {
+            this.imported = imported;
+            this.skipped = skipped;
+        }
+        
+        public int getImported() {
+            return imported;
+        }
+        
+        public int getSkipped() {
+            return skipped;
+        }
+    }
+    
+    // One content line: NAME;PARAM=VALUE;...:VALUE
+    private static class ContentLine {
+        String name;
+        String params = "";
+        String value;
+        
+        String getParam(String param) {
+            for (String part : splitOutsideQuotes(params, ';')) {
+                int equals = part.indexOf('=');
+                if (equals > 0 && part.substring(0, equals).equalsIgnoreCase(param)) {
+                    return unquote(part.substring(equals + 1));
+                }
+            }
+            return null;
+        }
+    }
+    
+    // Properties of the VTODO being read
+    private static class TodoBuilder {
+        String uid;
+        String summary;
+        String description;
+        LocalDateTime due;
+        LocalDateTime start;
+        String priority = "MEDIUM";
+        boolean completed;
+        LocalDateTime completedTime;
+        LocalDateTime created;
+        String recurrenceRule;
+        List<String> tags = new ArrayList<>();
+        List<String> dependsOn = new ArrayList<>();
+        List<Long> startAlarms = new ArrayList<>(); // minutes after DTSTART (RELATED=START, the default)
+        List<Long> endAlarms = new ArrayList<>(); // minutes after DUE (RELATED=END)
+        List<LocalDateTime> absoluteAlarms = new ArrayList<>();
+        boolean invalid;
+        
+        Task build() {
+            LocalDateTime reminderTime = due != null ? due : start;
+            if (invalid || reminderTime == null) {
+                return null;
+            }
+            String title = summary == null || summary.isEmpty() ? "(untitled)" : summary;
+            Task task = uid == null
+                ? new Task(title, description == null ? "" : description, reminderTime, priority)
+                : new Task(uid, title, description == null ? "" : description, reminderTime, priority, completed);
+            if (uid == null && completed) {
+                task = task.withCompleted(true);
+            }
+            if (completed && completedTime != null) {
+                task = task.withCompletedTime(completedTime);
+            }
+            
+            // Without the property a trigger is related to, it counts from the reminder time
+            List<LocalDateTime> alarms = new ArrayList<>(absoluteAlarms);
+            addRelative(alarms, start != null ? start : reminderTime, startAlarms);
+            addRelative(alarms, due != null ? due : reminderTime, endAlarms);
+            List<Integer> offsets = new ArrayList<>();
+            for (LocalDateTime alarm : alarms) {
+                long minutes = Duration.between(alarm, reminderTime).toMinutes();
+                if (minutes > 0 && minutes <= Integer.MAX_VALUE) {
+                    offsets.add((int) minutes);
+                }
+            }
+            if (!offsets.isEmpty()) {
+                task = task.withReminderOffsets(offsets);
+            }
+            if (!tags.isEmpty()) {
+                task = task.withTags(tags);
+            }
+            if (!dependsOn.isEmpty()) {
+                task = task.withDependsOn(dependsOn);
+            }
+            if (recurrenceRule != null) {
+                task = task.withRecurrenceRule(recurrenceRule);
+            }
+            // CREATED has whole seconds; a generated id may know the milliseconds
+            LocalDateTime known = task.getCreatedTime();
+            if (created != null && (known == null || !created.equals(known.withNano(0)))) {
+                task = task.withCreatedTime(created);
+            }
+            return task;
+        }
+        
+        private static void addRelative(List<LocalDateTime> alarms, LocalDateTime base, List<Long> minutes) {
+            for (long offset : minutes) {
+                try {
+                    alarms.add(base.plusMinutes(offset));
+                } catch (DateTimeException e) {
+                    // Out of range; left out
+                }
+            }
+        }
+    }
+    
+    /**
+     * Import every VTODO of an .ics file into TaskManager
+     */
+    public static ImportResult importTasks(String filePath) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8)) {
+            return importTasks(reader, TaskManager.getInstance());
+        }
+    }
+    
+    /**
+     * Import every VTODO read from 'reader', adding BATCH_SIZE tasks at a time
+     */
+    public static ImportResult importTasks(Reader reader, TaskManager manager) throws IOException {
+        BufferedReader in = new BufferedReader(reader, 64 * 1024);
+        List<Task> batch = new ArrayList<>(BATCH_SIZE);
+        int imported = 0;
+        int skipped = 0;
+        int depth = 0; // inside the VTODO: 1 = its own properties, 2 = a VALARM
+        int ignored = 0; // nesting inside a skipped sub-component (anything but a VALARM)
+        TodoBuilder todo = null;
+        
+        StringBuilder logical = new StringBuilder();
+        String physical;
+        boolean pending = false;
+        while (true) {
+            physical = in.readLine();
+            // A line starting with a space or tab continues the previous one
+            if (physical != null && !physical.isEmpty()
+                    && (physical.charAt(0) == ' ' || physical.charAt(0) == '\t')) {
+                logical.append(physical, 1, physical.length());
+                continue;
+            }
+            if (pending) {
+                ContentLine line = parseLine(logical.toString());
+                if (line != null) {
+                    if ("BEGIN".equals(line.name)) {
+                        String component = line.value.trim().toUpperCase();
+                        if (todo == null) {
+                            if ("VTODO".equals(component)) {
+                                todo = new TodoBuilder();
+                                depth = 1;
+                                ignored = 0;
+                            }
+                        } else if (ignored > 0 || depth == 2 || !"VALARM".equals(component)) {
+                            ignored++;
+                        } else {
+                            depth = 2;
+                        }
+                    } else if (todo != null && "END".equals(line.name)) {
+                        if (ignored > 0) {
+                            ignored--;
+                        } else if (depth == 2) {
+                            depth = 1;
+                        } else {
+                            Task task = todo.build();
+                            if (task == null) {
+                                skipped++;
+                            } else {
+                                batch.add(task);
+                                imported++;
+                                if (batch.size() == BATCH_SIZE) {
+                                    manager.addTasks(batch);
+                                    batch = new ArrayList<>(BATCH_SIZE);
+                                }
+                            }
+                            todo = null;
+                        }
+                    } else if (todo != null && ignored == 0 && depth == 1) {
+                        readTodoProperty(todo, line);
+                    } else if (todo != null && ignored == 0 && "TRIGGER".equals(line.name)) {
+                        readTrigger(todo, line);
+                    }
+                }
+            }
+            if (physical == null) {
+                break;
+            }
+            logical.setLength(0);
+            logical.append(physical);
+            pending = !physical.isEmpty();
+        }
+        if (!batch.isEmpty()) {
+            manager.addTasks(batch);
+        }
+        return new ImportResult(imported, skipped);
+    }
+    
+    private static void readTodoProperty(TodoBuilder todo, ContentLine line) {
+        try {
+            switch (line.name) {
+                case "UID":
+                    todo.uid = line.value.trim();
+                    break;
+                case "SUMMARY":
+                    todo.summary = unescape(line.value);
+                    break;
+                case "DESCRIPTION":
+                    todo.description = unescape(line.value);
+                    break;
+                case "DUE":
+                    todo.due = parseDateTime(line);
+                    break;
+                case "DTSTART":
+                    todo.start = parseDateTime(line);
+                    break;
+                case "PRIORITY":
+                    int priority = Integer.parseInt(line.value.trim());
+                    todo.priority = priority >= 1 && priority <= 4 ? "HIGH"
+                        : priority >= 6 && priority <= 9 ? "LOW" : "MEDIUM";
+                    break;
+                case "STATUS":
+                    todo.completed |= "COMPLETED".equalsIgnoreCase(line.value.trim());
+                    break;
+                case "PERCENT-COMPLETE":
+                    todo.completed |= "100".equals(line.value.trim());
+                    break;
+                case "COMPLETED":
+                    todo.completed = true;
+                    todo.completedTime = parseDateTime(line);
+                    break;
+                case "CREATED":
+                    todo.created = parseDateTime(line);
+                    break;
+                case "CATEGORIES":
+                    for (String tag : splitOutsideQuotes(line.value, ',')) {
+                        todo.tags.add(unescape(tag));
+                    }
+                    break;
+                case "RELATED-TO":
+                    if ("DEPENDS-ON".equalsIgnoreCase(line.getParam("RELTYPE"))) {
+                        todo.dependsOn.add(line.value.trim());
+                    }
+                    break;
+                case "RRULE":
+                    todo.recurrenceRule = line.value.trim();
+                    break;
+                default:
+                    break; // Not needed for a task
+            }
+        } catch (NumberFormatException | DateTimeException e) {
+            if ("DUE".equals(line.name) || "DTSTART".equals(line.name)) {
+                todo.invalid = true; // No usable reminder time
+            }
+        }
+    }
+    
+    private static void readTrigger(TodoBuilder todo, ContentLine line) {
+        try {
+            if ("DATE-TIME".equalsIgnoreCase(line.getParam("VALUE"))) {
+                todo.absoluteAlarms.add(parseDateTime(line));
+            } else {
+                long minutes = parseDurationMinutes(line.value.trim());
+                if ("END".equalsIgnoreCase(line.getParam("RELATED"))) {
+                    todo.endAlarms.add(minutes);
+                } else {
+                    todo.startAlarms.add(minutes);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            // An unreadable alarm is left out
+        }
+    }
+    
+    /**
+     * Write all tasks to an .ics file
+     */
+    public static int exportTasks(String filePath) throws IOException {
+        List<Task> tasks = TaskManager.getInstance().getAllTasks();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(filePath), StandardCharsets.UTF_8), 64 * 1024)) {
+            exportTasks(tasks, writer);
+        }
+        return tasks.size();
+    }
+    
+    /**
+     * Write tasks as one VCALENDAR of VTODOs
+     */
+    public static void exportTasks(List<Task> tasks, Writer out) throws IOException {
+        String stamp = formatUtc(AppClock.now());
+        writeLine(out, "BEGIN:VCALENDAR");
+        writeLine(out, "VERSION:2.0");
+        writeLine(out, "PRODID:" + PRODUCT_ID);
+        for (Task task : tasks) {
+            writeLine(out, "BEGIN:VTODO");
+            writeLine(out, "UID:" + task.getId());
+            writeLine(out, "DTSTAMP:" + stamp);
+            if (task.getCreatedTime() != null) {
+                writeLine(out, "CREATED:" + formatUtc(task.getCreatedTime()));
+            }
+            writeLine(out, "SUMMARY:" + escape(task.getTitle()));
+            if (task.getDescription() != null && !task.getDescription().isEmpty()) {
+                writeLine(out, "DESCRIPTION:" + escape(task.getDescription()));
+            }
+            if (task.getReminderTime() != null) {
+                writeLine(out, "DUE:" + formatUtc(task.getReminderTime()));
+            }
+            writeLine(out, "PRIORITY:" + toIcalPriority(task.getPriority()));
+            if (task.isCompleted()) {
+                writeLine(out, "STATUS:COMPLETED");
+                if (task.getCompletedTime() != null) {
+                    writeLine(out, "COMPLETED:" + formatUtc(task.getCompletedTime()));
+                }
+            } else {
+                writeLine(out, "STATUS:NEEDS-ACTION");
+            }
+            if (!task.getTags().isEmpty()) {
+                StringBuilder categories = new StringBuilder("CATEGORIES:");
+                for (String tag : task.getTags()) {
+                    if (categories.length() > 11) {
+                        categories.append(',');
+                    }
+                    categories.append(escape(tag));
+                }
+                writeLine(out, categories.toString());
+            }
+            for (String prerequisite : task.getDependsOn()) {
+                writeLine(out, "RELATED-TO;RELTYPE=DEPENDS-ON:" + prerequisite);
+            }
+            if (task.getRecurrenceRule() != null) {
+                writeLine(out, "RRULE:" + task.getRecurrenceRule());
+            }
+            // The reminder at the due time, then the earlier ones
+            writeAlarm(out, task, 0);
+            for (int minutes : task.getReminderOffsets()) {
+                writeAlarm(out, task, minutes);
+            }
+            writeLine(out, "END:VTODO");
+        }
+        writeLine(out, "END:VCALENDAR");
+    }
+    
+    private static void writeAlarm(Writer out, Task task, int minutesBefore) throws IOException {
+        writeLine(out, "BEGIN:VALARM");
+        writeLine(out, "ACTION:DISPLAY");
+        writeLine(out, "DESCRIPTION:" + escape(task.getTitle()));
+        writeLine(out, "TRIGGER;RELATED=END:" + (minutesBefore == 0 ? "PT0S" : "-PT" + minutesBefore + "M"));
+        writeLine(out, "END:VALARM");
+    }
+    
+    // Lines longer than 75 octets are folded: CRLF and a space, never inside a character
+    private static void writeLine(Writer out, String line) throws IOException {
+        int octets = 0;
+        int i = 0;
+        while (i < line.length()) {
+            int codePoint = line.codePointAt(i);
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + size > MAX_LINE_OCTETS) {
+                out.write(CRLF);
+                out.write(' ');
+                octets = 1;
+            }
+            out.write(line, i, Character.charCount(codePoint));
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        out.write(CRLF);
+    }
+    
+    private static ContentLine parseLine(String text) {
+        int colon = -1;
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                colon = i;
+                break;
+            }
+        }
+        if (colon <= 0) {
+            return null;
+        }
+        ContentLine line = new ContentLine();
+        String head = text.substring(0, colon);
+        int semicolon = head.indexOf(';');
+        line.name = (semicolon < 0 ? head : head.substring(0, semicolon)).trim().toUpperCase();
+        if (semicolon >= 0) {
+            line.params = head.substring(semicolon + 1);
+        }
+        line.value = text.substring(colon + 1);
+        return line;
+    }
+    
+    private static List<String> splitOutsideQuotes(String text, char separator) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        boolean quoted = false;
+        boolean escaped = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == separator && !quoted && !escaped) {
+                parts.add(part.toString());
+                part.setLength(0);
+                continue;
+            }
+            if (c == '"' && !escaped) {
+                quoted = !quoted;
+            }
+            escaped = c == '\\' && !escaped;
+            part.append(c);
+        }
+        parts.add(part.toString());
+        return parts;
+    }
+    
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+            ? value.substring(1, value.length() - 1) : value;
+    }
+    
+    // TEXT values escape backslash, semicolon, comma and newline
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                case ';':
+                case ',':
+                    escaped.append('\\').append(c);
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+    
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder plain = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                plain.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                plain.append(c);
+            }
+        }
+        return plain.toString();
+    }
+    
+    // DATE, floating DATE-TIME, UTC (Z) or TZID DATE-TIME, as local time of the application clock
+    private static LocalDateTime parseDateTime(ContentLine line) {
+        String value = line.value.trim();
+        ZoneId local = AppClock.get().getZone();
+        try {
+            if (value.length() == 8) {
+                return LocalDate.parse(value, DATE_FORMATTER).atStartOfDay();
+            }
+            if (value.endsWith("Z")) {
+                return LocalDateTime.parse(value.substring(0, value.length() - 1), LOCAL_FORMATTER)
+                    .atOffset(ZoneOffset.UTC).atZoneSameInstant(local).toLocalDateTime();
+            }
+            LocalDateTime time = LocalDateTime.parse(value, LOCAL_FORMATTER);
+            String tzid = line.getParam("TZID");
+            if (tzid != null) {
+                try {
+                    return time.atZone(ZoneId.of(tzid)).withZoneSameInstant(local).toLocalDateTime();
+                } catch (DateTimeException e) {
+                    return time; // Unknown zone name: read it as local time
+                }
+            }
+            return time;
+        } catch (DateTimeParseException e) {
+            throw new DateTimeException("Invalid date-time: " + value);
+        }
+    }
+    
+    private static String formatUtc(LocalDateTime time) {
+        return time.atZone(AppClock.get().getZone()).withZoneSameInstant(ZoneOffset.UTC).format(UTC_FORMATTER);
+    }
+    
+    // Duration such as -PT15M, -P1D or P1DT2H, in minutes
+    private static long parseDurationMinutes(String value) {
+        int i = 0;
+        boolean negative = false;
+        if (i < value.length() && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i >= value.length() || value.charAt(i) != 'P') {
+            throw new IllegalArgumentException("Invalid duration: " + value);
+        }
+        i++;
+        long seconds = 0;
+        long number = -1;
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                number = (number < 0 ? 0 : number * 10) + (c - '0');
+                continue;
+            }
+            if (c == 'T') {
+                continue;
+            }
+            if (number < 0) {
+                throw new IllegalArgumentException("Invalid duration: " + value);
+            }
+            switch (c) {
+                case 'W':
+                    seconds += number * 7 * 86400;
+                    break;
+                case 'D':
+                    seconds += number * 86400;
+                    break;
+                case 'H':
+                    seconds += number * 3600;
+                    break;
+                case 'M':
+                    seconds += number * 60;
+                    break;
+                case 'S':
+                    seconds += number;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid duration: " + value);
+            }
+            number = -1;
+        }
+        long minutes = seconds / 60;
+        return negative ? -minutes : minutes;
+    }
+    
+    private static int toIcalPriority(String priority) {
+        if ("HIGH".equals(priority)) {
+            return 1;
+        }
+        return "LOW".equals(priority) ? 9 : 5;
+    }
+}
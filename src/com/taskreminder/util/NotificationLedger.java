@@ -0,0 +1,206 @@
+package com.taskreminder.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Record of delivered notifications: the last reminder time delivered per task
+ * Kept in memory and, when opened on a file, appended to a small text ledger
+ * ("taskId TAB triggerTime" per line) so a restart does not notify again.
+ * Entries older than the retention period are pruned on load and, at most
+ * once per PRUNE_INTERVAL, while deliveries are recorded; the file is
+ * compacted when it holds too many superseded lines, so memory and disk stay bounded.
+ * Demonstrates: File I/O, LinkedHashMap ordering, atomic file replacement
+ */
+public class NotificationLedger {
+    private static final Duration RETENTION = Duration.ofDays(2);
+    private static final int MIN_COMPACT_LINES = 1000;
+    private static final Duration PRUNE_INTERVAL = Duration.ofHours(1);
+    
+    // Ordered oldest delivery first, so pruning only looks at the head
+    private final LinkedHashMap<String, LocalDateTime> delivered = new LinkedHashMap<>();
+    private final File file;
+    private Writer writer;
+    private int linesInFile;
+    private LocalDateTime nextPrune;
+    
+    /**
+     * In-memory ledger (nothing persisted)
+     */
+    public NotificationLedger() {
+        this.file = null;
+    }
+    
+    private NotificationLedger(File file) {
+        this.file = file;
+    }
+    
+    /**
+     * Open the ledger in the data directory, loading and compacting it
+     */
+    public static NotificationLedger open() {
+        File file = new File(FileHandler.getDataDir(), "notifications.ledger");
+        NotificationLedger ledger = new NotificationLedger(file);
+        try {
+            ledger.load();
+        } catch (IOException e) {
+            System.err.println("Could not read notification ledger: " + e.getMessage());
+        }
+        return ledger;
+    }
+    
+    /**
+     * Last reminder time delivered for a task, or null
+     */
+    public synchronized LocalDateTime getLastDelivered(String taskId) {
+        return delivered.get(taskId);
+    }
+    
+    /**
+     * Record that the reminder of a task at 'triggerTime' was delivered
+     */
+    public synchronized void recordDelivered(String taskId, LocalDateTime triggerTime) {
+        delivered.remove(taskId);
+        delivered.put(taskId, triggerTime);
+        
+        LocalDateTime now = AppClock.now();
+        if (nextPrune == null || !now.isBefore(nextPrune)) {
+            prune(now);
+        }
+        
+        if (file != null) {
+            try {
+                if (linesInFile >= Math.max(MIN_COMPACT_LINES, delivered.size() * 2)) {
+                    compact();
+                } else {
+                    append(taskId, triggerTime);
+                }
+            } catch (IOException e) {
+                System.err.println("Could not write notification ledger: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Forget a task (completed or deleted); the next compaction drops it from disk
+     */
+    public synchronized void forget(String taskId) {
+        delivered.remove(taskId);
+    }
+    
+    /**
+     * Forget every task not in the given set
+     */
+    public synchronized void retainAll(Set<String> taskIds) {
+        delivered.keySet().retainAll(taskIds);
+    }
+    
+    /**
+     * Drop entries older than the retention period; the scheduler never looks
+     * that far back, so this only bounds memory and never causes a repeat
+     */
+    public synchronized void prune(LocalDateTime now) {
+        nextPrune = now.plus(PRUNE_INTERVAL);
+        LocalDateTime cutoff = now.minus(RETENTION);
+        Iterator<Map.Entry<String, LocalDateTime>> it = delivered.entrySet().iterator();
+        while (it.hasNext()) {
+            if (!it.next().getValue().isBefore(cutoff)) {
+                break;
+            }
+            it.remove();
+        }
+    }
+    
+    /**
+     * Number of tasks with a recorded delivery
+     */
+    public synchronized int size() {
+        return delivered.size();
+    }
+    
+    /**
+     * Close the ledger file
+     */
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing notification ledger: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+    
+    private void load() throws IOException {
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab <= 0) {
+                        continue; // Torn last line after a crash
+                    }
+                    try {
+                        LocalDateTime triggerTime = LocalDateTime.parse(line.substring(tab + 1));
+                        String taskId = line.substring(0, tab);
+                        delivered.remove(taskId);
+                        delivered.put(taskId, triggerTime);
+                    } catch (DateTimeParseException e) {
+                        // Torn last line after a crash
+                    }
+                }
+            }
+        }
+        prune(AppClock.now());
+        compact();
+    }
+    
+    private void append(String taskId, LocalDateTime triggerTime) throws IOException {
+        if (writer == null) {
+            writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        }
+        writeLine(writer, taskId, triggerTime);
+        writer.flush();
+        linesInFile++;
+    }
+    
+    /**
+     * Rewrite the file with one line per live entry
+     */
+    private void compact() throws IOException {
+        close();
+        
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+        File temp = new File(parent, file.getName() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, LocalDateTime> entry : delivered.entrySet()) {
+                writeLine(out, entry.getKey(), entry.getValue());
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        linesInFile = delivered.size();
+    }
+    
+    private static void writeLine(Writer out, String taskId, LocalDateTime triggerTime) throws IOException {
+        out.write(taskId);
+        out.write('\t');
+        out.write(triggerTime.toString());
+        out.write('\n');
+    }
+}
@@ -4,6 +4,11 @@ import com.taskreminder.model.Task;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Notification Manager for displaying alerts
@@ -12,6 +17,14 @@ import java.awt.*;
 public class NotificationManager {
     private static SystemTray tray;
     private static TrayIcon trayIcon;
+    private static final int ESCALATE_TO_DIALOG_LEVEL = 3; // Overdue reminders before a dialog is used
+    private static final long ACTION_WINDOW_MILLIS = 5000; // How long a balloon's click action stays armed
+    
+    // Action of the latest balloon; the tray icon has a single listener that runs it
+    private static final PendingAction pendingAction = new PendingAction(ACTION_WINDOW_MILLIS);
+    
+    // Open reminder dialogs by task id; only used on the Event Dispatch Thread
+    private static final Map<String, JOptionPane> reminderDialogs = new HashMap<>();
     
     static {
         initializeSystemTray();
@@ -31,6 +44,7 @@ public class NotificationManager {
                 trayIcon = new TrayIcon(image, "Task Reminder");
                 trayIcon.setImageAutoSize(true);
                 trayIcon.setToolTip("Task Reminder Application");
+                trayIcon.addActionListener(e -> pendingAction.run());
                 
                 tray.add(trayIcon);
             } catch (AWTException e) {
@@ -84,6 +98,87 @@ public class NotificationManager {
         }
     }
     
+    /**
+     * Show a scheduled reminder for a task
+     * Reminders that keep escalating without the task being completed
+     * switch from the tray balloon to a dialog that has to be dismissed.
+     * A task has at most one dialog: later reminders update it and bring it
+     * to the front.
+     */
+    public static void showReminder(Task task, String heading, int escalationLevel) {
+        String title = (escalationLevel > 0 ? "\u26a0 " : "") + heading + ": " + task.getTitle();
+        String message = task.getDescription() + "\n\nPriority: " + task.getPriority();
+        
+        if (trayIcon != null && escalationLevel < ESCALATE_TO_DIALOG_LEVEL) {
+            trayIcon.displayMessage(title, message,
+                escalationLevel > 0 ? TrayIcon.MessageType.WARNING : TrayIcon.MessageType.INFO);
+            Toolkit.getDefaultToolkit().beep();
+        } else {
+            int messageType = escalationLevel > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE;
+            SwingUtilities.invokeLater(() -> showReminderDialog(task.getId(), title, message, messageType));
+        }
+    }
+    
+    /**
+     * Close the reminder dialogs of these tasks, where one is open
+     */
+    public static void closeReminders(Collection<String> taskIds) {
+        if (!taskIds.isEmpty()) {
+            SwingUtilities.invokeLater(() -> taskIds.forEach(NotificationManager::closeReminderDialog));
+        }
+    }
+    
+    /**
+     * Close the reminder dialogs of every task not in 'taskIds'
+     */
+    public static void retainReminders(Set<String> taskIds) {
+        SwingUtilities.invokeLater(() -> {
+            Iterator<String> it = reminderDialogs.keySet().iterator();
+            while (it.hasNext()) {
+                String taskId = it.next();
+                if (!taskIds.contains(taskId)) {
+                    Window dialog = SwingUtilities.getWindowAncestor(reminderDialogs.get(taskId));
+                    it.remove();
+                    if (dialog != null) {
+                        dialog.dispose();
+                    }
+                }
+            }
+        });
+    }
+    
+    private static void showReminderDialog(String taskId, String title, String message, int messageType) {
+        JOptionPane pane = reminderDialogs.get(taskId);
+        JDialog dialog;
+        if (pane == null) {
+            pane = new JOptionPane(message, messageType);
+            dialog = pane.createDialog(null, title);
+            dialog.setModal(false);
+            // OK or the close box sets the value
+            pane.addPropertyChangeListener(JOptionPane.VALUE_PROPERTY, e -> closeReminderDialog(taskId));
+            reminderDialogs.put(taskId, pane);
+        } else {
+            pane.setMessage(message);
+            pane.setMessageType(messageType);
+            dialog = (JDialog) SwingUtilities.getWindowAncestor(pane);
+            dialog.setTitle(title);
+            dialog.pack();
+        }
+        dialog.setVisible(true);
+        dialog.toFront();
+        Toolkit.getDefaultToolkit().beep();
+    }
+    
+    private static void closeReminderDialog(String taskId) {
+        JOptionPane pane = reminderDialogs.remove(taskId);
+        if (pane != null) {
+            Window dialog = SwingUtilities.getWindowAncestor(pane);
+            if (dialog != null) {
+                dialog.dispose();
+            }
+        }
+    }
+    
     /**
      * Show dialog notification (fallback)
      */
@@ -101,18 +196,14 @@ public class NotificationManager {
     
     /**
      * Show custom notification with action
+     * Clicking the balloon within a few seconds runs the action. Only the latest
+     * balloon's action is kept, so nothing piles up on the tray icon however
+     * many notifications are shown. The action is armed even without a tray,
+     * so the holder behaves the same headless (where nothing can click it).
      */
     public static void showNotificationWithAction(Task task, Runnable action) {
+        pendingAction.arm(action);
         if (trayIcon != null) {
-            // Add action listener temporarily
-            java.awt.event.ActionListener listener = e -> {
-                if (action != null) {
-                    action.run();
-                }
-            };
-            
-            trayIcon.addActionListener(listener);
-            
             trayIcon.displayMessage(
                 "Task Reminder: " + task.getTitle(),
                 task.getDescription() + "\n\nClick to mark as complete.",
@@ -120,14 +211,25 @@ public class NotificationManager {
             );
             
             Toolkit.getDefaultToolkit().beep();
-            
-            // Remove listener after 5 seconds
-            Timer timer = new Timer(5000, e -> trayIcon.removeActionListener(listener));
-            timer.setRepeats(false);
-            timer.start();
         }
     }
     
+    /**
+     * Holder of the latest balloon's action, which a click on the tray icon runs
+     */
+    public static PendingAction getPendingAction() {
+        return pendingAction;
+    }
+    
+    /**
+     * Listeners on the tray icon (0 without a tray) plus actions held for them;
+     * stays at two at most however many balloons are shown
+     */
+    public static int getBalloonActionCount() {
+        int listeners = trayIcon == null ? 0 : trayIcon.getActionListeners().length;
+        return listeners + pendingAction.getHeldCount();
+    }
+    
     /**
      * Remove tray icon
      */
@@ -0,0 +1,54 @@
+package com.taskreminder.util;
+
+/**
+ * Click action of the latest notification balloon
+ * The tray icon has a single listener that runs whatever was armed last, so
+ * actions replace each other instead of piling up as listeners. An action
+ * runs at most once, and only while its window is open. Kept apart from the
+ * tray so it works (and can be watched) where there is no system tray.
+ * Demonstrates: synchronized state, running callbacks outside the lock
+ */
+public class PendingAction {
+    private final long windowMillis;
+    private Runnable action;
+    private long expires;
+    
+    /**
+     * Holder whose actions stay armed for 'windowMillis' (AppClock time)
+     */
+    public PendingAction(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+    
+    /**
+     * Arm 'action', replacing any earlier one
+     */
+    public synchronized void arm(Runnable action) {
+        this.action = action;
+        this.expires = AppClock.get().millis() + windowMillis;
+    }
+    
+    /**
+     * Run the armed action if its window is still open, and disarm it
+     * @return whether an action ran
+     */
+    public boolean run() {
+        Runnable toRun;
+        synchronized (this) {
+            toRun = action;
+            action = null;
+            if (toRun == null || AppClock.get().millis() > expires) {
+                return false;
+            }
+        }
+        toRun.run();
+        return true;
+    }
+    
+    /**
+     * Number of actions held (0 or 1), expired or not
+     */
+    public synchronized int getHeldCount() {
+        return action == null ? 0 : 1;
+    }
+}
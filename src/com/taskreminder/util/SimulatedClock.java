@@ -0,0 +1,55 @@
+package com.taskreminder.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Clock that only moves when told to
+ * Used with AppClock.set() to run scheduling code in accelerated or frozen time.
+ * Demonstrates: Extending java.time.Clock
+ */
+public class SimulatedClock extends Clock {
+    private final ZoneId zone;
+    private volatile Instant instant;
+    
+    public SimulatedClock(LocalDateTime start) {
+        this(start.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+    }
+    
+    public SimulatedClock(Instant start, ZoneId zone) {
+        this.instant = start;
+        this.zone = zone;
+    }
+    
+    /**
+     * Move the clock forward
+     */
+    public void advance(Duration duration) {
+        instant = instant.plus(duration);
+    }
+    
+    /**
+     * Jump to a date and time (in this clock's zone)
+     */
+    public void setTime(LocalDateTime time) {
+        instant = time.atZone(zone).toInstant();
+    }
+    
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+    
+    @Override
+    public Clock withZone(ZoneId newZone) {
+        return new SimulatedClock(instant, newZone);
+    }
+    
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
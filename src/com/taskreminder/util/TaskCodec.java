@@ -0,0 +1,317 @@
+package com.taskreminder.util;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.taskreminder.model.Task;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written streaming JSON codec for Task
+ * Reads and writes the same JSON as Gson's reflective mapping, field by field,
+ * without reflection or an intermediate JsonElement tree. Registered on the
+ * shared Gson instance, so every Gson user (files, archive, database, API) gets it.
+ * Demonstrates: Gson TypeAdapter, Streaming JSON, Hand-rolled parsing
+ */
+public class TaskCodec extends TypeAdapter<Task> {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(task.getId());
+        out.name("title").value(task.getTitle());
+        out.name("description").value(task.getDescription());
+        writeDateTime(out, "reminderTime", task.getReminderTime());
+        out.name("completed").value(task.isCompleted());
+        out.name("priority").value(task.getPriority());
+        writeDateTime(out, "completedTime", task.getCompletedTime());
+        if (!task.getReminderOffsets().isEmpty()) {
+            out.name("reminderOffsets").beginArray();
+            for (int offset : task.getReminderOffsets()) {
+                out.value(offset);
+            }
+            out.endArray();
+        }
+        writeDateTime(out, "snoozedUntil", task.getSnoozedUntil());
+        writeDateTime(out, "createdTime", task.getCreatedTime());
+        writeStrings(out, "tags", task.getTags());
+        writeStrings(out, "dependsOn", task.getDependsOn());
+        if (task.getRecurrenceRule() != null) {
+            out.name("recurrenceRule").value(task.getRecurrenceRule());
+        }
+        out.endObject();
+    }
+    
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String id = null;
+        String title = null;
+        String description = null;
+        LocalDateTime reminderTime = null;
+        boolean completed = false;
+        String priority = null;
+        LocalDateTime completedTime = null;
+        List<Integer> reminderOffsets = null;
+        LocalDateTime snoozedUntil = null;
+        List<String> tags = null;
+        LocalDateTime createdTime = null;
+        List<String> dependsOn = null;
+        String recurrenceRule = null;
+        
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    id = in.nextString();
+                    break;
+                case "title":
+                    title = in.nextString();
+                    break;
+                case "description":
+                    description = in.nextString();
+                    break;
+                case "reminderTime":
+                    reminderTime = parseDateTime(in.nextString());
+                    break;
+                case "completed":
+                    completed = in.nextBoolean();
+                    break;
+                case "priority":
+                    priority = in.nextString();
+                    break;
+                case "completedTime":
+                    completedTime = parseDateTime(in.nextString());
+                    break;
+                case "reminderOffsets":
+                    reminderOffsets = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        reminderOffsets.add(in.nextInt());
+                    }
+                    in.endArray();
+                    break;
+                case "snoozedUntil":
+                    snoozedUntil = parseDateTime(in.nextString());
+                    break;
+                case "createdTime":
+                    createdTime = parseDateTime(in.nextString());
+                    break;
+                case "tags":
+                    tags = readStrings(in);
+                    break;
+                case "dependsOn":
+                    dependsOn = readStrings(in);
+                    break;
+                case "recurrenceRule":
+                    recurrenceRule = in.nextString();
+                    break;
+                default:
+                    in.skipValue(); // Field from a newer or older version
+            }
+        }
+        in.endObject();
+        
+        // Optional fields only cost a copy when they are present
+        Task task = new Task(id, title, description, reminderTime, priority, completed);
+        if (completedTime != null) {
+            task = task.withCompletedTime(completedTime);
+        }
+        if (reminderOffsets != null && !reminderOffsets.isEmpty()) {
+            task = task.withReminderOffsets(reminderOffsets);
+        }
+        if (snoozedUntil != null) {
+            task = task.withSnoozedUntil(snoozedUntil);
+        }
+        if (tags != null && !tags.isEmpty()) {
+            task = task.withTags(tags);
+        }
+        if (dependsOn != null && !dependsOn.isEmpty()) {
+            task = task.withDependsOn(dependsOn);
+        }
+        if (recurrenceRule != null) {
+            task = task.withRecurrenceRule(recurrenceRule);
+        }
+        // Usually the same as the time in the generated id
+        if (createdTime != null && !createdTime.equals(task.getCreatedTime())) {
+            task = task.withCreatedTime(createdTime);
+        }
+        return task;
+    }
+    
+    private static void writeStrings(JsonWriter out, String name, List<String> values) throws IOException {
+        if (!values.isEmpty()) {
+            out.name(name).beginArray();
+            for (String value : values) {
+                out.value(value);
+            }
+            out.endArray();
+        }
+    }
+    
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(in.nextString());
+        }
+        in.endArray();
+        return values;
+    }
+    
+    private static void writeDateTime(JsonWriter out, String name, LocalDateTime time) throws IOException {
+        if (time != null) {
+            out.name(name).value(formatDateTime(time));
+        }
+    }
+    
+    /**
+     * Same text as ISO_LOCAL_DATE_TIME (e.g. 2025-10-28T14:30:00 or 2025-10-28T14:30:00.5),
+     * written straight into a char array
+     */
+    public static String formatDateTime(LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            return time.format(DATE_FORMATTER);
+        }
+        char[] buf = new char[29];
+        put4(buf, 0, year);
+        buf[4] = '-';
+        put2(buf, 5, time.getMonthValue());
+        buf[7] = '-';
+        put2(buf, 8, time.getDayOfMonth());
+        buf[10] = 'T';
+        put2(buf, 11, time.getHour());
+        buf[13] = ':';
+        put2(buf, 14, time.getMinute());
+        buf[16] = ':';
+        put2(buf, 17, time.getSecond());
+        int length = 19;
+        
+        int nano = time.getNano();
+        if (nano != 0) {
+            // As many fraction digits as needed, trailing zeros dropped
+            buf[length++] = '.';
+            int divisor = 100_000_000;
+            while (nano != 0) {
+                int digit = nano / divisor;
+                buf[length++] = (char) ('0' + digit);
+                nano -= digit * divisor;
+                divisor /= 10;
+            }
+        }
+        return new String(buf, 0, length);
+    }
+    
+    /**
+     * Parse ISO_LOCAL_DATE_TIME text; the common yyyy-MM-ddTHH:mm[:ss[.fraction]]
+     * shapes are parsed by hand, anything else falls back to DateTimeFormatter
+     */
+    public static LocalDateTime parseDateTime(String text) {
+        int length = text.length();
+        if (length >= 16 && text.charAt(4) == '-' && text.charAt(7) == '-'
+                && text.charAt(10) == 'T' && text.charAt(13) == ':') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            int second = 0;
+            int nano = 0;
+            boolean valid = year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0;
+            
+            if (valid && length > 16) {
+                valid = length >= 19 && text.charAt(16) == ':';
+                second = valid ? digits(text, 17, 2) : -1;
+                valid = second >= 0;
+                if (valid && length > 19) {
+                    valid = text.charAt(19) == '.' && length >= 21 && length <= 29;
+                    for (int i = 20; valid && i < 29; i++) {
+                        int digit = i < length ? text.charAt(i) - '0' : 0;
+                        valid = digit >= 0 && digit <= 9;
+                        nano = nano * 10 + digit;
+                    }
+                }
+            }
+            if (valid) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+                } catch (DateTimeException e) {
+                    throw new JsonParseException("Invalid date-time: " + text, e);
+                }
+            }
+        }
+        try {
+            return LocalDateTime.parse(text, DATE_FORMATTER);
+        } catch (DateTimeException e) {
+            throw new JsonParseException("Invalid date-time: " + text, e);
+        }
+    }
+    
+    // Non-negative number from 'count' digits at 'start', or -1
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+    
+    private static void put2(char[] buf, int pos, int value) {
+        buf[pos] = (char) ('0' + value / 10);
+        buf[pos + 1] = (char) ('0' + value % 10);
+    }
+    
+    private static void put4(char[] buf, int pos, int value) {
+        put2(buf, pos, value / 100);
+        put2(buf, pos + 2, value % 100);
+    }
+    
+    /**
+     * LocalDateTime adapter using the same fast path, for LocalDateTime values outside Task
+     */
+    public static class DateTimeAdapter extends TypeAdapter<LocalDateTime> {
+        @Override
+        public void write(JsonWriter out, LocalDateTime time) throws IOException {
+            if (time == null) {
+                out.nullValue();
+            } else {
+                out.value(formatDateTime(time));
+            }
+        }
+        
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return parseDateTime(in.nextString());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.taskreminder.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for TaskApiServer on an ephemeral port: the JSON round trip and the
+ * checks that keep web pages from using the API
+ */
+public class TaskApiServerTest {
+    private static final String TASK_JSON =
+        "{\"title\":\"Backup\",\"reminderTime\":\"2030-10-30T09:00:00\",\"priority\":\"HIGH\",\"tags\":[\"ops\"]}";
+    
+    private final TaskManager manager = TaskManager.getInstance();
+    private TaskApiServer server;
+    
+    /**
+     * Status and body of one response
+     */
+    private static final class Response {
+        final int status;
+        final String body;
+        
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+    
+    @Before
+    public void setUp() throws IOException {
+        manager.clearAllTasks();
+        server = new TaskApiServer(0, 2, 16);
+        server.start();
+    }
+    
+    @After
+    public void tearDown() {
+        server.stop();
+        manager.clearAllTasks();
+    }
+    
+    private Response send(String method, String path, String contentType, String body) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (contentType != null) {
+            connection.setRequestProperty("Content-Type", contentType);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        return new Response(status, in == null ? "" : readAll(in));
+    }
+    
+    private Response sendJson(String method, String path, String body) throws IOException {
+        return send(method, path, "application/json", body);
+    }
+    
+    private static String readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    // HttpURLConnection will not send a Host header of our choosing, so write the request by hand
+    private int statusWithHost(String host) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            String request = "GET /api/tasks HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            String response = readAll(socket.getInputStream());
+            return Integer.parseInt(response.substring(9, 12));
+        }
+    }
+    
+    @Test
+    public void tasksRoundTripThroughTheApi() throws IOException {
+        Response created = sendJson("POST", "/api/tasks", TASK_JSON);
+        assertEquals(201, created.status);
+        String id = JsonParser.parseString(created.body).getAsJsonObject()
+            .getAsJsonArray("ids").get(0).getAsString();
+        
+        Task task = manager.getTaskById(id);
+        assertEquals("Backup", task.getTitle());
+        assertEquals("HIGH", task.getPriority());
+        assertEquals(1, task.getTags().size());
+        
+        Response fetched = send("GET", "/api/tasks/" + id, null, null);
+        assertEquals(200, fetched.status);
+        JsonObject json = JsonParser.parseString(fetched.body).getAsJsonObject();
+        assertEquals("Backup", json.get("title").getAsString());
+        assertEquals("2030-10-30T09:00", json.get("reminderTime").getAsString().substring(0, 16));
+        
+        Response completed = sendJson("POST", "/api/tasks/" + id + "/complete", null);
+        assertEquals(200, completed.status);
+        assertEquals(id, JsonParser.parseString(completed.body).getAsJsonObject().get("completed").getAsString());
+        assertTrue(manager.getTaskById(id).isCompleted());
+        
+        JsonArray pending = JsonParser.parseString(send("GET", "/api/tasks?status=pending", null, null).body)
+            .getAsJsonArray();
+        assertEquals(0, pending.size());
+        
+        Response deleted = sendJson("DELETE", "/api/tasks/" + id, null);
+        assertEquals(200, deleted.status);
+        assertEquals(id, JsonParser.parseString(deleted.body).getAsJsonObject().get("deleted").getAsString());
+        assertNull(manager.getTaskById(id));
+        assertEquals(404, send("GET", "/api/tasks/" + id, null, null).status);
+    }
+    
+    @Test
+    public void batchInsertAddsEveryTask() throws IOException {
+        Response created = sendJson("POST", "/api/tasks", "[" + TASK_JSON + "," + TASK_JSON + "," + TASK_JSON + "]");
+        assertEquals(201, created.status);
+        assertEquals(3, JsonParser.parseString(created.body).getAsJsonObject().getAsJsonArray("ids").size());
+        assertEquals(3, manager.getTaskCount());
+    }
+    
+    @Test
+    public void idsInResponsesAreEscaped() throws IOException {
+        Response response = sendJson("POST", "/api/tasks/%22%7D%2C%22x/complete", null);
+        assertEquals(404, response.status);
+        
+        manager.addTask(new Task("a\"b", "Quoted", "", LocalDateTime.of(2030, 1, 1, 9, 0), "LOW", false));
+        Response completed = sendJson("POST", "/api/tasks/a%22b/complete", null);
+        assertEquals(200, completed.status);
+        assertEquals("a\"b", JsonParser.parseString(completed.body).getAsJsonObject().get("completed").getAsString());
+    }
+    
+    @Test
+    public void writesThatAreNotJsonAreRefused() throws IOException {
+        // What a cross-origin page can send without a preflight
+        assertEquals(415, send("POST", "/api/tasks", "text/plain", TASK_JSON).status);
+        assertEquals(415, send("POST", "/api/tasks", "application/x-www-form-urlencoded", TASK_JSON).status);
+        assertEquals(0, manager.getTaskCount());
+        
+        manager.addTask(new Task("t1", "Keep", "", LocalDateTime.of(2030, 1, 1, 9, 0), "LOW", false));
+        assertEquals(415, send("POST", "/api/tasks/t1/complete", "text/plain", "").status);
+        assertEquals(415, send("DELETE", "/api/tasks/t1", null, null).status);
+        assertFalse(manager.getTaskById("t1").isCompleted());
+        
+        assertEquals(201, send("POST", "/api/tasks", "application/json; charset=utf-8", TASK_JSON).status);
+    }
+    
+    @Test
+    public void requestsForOtherHostsAreRefused() throws IOException {
+        assertEquals(403, statusWithHost("attacker.example"));
+        assertEquals(403, statusWithHost("attacker.example:" + server.getPort()));
+        assertEquals(403, statusWithHost("127.0.0.1.attacker.example"));
+        assertEquals(200, statusWithHost("localhost:" + server.getPort()));
+        assertEquals(200, statusWithHost("127.0.0.1:" + server.getPort()));
+        assertEquals(200, statusWithHost("[::1]:" + server.getPort()));
+    }
+    
+    @Test
+    public void fieldsOfTheWrongTypeAreBadRequests() throws IOException {
+        assertEquals(400, sendJson("POST", "/api/tasks",
+            "{\"title\":{\"x\":1},\"reminderTime\":\"2030-10-30T09:00:00\"}").status);
+        assertEquals(400, sendJson("POST", "/api/tasks",
+            "{\"title\":\"T\",\"reminderTime\":[\"2030-10-30T09:00:00\"]}").status);
+        assertEquals(400, sendJson("POST", "/api/tasks",
+            "{\"title\":\"T\",\"reminderTime\":\"2030-10-30T09:00:00\",\"tags\":[[\"a\"]]}").status);
+        assertEquals(400, sendJson("POST", "/api/tasks",
+            "{\"title\":\"T\",\"reminderTime\":\"2030-10-30T09:00:00\",\"tags\":[{}]}").status);
+        assertEquals(0, manager.getTaskCount());
+    }
+}
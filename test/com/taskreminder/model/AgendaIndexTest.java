@@ -0,0 +1,109 @@
+package com.taskreminder.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for AgendaIndex: range queries, per-day counts and following TaskManager
+ */
+public class AgendaIndexTest {
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 1);
+    
+    private AgendaIndex index;
+    
+    @Before
+    public void setUp() {
+        index = new AgendaIndex();
+        index.tasksReloaded(Arrays.asList(
+            task("late", DAY.atTime(18, 0), false),
+            task("early", DAY.atTime(8, 0), true),
+            task("next", DAY.plusDays(1).atStartOfDay(), false),
+            task("week", DAY.plusDays(7).atTime(12, 0), false),
+            task("none", null, false)));
+    }
+    
+    @After
+    public void tearDown() {
+        TaskManager.getInstance().removeTaskListener(index);
+        TaskManager.getInstance().clearAllTasks();
+    }
+    
+    private static Task task(String id, LocalDateTime reminderTime, boolean completed) {
+        return new Task(id, "Task " + id, "", reminderTime, "LOW", completed);
+    }
+    
+    private static List<String> ids(List<Task> tasks) {
+        List<String> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+    
+    @Test
+    public void rangesIncludeTheFirstDayAndExcludeTheLast() {
+        assertEquals(Arrays.asList("early", "late"), ids(index.getTasks(DAY, DAY.plusDays(1))));
+        assertEquals(Arrays.asList("early", "late", "next"), ids(index.getTasks(DAY, DAY.plusDays(2))));
+        assertEquals(Arrays.asList("next", "week"), ids(index.getTasks(DAY.plusDays(1), DAY.plusDays(8))));
+        assertEquals(Collections.emptyList(), index.getTasks(DAY.plusDays(2), DAY.plusDays(7)));
+        assertEquals(4, index.size());
+    }
+    
+    @Test
+    public void countsPendingAndCompletedPerDay() {
+        Map<LocalDate, AgendaIndex.DayCount> counts = index.getDayCounts(DAY, DAY.plusDays(7));
+        
+        assertEquals(Arrays.asList(DAY, DAY.plusDays(1)), new ArrayList<>(counts.keySet()));
+        assertEquals(1, counts.get(DAY).getPending());
+        assertEquals(1, counts.get(DAY).getCompleted());
+        assertEquals(2, counts.get(DAY).getTotal());
+        assertEquals(1, counts.get(DAY.plusDays(1)).getPending());
+    }
+    
+    @Test
+    public void movedAndRemovedTasksLeaveTheirOldDay() {
+        Task late = task("late", DAY.atTime(18, 0), false);
+        Task moved = task("late", DAY.plusDays(7).atTime(9, 0), false);
+        index.tasksUpdated(Collections.singletonList(late), Collections.singletonList(moved));
+        index.tasksRemoved(Collections.singletonList(task("next", null, false)));
+        
+        Map<LocalDate, AgendaIndex.DayCount> counts = index.getDayCounts(DAY, DAY.plusDays(8));
+        assertEquals(Arrays.asList(DAY, DAY.plusDays(7)), new ArrayList<>(counts.keySet()));
+        assertEquals(0, counts.get(DAY).getPending());
+        assertEquals(2, counts.get(DAY.plusDays(7)).getPending());
+        assertEquals(Arrays.asList("late", "week"), ids(index.getTasks(DAY.plusDays(7), DAY.plusDays(8))));
+    }
+    
+    @Test
+    public void returnedCountsAreCopies() {
+        AgendaIndex.DayCount before = index.getDayCounts(DAY, DAY.plusDays(1)).get(DAY);
+        index.tasksRemoved(Collections.singletonList(task("early", null, false)));
+        
+        assertEquals(1, before.getCompleted());
+        assertEquals(0, index.getDayCounts(DAY, DAY.plusDays(1)).get(DAY).getCompleted());
+    }
+    
+    @Test
+    public void followsTheTaskManagerAfterAttaching() {
+        TaskManager manager = TaskManager.getInstance();
+        manager.setTasks(Collections.singletonList(task("a", DAY.atTime(9, 0), false)));
+        manager.attach(index);
+        manager.addTask(task("b", DAY.atTime(10, 0), false));
+        manager.markTaskCompleted("a");
+        
+        assertEquals(Arrays.asList("a", "b"), ids(index.getTasks(DAY, DAY.plusDays(1))));
+        assertEquals(1, index.getDayCounts(DAY, DAY.plusDays(1)).get(DAY).getCompleted());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,192 @@
+package com.taskreminder.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for DependencyGraph: readiness counts, cycle refusal and readiness change reports
+ */
+public class DependencyGraphTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 30);
+    
+    private DependencyGraph graph;
+    
+    @Before
+    public void setUp() {
+        graph = new DependencyGraph();
+    }
+    
+    private static Task task(String id, boolean completed, String... dependsOn) {
+        return new Task(id, "Task " + id, "", DUE, "LOW", completed).withDependsOn(Arrays.asList(dependsOn));
+    }
+    
+    private List<String> ids(List<Task> tasks) {
+        List<String> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+    
+    @Test
+    public void countsUnfinishedPrerequisites() {
+        graph.rebuild(Arrays.asList(task("a", false), task("b", true), task("c", false, "a", "b", "missing")));
+        
+        assertTrue(graph.isReady("a"));
+        assertFalse(graph.isReady("c"));
+        assertEquals(1, graph.getBlockerCount("c"));
+        assertEquals(3, graph.getEdgeCount());
+        assertTrue(graph.isReady("unknown"));
+    }
+    
+    @Test
+    public void completingAPrerequisiteFreesItsDependents() {
+        graph.rebuild(Arrays.asList(task("a", false), task("b", false, "a"), task("c", false, "a")));
+        List<Task> ready = new ArrayList<>();
+        List<Task> blocked = new ArrayList<>();
+        graph.takeReadinessChanges(ready, blocked);
+        assertTrue(ready.isEmpty());
+        
+        graph.put(task("a", true));
+        graph.takeReadinessChanges(ready, blocked);
+        assertEquals(new HashSet<>(Arrays.asList("b", "c")), new HashSet<>(ids(ready)));
+        assertTrue(blocked.isEmpty());
+        
+        ready.clear();
+        graph.put(task("a", false));
+        graph.takeReadinessChanges(ready, blocked);
+        assertEquals(new HashSet<>(Arrays.asList("b", "c")), new HashSet<>(ids(blocked)));
+        assertTrue(ready.isEmpty());
+    }
+    
+    @Test
+    public void removingAPrerequisiteUnblocks() {
+        graph.put(task("a", false));
+        graph.put(task("b", false, "a"));
+        assertFalse(graph.isReady("b"));
+        
+        graph.remove("a");
+        assertTrue(graph.isReady("b"));
+        List<Task> ready = new ArrayList<>();
+        graph.takeReadinessChanges(ready, new ArrayList<Task>());
+        assertEquals(Arrays.asList("b"), ids(ready));
+        
+        // Adding it back blocks again
+        graph.put(task("a", false));
+        assertFalse(graph.isReady("b"));
+    }
+    
+    @Test
+    public void newTasksAreNotReported() {
+        graph.put(task("a", false));
+        graph.put(task("b", false, "a"));
+        List<Task> ready = new ArrayList<>();
+        List<Task> blocked = new ArrayList<>();
+        graph.takeReadinessChanges(ready, blocked);
+        assertTrue(ready.isEmpty());
+        assertTrue(blocked.isEmpty());
+    }
+    
+    @Test
+    public void refusesACycle() {
+        graph.put(task("a", false));
+        graph.put(task("b", false, "a"));
+        graph.put(task("c", false, "b"));
+        graph.put(task("a", false, "c"));
+        
+        assertEquals(2, graph.getEdgeCount());
+        assertTrue(graph.isReady("a"));
+        graph.put(task("a", false, "a"));
+        assertEquals(2, graph.getEdgeCount());
+    }
+    
+    @Test
+    public void rebuildBreaksCyclesInTheInput() {
+        graph.rebuild(Arrays.asList(task("a", false, "c"), task("b", false, "a"), task("c", false, "b"),
+            task("d", false)));
+        
+        assertEquals(2, graph.getEdgeCount());
+        int ready = 0;
+        for (String id : Arrays.asList("a", "b", "c")) {
+            if (graph.isReady(id)) {
+                ready++;
+            }
+        }
+        assertEquals(1, ready);
+        assertTrue(graph.isReady("d"));
+    }
+    
+    @Test
+    public void changingPrerequisitesRelinks() {
+        graph.rebuild(Arrays.asList(task("a", false), task("b", true), task("c", false, "a")));
+        graph.put(task("c", false, "b"));
+        
+        assertTrue(graph.isReady("c"));
+        assertEquals(1, graph.getEdgeCount());
+        graph.put(task("c", false));
+        assertEquals(0, graph.getEdgeCount());
+    }
+    
+    @Test
+    public void matchesARecountOnRandomChanges() {
+        Random random = new Random(5);
+        Map<String, Task> tasks = new HashMap<>();
+        Map<String, Boolean> reported = new HashMap<>();
+        
+        for (int step = 0; step < 3000; step++) {
+            int n = random.nextInt(40);
+            String id = "T" + n;
+            if (random.nextInt(5) == 0) {
+                tasks.remove(id);
+                graph.remove(id);
+            } else {
+                // Lower numbers only, so no edge is refused and the count below is exact
+                List<String> dependsOn = new ArrayList<>();
+                for (int i = n == 0 ? 0 : random.nextInt(3); i > 0; i--) {
+                    dependsOn.add("T" + random.nextInt(n));
+                }
+                Task task = task(id, random.nextInt(3) == 0, dependsOn.toArray(new String[0]));
+                boolean added = tasks.put(id, task) == null;
+                graph.put(task);
+                if (added) {
+                    reported.put(id, graph.isReady(id)); // a new task is not reported
+                }
+            }
+            
+            List<Task> ready = new ArrayList<>();
+            List<Task> blocked = new ArrayList<>();
+            graph.takeReadinessChanges(ready, blocked);
+            for (Task task : ready) {
+                reported.put(task.getId(), true);
+            }
+            for (Task task : blocked) {
+                reported.put(task.getId(), false);
+            }
+            
+            for (Task task : tasks.values()) {
+                int expected = 0;
+                for (String prerequisite : new HashSet<>(task.getDependsOn())) {
+                    Task target = tasks.get(prerequisite);
+                    if (target != null && !target.isCompleted()) {
+                        expected++;
+                    }
+                }
+                assertEquals(task.getId(), expected, graph.getBlockerCount(task.getId()));
+                assertEquals(task.getId(), expected == 0, reported.get(task.getId()));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.taskreminder.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for PersistentTaskList: key order, snapshots and AVL rebalancing
+ */
+public class PersistentTaskListTest {
+    
+    private static Task task(String id) {
+        return new Task(id, id, "", LocalDateTime.of(2030, 1, 1, 9, 0), "LOW", false);
+    }
+    
+    @Test
+    public void keepsTasksInKeyOrder() {
+        PersistentTaskList list = PersistentTaskList.empty()
+            .with(3, task("c"))
+            .with(1, task("a"))
+            .with(2, task("b"));
+        
+        assertEquals(3, list.size());
+        assertEquals("a", list.get(0).getId());
+        assertEquals("b", list.get(1).getId());
+        assertEquals("c", list.get(2).getId());
+        assertEquals("b", list.getByKey(2).getId());
+        assertNull(list.getByKey(4));
+    }
+    
+    @Test
+    public void oldVersionsAreUnchanged() {
+        PersistentTaskList before = PersistentTaskList.of(Arrays.asList(task("a"), task("b")), 1);
+        PersistentTaskList replaced = before.with(1, task("x"));
+        PersistentTaskList removed = replaced.without(2);
+        
+        assertEquals("a", before.getByKey(1).getId());
+        assertEquals(2, before.size());
+        assertEquals("x", replaced.getByKey(1).getId());
+        assertEquals(2, replaced.size());
+        assertEquals(1, removed.size());
+        assertNull(removed.getByKey(2));
+    }
+    
+    @Test
+    public void removingAMissingKeyReturnsTheSameList() {
+        PersistentTaskList list = PersistentTaskList.of(Arrays.asList(task("a"), task("b")), 10);
+        assertSame(list, list.without(5));
+        assertSame(PersistentTaskList.empty(), PersistentTaskList.empty().without(1));
+    }
+    
+    @Test
+    public void ofNumbersKeysFromTheFirstKey() {
+        PersistentTaskList list = PersistentTaskList.of(Arrays.asList(task("a"), task("b"), task("c")), 7);
+        assertEquals("a", list.getByKey(7).getId());
+        assertEquals("c", list.getByKey(9).getId());
+        assertNull(list.getByKey(6));
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutsideTheListFails() {
+        PersistentTaskList.of(Arrays.asList(task("a")), 0).get(1);
+    }
+    
+    @Test
+    public void matchesASortedMapUnderRandomChanges() {
+        Random random = new Random(42);
+        TreeMap<Long, Task> expected = new TreeMap<>();
+        PersistentTaskList list = PersistentTaskList.empty();
+        for (int i = 0; i < 5000; i++) {
+            long key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                list = list.without(key);
+            } else {
+                Task task = task("t" + i);
+                expected.put(key, task);
+                list = list.with(key, task);
+            }
+        }
+        
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(list));
+        int index = 0;
+        for (Map.Entry<Long, Task> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), list.getByKey(entry.getKey()));
+            assertSame(entry.getValue(), list.get(index++));
+        }
+    }
+    
+    @Test
+    public void staysBalancedWhenKeysOnlyGrow() {
+        PersistentTaskList list = PersistentTaskList.empty();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            Task task = task("t" + i);
+            tasks.add(task);
+            list = list.with(i, task);
+        }
+        // An unbalanced tree would overflow the stack or take minutes here
+        for (int i = 0; i < tasks.size(); i += 997) {
+            assertSame(tasks.get(i), list.get(i));
+        }
+        assertEquals(tasks.size(), list.size());
+    }
+}
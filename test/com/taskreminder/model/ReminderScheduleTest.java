@@ -0,0 +1,96 @@
+package com.taskreminder.model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for ReminderSchedule: offsets, escalation of overdue tasks and snoozing
+ */
+public class ReminderScheduleTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 0);
+    
+    private static Task task(String priority) {
+        return new Task("t", "Task", "", DUE, priority, false);
+    }
+    
+    @Test
+    public void remindsAtEachOffsetThenAtTheDueTime() {
+        Task task = task("LOW").withReminderOffsets(Arrays.asList(15, 60));
+        LocalDateTime first = ReminderSchedule.nextTrigger(task, DUE.minusDays(1));
+        LocalDateTime second = ReminderSchedule.nextTrigger(task, first);
+        LocalDateTime third = ReminderSchedule.nextTrigger(task, second);
+        
+        assertEquals(DUE.minusMinutes(60), first);
+        assertEquals(DUE.minusMinutes(15), second);
+        assertEquals(DUE, third);
+    }
+    
+    @Test
+    public void escalationIntervalFollowsPriority() {
+        assertEquals(DUE.plusMinutes(5), ReminderSchedule.nextTrigger(task("HIGH"), DUE));
+        assertEquals(DUE.plusMinutes(15), ReminderSchedule.nextTrigger(task("MEDIUM"), DUE));
+        assertEquals(DUE.plusMinutes(60), ReminderSchedule.nextTrigger(task("LOW"), DUE));
+    }
+    
+    @Test
+    public void overdueRemindersStayOnTheEscalationGrid() {
+        Task task = task("HIGH");
+        // Checked at an odd moment, the next reminder is still a whole interval after the due time
+        assertEquals(DUE.plusMinutes(25), ReminderSchedule.nextTrigger(task, DUE.plusMinutes(22).plusSeconds(30)));
+        assertEquals(DUE.plusMinutes(30), ReminderSchedule.nextTrigger(task, DUE.plusMinutes(25)));
+    }
+    
+    @Test
+    public void escalationLevelCountsIntervalsSinceTheDueTime() {
+        Task task = task("MEDIUM");
+        assertEquals(0, ReminderSchedule.getEscalationLevel(task, DUE.minusMinutes(30)));
+        assertEquals(0, ReminderSchedule.getEscalationLevel(task, DUE));
+        assertEquals(1, ReminderSchedule.getEscalationLevel(task, DUE.plusMinutes(15)));
+        assertEquals(4, ReminderSchedule.getEscalationLevel(task, DUE.plusMinutes(60)));
+    }
+    
+    @Test
+    public void snoozeHoldsRemindersBackAndRemindsWhenItEnds() {
+        LocalDateTime until = DUE.plusMinutes(12);
+        Task task = task("HIGH").withSnoozedUntil(until);
+        
+        assertEquals(until, ReminderSchedule.nextTrigger(task, DUE.minusMinutes(1)));
+        assertEquals(until, ReminderSchedule.nextTrigger(task, DUE.plusMinutes(6)));
+        // After the snooze, escalation carries on from the grid
+        assertEquals(DUE.plusMinutes(15), ReminderSchedule.nextTrigger(task, until));
+    }
+    
+    @Test
+    public void aSnoozeEndingBeforeTheNextReminderChangesNothing() {
+        Task task = task("LOW").withSnoozedUntil(DUE.minusHours(2));
+        assertEquals(DUE, ReminderSchedule.nextTrigger(task, DUE.minusHours(3)));
+    }
+    
+    @Test
+    public void completedTasksNeverRemind() {
+        Task task = task("HIGH").withCompleted(true);
+        assertNull(ReminderSchedule.nextTrigger(task, DUE.minusDays(1)));
+        assertNull(ReminderSchedule.firstTrigger(task));
+    }
+    
+    @Test
+    public void firstTriggerIsTheEarliestReminder() {
+        assertEquals(DUE.minusMinutes(60),
+            ReminderSchedule.firstTrigger(task("LOW").withReminderOffsets(Arrays.asList(60, 5))));
+        assertEquals(DUE, ReminderSchedule.firstTrigger(task("LOW")));
+    }
+    
+    @Test
+    public void describesTheReminderRelativeToTheDueTime() {
+        Task task = task("LOW");
+        assertEquals("Due in 1 hour", ReminderSchedule.describe(task, DUE.minusHours(1)));
+        assertEquals("Due in 2 days", ReminderSchedule.describe(task, DUE.minusDays(2)));
+        assertEquals("Due now", ReminderSchedule.describe(task, DUE));
+        assertEquals("Overdue by 15 min", ReminderSchedule.describe(task, DUE.plusMinutes(15)));
+    }
+}
@@ -0,0 +1,207 @@
+package com.taskreminder.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for TagIndex: facet counts for each filter part, and postings kept in step with task events
+ */
+public class TagIndexTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 30);
+    private static final String[] TAGS = {"home", "work", "money", "health", "errand"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH"};
+    
+    private TagIndex index;
+    
+    @Before
+    public void setUp() {
+        index = new TagIndex();
+        index.tasksReloaded(Arrays.asList(
+            task("1", "HIGH", false, "home", "money"),
+            task("2", "LOW", true, "home"),
+            task("3", "HIGH", true, "work"),
+            task("4", "MEDIUM", false)));
+    }
+    
+    private static Task task(String id, String priority, boolean completed, String... tags) {
+        return new Task(id, "Task " + id, "", DUE, priority, completed).withTags(Arrays.asList(tags));
+    }
+    
+    private static TagIndex.Filter filter(boolean matchAll, String priority, Boolean completed, String... tags) {
+        return new TagIndex.Filter(Arrays.asList(tags), matchAll, priority, completed);
+    }
+    
+    @Test
+    public void countsEverythingWithoutAFilter() {
+        TagIndex.Facets facets = index.getFacets(TagIndex.Filter.ALL);
+        
+        assertEquals(4, facets.getTotal());
+        assertEquals(4, facets.getMatching());
+        assertEquals(Arrays.asList("home", "money", "work"), new ArrayList<>(facets.getTagCounts().keySet()));
+        assertEquals(Integer.valueOf(2), facets.getTagCounts().get("home"));
+        assertEquals(2, facets.getPriorityCount("HIGH"));
+        assertEquals(0, facets.getPriorityCount("URGENT"));
+        assertEquals(2, facets.getPending());
+        assertEquals(2, facets.getCompleted());
+        assertEquals(Arrays.asList("home", "money", "work"), index.getTags());
+    }
+    
+    @Test
+    public void matchAllTagsNarrowsTheTagCounts() {
+        TagIndex.Facets facets = index.getFacets(filter(true, null, null, "home"));
+        
+        assertEquals(2, facets.getMatching());
+        assertEquals(Integer.valueOf(1), facets.getTagCounts().get("money"));
+        assertEquals(Integer.valueOf(0), facets.getTagCounts().get("work"));
+        assertEquals(1, index.getFacets(filter(true, null, null, "home", "money")).getMatching());
+    }
+    
+    @Test
+    public void matchAnyTagCountsIgnoreTheTagPart() {
+        TagIndex.Facets facets = index.getFacets(filter(false, null, null, "money", "work"));
+        
+        assertEquals(2, facets.getMatching());
+        assertEquals(Integer.valueOf(2), facets.getTagCounts().get("home"));
+        assertEquals(Integer.valueOf(1), facets.getTagCounts().get("work"));
+    }
+    
+    @Test
+    public void priorityAndStatusCountsIgnoreTheirOwnPart() {
+        TagIndex.Facets facets = index.getFacets(filter(true, "HIGH", Boolean.TRUE));
+        
+        assertEquals(1, facets.getMatching());
+        assertEquals(1, facets.getPriorityCount("HIGH"));
+        assertEquals(1, facets.getPriorityCount("LOW"));
+        assertEquals(1, facets.getPending());
+        assertEquals(1, facets.getCompleted());
+    }
+    
+    private Set<String> matchingIds(TagIndex.Filter filter) {
+        Set<String> ids = new HashSet<>();
+        for (Task task : index.getMatchingTasks(filter)) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+    
+    @Test
+    public void matchingTasksComeFromTheBitsets() {
+        assertEquals(new HashSet<>(Arrays.asList("1", "2", "3", "4")), matchingIds(TagIndex.Filter.ALL));
+        assertEquals(new HashSet<>(Arrays.asList("1")), matchingIds(filter(true, null, null, "home", "money")));
+        assertEquals(new HashSet<>(Arrays.asList("1", "3")), matchingIds(filter(false, null, null, "money", "work")));
+        assertEquals(new HashSet<>(Arrays.asList("3")), matchingIds(filter(false, "HIGH", Boolean.TRUE, "work", "home")));
+        assertEquals(new HashSet<>(Arrays.asList("4")), matchingIds(filter(true, "MEDIUM", Boolean.FALSE)));
+        assertTrue(matchingIds(filter(true, null, null, "nosuchtag")).isEmpty());
+        assertTrue(matchingIds(filter(true, "URGENT", null)).isEmpty());
+    }
+    
+    @Test
+    public void singleTasksAreCheckedAgainstTheirPostings() {
+        assertTrue(index.matches(filter(true, "HIGH", Boolean.FALSE, "home", "money"), "1"));
+        assertFalse(index.matches(filter(true, null, null, "home", "work"), "1"));
+        assertTrue(index.matches(filter(false, null, null, "home", "work"), "1"));
+        assertFalse(index.matches(filter(false, null, null, "work", "nosuchtag"), "1"));
+        assertFalse(index.matches(filter(true, "LOW", null), "1"));
+        assertFalse(index.matches(filter(true, null, Boolean.TRUE), "1"));
+        assertTrue(index.matches(TagIndex.Filter.ALL, "4"));
+        assertFalse(index.matches(TagIndex.Filter.ALL, "missing"));
+    }
+    
+    @Test
+    public void followsUpdatesAndRemovals() {
+        Task old = task("1", "HIGH", false, "home", "money");
+        index.tasksUpdated(Collections.singletonList(old),
+            Collections.singletonList(task("1", "LOW", true, "work")));
+        
+        TagIndex.Facets facets = index.getFacets(TagIndex.Filter.ALL);
+        assertEquals(4, facets.getTotal());
+        assertFalse(facets.getTagCounts().containsKey("money"));
+        assertEquals(Integer.valueOf(2), facets.getTagCounts().get("work"));
+        assertEquals(3, facets.getCompleted());
+        
+        index.tasksRemoved(Arrays.asList(task("2", "LOW", true), task("missing", "LOW", false)));
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList("work"), index.getTags());
+        
+        // A repeated add is applied by id, not counted twice
+        index.tasksAdded(Collections.singletonList(task("4", "MEDIUM", false, "home")));
+        assertEquals(3, index.size());
+        assertEquals(Integer.valueOf(1), index.getFacets(TagIndex.Filter.ALL).getTagCounts().get("home"));
+    }
+    
+    // The filter spelled out on the task's fields, independent of the index
+    private static boolean expectedMatch(TagIndex.Filter filter, Task task) {
+        if (filter.getPriority() != null && !filter.getPriority().equals(task.getPriority())) {
+            return false;
+        }
+        if (filter.getCompleted() != null && filter.getCompleted() != task.isCompleted()) {
+            return false;
+        }
+        int carried = 0;
+        for (String tag : filter.getTags()) {
+            if (task.getTags().contains(tag)) {
+                carried++;
+            }
+        }
+        return filter.getTags().isEmpty()
+            || (filter.isMatchAll() ? carried == filter.getTags().size() : carried > 0);
+    }
+    
+    @Test
+    public void matchingTasksFollowRandomEvents() {
+        Random random = new Random(11);
+        index.tasksReloaded(Collections.<Task>emptyList());
+        List<Task> model = new ArrayList<>();
+        
+        for (int step = 0; step < 5000; step++) {
+            String id = "T" + random.nextInt(300);
+            model.removeIf(t -> t.getId().equals(id));
+            if (random.nextInt(4) == 0) {
+                index.tasksRemoved(Collections.singletonList(task(id, "LOW", false)));
+            } else {
+                List<String> tags = new ArrayList<>();
+                for (String tag : TAGS) {
+                    if (random.nextInt(3) == 0) {
+                        tags.add(tag);
+                    }
+                }
+                Task task = task(id, PRIORITIES[random.nextInt(3)], random.nextBoolean(),
+                    tags.toArray(new String[0]));
+                model.add(task);
+                index.tasksAdded(Collections.singletonList(task));
+            }
+            
+            if (step % 50 == 0) {
+                TagIndex.Filter filter = filter(random.nextBoolean(),
+                    random.nextBoolean() ? PRIORITIES[random.nextInt(3)] : null,
+                    random.nextBoolean() ? Boolean.valueOf(random.nextBoolean()) : null,
+                    TAGS[random.nextInt(TAGS.length)], TAGS[random.nextInt(TAGS.length)]);
+                Set<String> expected = new HashSet<>();
+                for (Task task : model) {
+                    if (expectedMatch(filter, task)) {
+                        expected.add(task.getId());
+                    }
+                    assertEquals(expectedMatch(filter, task), index.matches(filter, task.getId()));
+                }
+                assertEquals(expected, matchingIds(filter));
+                TagIndex.Facets facets = index.getFacets(filter);
+                assertEquals(model.size(), facets.getTotal());
+                assertEquals(expected.size(), facets.getMatching());
+            }
+        }
+        assertTrue(index.size() > 0);
+    }
+}
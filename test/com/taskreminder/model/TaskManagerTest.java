@@ -0,0 +1,82 @@
+package com.taskreminder.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for TaskManager: lock-free lookups by id while writers change the list
+ */
+public class TaskManagerTest {
+    
+    private final TaskManager manager = TaskManager.getInstance();
+    
+    private static Task task(String id) {
+        return new Task(id, id, "", LocalDateTime.of(2030, 1, 1, 9, 0), "LOW", false);
+    }
+    
+    @Before
+    public void setUp() {
+        manager.clearAllTasks();
+    }
+    
+    @After
+    public void tearDown() {
+        manager.clearAllTasks();
+    }
+    
+    @Test
+    public void lookupsSeeEveryTaskWhileTheListIsReloaded() throws InterruptedException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tasks.add(task("t" + i));
+        }
+        manager.setTasks(tasks);
+        
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (Task task : tasks) {
+                    if (manager.getTaskById(task.getId()) == null) {
+                        misses.incrementAndGet();
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 3000; i++) {
+            manager.setTasks(tasks);
+        }
+        done.set(true);
+        reader.join();
+        
+        assertEquals(0, misses.get());
+    }
+    
+    @Test
+    public void addedAndRemovedTasksAreFoundUntilTheyGo() {
+        manager.setTasks(Arrays.asList(task("a"), task("b")));
+        manager.addTask(task("c"));
+        manager.removeTask(task("a"));
+        
+        assertNull(manager.getTaskById("a"));
+        assertNotNull(manager.getTaskById("b"));
+        assertNotNull(manager.getTaskById("c"));
+        assertEquals(2, manager.getTaskCount());
+        
+        manager.addTask(task("a"));
+        assertEquals("a", manager.getAllTasks().get(2).getId());
+    }
+}
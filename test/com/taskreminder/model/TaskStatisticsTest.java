@@ -0,0 +1,192 @@
+package com.taskreminder.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for TaskStatistics: running counts, the moving overdue boundary and completion history
+ */
+public class TaskStatisticsTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 3, 15, 12, 0);
+    private static final String[] PRIORITIES = {"HIGH", "MEDIUM", "LOW"};
+    
+    private TaskStatistics statistics;
+    
+    @Before
+    public void setUp() {
+        statistics = new TaskStatistics();
+    }
+    
+    private static Task pending(String id, String priority, LocalDateTime due) {
+        return new Task(id, "Task " + id, "", due, priority, false);
+    }
+    
+    private static Task done(String id, String priority, LocalDateTime due, LocalDateTime completedTime) {
+        return new Task(id, "Task " + id, "", due, priority, true).withCompletedTime(completedTime);
+    }
+    
+    @Test
+    public void countsByStatusAndPriority() {
+        statistics.tasksReloaded(Arrays.asList(
+            pending("a", "HIGH", NOW.plusHours(1)),
+            pending("b", "HIGH", NOW.minusHours(1)),
+            done("c", "LOW", NOW.minusDays(1), NOW.minusDays(1)),
+            pending("d", "URGENT", NOW.plusDays(1))));
+        TaskStatistics.Snapshot snapshot = statistics.getSnapshot(NOW);
+        
+        assertEquals(4, snapshot.getTotal());
+        assertEquals(3, snapshot.getPending());
+        assertEquals(1, snapshot.getCompleted());
+        assertEquals(1, snapshot.getOverdue());
+        assertEquals(0.25, snapshot.getCompletionRate(), 1e-9);
+        assertEquals(Arrays.asList("HIGH", "MEDIUM", "LOW", "URGENT"), snapshot.getPriorities());
+        assertEquals(2, snapshot.getPendingCount("HIGH"));
+        assertEquals(0, snapshot.getPendingCount("MEDIUM"));
+        assertEquals(1, snapshot.getCompletedCount("LOW"));
+    }
+    
+    @Test
+    public void emptyStatistics() {
+        TaskStatistics.Snapshot snapshot = statistics.getSnapshot(NOW);
+        
+        assertEquals(0, snapshot.getTotal());
+        assertEquals(0.0, snapshot.getCompletionRate(), 0);
+        assertTrue(Double.isNaN(snapshot.getAverageLatenessMinutes()));
+        assertEquals(TaskStatistics.HISTORY_DAYS, snapshot.getDays().size());
+        assertEquals(NOW.toLocalDate(), snapshot.getDays().get(TaskStatistics.HISTORY_DAYS - 1));
+    }
+    
+    @Test
+    public void overdueFollowsTheClockBothWays() {
+        statistics.tasksReloaded(Arrays.asList(
+            pending("a", "LOW", NOW.plusMinutes(10)),
+            pending("b", "LOW", NOW.plusMinutes(20)),
+            pending("c", "LOW", NOW.plusMinutes(20))));
+        
+        assertEquals(0, statistics.getSnapshot(NOW).getOverdue());
+        assertEquals(1, statistics.getSnapshot(NOW.plusMinutes(15)).getOverdue());
+        assertEquals(3, statistics.getSnapshot(NOW.plusMinutes(25)).getOverdue());
+        assertEquals(0, statistics.getSnapshot(NOW).getOverdue());
+        assertEquals(0, statistics.getSnapshot(NOW.plusMinutes(10)).getOverdue());
+        assertEquals(1, statistics.getSnapshot(NOW.plusMinutes(10).plusNanos(1)).getOverdue());
+    }
+    
+    @Test
+    public void completingAndRemovingTakeBackTheirShare() {
+        Task a = pending("a", "HIGH", NOW.minusHours(2));
+        statistics.tasksReloaded(Collections.singletonList(a));
+        assertEquals(1, statistics.getSnapshot(NOW).getOverdue());
+        
+        Task finished = done("a", "HIGH", a.getReminderTime(), NOW.minusMinutes(30));
+        statistics.tasksUpdated(Collections.singletonList(a), Collections.singletonList(finished));
+        TaskStatistics.Snapshot snapshot = statistics.getSnapshot(NOW);
+        assertEquals(0, snapshot.getOverdue());
+        assertEquals(1, snapshot.getCompletedCount("HIGH"));
+        assertEquals(0, snapshot.getPendingCount("HIGH"));
+        assertEquals(1, snapshot.getCompletedOn(TaskStatistics.HISTORY_DAYS - 1));
+        assertEquals(1, snapshot.getLatenessCount(2));
+        assertEquals(90.0, snapshot.getAverageLatenessMinutes(), 1e-9);
+        
+        // A repeated event changes nothing
+        statistics.tasksAdded(Collections.singletonList(finished));
+        assertEquals(1, statistics.getSnapshot(NOW).getTotal());
+        
+        statistics.tasksRemoved(Collections.singletonList(finished));
+        snapshot = statistics.getSnapshot(NOW);
+        assertEquals(0, snapshot.getTotal());
+        assertEquals(0, snapshot.getCompletedOn(TaskStatistics.HISTORY_DAYS - 1));
+        assertEquals(0, snapshot.getLatenessCount(2));
+        assertEquals(Arrays.asList("HIGH", "MEDIUM", "LOW"), snapshot.getPriorities());
+    }
+    
+    @Test
+    public void bucketsLatenessAndHistory() {
+        statistics.tasksReloaded(Arrays.asList(
+            done("early", "LOW", NOW, NOW.minusMinutes(5)),
+            done("minutes", "LOW", NOW, NOW.plusMinutes(59)),
+            done("hours", "LOW", NOW, NOW.plusHours(23)),
+            done("days", "LOW", NOW.minusDays(3), NOW),
+            done("unknown", "LOW", NOW, null),
+            pending("created", "LOW", NOW).withCreatedTime(NOW.minusDays(2)),
+            pending("ancient", "LOW", NOW).withCreatedTime(NOW.minusDays(30))));
+        TaskStatistics.Snapshot snapshot = statistics.getSnapshot(NOW.plusDays(1));
+        
+        for (int bucket = 0; bucket < TaskStatistics.LATENESS_LABELS.length; bucket++) {
+            assertEquals(TaskStatistics.LATENESS_LABELS[bucket], 1, snapshot.getLatenessCount(bucket));
+        }
+        assertEquals((-5 + 59 + 23 * 60 + 3 * 24 * 60) / 4.0, snapshot.getAverageLatenessMinutes(), 1e-9);
+        int last = TaskStatistics.HISTORY_DAYS - 1;
+        assertEquals(3, snapshot.getCompletedOn(last - 1));
+        assertEquals(1, snapshot.getCompletedOn(last));
+        assertEquals(1, snapshot.getCreatedOn(last - 3));
+        int created = 0;
+        for (int day = 0; day < TaskStatistics.HISTORY_DAYS; day++) {
+            created += snapshot.getCreatedOn(day);
+        }
+        assertEquals(1, created);
+    }
+    
+    @Test
+    public void matchesARecountOnRandomChanges() {
+        Random random = new Random(3);
+        Map<String, Task> tasks = new HashMap<>();
+        LocalDateTime now = NOW;
+        
+        for (int step = 0; step < 5000; step++) {
+            String id = "T" + random.nextInt(200);
+            Task old = tasks.get(id);
+            if (old != null && random.nextInt(4) == 0) {
+                tasks.remove(id);
+                statistics.tasksRemoved(Collections.singletonList(old));
+            } else {
+                LocalDateTime due = NOW.plusMinutes(random.nextInt(600) - 300);
+                String priority = PRIORITIES[random.nextInt(PRIORITIES.length)];
+                Task task = random.nextInt(3) == 0
+                    ? done(id, priority, due, due.plusMinutes(random.nextInt(3000) - 60))
+                    : pending(id, priority, due);
+                tasks.put(id, task);
+                List<Task> versions = Collections.singletonList(task);
+                if (old == null) {
+                    statistics.tasksAdded(versions);
+                } else {
+                    statistics.tasksUpdated(Collections.singletonList(old), versions);
+                }
+            }
+            
+            if (step % 25 == 0) {
+                now = NOW.plusMinutes(random.nextInt(600) - 300);
+                TaskStatistics.Snapshot snapshot = statistics.getSnapshot(now);
+                int completed = 0;
+                int overdue = 0;
+                int highPending = 0;
+                for (Task task : tasks.values()) {
+                    if (task.isCompleted()) {
+                        completed++;
+                    } else {
+                        if (task.getReminderTime().isBefore(now)) {
+                            overdue++;
+                        }
+                        if ("HIGH".equals(task.getPriority())) {
+                            highPending++;
+                        }
+                    }
+                }
+                assertEquals(tasks.size(), snapshot.getTotal());
+                assertEquals(completed, snapshot.getCompleted());
+                assertEquals(overdue, snapshot.getOverdue());
+                assertEquals(highPending, snapshot.getPendingCount("HIGH"));
+            }
+        }
+    }
+}
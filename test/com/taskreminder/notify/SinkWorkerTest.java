@@ -0,0 +1,197 @@
+package com.taskreminder.notify;
+
+import com.taskreminder.model.Task;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for SinkWorker with fake sinks that block, throw or ignore interrupts:
+ * the full queue, timeouts, retries with backoff, the cap on hung attempts and the counters
+ */
+public class SinkWorkerTest {
+    private static final LocalDateTime TRIGGER = LocalDateTime.of(2030, 4, 1, 9, 0);
+    
+    private SinkWorker worker;
+    
+    @After
+    public void tearDown() {
+        if (worker != null) {
+            worker.stopWorker();
+        }
+    }
+    
+    /**
+     * Sink that records what it was given and runs a behaviour for each call
+     */
+    private static class FakeSink implements NotificationSink {
+        interface Behaviour {
+            void deliver(int call) throws Exception;
+        }
+        
+        private final Behaviour behaviour;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> callNanos = Collections.synchronizedList(new ArrayList<>());
+        
+        FakeSink(Behaviour behaviour) {
+            this.behaviour = behaviour;
+        }
+        
+        @Override
+        public String getName() {
+            return "fake";
+        }
+        
+        @Override
+        public void deliver(Notification notification) throws Exception {
+            callNanos.add(System.nanoTime());
+            behaviour.deliver(calls.getAndIncrement());
+            delivered.add(notification.getTask().getId());
+        }
+    }
+    
+    private static Notification notification(String id) {
+        return new Notification(new Task(id, "Task " + id, "", TRIGGER, "MEDIUM", false), TRIGGER, "Due now", 0);
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for the worker");
+            }
+            Thread.sleep(5);
+        }
+    }
+    
+    @Test
+    public void aFullQueueDropsTheOldestNotifications() throws InterruptedException {
+        FakeSink sink = new FakeSink(call -> { });
+        worker = new SinkWorker(sink, 3, 1000, 0, 10);
+        for (int i = 1; i <= 5; i++) {
+            worker.offer(notification("n" + i));
+        }
+        SinkMetrics metrics = worker.getMetrics();
+        assertEquals(2, metrics.getDropped());
+        assertEquals(3, metrics.getQueued());
+        
+        worker.start();
+        await(() -> worker.getMetrics().getDelivered() == 3);
+        assertEquals(Arrays.asList("n3", "n4", "n5"), sink.delivered);
+        assertEquals(0, worker.getMetrics().getQueued());
+        assertEquals(0, worker.getMetrics().getFailed());
+    }
+    
+    @Test
+    public void anAttemptThatTimesOutIsInterrupted() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        FakeSink sink = new FakeSink(call -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        });
+        worker = new SinkWorker(sink, 10, 100, 0, 10);
+        worker.start();
+        worker.offer(notification("slow"));
+        
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        await(() -> worker.getMetrics().getFailed() == 1);
+        SinkMetrics metrics = worker.getMetrics();
+        assertEquals(1, metrics.getTimeouts());
+        assertEquals(0, metrics.getDelivered());
+        await(() -> worker.getAttemptsInFlight() == 0);
+    }
+    
+    @Test
+    public void failedAttemptsAreRetriedWithAGrowingDelay() throws InterruptedException {
+        FakeSink sink = new FakeSink(call -> {
+            if (call < 2) {
+                throw new IllegalStateException("try again");
+            }
+        });
+        worker = new SinkWorker(sink, 10, 1000, 2, 100);
+        worker.start();
+        worker.offer(notification("flaky"));
+        
+        await(() -> worker.getMetrics().getDelivered() == 1);
+        SinkMetrics metrics = worker.getMetrics();
+        assertEquals(2, metrics.getRetries());
+        assertEquals(0, metrics.getFailed());
+        assertEquals(0, metrics.getTimeouts());
+        assertTrue(metrics.getMaxLatencyMillis() >= 300);
+        
+        // 100 ms before the first retry, 200 ms before the second
+        long firstGap = sink.callNanos.get(1) - sink.callNanos.get(0);
+        long secondGap = sink.callNanos.get(2) - sink.callNanos.get(1);
+        assertTrue(firstGap >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(secondGap >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+    
+    @Test
+    public void aSinkThatKeepsFailingIsGivenUpOn() throws InterruptedException {
+        FakeSink sink = new FakeSink(call -> {
+            throw new IllegalStateException("down");
+        });
+        worker = new SinkWorker(sink, 10, 1000, 2, 10);
+        worker.start();
+        worker.offer(notification("a"));
+        worker.offer(notification("b"));
+        
+        await(() -> worker.getMetrics().getFailed() == 2);
+        assertEquals(6, sink.calls.get());
+        assertEquals(4, worker.getMetrics().getRetries());
+        assertEquals(0, worker.getMetrics().getDelivered());
+    }
+    
+    @Test
+    public void aSinkIgnoringInterruptsHoldsAtMostFourThreads() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        FakeSink sink = new FakeSink(call -> {
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException e) {
+                    // Ignored, as a badly behaved sink would
+                }
+            }
+        });
+        worker = new SinkWorker(sink, 10, 50, 3, 10);
+        worker.start();
+        for (int i = 0; i < 6; i++) {
+            worker.offer(notification("hung" + i));
+        }
+        
+        await(() -> worker.getMetrics().getFailed() == 6);
+        SinkMetrics metrics = worker.getMetrics();
+        // The fourth hung attempt stops the retries; later notifications fail without calling the sink
+        assertEquals(4, sink.calls.get());
+        assertEquals(4, metrics.getTimeouts());
+        assertEquals(3, metrics.getRetries());
+        assertEquals(4, worker.getAttemptsInFlight());
+        
+        // Once the sink lets go, its threads are counted out and delivery resumes
+        release.countDown();
+        await(() -> worker.getAttemptsInFlight() == 0);
+        worker.offer(notification("after"));
+        await(() -> worker.getMetrics().getDelivered() == 1);
+        assertTrue(sink.delivered.contains("after"));
+    }
+}
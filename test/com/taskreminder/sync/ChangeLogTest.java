@@ -0,0 +1,132 @@
+package com.taskreminder.sync;
+
+import com.taskreminder.model.Task;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ChangeLog: epochs, offsets, compaction and applying entries in log order
+ */
+public class ChangeLogTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 30);
+    
+    private File file;
+    private ChangeLog log;
+    
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("changes", ".log");
+        file.delete();
+        log = new ChangeLog(file);
+    }
+    
+    @After
+    public void tearDown() {
+        log.close();
+        file.delete();
+    }
+    
+    private static Task task(String id, String title) {
+        return new Task(id, title, "", DUE, "LOW", false);
+    }
+    
+    private static ChangeLog.Entry put(String origin, Task task) {
+        return new ChangeLog.Entry(origin, ChangeLog.Entry.PUT, task, null);
+    }
+    
+    private static ChangeLog.Entry remove(String origin, String id) {
+        return new ChangeLog.Entry(origin, ChangeLog.Entry.REMOVE, null, id);
+    }
+    
+    private static List<String> titles(List<Task> tasks) {
+        List<String> titles = new ArrayList<>();
+        for (Task task : tasks) {
+            titles.add(task.getTitle());
+        }
+        return titles;
+    }
+    
+    @Test
+    public void firstAppendStartsAnEpoch() throws IOException {
+        ChangeLog.Appended first = log.append(Collections.singletonList(put("p1", task("a", "A"))));
+        ChangeLog.Appended second = log.append(Arrays.asList(put("p2", task("b", "B")), remove("p2", "a")));
+        
+        assertTrue(first.newEpoch);
+        assertEquals(ChangeLog.getStartOffset(), first.offset);
+        assertFalse(second.newEpoch);
+        assertEquals(first.epoch, second.epoch);
+        assertTrue(second.offset > first.offset);
+    }
+    
+    @Test
+    public void readsFromAnOffsetWithinAnEpoch() throws IOException {
+        long epoch = log.append(Collections.singletonList(put("p1", task("a", "A")))).epoch;
+        ChangeLog.Batch all = log.read(epoch, ChangeLog.getStartOffset());
+        log.append(Collections.singletonList(remove("p2", "a")));
+        
+        assertEquals(1, all.entries.size());
+        assertEquals(ChangeLog.getStartOffset(), all.entries.get(0).offset);
+        
+        ChangeLog.Batch next = log.read(epoch, all.nextOffset);
+        assertEquals(1, next.entries.size());
+        assertEquals("a", next.entries.get(0).getTaskId());
+        assertEquals("p2", next.entries.get(0).origin);
+        assertEquals(log.size(), next.nextOffset);
+        assertTrue(log.read(epoch, next.nextOffset).entries.isEmpty());
+    }
+    
+    @Test
+    public void anotherEpochIsReadFromTheStart() throws IOException {
+        long epoch = log.append(Arrays.asList(put("p1", task("a", "A")), put("p1", task("b", "B")))).epoch;
+        
+        ChangeLog.Batch batch = log.read(epoch + 1, log.size());
+        assertEquals(epoch, batch.epoch);
+        assertEquals(2, batch.entries.size());
+    }
+    
+    @Test
+    public void compactionSeesTheWholeLogAndStartsANewEpoch() throws IOException {
+        long epoch = log.append(Collections.singletonList(put("p1", task("a", "A")))).epoch;
+        log.append(Collections.singletonList(put("p2", task("b", "B"))));
+        List<ChangeLog.Entry> seen = new ArrayList<>();
+        
+        long newEpoch = log.compact(epoch, logged -> seen.addAll(logged.entries));
+        
+        assertEquals(2, seen.size());
+        assertNotEquals(epoch, newEpoch);
+        assertEquals(ChangeLog.getStartOffset(), log.size());
+        ChangeLog.Batch after = log.read(epoch, ChangeLog.getStartOffset());
+        assertEquals(newEpoch, after.epoch);
+        assertTrue(after.entries.isEmpty());
+        assertFalse(log.append(Collections.singletonList(remove("p1", "a"))).newEpoch);
+    }
+    
+    @Test
+    public void appliesEntriesInLogOrder() {
+        List<Task> saved = Arrays.asList(task("a", "A"), task("b", "B"), task("c", "C"));
+        List<ChangeLog.Entry> entries = Arrays.asList(
+            put("p1", task("b", "B2")),
+            remove("p2", "a"),
+            put("p1", task("d", "D")),
+            put("p2", task("a", "A again")),
+            remove("p1", "c"),
+            remove("p1", "missing"));
+        
+        assertEquals(Arrays.asList("B2", "D", "A again"), titles(ChangeLog.applyTo(saved, entries)));
+        assertEquals(Arrays.asList("A", "B", "C"), titles(saved));
+    }
+}
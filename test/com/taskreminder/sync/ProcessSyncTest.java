@@ -0,0 +1,127 @@
+package com.taskreminder.sync;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.FileHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ProcessSync: log order between processes, epochs and compaction into tasks.json
+ * A second ChangeLog on the same file stands in for the other process.
+ */
+public class ProcessSyncTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 30);
+    
+    private final TaskManager manager = TaskManager.getInstance();
+    private ProcessSync sync;
+    private ChangeLog other;
+    
+    @Before
+    public void setUp() throws IOException {
+        new File(FileHandler.getDataDir(), "changes.log").delete();
+        manager.clearAllTasks();
+        manager.setTasks(Collections.singletonList(task("a", "Saved")));
+        FileHandler.saveTasks();
+        sync = new ProcessSync();
+        other = new ChangeLog(new File(FileHandler.getDataDir(), "changes.log"));
+    }
+    
+    @After
+    public void tearDown() {
+        sync.stop();
+        other.close();
+        manager.clearAllTasks();
+        FileHandler.deleteTasksFile();
+    }
+    
+    private static Task task(String id, String title) {
+        return new Task(id, title, "", DUE, "LOW", false);
+    }
+    
+    private long appendRemote(Task task) throws IOException {
+        return other.append(Collections.singletonList(
+            new ChangeLog.Entry("other", ChangeLog.Entry.PUT, task, null))).epoch;
+    }
+    
+    private static List<String> savedTitles() throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(FileHandler.getTasksFile())), StandardCharsets.UTF_8);
+        List<String> titles = new ArrayList<>();
+        for (Task task : FileHandler.getGson().fromJson(json, Task[].class)) {
+            titles.add(task.getId() + ":" + task.getTitle());
+        }
+        return titles;
+    }
+    
+    @Test
+    public void startAppliesWhatWasLoggedSinceTheSave() throws IOException {
+        appendRemote(task("b", "Logged before start"));
+        sync.start();
+        
+        assertEquals("Logged before start", manager.getTaskById("b").getTitle());
+        assertEquals(0, sync.catchUp());
+    }
+    
+    @Test
+    public void theLaterChangeInTheLogWins() throws IOException {
+        sync.start();
+        
+        appendRemote(task("a", "Remote first"));
+        manager.updateTask(task("a", "Local second"));
+        sync.catchUp();
+        assertEquals("Local second", manager.getTaskById("a").getTitle());
+        
+        manager.updateTask(task("a", "Local first"));
+        appendRemote(task("a", "Remote second"));
+        assertEquals(1, sync.catchUp());
+        assertEquals("Remote second", manager.getTaskById("a").getTitle());
+    }
+    
+    @Test
+    public void compactionWritesTheFileAndTheLogNotMemory() throws IOException {
+        manager.addTask(task("draft", "Never logged"));
+        sync.start();
+        manager.updateTask(task("a", "Edited"));
+        appendRemote(task("b", "Remote"));
+        assertTrue(sync.tryAcquireLeadership());
+        
+        sync.compact();
+        
+        assertEquals(Arrays.asList("a:Edited", "b:Remote"), savedTitles());
+        assertEquals("Remote", manager.getTaskById("b").getTitle());
+        assertEquals("Never logged", manager.getTaskById("draft").getTitle());
+        assertEquals(ChangeLog.getStartOffset(), other.size());
+        
+        // The new epoch holds only what comes after the compaction
+        manager.removeTask(task("b", "Remote"));
+        assertEquals(1, other.read(0, ChangeLog.getStartOffset()).entries.size());
+    }
+    
+    @Test
+    public void anotherProcessCompactingMeansReloadingTheFile() throws IOException {
+        sync.start();
+        long epoch = appendRemote(task("b", "Remote"));
+        other.compact(epoch, logged -> FileHandler.rewriteSavedTasks(
+            saved -> ChangeLog.applyTo(saved, logged.entries)));
+        appendRemote(task("c", "After compaction"));
+        
+        assertEquals(1, sync.catchUp());
+        assertEquals("Remote", manager.getTaskById("b").getTitle());
+        assertEquals("After compaction", manager.getTaskById("c").getTitle());
+    }
+}
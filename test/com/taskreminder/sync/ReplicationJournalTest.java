@@ -0,0 +1,154 @@
+package com.taskreminder.sync;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.ArchiveHandler;
+import com.taskreminder.util.FileHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ReplicationJournal: last-writer-wins, tombstones and their expiry, archived tasks
+ */
+public class ReplicationJournalTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 30);
+    private static final long NOW = Instant.parse("2030-01-01T00:00:00Z").toEpochMilli();
+    
+    private final TaskManager manager = TaskManager.getInstance();
+    private ReplicationJournal journal;
+    
+    @Before
+    public void setUp() throws IOException {
+        AppClock.set(Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+        for (String name : new String[] {"replication.journal", "replication.properties"}) {
+            new File(FileHandler.getDataDir(), name).delete();
+        }
+        FileHandler.deleteTasksFile();
+        manager.clearAllTasks();
+        journal = ReplicationJournal.open();
+        journal.attach();
+    }
+    
+    @After
+    public void tearDown() {
+        journal.detach();
+        manager.clearAllTasks();
+        AppClock.reset();
+    }
+    
+    private static Task task(String id, String title) {
+        return new Task(id, title, "", DUE, "LOW", false);
+    }
+    
+    private void reopen() throws IOException {
+        journal.detach();
+        journal = ReplicationJournal.open();
+        journal.attach();
+    }
+    
+    private List<ReplicationJournal.Change> changesAfter(long seq) throws InterruptedException {
+        ReplicationJournal.Batch batch = journal.awaitChanges(seq, "nobody", 1000, 0);
+        return batch == null ? Collections.<ReplicationJournal.Change>emptyList() : batch.changes;
+    }
+    
+    private int applyFromPeer(long version, String origin, Task task, String id) throws IOException {
+        return journal.applyFromPeer("peer", Collections.singletonList(
+            new ReplicationJournal.Change(0, version, origin, task, id)), 7);
+    }
+    
+    @Test
+    public void keepsTheLatestRecordPerTask() throws InterruptedException {
+        manager.addTask(task("a", "First"));
+        manager.updateTask(task("a", "Second"));
+        
+        List<ReplicationJournal.Change> changes = changesAfter(0);
+        assertEquals(1, changes.size());
+        assertEquals("Second", changes.get(0).task.getTitle());
+        assertEquals(2, journal.getLastSeq());
+        assertEquals(1, journal.size());
+        
+        // Versions never go backwards, even with the clock standing still
+        assertEquals(NOW + 1, changes.get(0).version);
+    }
+    
+    @Test
+    public void newerVersionFromAPeerWins() throws IOException, InterruptedException {
+        manager.addTask(task("a", "Local"));
+        long version = changesAfter(0).get(0).version;
+        
+        assertEquals(0, applyFromPeer(version - 1, "zzzzzzzz", task("a", "Older"), "a"));
+        assertEquals("Local", manager.getTaskById("a").getTitle());
+        
+        // Equal versions: the higher node id wins
+        assertEquals(0, applyFromPeer(version, "!", task("a", "Tie, lower id"), "a"));
+        assertEquals(1, applyFromPeer(version, "zzzzzzzz", task("a", "Tie, higher id"), "a"));
+        assertEquals("Tie, higher id", manager.getTaskById("a").getTitle());
+        
+        assertEquals(1, applyFromPeer(version + 10, "!", null, "a"));
+        assertNull(manager.getTaskById("a"));
+        assertEquals(7, journal.getPeerCursor("peer"));
+        
+        // Records from a peer are journaled, not recorded again as local changes
+        assertEquals(1, journal.size());
+        assertTrue(changesAfter(0).get(0).isRemoval());
+    }
+    
+    @Test
+    public void tombstonesStayUntilEveryPeerHasThem() throws IOException, InterruptedException {
+        manager.addTask(task("kept", "Kept"));
+        manager.addTask(task("gone", "Gone"));
+        manager.removeTask(task("gone", "Gone"));
+        long seq = journal.getLastSeq();
+        
+        reopen();
+        assertEquals(2, journal.size());
+        
+        journal.peerAcknowledged("b", seq);
+        journal.peerAcknowledged("c", seq - 1);
+        reopen();
+        assertEquals(2, journal.size());
+        
+        journal.peerAcknowledged("c", seq);
+        journal.peerAcknowledged("c", 0); // Never goes back
+        reopen();
+        assertEquals(1, journal.size());
+        assertEquals(seq, journal.getAcknowledged("c"));
+        assertEquals("kept", changesAfter(0).get(0).id);
+    }
+    
+    @Test
+    public void archivedTasksAreNotDeletions() throws IOException, InterruptedException {
+        Task done = new Task("done", "Done", "", DUE, "LOW", true);
+        manager.addTask(done);
+        long seq = journal.getLastSeq();
+        
+        ArchiveHandler.removeArchived(manager, Collections.singletonList(done));
+        assertEquals(seq, journal.getLastSeq());
+        assertTrue(changesAfter(seq).isEmpty());
+        
+        // A restart neither records the missing task as removed nor brings it back
+        reopen();
+        assertEquals(seq, journal.getLastSeq());
+        assertNull(manager.getTaskById("done"));
+        assertTrue(changesAfter(0).get(0).isArchived());
+        
+        journal.peerAcknowledged("b", seq);
+        reopen();
+        assertEquals(0, journal.size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.taskreminder.thread;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.ArchiveHandler;
+import com.taskreminder.util.FileHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ArchiveThread: archived tasks leave memory and tasks.json, and nothing else is saved
+ */
+public class ArchiveThreadTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 3, 15, 12, 0);
+    
+    private final TaskManager manager = TaskManager.getInstance();
+    
+    @Before
+    public void setUp() {
+        AppClock.set(Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        File[] segments = new File(FileHandler.getDataDir(), "archive").listFiles();
+        if (segments != null) {
+            for (File segment : segments) {
+                segment.delete();
+            }
+        }
+        FileHandler.deleteTasksFile();
+        manager.clearAllTasks();
+    }
+    
+    @After
+    public void tearDown() {
+        manager.clearAllTasks();
+        FileHandler.deleteTasksFile();
+        AppClock.reset();
+    }
+    
+    private static Task done(String id, LocalDateTime completedTime) {
+        return new Task(id, "Task " + id, "", completedTime, "LOW", true).withCompletedTime(completedTime);
+    }
+    
+    private static Task pending(String id, String title) {
+        return new Task(id, title, "", NOW.plusDays(1), "LOW", false);
+    }
+    
+    private static List<String> savedIds() throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(FileHandler.getTasksFile())), StandardCharsets.UTF_8);
+        List<String> ids = new ArrayList<>();
+        for (Task task : FileHandler.getGson().fromJson(json, Task[].class)) {
+            ids.add(task.getId() + ":" + task.getTitle());
+        }
+        return ids;
+    }
+    
+    private static List<String> archivedIds() {
+        try (Stream<Task> tasks = ArchiveHandler.streamArchivedTasks()) {
+            return tasks.map(Task::getId).collect(Collectors.toList());
+        }
+    }
+    
+    @Test
+    public void archivesOldCompletedTasksWithoutSavingOtherChanges() throws Exception {
+        manager.setTasks(Arrays.asList(done("old", NOW.minusDays(30)), done("recent", NOW.minusDays(1)),
+            pending("open", "Saved title")));
+        FileHandler.saveTasks();
+        manager.updateTask(pending("open", "Unsaved title"));
+        manager.addTask(pending("new", "Unsaved task"));
+        
+        assertEquals(1, new ArchiveThread().archiveOldTasks());
+        
+        assertNull(manager.getTaskById("old"));
+        assertEquals("Unsaved title", manager.getTaskById("open").getTitle());
+        assertEquals(Arrays.asList("recent:Task recent", "open:Saved title"), savedIds());
+        assertEquals(Collections.singletonList("old"), archivedIds());
+        assertTrue(ArchiveHandler.getUncommittedIds().isEmpty());
+        
+        assertEquals(0, new ArchiveThread().archiveOldTasks());
+        assertEquals(1, ArchiveHandler.getSegmentCount());
+    }
+    
+    @Test
+    public void dropsTasksOfAnInterruptedRunWithoutArchivingThemAgain() throws Exception {
+        Task old = done("old", NOW.minusDays(30));
+        manager.setTasks(Arrays.asList(old, pending("open", "Open")));
+        FileHandler.saveTasks();
+        ArchiveHandler.archiveTasks(Collections.singletonList(old)); // The run stopped here
+        
+        assertEquals(0, new ArchiveThread().archiveOldTasks());
+        
+        assertNull(manager.getTaskById("old"));
+        assertEquals(Collections.singletonList("open:Open"), savedIds());
+        assertEquals(Collections.singletonList("old"), archivedIds());
+        assertTrue(ArchiveHandler.getUncommittedIds().isEmpty());
+    }
+    
+    @Test
+    public void leavesAMissingTasksFileAlone() throws Exception {
+        manager.addTask(done("old", NOW.minusDays(30)));
+        
+        assertEquals(1, new ArchiveThread().archiveOldTasks());
+        assertFalse(FileHandler.tasksFileExists());
+    }
+}
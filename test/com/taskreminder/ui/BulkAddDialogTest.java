@@ -0,0 +1,114 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.Task;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for BulkAddDialog.parse: separators, quoting, times, priorities and row errors
+ */
+public class BulkAddDialogTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 3, 1, 12, 34, 56);
+    
+    private static List<BulkAddDialog.Row> parse(String text) {
+        return BulkAddDialog.parse(text, "MEDIUM", NOW);
+    }
+    
+    @Test
+    public void readsCommaAndTabSeparatedRows() {
+        List<BulkAddDialog.Row> rows = parse("Pay rent,2030-03-05 10:00,high,From the joint account\n"
+            + "Call mum\t2030-03-06\tl\n"
+            + "Stretch,18:30");
+        
+        assertEquals(3, rows.size());
+        BulkAddDialog.Row rent = rows.get(0);
+        assertTrue(rent.isValid());
+        assertEquals("Pay rent", rent.title);
+        assertEquals(LocalDateTime.of(2030, 3, 5, 10, 0), rent.time);
+        assertEquals("HIGH", rent.priority);
+        assertEquals("From the joint account", rent.description);
+        assertEquals(LocalDateTime.of(2030, 3, 6, 9, 0), rows.get(1).time);
+        assertEquals("LOW", rows.get(1).priority);
+        assertEquals(LocalDateTime.of(2030, 3, 1, 18, 30), rows.get(2).time);
+        assertEquals("MEDIUM", rows.get(2).priority);
+        assertEquals("", rows.get(2).description);
+    }
+    
+    @Test
+    public void relativeTimesCountFromNowToTheMinute() {
+        List<BulkAddDialog.Row> rows = parse("a,+30m\nb,+2H\nc,+3d\nd,9:05\ne,2030-03-14T15:30:00");
+        
+        assertEquals(LocalDateTime.of(2030, 3, 1, 13, 4), rows.get(0).time);
+        assertEquals(LocalDateTime.of(2030, 3, 1, 14, 34), rows.get(1).time);
+        assertEquals(LocalDateTime.of(2030, 3, 4, 12, 34), rows.get(2).time);
+        assertEquals(LocalDateTime.of(2030, 3, 1, 9, 5), rows.get(3).time);
+        assertEquals(LocalDateTime.of(2030, 3, 14, 15, 30), rows.get(4).time);
+    }
+    
+    @Test
+    public void quotedFieldsMaySpanLines() {
+        List<BulkAddDialog.Row> rows = parse("\"Buy milk, eggs\",+1h,,\"First line\r\nsays \"\"hi\"\"\"\r\nNext,+2h");
+        
+        assertEquals(2, rows.size());
+        assertEquals("Buy milk, eggs", rows.get(0).title);
+        assertEquals("MEDIUM", rows.get(0).priority);
+        assertEquals("First line\nsays \"hi\"", rows.get(0).description);
+        assertEquals(1, rows.get(0).line);
+        assertEquals("Next", rows.get(1).title);
+        assertEquals(3, rows.get(1).line);
+    }
+    
+    @Test
+    public void skipsHeaderCommentsAndBlankLines() {
+        List<BulkAddDialog.Row> rows = parse("Title,Time,Priority\n\n# groceries\n  \nBread,+1h\n");
+        
+        assertEquals(1, rows.size());
+        assertEquals("Bread", rows.get(0).title);
+        assertEquals(5, rows.get(0).line);
+    }
+    
+    @Test
+    public void reportsWhyARowCannotBeAdded() {
+        List<BulkAddDialog.Row> rows = parse(",+1h\nNo time\nBad time,tomorrow\n"
+            + "Bad priority,+1h,urgent\nToo many,+1h,h,d,x\n\"Title\nbroken\",+1h\nOpen,+1h,h,\"never closed\nrest");
+        
+        assertEquals("Title is missing", rows.get(0).error);
+        assertEquals("Time is missing", rows.get(1).error);
+        assertEquals("Unknown time: tomorrow", rows.get(2).error);
+        assertEquals("Unknown priority: urgent", rows.get(3).error);
+        assertEquals("Too many columns (5)", rows.get(4).error);
+        assertEquals("Title has a line break", rows.get(5).error);
+        assertEquals("Quote opened here is never closed", rows.get(6).error);
+        assertEquals(8, rows.get(6).line);
+        assertEquals(7, rows.size());
+        for (BulkAddDialog.Row row : rows) {
+            assertFalse(row.isValid());
+        }
+    }
+    
+    @Test
+    public void timesBeyondTheCalendarAreUnknown() {
+        List<BulkAddDialog.Row> rows = parse("Far,+99999999999999d\nFarther,+9223372036854775807m\nLate,+9999999999999h");
+        
+        assertEquals(3, rows.size());
+        assertEquals("Unknown time: +99999999999999d", rows.get(0).error);
+        assertEquals("Unknown time: +9223372036854775807m", rows.get(1).error);
+        assertEquals("Unknown time: +9999999999999h", rows.get(2).error);
+    }
+    
+    @Test
+    public void validRowsBecomeTasks() {
+        Task task = parse("Water plants,2030-03-02 08:00,m,Balcony").get(0).toTask();
+        
+        assertEquals("Water plants", task.getTitle());
+        assertEquals("Balcony", task.getDescription());
+        assertEquals(LocalDateTime.of(2030, 3, 2, 8, 0), task.getReminderTime());
+        assertEquals("MEDIUM", task.getPriority());
+    }
+}
@@ -0,0 +1,187 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskOrder;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for TaskListModel: each change touches only its own rows, and the rows
+ * always equal a full sort of the shown tasks
+ */
+public class TaskListModelTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 6, 1, 9, 0);
+    private static final String[] PRIORITIES = {"HIGH", "MEDIUM", "LOW"};
+    
+    private TaskListModel model;
+    private final List<String> events = new ArrayList<>();
+    // What a JList would know of the rows, from the events alone
+    private final List<Task> mirror = new ArrayList<>();
+    
+    @Before
+    public void setUp() {
+        model = new TaskListModel();
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add("added " + e.getIndex0() + (e.getIndex1() == e.getIndex0() ? "" : "-" + e.getIndex1()));
+                for (int i = e.getIndex0(); i <= e.getIndex1(); i++) {
+                    mirror.add(i, model.getElementAt(i));
+                }
+            }
+            
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add("removed " + e.getIndex0() + (e.getIndex1() == e.getIndex0() ? "" : "-" + e.getIndex1()));
+                for (int i = e.getIndex1(); i >= e.getIndex0(); i--) {
+                    mirror.remove(i);
+                }
+            }
+            
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add("changed " + e.getIndex0());
+                for (int i = e.getIndex0(); i <= e.getIndex1(); i++) {
+                    mirror.set(i, model.getElementAt(i));
+                }
+            }
+        });
+    }
+    
+    private static Task task(String id, int minutes) {
+        return task(id, "Task " + id, minutes, "MEDIUM");
+    }
+    
+    private static Task task(String id, String title, int minutes, String priority) {
+        return new Task(id, title, "", BASE.plusMinutes(minutes), priority, false);
+    }
+    
+    private List<String> ids() {
+        List<String> ids = new ArrayList<>();
+        for (Task task : model.getTasks()) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+    
+    // Task.equals compares ids only; the rows must hold the current versions
+    private static void assertRows(List<Task> expected, List<Task> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+    
+    private void showABC() {
+        model.setAll(Arrays.asList(task("c", 30), task("a", 10), task("b", 20)));
+        events.clear();
+    }
+    
+    @Test
+    public void setAllSortsTheTasks() {
+        showABC();
+        assertEquals(Arrays.asList("a", "b", "c"), ids());
+        assertRows(model.getTasks(), mirror);
+    }
+    
+    @Test
+    public void aNewTaskIsInsertedAtItsPlace() {
+        showABC();
+        model.sync("ab", task("ab", 15));
+        assertEquals(Arrays.asList("added 1"), events);
+        assertEquals(Arrays.asList("a", "ab", "b", "c"), ids());
+    }
+    
+    @Test
+    public void anEditThatMovesTheTaskTakesItOutAndPutsItBack() {
+        showABC();
+        model.sync("a", task("a", 40));
+        assertEquals(Arrays.asList("removed 0", "added 2"), events);
+        assertEquals(Arrays.asList("b", "c", "a"), ids());
+    }
+    
+    @Test
+    public void anEditInPlaceRepaintsJustThatRow() {
+        showABC();
+        model.sync("b", task("b", 25));
+        // Same sort keys: nothing to compare with the neighbours
+        model.sync("b", task("b", "Renamed", 25, "HIGH"));
+        assertEquals(Arrays.asList("changed 1", "changed 1"), events);
+        assertEquals(Arrays.asList("a", "b", "c"), ids());
+        assertEquals("Renamed", model.getShown("b").getTitle());
+    }
+    
+    @Test
+    public void aRemovedTaskLeavesOnlyItsRow() {
+        showABC();
+        model.sync("b", null);
+        model.sync("gone", null);
+        assertEquals(Arrays.asList("removed 1"), events);
+        assertEquals(Arrays.asList("a", "c"), ids());
+        assertNull(model.getShown("b"));
+    }
+    
+    @Test
+    public void aTaskLeavingAndReenteringTheFilterIsRemovedAndInserted() {
+        showABC();
+        Task c = model.getShown("c");
+        model.sync("c", null);
+        model.sync("c", c);
+        assertEquals(Arrays.asList("removed 2", "added 2"), events);
+        assertSame(c, model.getShown("c"));
+    }
+    
+    @Test
+    public void repaintingATaskFindsItsRow() {
+        showABC();
+        model.changed("c");
+        model.changed("gone");
+        assertEquals(Arrays.asList("changed 2"), events);
+    }
+    
+    @Test
+    public void randomChangesMatchAFullSortInEveryOrder() {
+        for (TaskOrder order : TaskOrder.values()) {
+            Random random = new Random(order.ordinal());
+            model.setOrder(order);
+            Map<String, Task> shown = new HashMap<>();
+            model.setAll(Collections.<Task>emptyList());
+            
+            for (int step = 0; step < 3000; step++) {
+                String id = "t" + random.nextInt(60);
+                int roll = random.nextInt(10);
+                if (roll < 7) {
+                    // Few distinct times and titles, so ties fall back to the id
+                    Task task = task(id, "Title " + random.nextInt(5), random.nextInt(8) * 15,
+                        PRIORITIES[random.nextInt(PRIORITIES.length)]);
+                    shown.put(id, task);
+                    model.sync(id, task);
+                } else {
+                    // Removed, or filtered out
+                    shown.remove(id);
+                    model.sync(id, null);
+                }
+                
+                List<Task> expected = new ArrayList<>(shown.values());
+                expected.sort(order.getComparator());
+                assertRows(expected, model.getTasks());
+                assertRows(expected, mirror);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.taskreminder.ui;
+
+import com.taskreminder.model.TagIndex;
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import com.taskreminder.util.AppClock;
+import com.taskreminder.util.SimulatedClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for TaskPanel's overdue highlighting in simulated time: when deadlines
+ * pass only those rows are repainted, and the single timer always waits for
+ * the next deadline, also after edits and removals
+ */
+public class TaskPanelTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 7, 1, 9, 0);
+    
+    private final TaskManager manager = TaskManager.getInstance();
+    private SimulatedClock clock;
+    private TaskPanel panel;
+    // Ids of the rows repainted in place
+    private final List<String> repainted = new ArrayList<>();
+    
+    @Before
+    public void setUp() throws Exception {
+        clock = new SimulatedClock(NOW);
+        AppClock.set(clock);
+        manager.clearAllTasks();
+        onEdt(() -> {
+            panel = new TaskPanel();
+            TaskListModel model = panel.getListModel();
+            model.addListDataListener(new ListDataListener() {
+                @Override
+                public void intervalAdded(ListDataEvent e) {
+                }
+                
+                @Override
+                public void intervalRemoved(ListDataEvent e) {
+                }
+                
+                @Override
+                public void contentsChanged(ListDataEvent e) {
+                    repainted.add(model.getElementAt(e.getIndex0()).getId());
+                }
+            });
+        });
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        manager.removeTaskListener(panel);
+        manager.removeTaskListener(panel.getTagIndex());
+        onEdt(() -> panel.getOverdueTimer().stop());
+        manager.clearAllTasks();
+        AppClock.reset();
+    }
+    
+    private static void onEdt(Runnable runnable) throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(runnable);
+    }
+    
+    private static Task task(String id, int minutesFromNow) {
+        return new Task(id, "Task " + id, "", NOW.plusMinutes(minutesFromNow), "MEDIUM", false);
+    }
+    
+    // Let the panel apply the changes it was told of, and forget the repaints they caused
+    private void settle() throws Exception {
+        onEdt(() -> { });
+        repainted.clear();
+    }
+    
+    // Milliseconds the overdue timer waits, or -1 when it is stopped
+    private int timerDelay() throws Exception {
+        int[] delay = new int[1];
+        onEdt(() -> delay[0] = panel.getOverdueTimer().isRunning() ? panel.getOverdueTimer().getInitialDelay() : -1);
+        return delay[0];
+    }
+    
+    // The timer fires once the simulated clock is past its deadline
+    private void fireTimer() throws Exception {
+        onEdt(panel::markOverdue);
+    }
+    
+    private static int millisUntil(LocalDateTime time) {
+        // isDue() is strictly after the reminder time, hence the extra millisecond
+        return (int) Duration.between(AppClock.now(), time).toMillis() + 1;
+    }
+    
+    @Test
+    public void onlyRowsWhoseDeadlinePassedAreRepainted() throws Exception {
+        manager.addTasks(Arrays.asList(task("a", 10), task("b", 10), task("c", 20), task("late", -5),
+            task("done", 5).withCompleted(true)));
+        settle();
+        assertEquals(millisUntil(NOW.plusMinutes(10)), timerDelay());
+        
+        clock.advance(Duration.ofMinutes(11));
+        fireTimer();
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), new HashSet<>(repainted));
+        assertEquals(2, repainted.size());
+        assertEquals(millisUntil(NOW.plusMinutes(20)), timerDelay());
+        
+        repainted.clear();
+        clock.advance(Duration.ofMinutes(10));
+        fireTimer();
+        assertEquals(Collections.singletonList("c"), repainted);
+        assertEquals(-1, timerDelay());
+    }
+    
+    @Test
+    public void firingEarlyRepaintsNothing() throws Exception {
+        manager.addTasks(Arrays.asList(task("a", 10), task("b", 20)));
+        settle();
+        
+        clock.advance(Duration.ofMinutes(10));
+        fireTimer();
+        assertTrue(repainted.isEmpty());
+        assertEquals(1, timerDelay());
+    }
+    
+    @Test
+    public void theTimerFollowsEditsAndRemovals() throws Exception {
+        manager.addTasks(Arrays.asList(task("a", 10), task("b", 30), task("c", 45)));
+        settle();
+        assertEquals(millisUntil(NOW.plusMinutes(10)), timerDelay());
+        
+        // Moved later: the next deadline is b's
+        manager.updateTask(task("a", 60));
+        settle();
+        assertEquals(millisUntil(NOW.plusMinutes(30)), timerDelay());
+        
+        // Moved earlier: a's again
+        manager.updateTask(task("a", 5));
+        settle();
+        assertEquals(millisUntil(NOW.plusMinutes(5)), timerDelay());
+        
+        manager.markTaskCompleted("a");
+        manager.removeTask(manager.getTaskById("b"));
+        settle();
+        assertEquals(millisUntil(NOW.plusMinutes(45)), timerDelay());
+        
+        // Deadlines of completed and removed tasks repaint nothing when they pass
+        clock.advance(Duration.ofMinutes(40));
+        fireTimer();
+        assertTrue(repainted.isEmpty());
+        assertEquals(millisUntil(NOW.plusMinutes(45)), timerDelay());
+        
+        manager.removeTask(manager.getTaskById("c"));
+        settle();
+        assertEquals(-1, timerDelay());
+    }
+    
+    @Test
+    public void tasksFilteredOutOfTheListHaveNoDeadline() throws Exception {
+        manager.addTasks(Arrays.asList(task("a", 10).withTags(Collections.singletonList("work")),
+            task("b", 20).withTags(Collections.singletonList("home"))));
+        settle();
+        onEdt(() -> panel.setFilter(new TagIndex.Filter(Collections.singleton("home"), true, null, null)));
+        settle();
+        assertEquals(millisUntil(NOW.plusMinutes(20)), timerDelay());
+        
+        // An edit that keeps it out of the filter does not bring its deadline back
+        manager.updateTask(task("a", 15).withTags(Collections.singletonList("work")));
+        settle();
+        assertEquals(millisUntil(NOW.plusMinutes(20)), timerDelay());
+        assertFalse(panel.getListModel().getTasks().contains(manager.getTaskById("a")));
+    }
+}
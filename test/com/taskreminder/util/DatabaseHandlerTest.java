@@ -0,0 +1,210 @@
+package com.taskreminder.util;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for DatabaseHandler against a real H2 database (h2-*.jar in lib/):
+ * the working set, paging, range reads, counts and saving only what changed
+ */
+public class DatabaseHandlerTest {
+    private static final Path DIRECTORY;
+    
+    // DatabaseHandler reads the URL once, when it is first used
+    static {
+        try {
+            DIRECTORY = Files.createTempDirectory("taskreminder-db");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.setProperty("taskreminder.db.url", "jdbc:h2:" + DIRECTORY.resolve("tasks").toAbsolutePath());
+    }
+    
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 5, 6, 12, 0);
+    
+    private final TaskManager manager = TaskManager.getInstance();
+    private SimulatedClock clock;
+    
+    @Before
+    public void setUp() {
+        clock = new SimulatedClock(NOW);
+        AppClock.set(clock);
+        manager.clearAllTasks();
+    }
+    
+    @After
+    public void tearDown() throws IOException {
+        manager.clearAllTasks();
+        DatabaseHandler.close();
+        AppClock.reset();
+        try (Stream<Path> files = Files.list(DIRECTORY)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    private static Task pending(String id, long hoursFromNow) {
+        return new Task(id, "Pending " + id, "", NOW.plusHours(hoursFromNow), "MEDIUM", false);
+    }
+    
+    private static Task completed(String id, long hoursFromNow) {
+        return new Task(id, "Done " + id, "", NOW.plusHours(hoursFromNow), "LOW", true);
+    }
+    
+    // Save 'tasks', then load the working set as a fresh start would
+    private void storeAndLoad(List<Task> tasks) throws SQLException {
+        manager.setTasks(tasks);
+        DatabaseHandler.saveTasks();
+        DatabaseHandler.loadTasks();
+    }
+    
+    private Set<String> loadedIds() {
+        Set<String> ids = new HashSet<>();
+        for (Task task : manager.getAllTasks()) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+    
+    @Test
+    public void loadsTheWindowAndTheFirstPageThenPagesThroughTheRest() throws SQLException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            // Beyond the 7-day window, so only paging brings them in
+            tasks.add(pending("far" + i, 24 * 30 + i));
+        }
+        tasks.add(pending("soon", 2));
+        tasks.add(completed("history", -5));
+        storeAndLoad(tasks);
+        
+        assertEquals(500, manager.getTaskCount());
+        assertNotNull(manager.getTaskById("soon"));
+        assertNull(manager.getTaskById("history"));
+        assertTrue(DatabaseHandler.hasMorePending());
+        
+        assertEquals(500, DatabaseHandler.loadNextPage());
+        assertEquals(201, DatabaseHandler.loadNextPage());
+        assertFalse(DatabaseHandler.hasMorePending());
+        assertEquals(0, DatabaseHandler.loadNextPage());
+        assertEquals(1201, manager.getTaskCount());
+        assertNotNull(manager.getTaskById("far1199"));
+        
+        // Loading stored tasks is not a change to save
+        assertEquals(0, DatabaseHandler.getUnsavedCount());
+    }
+    
+    @Test
+    public void pagingLeavesLoadedAndRemovedTasksAlone() throws SQLException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            tasks.add(pending("t" + i, 24 * 30 + i));
+        }
+        storeAndLoad(tasks);
+        manager.removeTask(manager.getTaskById("t0"));
+        
+        // The next page starts after t499 and holds only t500
+        assertEquals(1, DatabaseHandler.loadNextPage());
+        assertNull(manager.getTaskById("t0"));
+        assertEquals(500, manager.getTaskCount());
+    }
+    
+    @Test
+    public void advanceWindowLoadsTasksAsTheirRemindersComeIntoRange() throws SQLException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            tasks.add(pending("filler" + i, 1));
+        }
+        tasks.add(pending("nextWeek", 24 * 9));
+        storeAndLoad(tasks);
+        assertNull(manager.getTaskById("nextWeek"));
+        
+        clock.advance(Duration.ofMinutes(30));
+        assertEquals(0, DatabaseHandler.advanceWindow());
+        
+        clock.advance(Duration.ofDays(3));
+        assertEquals(1, DatabaseHandler.advanceWindow());
+        assertNotNull(manager.getTaskById("nextWeek"));
+    }
+    
+    @Test
+    public void rangeReadsReturnOnlyStoredTasksThatAreNotLoaded() throws SQLException {
+        storeAndLoad(Arrays.asList(
+            pending("loaded", 3),
+            pending("removed", 4),
+            completed("doneToday", -2),
+            completed("doneLastMonth", -24 * 30),
+            pending("tomorrow", 24)));
+        manager.removeTask(manager.getTaskById("removed"));
+        
+        List<Task> unloaded = DatabaseHandler.findUnloadedInRange(NOW.minusDays(1), NOW.plusDays(1).plusHours(1));
+        List<String> ids = new ArrayList<>();
+        for (Task task : unloaded) {
+            ids.add(task.getId());
+        }
+        assertEquals(Arrays.asList("doneToday"), ids);
+        assertTrue(unloaded.get(0).isCompleted());
+    }
+    
+    @Test
+    public void rangeReadsPageThroughLargeRanges() throws SQLException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            tasks.add(completed("c" + i, -1 - (i % 20)));
+        }
+        storeAndLoad(tasks);
+        assertEquals(0, manager.getTaskCount());
+        
+        assertEquals(1100, DatabaseHandler.findUnloadedInRange(NOW.minusDays(1), NOW).size());
+        assertEquals(0, DatabaseHandler.findUnloadedInRange(NOW, NOW.plusDays(1)).size());
+    }
+    
+    @Test
+    public void savesChangesAndRemovalsAndCountsTheStoredTasks() throws SQLException {
+        storeAndLoad(Arrays.asList(pending("a", 1), pending("b", 2), pending("c", 3)));
+        assertEquals(3, DatabaseHandler.countTasks(false));
+        assertEquals(0, DatabaseHandler.countTasks(true));
+        
+        manager.markTaskCompleted("a");
+        manager.removeTask(manager.getTaskById("b"));
+        manager.addTask(pending("d", 4));
+        assertEquals(3, DatabaseHandler.getUnsavedCount());
+        DatabaseHandler.saveTasks();
+        assertEquals(0, DatabaseHandler.getUnsavedCount());
+        
+        assertEquals(2, DatabaseHandler.countTasks(false));
+        assertEquals(1, DatabaseHandler.countTasks(true));
+        
+        // A fresh start sees what was saved: completed tasks stay on disk
+        DatabaseHandler.close();
+        manager.clearAllTasks();
+        DatabaseHandler.loadTasks();
+        assertEquals(new HashSet<>(Arrays.asList("c", "d")), loadedIds());
+        List<Task> history = DatabaseHandler.findTasks(true, null, 10);
+        assertEquals(1, history.size());
+        assertEquals("a", history.get(0).getId());
+    }
+}
@@ -0,0 +1,131 @@
+package com.taskreminder.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for DescriptionStore with 1 KB segments: placement across segments,
+ * equal texts stored once, and compaction, including entries the collector
+ * has cleared but not yet queued
+ */
+public class DescriptionStoreTest {
+    private static final int SEGMENT = 1024;
+    
+    private DescriptionStore store;
+    
+    @Before
+    public void setUp() throws IOException {
+        File file = File.createTempFile("descriptions-test", ".blob");
+        store = new DescriptionStore(file, SEGMENT, 1);
+    }
+    
+    private static byte[] text(char c, int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, c);
+        return new String(chars).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private String read(DescriptionStore.Entry entry) {
+        return store.get(entry);
+    }
+    
+    // The store's weak reference to its i-th entry (in order of storing)
+    @SuppressWarnings("unchecked")
+    private Reference<DescriptionStore.Entry> slot(int index) throws ReflectiveOperationException {
+        Field slots = DescriptionStore.class.getDeclaredField("slots");
+        slots.setAccessible(true);
+        return ((List<Reference<DescriptionStore.Entry>>) slots.get(store)).get(index);
+    }
+    
+    // What the garbage collector does once no task refers to the entry: clear, then (maybe later) queue
+    private void release(int index, boolean queued) throws ReflectiveOperationException {
+        Reference<DescriptionStore.Entry> slot = slot(index);
+        slot.clear();
+        if (queued) {
+            slot.enqueue();
+        }
+    }
+    
+    @Test
+    public void textsNeverStraddleASegment() {
+        DescriptionStore.Entry first = store.put(text('a', 600));
+        DescriptionStore.Entry second = store.put(text('b', 600));
+        DescriptionStore.Entry third = store.put(text('c', 424));
+        
+        // 'b' does not fit after 'a', so it starts the second segment and 'c' fills it exactly
+        assertEquals(SEGMENT + 600 + 424, store.getSize());
+        assertEquals(new String(text('a', 600), StandardCharsets.UTF_8), read(first));
+        assertEquals(new String(text('b', 600), StandardCharsets.UTF_8), read(second));
+        assertEquals(new String(text('c', 424), StandardCharsets.UTF_8), read(third));
+        
+        assertNull(store.put(text('d', SEGMENT + 1)));
+    }
+    
+    @Test
+    public void equalTextsAreStoredOnce() {
+        DescriptionStore.Entry first = store.put(text('a', 100));
+        DescriptionStore.Entry again = store.put(text('a', 100));
+        DescriptionStore.Entry other = store.put(text('b', 100));
+        
+        assertSame(first, again);
+        assertNotSame(first, other);
+        assertEquals(200, store.getSize());
+    }
+    
+    @Test
+    public void compactionMovesLiveTextsOverDeadOnes() throws ReflectiveOperationException {
+        DescriptionStore.Entry dead = store.put(text('a', 300));
+        DescriptionStore.Entry kept = store.put(text('b', 100));
+        release(0, true);
+        assertEquals(100, store.getLiveSize());
+        assertEquals(400, store.getSize());
+        
+        // Dead bytes outweigh live ones, so the next put compacts first
+        DescriptionStore.Entry added = store.put(text('c', 50));
+        assertEquals(1, store.getCompactions());
+        assertEquals(150, store.getSize());
+        assertEquals(150, store.getLiveSize());
+        assertEquals(new String(text('b', 100), StandardCharsets.UTF_8), read(kept));
+        assertEquals(new String(text('c', 50), StandardCharsets.UTF_8), read(added));
+        
+        // The released text is no longer found by its hash: storing it again writes it anew
+        assertNotSame(dead, store.put(text('a', 300)));
+        assertEquals(450, store.getSize());
+    }
+    
+    @Test
+    public void entriesQueuedAfterACompactionAreNotCountedTwice() throws ReflectiveOperationException {
+        store.put(text('a', 300));
+        store.put(text('b', 100));
+        store.put(text('c', 100));
+        release(0, true);
+        // Cleared before the compaction, queued only after it
+        release(1, false);
+        Reference<DescriptionStore.Entry> late = slot(1);
+        
+        store.put(text('d', 50));
+        assertEquals(1, store.getCompactions());
+        assertEquals(150, store.getSize());
+        
+        late.enqueue();
+        assertEquals(150, store.getLiveSize());
+        
+        // Nothing is dead, so the next put does not compact again
+        store.put(text('e', 50));
+        assertEquals(1, store.getCompactions());
+        assertEquals(200, store.getLiveSize());
+    }
+}
@@ -0,0 +1,161 @@
+package com.taskreminder.util;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for FileHandler.reloadChangedTasks: three-way merge of external tasks.json edits
+ */
+public class FileHandlerTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 0);
+    
+    private final TaskManager manager = TaskManager.getInstance();
+    
+    @Before
+    public void setUp() throws IOException {
+        manager.setTasks(Arrays.asList(task("a", "A"), task("b", "B"), task("c", "C"), task("d", "D")));
+        FileHandler.saveTasks();
+    }
+    
+    @After
+    public void tearDown() {
+        manager.clearAllTasks();
+        FileHandler.deleteTasksFile();
+    }
+    
+    private static Task task(String id, String title) {
+        return new Task(id, title, "", DUE, "LOW", false);
+    }
+    
+    // Write tasks.json the way an editor would, without the application's checksum
+    private static void editFile(Task... tasks) throws IOException {
+        Files.write(Paths.get(FileHandler.getTasksFile()),
+            FileHandler.getGson().toJson(Arrays.asList(tasks)).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private List<String> titles() {
+        List<String> titles = new ArrayList<>();
+        for (Task task : manager.getAllTasks()) {
+            titles.add(task.getTitle());
+        }
+        return titles;
+    }
+    
+    @Test
+    public void appliesWhatTheFileChanged() throws IOException {
+        editFile(task("a", "A edited"), task("c", "C"), task("d", "D"), task("e", "E"));
+        
+        FileHandler.ReloadResult result = FileHandler.reloadChangedTasks();
+        
+        assertEquals(3, result.getApplied());
+        assertEquals(Collections.emptyList(), result.getConflicts());
+        assertEquals(Arrays.asList("A edited", "C", "D", "E"), titles());
+    }
+    
+    @Test
+    public void keepsUnsavedLocalChanges() throws IOException {
+        manager.updateTask(task("c", "C local"));
+        manager.addTask(task("f", "F local"));
+        manager.removeTask(task("d", "D"));
+        editFile(task("a", "A edited"), task("b", "B"), task("c", "C"), task("d", "D"));
+        
+        FileHandler.ReloadResult result = FileHandler.reloadChangedTasks();
+        
+        assertEquals(1, result.getApplied());
+        assertEquals(Collections.emptyList(), result.getConflicts());
+        assertEquals(Arrays.asList("A edited", "B", "C local", "F local"), titles());
+        assertNull(manager.getTaskById("d"));
+    }
+    
+    @Test
+    public void keepsTheLocalVersionWhenBothSidesChangedATask() throws IOException {
+        manager.updateTask(task("a", "A local"));
+        manager.updateTask(task("b", "B same"));
+        manager.removeTask(task("c", "C"));
+        editFile(task("a", "A file"), task("b", "B same"), task("c", "C file"), task("d", "D"));
+        
+        FileHandler.ReloadResult result = FileHandler.reloadChangedTasks();
+        
+        assertEquals(0, result.getApplied());
+        assertEquals(Arrays.asList("a", "c"), result.getConflicts());
+        assertEquals(Arrays.asList("A local", "B same", "D"), titles());
+    }
+    
+    @Test
+    public void theReloadedFileBecomesTheBaseline() throws IOException {
+        editFile(task("a", "A"), task("b", "B"), task("c", "C"), task("d", "D edited"));
+        assertEquals(1, FileHandler.reloadChangedTasks().getApplied());
+        
+        // Reloading the same file again changes nothing, even after a local edit
+        manager.updateTask(task("d", "D local"));
+        assertEquals(0, FileHandler.reloadChangedTasks().getApplied());
+        editFile(task("a", "A"), task("b", "B"), task("c", "C"), task("d", "D edited"), task("e", "E"));
+        FileHandler.ReloadResult result = FileHandler.reloadChangedTasks();
+        
+        assertEquals(1, result.getApplied());
+        assertEquals(Collections.emptyList(), result.getConflicts());
+        assertEquals(Arrays.asList("A", "B", "C", "D local", "E"), titles());
+    }
+    
+    @Test
+    public void ignoresItsOwnSaves() throws IOException {
+        manager.updateTask(task("a", "A saved"));
+        FileHandler.saveTasks();
+        manager.updateTask(task("a", "A unsaved"));
+        
+        assertEquals(0, FileHandler.reloadChangedTasks().getApplied());
+        assertEquals("A unsaved", manager.getTaskById("a").getTitle());
+    }
+    
+    // Whenever a local edit lands, before the reload compares or after it applied,
+    // it is the version that stays (as a conflict in the first case)
+    @Test
+    public void editsRacingAReloadAreNeverOverwritten() throws Exception {
+        List<Task> many = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            many.add(task("m" + i, "M" + i));
+        }
+        for (int round = 0; round < 40; round++) {
+            List<Task> saved = new ArrayList<>(many);
+            saved.add(task("a", "A"));
+            manager.setTasks(saved);
+            FileHandler.saveTasks();
+            List<Task> edited = new ArrayList<>(many);
+            edited.add(task("a", "A file " + round));
+            editFile(edited.toArray(new Task[0]));
+            
+            CountDownLatch start = new CountDownLatch(1);
+            Thread editor = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                manager.updateTask(task("a", "A local"));
+            });
+            editor.start();
+            start.countDown();
+            FileHandler.reloadChangedTasks();
+            editor.join();
+            
+            assertEquals("round " + round, "A local", manager.getTaskById("a").getTitle());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.taskreminder.util;
+
+import com.taskreminder.model.Task;
+import com.taskreminder.model.TaskManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ICalendarHandler: export/import round trips, line folding and the VTODO mapping
+ */
+public class ICalendarHandlerTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 30);
+    
+    private TaskManager manager;
+    
+    @Before
+    public void setUp() {
+        // Berlin is UTC+1 in March, so UTC times below are an hour earlier
+        AppClock.set(Clock.fixed(Instant.parse("2030-01-01T00:00:00Z"), ZoneId.of("Europe/Berlin")));
+        manager = TaskManager.getInstance();
+        manager.clearAllTasks();
+    }
+    
+    @After
+    public void tearDown() {
+        manager.clearAllTasks();
+        AppClock.reset();
+    }
+    
+    private ICalendarHandler.ImportResult importText(String... lines) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append("\r\n");
+        }
+        return ICalendarHandler.importTasks(new StringReader(text.toString()), manager);
+    }
+    
+    private static String export(List<Task> tasks) throws IOException {
+        StringWriter out = new StringWriter();
+        ICalendarHandler.exportTasks(tasks, out);
+        return out.toString();
+    }
+    
+    @Test
+    public void roundTripsEveryField() throws IOException {
+        Task task = new Task("uid-1", "Pay rent; then call, \"quickly\"", "First line\nSecond \\ line",
+                DUE, "HIGH", true)
+            .withCompletedTime(DUE.plusMinutes(3))
+            .withCreatedTime(LocalDateTime.of(2029, 12, 31, 23, 59, 59))
+            .withReminderOffsets(Arrays.asList(15, 1440))
+            .withTags(Arrays.asList("home", "bills, monthly"))
+            .withDependsOn(Collections.singletonList("uid-0"))
+            .withRecurrenceRule("FREQ=MONTHLY;BYMONTHDAY=1");
+        
+        ICalendarHandler.ImportResult result = ICalendarHandler.importTasks(
+            new StringReader(export(Collections.singletonList(task))), manager);
+        
+        assertEquals(1, result.getImported());
+        assertEquals(0, result.getSkipped());
+        Task read = manager.getTaskById("uid-1");
+        assertTrue(task.hasSameContent(read));
+        assertEquals(DUE.plusMinutes(3), read.getCompletedTime());
+    }
+    
+    @Test
+    public void importingAgainUpdatesInsteadOfDuplicating() throws IOException {
+        String ics = export(Arrays.asList(
+            new Task("a", "First", "", DUE, "LOW", false),
+            new Task("b", "Second", "", DUE, "MEDIUM", false)));
+        ICalendarHandler.importTasks(new StringReader(ics), manager);
+        ICalendarHandler.importTasks(new StringReader(ics.replace("SUMMARY:Second", "SUMMARY:Renamed")), manager);
+        
+        assertEquals(2, manager.getAllTasks().size());
+        assertEquals("Renamed", manager.getTaskById("b").getTitle());
+    }
+    
+    @Test
+    public void foldsLongLinesWithoutSplittingCharacters() throws IOException {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            title.append("ä€𝄞x");
+        }
+        Task task = new Task("long", title.toString(), "", DUE, "LOW", false);
+        String ics = export(Collections.singletonList(task));
+        
+        for (String line : ics.split("\r\n")) {
+            assertTrue(line, line.getBytes(StandardCharsets.UTF_8).length <= 75);
+            assertFalse(line, Character.isLowSurrogate(line.charAt(line.startsWith(" ") ? 1 : 0)));
+        }
+        ICalendarHandler.importTasks(new StringReader(ics), manager);
+        assertEquals(title.toString(), manager.getTaskById("long").getTitle());
+    }
+    
+    @Test
+    public void convertsUtcZonedAndDateOnlyTimes() throws IOException {
+        importText("BEGIN:VCALENDAR",
+            "BEGIN:VTODO", "UID:utc", "DUE:20300301T083000Z", "END:VTODO",
+            "BEGIN:VTODO", "UID:zoned", "DUE;TZID=America/New_York:20300301T033000", "END:VTODO",
+            "BEGIN:VTODO", "UID:floating", "DUE:20300301T093000", "END:VTODO",
+            "BEGIN:VTODO", "UID:date", "DUE;VALUE=DATE:20300301", "END:VTODO",
+            "BEGIN:VTODO", "UID:start", "DTSTART:20300301T093000", "END:VTODO",
+            "END:VCALENDAR");
+        
+        assertEquals(DUE, manager.getTaskById("utc").getReminderTime());
+        assertEquals(DUE, manager.getTaskById("zoned").getReminderTime());
+        assertEquals(DUE, manager.getTaskById("floating").getReminderTime());
+        assertEquals(DUE.toLocalDate().atStartOfDay(), manager.getTaskById("date").getReminderTime());
+        assertEquals(DUE, manager.getTaskById("start").getReminderTime());
+    }
+    
+    @Test
+    public void mapsPriorityStatusAndRelations() throws IOException {
+        importText("BEGIN:VTODO", "UID:t", "DUE:20300301T093000", "PRIORITY:3",
+            "PERCENT-COMPLETE:100", "CATEGORIES:a,b\\,c", "RELATED-TO;RELTYPE=DEPENDS-ON:p",
+            "RELATED-TO;RELTYPE=PARENT:q", "X-UNKNOWN;FOO=\"a:b\":value", "END:VTODO",
+            "BEGIN:VTODO", "UID:low", "DUE:20300301T093000", "PRIORITY:7", "END:VTODO",
+            "BEGIN:VTODO", "UID:none", "DUE:20300301T093000", "PRIORITY:0", "END:VTODO");
+        
+        Task task = manager.getTaskById("t");
+        assertEquals("HIGH", task.getPriority());
+        assertTrue(task.isCompleted());
+        assertEquals(Arrays.asList("a", "b,c"), task.getTags());
+        assertEquals(Collections.singletonList("p"), task.getDependsOn());
+        assertEquals("(untitled)", task.getTitle());
+        assertEquals("LOW", manager.getTaskById("low").getPriority());
+        assertEquals("MEDIUM", manager.getTaskById("none").getPriority());
+    }
+    
+    @Test
+    public void readsAlarmsAsReminderOffsets() throws IOException {
+        importText("BEGIN:VTODO", "UID:t", "DTSTART:20300301T080000", "DUE:20300301T093000",
+            "BEGIN:VALARM", "TRIGGER:-PT30M", "END:VALARM",                      // from DTSTART: 120 min
+            "BEGIN:VALARM", "TRIGGER;RELATED=END:-P1D", "END:VALARM",            // 1440 min
+            "BEGIN:VALARM", "TRIGGER;VALUE=DATE-TIME:20300301T091500", "END:VALARM", // 15 min
+            "BEGIN:VALARM", "TRIGGER;RELATED=END:PT5M", "END:VALARM",            // after DUE: ignored
+            "BEGIN:VALARM", "TRIGGER:bogus", "END:VALARM",
+            "END:VTODO");
+        
+        assertEquals(Arrays.asList(1440, 120, 15), manager.getTaskById("t").getReminderOffsets());
+    }
+    
+    @Test
+    public void unfoldsContinuationLines() throws IOException {
+        importText("BEGIN:VTODO", "UID:t", "DUE:20300301T0930", " 00", "SUMMARY:Hello ", "\twor", " ld", "END:VTODO");
+        
+        Task task = manager.getTaskById("t");
+        assertNotNull(task);
+        assertEquals("Hello world", task.getTitle());
+        assertEquals(DUE, task.getReminderTime());
+    }
+    
+    @Test
+    public void skipsTodosWithoutUsableTimesAndOtherComponents() throws IOException {
+        ICalendarHandler.ImportResult result = importText("BEGIN:VCALENDAR",
+            "BEGIN:VEVENT", "UID:event", "DTSTART:20300301T093000", "END:VEVENT",
+            "BEGIN:VTODO", "UID:no-due", "SUMMARY:Someday", "END:VTODO",
+            "BEGIN:VTODO", "UID:bad-due", "DUE:20301301T093000", "END:VTODO",
+            "BEGIN:VTODO", "UID:nested", "SUMMARY:Outer", "DUE:20300301T093000",
+            "BEGIN:X-CUSTOM", "SUMMARY:Inner", "BEGIN:VALARM", "TRIGGER:-PT5M", "END:VALARM", "END:X-CUSTOM",
+            "END:VTODO",
+            "END:VCALENDAR");
+        
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getSkipped());
+        assertNull(manager.getTaskById("event"));
+        Task nested = manager.getTaskById("nested");
+        assertEquals("Outer", nested.getTitle());
+        assertTrue(nested.getReminderOffsets().isEmpty());
+    }
+    
+    @Test
+    public void importsInBatches() throws IOException {
+        int count = ICalendarHandler.BATCH_SIZE * 2 + 500;
+        StringBuilder ics = new StringBuilder("BEGIN:VCALENDAR\r\n");
+        for (int i = 0; i < count; i++) {
+            ics.append("BEGIN:VTODO\r\nUID:t").append(i).append("\r\nDUE:20300301T093000\r\nEND:VTODO\r\n");
+        }
+        ics.append("END:VCALENDAR\r\n");
+        
+        assertEquals(count, ICalendarHandler.importTasks(new StringReader(ics.toString()), manager).getImported());
+        assertEquals(count, manager.getAllTasks().size());
+    }
+}
@@ -0,0 +1,123 @@
+package com.taskreminder.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for NotificationLedger: time-based pruning, and reloading and compacting the file
+ */
+public class NotificationLedgerTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 3, 1, 12, 0);
+    
+    private final File file = new File(FileHandler.getDataDir(), "notifications.ledger");
+    
+    @Before
+    public void setUp() {
+        setClock(NOW);
+        file.delete();
+    }
+    
+    @After
+    public void tearDown() {
+        AppClock.reset();
+        file.delete();
+    }
+    
+    private static void setClock(LocalDateTime time) {
+        AppClock.set(Clock.fixed(time.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+    
+    @Test
+    public void pruneDropsDeliveriesOlderThanTwoDays() {
+        NotificationLedger ledger = new NotificationLedger();
+        ledger.recordDelivered("old", NOW.minusDays(3));
+        ledger.recordDelivered("edge", NOW.minusDays(2));
+        ledger.recordDelivered("recent", NOW.minusHours(1));
+        ledger.prune(NOW);
+        
+        assertNull(ledger.getLastDelivered("old"));
+        assertEquals(NOW.minusDays(2), ledger.getLastDelivered("edge"));
+        assertEquals(NOW.minusHours(1), ledger.getLastDelivered("recent"));
+        assertEquals(2, ledger.size());
+    }
+    
+    @Test
+    public void recordingPrunesAtMostOnceAnHour() {
+        NotificationLedger ledger = new NotificationLedger();
+        ledger.recordDelivered("stale", NOW.minusDays(2).plusMinutes(30));
+        assertEquals(1, ledger.size());
+        
+        // Past the retention period, but the last prune was less than an hour ago
+        setClock(NOW.plusMinutes(59));
+        ledger.recordDelivered("second", NOW.plusMinutes(59));
+        assertEquals(2, ledger.size());
+        
+        setClock(NOW.plusHours(1));
+        ledger.recordDelivered("third", NOW.plusHours(1));
+        assertNull(ledger.getLastDelivered("stale"));
+        assertEquals(2, ledger.size());
+    }
+    
+    @Test
+    public void redeliveryMovesATaskToTheBack() {
+        NotificationLedger ledger = new NotificationLedger();
+        ledger.recordDelivered("a", NOW.minusDays(3));
+        ledger.recordDelivered("b", NOW.minusDays(1));
+        ledger.recordDelivered("a", NOW);
+        ledger.prune(NOW);
+        
+        assertEquals(NOW, ledger.getLastDelivered("a"));
+        assertEquals(2, ledger.size());
+    }
+    
+    @Test
+    public void forgottenTasksAreNotReminded() {
+        NotificationLedger ledger = new NotificationLedger();
+        ledger.recordDelivered("a", NOW);
+        ledger.recordDelivered("b", NOW);
+        ledger.recordDelivered("c", NOW);
+        ledger.forget("a");
+        ledger.retainAll(new HashSet<>(Arrays.asList("b", "x")));
+        
+        assertNull(ledger.getLastDelivered("a"));
+        assertNull(ledger.getLastDelivered("c"));
+        assertEquals(1, ledger.size());
+    }
+    
+    @Test
+    public void reopeningKeepsRecentDeliveriesAndCompacts() throws IOException {
+        NotificationLedger ledger = NotificationLedger.open();
+        ledger.recordDelivered("old", NOW.minusDays(1));
+        ledger.recordDelivered("kept", NOW.minusHours(6));
+        ledger.recordDelivered("kept", NOW);
+        ledger.close();
+        assertEquals(3, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+        
+        // A torn last line from a crash is skipped
+        Files.write(file.toPath(), "torn".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        setClock(NOW.plusDays(1).plusHours(12));
+        NotificationLedger reopened = NotificationLedger.open();
+        reopened.close();
+        
+        assertNull(reopened.getLastDelivered("old"));
+        assertEquals(NOW, reopened.getLastDelivered("kept"));
+        assertEquals(1, reopened.size());
+        assertEquals(Arrays.asList("kept\t" + NOW),
+            Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+    }
+}
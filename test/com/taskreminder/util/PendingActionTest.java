@@ -0,0 +1,64 @@
+package com.taskreminder.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for PendingAction: only the latest action is held, runs once, and expires
+ */
+public class PendingActionTest {
+    private SimulatedClock clock;
+    
+    @Before
+    public void setUp() {
+        clock = new SimulatedClock(LocalDateTime.of(2030, 1, 1, 9, 0));
+        AppClock.set(clock);
+    }
+    
+    @After
+    public void tearDown() {
+        AppClock.reset();
+    }
+    
+    @Test
+    public void onlyTheLatestActionIsHeldAndRunsOnce() {
+        PendingAction pending = new PendingAction(5000);
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger latest = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            pending.arm(first::incrementAndGet);
+        }
+        pending.arm(latest::incrementAndGet);
+        assertEquals(1, pending.getHeldCount());
+        
+        assertTrue(pending.run());
+        assertFalse(pending.run());
+        assertEquals(0, first.get());
+        assertEquals(1, latest.get());
+        assertEquals(0, pending.getHeldCount());
+    }
+    
+    @Test
+    public void anExpiredActionIsDroppedWithoutRunning() {
+        PendingAction pending = new PendingAction(5000);
+        AtomicInteger runs = new AtomicInteger();
+        pending.arm(runs::incrementAndGet);
+        clock.advance(Duration.ofSeconds(5));
+        assertTrue(pending.run());
+        
+        pending.arm(runs::incrementAndGet);
+        clock.advance(Duration.ofMillis(5001));
+        assertFalse(pending.run());
+        assertEquals(1, runs.get());
+        assertEquals(0, pending.getHeldCount());
+    }
+}
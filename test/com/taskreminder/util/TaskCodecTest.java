@@ -0,0 +1,133 @@
+package com.taskreminder.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.taskreminder.model.Task;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for TaskCodec: round trips of every field and the hand-written date-time format
+ */
+public class TaskCodecTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2030, 3, 1, 9, 30);
+    
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Task.class, new TaskCodec())
+            .create();
+    
+    private Task roundTrip(Task task) {
+        return gson.fromJson(gson.toJson(task, Task.class), Task.class);
+    }
+    
+    @Test
+    public void roundTripsATaskWithEveryField() {
+        Task task = new Task("TASK_1700000000000_7", "Pay \"rent\"", "Line one\nLine two é中", DUE, "HIGH", true)
+            .withCompletedTime(DUE.plusMinutes(3))
+            .withReminderOffsets(Arrays.asList(10, 1440))
+            .withSnoozedUntil(DUE.minusMinutes(5))
+            .withTags(Arrays.asList("home", "money"))
+            .withDependsOn(Arrays.asList("TASK_1", "TASK_2"))
+            .withRecurrenceRule("FREQ=MONTHLY;BYMONTHDAY=1")
+            .withCreatedTime(LocalDateTime.of(2029, 12, 31, 23, 59, 59, 500_000_000));
+        
+        Task read = roundTrip(task);
+        assertTrue(task.hasSameContent(read));
+        assertEquals(Arrays.asList(1440, 10), read.getReminderOffsets());
+    }
+    
+    @Test
+    public void roundTripsAMinimalTask() {
+        Task task = new Task("plain-id", "Call", "", DUE, "LOW", false);
+        Task read = roundTrip(task);
+        
+        assertTrue(task.hasSameContent(read));
+        assertNull(read.getCreatedTime());
+        assertTrue(read.getTags().isEmpty());
+    }
+    
+    @Test
+    public void roundTripsALongDescription() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("word").append(i).append(' ');
+        }
+        Task task = new Task("long", "Notes", text.toString(), DUE, "MEDIUM", false);
+        assertEquals(text.toString(), roundTrip(task).getDescription());
+    }
+    
+    @Test
+    public void leavesOutEmptyOptionalFields() {
+        String json = gson.toJson(new Task("plain-id", "Call", "", DUE, "LOW", false), Task.class);
+        assertEquals("{\"id\":\"plain-id\",\"title\":\"Call\",\"description\":\"\","
+            + "\"reminderTime\":\"2030-03-01T09:30:00\",\"completed\":false,\"priority\":\"LOW\"}", json);
+    }
+    
+    @Test
+    public void skipsUnknownFieldsAndNulls() {
+        Task task = gson.fromJson("{\"id\":\"x\",\"future\":{\"a\":[1,2]},\"title\":\"T\",\"description\":null,"
+            + "\"reminderTime\":\"2030-03-01T09:30\",\"priority\":\"LOW\",\"tags\":null}", Task.class);
+        
+        assertEquals("T", task.getTitle());
+        assertNull(task.getDescription());
+        assertEquals(DUE, task.getReminderTime());
+        assertTrue(task.getTags().isEmpty());
+    }
+    
+    @Test
+    public void roundTripsAList() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tasks.add(new Task("id" + i, "Task " + i, "", DUE.plusHours(i), "LOW", i % 2 == 0));
+        }
+        List<Task> read = gson.fromJson(gson.toJson(tasks), new TypeToken<List<Task>>(){}.getType());
+        assertEquals(tasks.size(), read.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertTrue(tasks.get(i).hasSameContent(read.get(i)));
+        }
+        assertEquals(Collections.emptyList(), gson.fromJson("[]", new TypeToken<List<Task>>(){}.getType()));
+    }
+    
+    @Test
+    public void formatsDateTimesLikeIsoLocalDateTime() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            LocalDateTime time = LocalDateTime.of(1 + random.nextInt(9999), 1 + random.nextInt(12),
+                1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                random.nextInt(4) == 0 ? random.nextInt(1_000_000_000) : 0);
+            String text = TaskCodec.formatDateTime(time);
+            assertEquals(time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME), text);
+            assertEquals(time, TaskCodec.parseDateTime(text));
+        }
+    }
+    
+    @Test
+    public void parsesTimesWithoutSecondsOrWithShortFractions() {
+        assertEquals(DUE, TaskCodec.parseDateTime("2030-03-01T09:30"));
+        assertEquals(DUE.withNano(500_000_000), TaskCodec.parseDateTime("2030-03-01T09:30:00.5"));
+        assertEquals(LocalDateTime.of(12025, 1, 1, 0, 0), TaskCodec.parseDateTime("+12025-01-01T00:00:00"));
+    }
+    
+    @Test(expected = JsonParseException.class)
+    public void rejectsImpossibleDates() {
+        TaskCodec.parseDateTime("2030-02-30T09:30:00");
+    }
+    
+    @Test(expected = JsonParseException.class)
+    public void rejectsMalformedDates() {
+        TaskCodec.parseDateTime("2030-03-01 09:30");
+    }
+}